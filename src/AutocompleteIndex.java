@@ -0,0 +1,335 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Prefix index over product names and categories that suggests the completions of a prefix with the highest
+ * stock value.
+ * <p>
+ * Every distinct name and category, compared without case, is one completion, worth the stock value of the
+ * products it names or groups. Completions are kept in an array sorted by their lower-cased text, so the
+ * completions of a prefix form one range found by binary search, and a max-tree over their values picks the
+ * most valuable completions of that range without visiting the rest: a query costs O(k log n) for k
+ * suggestions. Sales, restocks and price changes only mark their completion as changed; the next query
+ * updates the changed leaves of the tree, so a burst of sales between two keystrokes costs the writers
+ * almost nothing. New names and categories wait in a small sorted map, searched alongside the array, until
+ * too many wait and the array is rebuilt on the next query.
+ *
+ * @author Chloe Nuzillat
+ */
+public class AutocompleteIndex implements ProductIndex {
+    private static final int MIN_PENDING = 1024;
+    private static final int NONE = -1;
+
+    private final Map<String, Completion> completions = new HashMap<>();
+    private final TreeMap<String, Completion> pending = new TreeMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private Completion[] sorted = new Completion[0];
+    private long[] tree = new long[2];
+    private int leaves = 1;
+    private boolean stale;
+    private Completion[] dirty = new Completion[16];
+    private int dirtyCount;
+    private boolean treeStale;
+
+    /**
+     * A name or category and the value and number of the products behind it
+     */
+    private static final class Completion {
+        final String key;
+        String label;
+        long valueCents;
+        int products;
+        int slot = NONE;
+        boolean dirty;
+
+        Completion(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    /**
+     * What one product was last counted as
+     */
+    private static final class Entry {
+        final Product product;
+        final Completion name;
+        Completion category;
+        String categoryLabel;
+        long valueCents;
+
+        Entry(Product product, Completion name) {
+            this.product = product;
+            this.name = name;
+        }
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        Entry previous = entries.remove(product.getId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        Entry entry = new Entry(product, completion(product.getName()));
+        entry.categoryLabel = product.getCategory();
+        entry.category = completion(entry.categoryLabel);
+        entry.valueCents = product.getTotalValueCents();
+        entries.put(product.getId(), entry);
+        count(entry.name, entry.valueCents, 1);
+        count(entry.category, entry.valueCents, 1);
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null && entry.product == product) {
+            entries.remove(product.getId());
+            unlink(entry);
+        }
+    }
+
+    @Override
+    public synchronized void changed(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry == null || entry.product != product) {
+            return;
+        }
+        long valueCents = product.getTotalValueCents();
+        String category = product.getCategory();
+        if (!Objects.equals(entry.categoryLabel, category)) {
+            entry.categoryLabel = category;
+            count(entry.category, -entry.valueCents, -1);
+            entry.category = completion(category);
+            count(entry.category, valueCents, 1);
+        } else if (valueCents != entry.valueCents) {
+            count(entry.category, valueCents - entry.valueCents, 0);
+        }
+        if (valueCents != entry.valueCents) {
+            count(entry.name, valueCents - entry.valueCents, 0);
+            entry.valueCents = valueCents;
+        }
+    }
+
+    /**
+     * Suggests the names and categories starting with a prefix, ignoring case, with the highest stock value
+     *
+     * @param prefix the text typed so far
+     * @param limit the largest number of suggestions
+     * @return a new list of at most limit names and categories, most valuable first, empty for a blank prefix
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        List<String> suggestions = new ArrayList<>(limit);
+        if (isBlank(prefix) || limit <= 0) {
+            return suggestions;
+        }
+        if (stale) {
+            rebuild();
+        } else {
+            refreshTree();
+        }
+        String key = TrigramIndex.normalize(prefix);
+        String end = key + Character.MAX_VALUE;
+
+        List<Completion> found = new ArrayList<>(limit * 2);
+        PriorityQueue<Integer> nodes = new PriorityQueue<>(
+                Comparator.comparingLong((Integer node) -> tree[node]).reversed());
+        int low = leaves + lowerBound(key);
+        int high = leaves + lowerBound(end);
+        while (low < high) {
+            if ((low & 1) == 1) {
+                nodes.add(low++);
+            }
+            if ((high & 1) == 1) {
+                nodes.add(--high);
+            }
+            low >>= 1;
+            high >>= 1;
+        }
+        while (found.size() < limit && !nodes.isEmpty()) {
+            int node = nodes.poll();
+            if (tree[node] == Long.MIN_VALUE) {
+                break;
+            }
+            if (node >= leaves) {
+                found.add(sorted[node - leaves]);
+            } else {
+                nodes.add(2 * node);
+                nodes.add(2 * node + 1);
+            }
+        }
+        for (Completion completion : pending.subMap(key, end).values()) {
+            found.add(completion);
+        }
+
+        found.sort(Comparator.comparingLong((Completion completion) -> completion.valueCents).reversed());
+        for (int i = 0; i < found.size() && suggestions.size() < limit; i++) {
+            suggestions.add(found.get(i).label);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Gets the completion for a name or category, creating it if new
+     */
+    private Completion completion(String label) {
+        if (isBlank(label)) {
+            return null;
+        }
+        String key = TrigramIndex.normalize(label);
+        Completion completion = completions.get(key);
+        if (completion == null) {
+            completion = new Completion(key, label);
+            completions.put(key, completion);
+            addPending(completion);
+        } else if (completion.products == 0) {
+            completion.label = label;
+            if (completion.slot == NONE) {
+                addPending(completion);
+            }
+        }
+        return completion;
+    }
+
+    /**
+     * Adds a new completion to the pending map, or gives up on the map and marks the array for rebuilding once
+     * too many are waiting, as when the index is first filled
+     */
+    private void addPending(Completion completion) {
+        if (stale) {
+            return;
+        }
+        pending.put(completion.key, completion);
+        if (pending.size() > Math.max(MIN_PENDING, sorted.length >> 4)) {
+            pending.clear();
+            stale = true;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        count(entry.name, -entry.valueCents, -1);
+        count(entry.category, -entry.valueCents, -1);
+    }
+
+    /**
+     * Adds a product's value to a completion, and drops the completion once no product is left behind it
+     */
+    private void count(Completion completion, long valueCents, int products) {
+        if (completion == null) {
+            return;
+        }
+        completion.valueCents += valueCents;
+        completion.products += products;
+        if (completion.slot != NONE) {
+            if (!completion.dirty && !treeStale) {
+                completion.dirty = true;
+                if (dirtyCount == dirty.length) {
+                    dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+                }
+                dirty[dirtyCount++] = completion;
+                if (dirtyCount > Math.max(MIN_PENDING, sorted.length >> 3)) {
+                    treeStale = true;
+                }
+            }
+        } else if (completion.products == 0) {
+            pending.remove(completion.key);
+            completions.remove(completion.key);
+        }
+    }
+
+    /**
+     * Brings the tree up to date with the completions changed since the last query. A few changed leaves are
+     * updated one at a time, climbing only while the maximum changes; after many changes every leaf is
+     * reloaded and the tree recomputed in one pass.
+     */
+    private void refreshTree() {
+        if (treeStale) {
+            for (int slot = 0; slot < sorted.length; slot++) {
+                Completion completion = sorted[slot];
+                completion.dirty = false;
+                tree[leaves + slot] = completion.products > 0 ? completion.valueCents : Long.MIN_VALUE;
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        } else {
+            for (int i = 0; i < dirtyCount; i++) {
+                Completion completion = dirty[i];
+                completion.dirty = false;
+                int node = leaves + completion.slot;
+                tree[node] = completion.products > 0 ? completion.valueCents : Long.MIN_VALUE;
+                for (node >>= 1; node > 0; node >>= 1) {
+                    long max = Math.max(tree[2 * node], tree[2 * node + 1]);
+                    if (tree[node] == max) {
+                        break;
+                    }
+                    tree[node] = max;
+                }
+                dirty[i] = null;
+            }
+        }
+        dirtyCount = 0;
+        treeStale = false;
+    }
+
+    /**
+     * Merges the pending completions into the sorted array, dropping completions with no products left
+     */
+    private void rebuild() {
+        List<Completion> live = new ArrayList<>(completions.size());
+        for (Completion completion : completions.values()) {
+            if (completion.products > 0) {
+                live.add(completion);
+            }
+        }
+        completions.values().removeIf(completion -> completion.products == 0);
+        live.sort(Comparator.comparing((Completion completion) -> completion.key));
+        pending.clear();
+        stale = false;
+        Arrays.fill(dirty, 0, dirtyCount, null);
+        dirtyCount = 0;
+        treeStale = false;
+
+        sorted = live.toArray(new Completion[0]);
+        leaves = Integer.highestOneBit(Math.max(1, sorted.length - 1)) << 1;
+        tree = new long[2 * leaves];
+        Arrays.fill(tree, Long.MIN_VALUE);
+        for (int slot = 0; slot < sorted.length; slot++) {
+            sorted[slot].slot = slot;
+            sorted[slot].dirty = false;
+            tree[leaves + slot] = sorted[slot].valueCents;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Finds the first slot of the sorted array whose text is not less than a key
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].key.compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
+}
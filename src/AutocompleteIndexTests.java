@@ -0,0 +1,150 @@
+package src;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test suite for the AutocompleteIndex class and search completions in InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class AutocompleteIndexTests {
+
+    /**
+     * Runs all autocomplete index tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running AutocompleteIndex Tests...\n");
+
+        testCompletions();
+        testMaintenance();
+        testRandomCompletions();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that names and categories starting with a prefix are suggested, most valuable first
+     */
+    private static void testCompletions() {
+        System.out.println("Completion Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        manager.addProduct("Lamp", 10, 2, 2);
+        manager.addProduct("Mouse", 10, 2, 3);
+        manager.findProduct(1).setPrice(900.0);
+        manager.findProduct(2).setPrice(20.0);
+        manager.findProduct(3).setPrice(25.0);
+        manager.findProduct(3).setCategory("Laptop Accessories");
+
+        SimpleTestFramework.assertEquals(List.of("Laptop", "Laptop Accessories", "Lamp"),
+                manager.getCompletions("la", 5), "Names and categories by value");
+        SimpleTestFramework.assertEquals(List.of("Laptop"), manager.getCompletions("LA", 1), "Limit and case");
+        SimpleTestFramework.assertEquals(List.of("Laptop", "Laptop Accessories"),
+                manager.getCompletions("laptop", 5), "Longer prefix narrows");
+        SimpleTestFramework.assertEquals(0, manager.getCompletions("x", 5).size(), "No completions");
+        SimpleTestFramework.assertEquals(0, manager.getCompletions(" ", 5).size(), "Blank prefix");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that sales, price changes, new categories and deletes re-rank or drop completions
+     */
+    private static void testMaintenance() {
+        System.out.println("Index Maintenance Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        for (int id = 0; id < 3000; id++) {
+            manager.addProduct("Item " + id, 10, 0, id);
+            manager.findProduct(id).setPrice(1.0);
+        }
+        AutocompleteIndex index = manager.getAutocompleteIndex();
+        manager.findProduct(7).setPrice(50.0);
+        SimpleTestFramework.assertEquals(List.of("Item 7"), index.complete("item", 1), "Price change re-ranks");
+
+        manager.sellProduct(7, 10);
+        manager.restockProduct(90, 42);
+        SimpleTestFramework.assertEquals(List.of("Item 42"), index.complete("item", 1), "Stock changes re-rank");
+
+        manager.findProduct(42).setCategory("Items on sale");
+        SimpleTestFramework.assertEquals(List.of("Item 42", "Items on sale"), index.complete("item", 2),
+                "New category suggested");
+        manager.addProduct("Itemizer", 1, 0, 5000);
+        manager.findProduct(5000).setPrice(10_000.0);
+        SimpleTestFramework.assertEquals(List.of("Itemizer"), index.complete("item", 1), "New name suggested");
+
+        manager.deleteProduct(5000);
+        manager.deleteProduct(42);
+        SimpleTestFramework.assertEquals(0, index.complete("itemi", 5).size(), "Deleted name dropped");
+        SimpleTestFramework.assertEquals(0, index.complete("items", 5).size(), "Emptied category dropped");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that completions match a brute-force ranking after many random changes
+     */
+    private static void testRandomCompletions() {
+        System.out.println("Random Completion Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(21);
+        AutocompleteIndex index = manager.getAutocompleteIndex();
+        for (int i = 0; i < 30_000; i++) {
+            int id = random.nextInt(4000);
+            Product product = manager.findProduct(id);
+            switch (random.nextInt(5)) {
+                case 0 -> manager.addProduct("Part " + random.nextInt(2000), random.nextInt(100), 0, id);
+                case 1 -> manager.deleteProduct(id);
+                case 2 -> {
+                    if (product != null) {
+                        product.setCategory(random.nextInt(5) == 0 ? null : "Parts " + random.nextInt(50));
+                    }
+                }
+                case 3 -> {
+                    if (product != null) {
+                        product.setPrice(random.nextInt(10_000) / 100.0);
+                    }
+                }
+                default -> {
+                    if (product != null && product.getQuantity() > 0) {
+                        manager.sellProduct(id, 1);
+                    }
+                }
+            }
+            if (i % 3000 == 0) {
+                index.complete("p", 1);
+            }
+        }
+
+        boolean matches = true;
+        for (String prefix : new String[] {"part 1", "parts 2", "PART 19", "p"}) {
+            Map<String, Long> values = new HashMap<>();
+            for (Product product : manager.getAllProducts()) {
+                values.merge(product.getName(), product.getTotalValueCents(), Long::sum);
+                if (product.getCategory() != null) {
+                    values.merge(product.getCategory(), product.getTotalValueCents(), Long::sum);
+                }
+            }
+            List<Long> expected = values.entrySet().stream()
+                    .filter(entry -> entry.getKey().toLowerCase().startsWith(prefix.toLowerCase()))
+                    .map(Map.Entry::getValue)
+                    .sorted(Comparator.reverseOrder())
+                    .limit(10)
+                    .toList();
+            List<Long> actual = index.complete(prefix, 10).stream().map(values::get).toList();
+            matches &= expected.equals(actual);
+        }
+        SimpleTestFramework.assertTrue(matches, "Completions match a brute-force ranking");
+
+        System.out.println();
+    }
+}
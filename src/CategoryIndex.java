@@ -0,0 +1,295 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Secondary index from category to the products in it, with a running product count, stock total and
+ * value total per category. Values are kept exactly, in whole cents, as in {@link InventoryTotals}.
+ * <p>
+ * The index remembers the category, quantity and value each product was last counted with, so a change to a
+ * product only moves its own contribution: a sale adjusts the totals of its category, and a new category
+ * moves the product between two buckets. Each bucket keeps its products in order of id, so a page of a
+ * category starting after some id is found without reading the rest. Lookups cost the size of the result
+ * and listing the categories costs the number of categories. Stock changes only lock the product's own
+ * entry; adding, removing and recategorising products lock the whole index.
+ *
+ * @author Chloe Nuzillat
+ */
+public class CategoryIndex implements ProductIndex {
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private volatile int categoryCount;
+
+    /**
+     * The products of one category and their totals
+     */
+    private static final class Bucket {
+        final ConcurrentSkipListMap<Integer, Product> products = new ConcurrentSkipListMap<>();
+        final LongAdder quantity = new LongAdder();
+        final LongAdder valueCents = new LongAdder();
+        volatile int size;
+    }
+
+    /**
+     * What one product was last counted as
+     */
+    private static final class Entry {
+        final Product product;
+        volatile String category;
+        Bucket bucket;
+        int quantity;
+        long valueCents;
+
+        Entry(Product product) {
+            this.product = product;
+        }
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        Entry previous = entries.get(product.getId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        Entry entry = new Entry(product);
+        entries.put(product.getId(), entry);
+        link(entry);
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null && entry.product == product) {
+            entries.remove(product.getId());
+            unlink(entry);
+        }
+    }
+
+    @Override
+    public void changed(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry == null || entry.product != product) {
+            return;
+        }
+        if (!Objects.equals(entry.category, product.getCategory())) {
+            synchronized (this) {
+                if (entries.get(product.getId()) == entry) {
+                    unlink(entry);
+                    link(entry);
+                }
+            }
+            return;
+        }
+        synchronized (entry) {
+            Bucket bucket = entry.bucket;
+            int quantity = product.getQuantity();
+            long valueCents = product.getTotalValueCents();
+            if (bucket != null) {
+                bucket.quantity.add(quantity - entry.quantity);
+                bucket.valueCents.add(valueCents - entry.valueCents);
+            }
+            entry.quantity = quantity;
+            entry.valueCents = valueCents;
+        }
+    }
+
+    /**
+     * Gets the products in a category
+     *
+     * @param category the category
+     * @return a new list of the products in it
+     */
+    public List<Product> getProducts(String category) {
+        Bucket bucket = category == null ? null : buckets.get(category);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.products.values());
+    }
+
+    /**
+     * Gets the products in a category with an id greater than a given one, lowest id first
+     *
+     * @param category the category
+     * @param afterId the id to start after
+     * @param limit the largest number of products to return
+     * @return a new list of at most limit products
+     */
+    public List<Product> getProducts(String category, long afterId, int limit) {
+        List<Product> products = new ArrayList<>();
+        Bucket bucket = category == null ? null : buckets.get(category);
+        if (bucket == null || afterId >= Integer.MAX_VALUE) {
+            return products;
+        }
+        Map<Integer, Product> after = afterId < Integer.MIN_VALUE ? bucket.products
+                : bucket.products.tailMap((int) afterId, false);
+        for (Product product : after.values()) {
+            if (products.size() >= limit) {
+                break;
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Gets a live view of the products in a category, for reading them without copying
+     *
+     * @param category the category
+     * @return the products, which may change while they are read
+     */
+    Iterable<Product> products(String category) {
+        Bucket bucket = category == null ? null : buckets.get(category);
+        return bucket == null ? List.of() : bucket.products.values();
+    }
+
+    /**
+     * Gets every category with at least one product, leaving out blank categories
+     *
+     * @return a new list of the categories
+     */
+    public List<String> getCategories() {
+        List<String> categories = new ArrayList<>(buckets.size());
+        for (String category : buckets.keySet()) {
+            if (!category.trim().isEmpty()) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Gets the number of categories with at least one product, leaving out blank categories
+     *
+     * @return the category count
+     */
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * Gets the number of products in a category
+     *
+     * @param category the category
+     * @return the product count
+     */
+    public int getProductCount(String category) {
+        Bucket bucket = category == null ? null : buckets.get(category);
+        return bucket == null ? 0 : bucket.size;
+    }
+
+    /**
+     * Gets the stock on hand of all products in a category
+     *
+     * @param category the category
+     * @return the total quantity
+     */
+    public long getTotalQuantity(String category) {
+        Bucket bucket = category == null ? null : buckets.get(category);
+        return bucket == null ? 0 : bucket.quantity.sum();
+    }
+
+    /**
+     * Gets the value of all products in a category
+     *
+     * @param category the category
+     * @return the total value
+     */
+    public double getTotalValue(String category) {
+        return getTotalValueCents(category) / 100.0;
+    }
+
+    /**
+     * Gets the value of all products in a category in whole cents
+     *
+     * @param category the category
+     * @return the total value in cents
+     */
+    public long getTotalValueCents(String category) {
+        Bucket bucket = category == null ? null : buckets.get(category);
+        return bucket == null ? 0 : bucket.valueCents.sum();
+    }
+
+    /**
+     * Recomputes the product count, stock and value of every category from the products and compares them
+     * with the running ones. The caller must keep the products from changing meanwhile.
+     *
+     * @param products every product the index should cover
+     * @return true if every category matches
+     */
+    boolean verify(Iterable<Product> products) {
+        Map<String, long[]> expected = new HashMap<>();
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                long[] totals = expected.computeIfAbsent(product.getCategory(), category -> new long[3]);
+                totals[0]++;
+                totals[1] += product.getQuantity();
+                totals[2] += product.getTotalValueCents();
+            }
+        }
+        if (expected.size() != buckets.size()) {
+            return false;
+        }
+        for (Map.Entry<String, long[]> category : expected.entrySet()) {
+            Bucket bucket = buckets.get(category.getKey());
+            long[] totals = category.getValue();
+            if (bucket == null || bucket.size != totals[0] || bucket.quantity.sum() != totals[1]
+                    || bucket.valueCents.sum() != totals[2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void link(Entry entry) {
+        synchronized (entry) {
+            Product product = entry.product;
+            entry.category = product.getCategory();
+            entry.quantity = product.getQuantity();
+            entry.valueCents = product.getTotalValueCents();
+            if (entry.category != null) {
+                Bucket bucket = buckets.get(entry.category);
+                if (bucket == null) {
+                    bucket = new Bucket();
+                    buckets.put(entry.category, bucket);
+                    if (!entry.category.trim().isEmpty()) {
+                        categoryCount++;
+                    }
+                }
+                entry.bucket = bucket;
+                if (bucket.products.put(product.getId(), product) == null) {
+                    bucket.size++;
+                }
+                bucket.quantity.add(entry.quantity);
+                bucket.valueCents.add(entry.valueCents);
+            }
+        }
+    }
+
+    private void unlink(Entry entry) {
+        synchronized (entry) {
+            Bucket bucket = entry.bucket;
+            if (bucket == null) {
+                return;
+            }
+            if (bucket.products.remove(entry.product.getId()) != null) {
+                bucket.size--;
+            }
+            if (bucket.products.isEmpty()) {
+                buckets.remove(entry.category);
+                if (!entry.category.trim().isEmpty()) {
+                    categoryCount--;
+                }
+            } else {
+                bucket.quantity.add(-entry.quantity);
+                bucket.valueCents.add(-entry.valueCents);
+            }
+            entry.category = null;
+            entry.bucket = null;
+        }
+    }
+}
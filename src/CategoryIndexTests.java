@@ -0,0 +1,155 @@
+package src;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test suite for the CategoryIndex class and its use by InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class CategoryIndexTests {
+
+    /**
+     * Runs all category index tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running CategoryIndex Tests...\n");
+
+        testMaintenance();
+        testRandomChanges();
+        testConcurrentSales();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that counts and totals follow sales, price changes, new categories and deletes
+     */
+    private static void testMaintenance() {
+        System.out.println("Index Maintenance Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        manager.addProduct("Mouse", 20, 2, 2);
+        manager.findProduct(1).setCategory("Electronics");
+        manager.findProduct(1).setPrice(100.0);
+        CategoryIndex index = manager.getCategoryIndex();
+
+        manager.findProduct(2).setCategory("Electronics");
+        manager.findProduct(2).setPrice(5.0);
+        SimpleTestFramework.assertEquals(2, index.getProductCount("Electronics"), "Added products counted");
+        SimpleTestFramework.assertEquals(1100.0, index.getTotalValue("Electronics"), "Values totalled");
+
+        manager.sellProduct(1, 4);
+        SimpleTestFramework.assertEquals(26L, index.getTotalQuantity("Electronics"), "Sale adjusts the stock total");
+        SimpleTestFramework.assertEquals(700.0, index.getTotalValue("Electronics"), "Sale adjusts the value total");
+
+        manager.findProduct(2).setCategory("Accessories");
+        SimpleTestFramework.assertEquals(1, index.getProductCount("Electronics"), "Product leaves its category");
+        SimpleTestFramework.assertEquals(100.0, index.getTotalValue("Accessories"), "Product joins its category");
+        SimpleTestFramework.assertEquals(2, manager.getAllCategories().size(), "Both categories listed");
+
+        manager.deleteProduct(1);
+        SimpleTestFramework.assertEquals(0, manager.getProductsByCategory("Electronics").size(),
+                "Deleted product unindexed");
+        SimpleTestFramework.assertEquals(List.of("Accessories"), manager.getAllCategories(),
+                "Empty category dropped");
+
+        manager.addProduct("Mouse", 3, 1, 2);
+        SimpleTestFramework.assertEquals(0, index.getProductCount("Accessories"), "Replaced product unindexed");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that the index matches a full scan after many random changes
+     */
+    private static void testRandomChanges() {
+        System.out.println("Random Change Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(17);
+        for (int id = 0; id < 500; id++) {
+            manager.addProduct("Product " + id, 1000, 0, id);
+        }
+        CategoryIndex index = manager.getCategoryIndex();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(600);
+            Product product = manager.findProduct(id);
+            switch (random.nextInt(5)) {
+                case 0 -> manager.addProduct("Product " + id, random.nextInt(1000), 0, id);
+                case 1 -> manager.deleteProduct(id);
+                case 2 -> {
+                    if (product != null) {
+                        product.setCategory(random.nextInt(10) == 0 ? null : "Category " + random.nextInt(20));
+                    }
+                }
+                case 3 -> {
+                    if (product != null) {
+                        product.updatePrice(random.nextInt(100) / 4.0);
+                    }
+                }
+                default -> {
+                    if (product != null && product.getQuantity() > 0) {
+                        manager.sellProduct(id, 1);
+                    }
+                }
+            }
+        }
+
+        boolean matches = true;
+        for (int category = 0; category < 20; category++) {
+            String name = "Category " + category;
+            List<Product> scanned = manager.getAllProducts().stream()
+                    .filter(product -> name.equals(product.getCategory()))
+                    .toList();
+            long quantity = scanned.stream().mapToLong(Product::getQuantity).sum();
+            double value = scanned.stream().mapToDouble(Product::getTotalValue).sum();
+            matches &= scanned.size() == index.getProductCount(name)
+                    && quantity == index.getTotalQuantity(name)
+                    && Math.abs(value - index.getTotalValue(name)) < 1e-6;
+        }
+        SimpleTestFramework.assertTrue(matches, "Index matches a full scan");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that concurrent sales in one category keep its totals exact
+     */
+    private static void testConcurrentSales() {
+        System.out.println("Concurrent Sale Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        for (int id = 0; id < 16; id++) {
+            manager.addProduct("Product " + id, 10_000, 0, id);
+            manager.findProduct(id).setCategory("Shared");
+        }
+        CategoryIndex index = manager.getCategoryIndex();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    manager.sellProduct(i % 16, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        SimpleTestFramework.assertEquals(16L * 10_000 - 4 * 5000, index.getTotalQuantity("Shared"),
+                "Every concurrent sale counted");
+
+        System.out.println();
+    }
+}
@@ -0,0 +1,177 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test suite for an InventoryManager in concurrent mode
+ *
+ * @author Chloe Nuzillat
+ */
+public class ConcurrentInventoryTests {
+    private static final int THREADS = 8;
+
+    /**
+     * Runs all concurrent inventory tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running Concurrent Inventory Tests...\n");
+
+        testNoLostUpdates();
+        testNoOverselling();
+        testWholeInventoryReads();
+        testOptimisticUpdates();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that concurrent sales and restocks of the same products are all counted
+     */
+    private static void testNoLostUpdates() {
+        System.out.println("Lost Update Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        for (int id = 1; id <= 4; id++) {
+            manager.addProduct("Product " + id, 100_000, 0, id);
+        }
+        runThreads(thread -> {
+            for (int i = 0; i < 10_000; i++) {
+                int id = 1 + i % 4;
+                manager.sellProduct(id, 2);
+                manager.restockProduct(1, id);
+            }
+        });
+
+        int total = manager.getAllProducts().stream().mapToInt(Product::getQuantity).sum();
+        SimpleTestFramework.assertEquals(400_000 - THREADS * 10_000, total, "Every sale and restock counted");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that many threads selling the last units never take stock below zero
+     */
+    private static void testNoOverselling() {
+        System.out.println("Overselling Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        manager.addProduct("Limited", 1000, 0, 1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        runThreads(thread -> {
+            for (int i = 0; i < 200; i++) {
+                try {
+                    manager.sellProduct(1, 1);
+                    sold.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        SimpleTestFramework.assertEquals(1000, sold.get(), "Exactly the available stock is sold");
+        SimpleTestFramework.assertEquals(THREADS * 200 - 1000, refused.get(), "Remaining sales are refused");
+        SimpleTestFramework.assertEquals(0, manager.getAllProducts().getFirst().getQuantity(), "Stock ends at zero");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that whole-inventory reads keep working while other threads add, sell and delete products
+     */
+    private static void testWholeInventoryReads() {
+        System.out.println("Whole Inventory Read Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        for (int id = 1; id <= 64; id++) {
+            manager.addProduct("Product " + id, 10, 0, id);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        runThreads(thread -> {
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    if (thread == 0) {
+                        manager.getAllProducts();
+                        manager.getAllCategories();
+                        manager.getTotalInventoryValue();
+                    } else {
+                        int id = 1000 + thread;
+                        manager.addProduct("Temporary " + thread, 1, 0, id);
+                        manager.sellProduct(1 + i % 64, 1);
+                        manager.restockProduct(1, 1 + i % 64);
+                        manager.deleteProduct(id);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+
+        SimpleTestFramework.assertNull(failure.get(), "Reads never fail while products change");
+        SimpleTestFramework.assertEquals(64, manager.getAllProducts().size(), "Temporary products removed");
+        SimpleTestFramework.assertEquals(640, manager.getAllProducts().stream().mapToInt(Product::getQuantity).sum(),
+                "Stock balanced after paired sales and restocks");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that read-modify-write price updates retried on a stale version never overwrite each other
+     */
+    private static void testOptimisticUpdates() {
+        System.out.println("Optimistic Update Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        manager.addProduct("Contended", 10, 0, 1);
+        Product product = manager.getAllProducts().getFirst();
+        runThreads(thread -> {
+            for (int i = 0; i < 1000; i++) {
+                while (true) {
+                    long version = product.getVersion();
+                    if (manager.compareAndSetPrice(1, version, product.getPrice() + 1)) {
+                        break;
+                    }
+                }
+                if (i % 100 == 0) {
+                    product.setCategory("Thread " + thread);
+                }
+            }
+        });
+
+        SimpleTestFramework.assertEquals((double) THREADS * 1000, product.getPrice(), "Every increment kept");
+        SimpleTestFramework.assertFalse(manager.compareAndSetPrice(2, 0, 1.0), "Unknown product refused");
+
+        System.out.println();
+    }
+
+    /**
+     * Runs the same work on several threads and waits for all of them
+     */
+    private static void runThreads(ThreadWork work) {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> work.run(thread)));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadWork {
+        void run(int thread);
+    }
+}
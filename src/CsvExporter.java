@@ -0,0 +1,354 @@
+package src;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes products to CSV in the same layout as the GUI export, optionally gzip compressed.
+ * <p>
+ * Rows are formatted straight into a large byte buffer with hand-rolled integer and two-decimal formatting,
+ * so no strings or formatters are created per row apart from encoding non-ASCII text. Plain output goes from
+ * a direct buffer straight to the file channel; compressed output is formatted into a heap buffer whose array
+ * is handed to the gzip stream as a whole, over a large buffered file stream. Names and categories
+ * containing commas, quotes or line breaks are quoted as in RFC 4180. The file is written under a temporary
+ * name and renamed when complete, so a cancelled or failed export never leaves a partial file behind.
+ *
+ * @author Chloe Nuzillat
+ */
+public class CsvExporter implements AutoCloseable {
+    static final String HEADER = "ID,Name,Quantity,Price,Category,Threshold,Low Stock,Total Value\n";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int PROGRESS_INTERVAL = 1 << 14;
+    private static final double MAX_FAST_DECIMAL = 1e13;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "csv-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Receives export progress
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called periodically while rows are written and once at the end
+         *
+         * @param rowsWritten the rows written so far
+         * @param totalRows the rows to write in total
+         */
+        void onProgress(long rowsWritten, long totalRows);
+    }
+
+    /**
+     * Starts an export on the background thread. Cancelling the returned future with interruption stops the
+     * export and removes the partial file.
+     *
+     * @param products the products to export, which must not be modified until the export finishes
+     * @param target the CSV file to write
+     * @param gzip true to gzip compress the output
+     * @param listener receives progress, may be null
+     * @return a future holding the number of bytes written
+     */
+    public Future<Long> exportAsync(Collection<Product> products, Path target, boolean gzip,
+                                    ProgressListener listener) {
+        return worker.submit(() -> export(products, target, gzip, listener));
+    }
+
+    /**
+     * Exports products on the calling thread
+     *
+     * @param products the products to export
+     * @param target the CSV file to write
+     * @param gzip true to gzip compress the output
+     * @param listener receives progress, may be null
+     * @return the number of bytes written before compression
+     * @throws IOException if the file cannot be written or the thread was interrupted
+     */
+    public static long export(Collection<Product> products, Path target, boolean gzip,
+                              ProgressListener listener) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        long written;
+        try {
+            if (gzip) {
+                try (OutputStream out = new FastGzipOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                    written = write(products, new StreamChannel(out), listener);
+                }
+            } else {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    written = write(products, channel, listener);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return written;
+    }
+
+    /**
+     * Writes the header and one row per product to a channel
+     *
+     * @param products the products to export
+     * @param channel the destination
+     * @param listener receives progress, may be null
+     * @return the number of bytes written
+     * @throws IOException if the channel cannot be written or the thread was interrupted
+     */
+    public static long write(Collection<Product> products, WritableByteChannel channel,
+                             ProgressListener listener) throws IOException {
+        RowWriter writer = new RowWriter(channel);
+        writer.putAscii(HEADER);
+        long total = products.size();
+        long rows = 0;
+        for (Product product : products) {
+            writer.putRow(product);
+            if (++rows % PROGRESS_INTERVAL == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Export cancelled after " + rows + " rows");
+                }
+                if (listener != null) {
+                    listener.onProgress(rows, total);
+                }
+            }
+        }
+        long written = writer.finish();
+        if (listener != null) {
+            listener.onProgress(rows, total);
+        }
+        return written;
+    }
+
+    /**
+     * Stops the background thread once queued exports have finished
+     */
+    @Override
+    public void close() {
+        worker.shutdown();
+    }
+
+    /**
+     * Gzip stream using the fastest compression level, which still shrinks CSV several times over
+     */
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, 1 << 16);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    /**
+     * Channel over a stream that hands the backing array of a heap buffer to the stream in one write, instead
+     * of copying it through a small transfer array as {@link java.nio.channels.Channels#newChannel} does
+     */
+    private static final class StreamChannel implements WritableByteChannel {
+        private final OutputStream out;
+        private boolean open = true;
+
+        StreamChannel(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (source.hasArray()) {
+                out.write(source.array(), source.arrayOffset() + source.position(), length);
+                source.position(source.limit());
+            } else {
+                byte[] bytes = new byte[length];
+                source.get(bytes);
+                out.write(bytes);
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    /**
+     * Formats rows into a reusable buffer, direct when writing to a file channel and on the heap otherwise
+     */
+    static final class RowWriter {
+        private final WritableByteChannel channel;
+        private final boolean direct;
+        private final byte[] digits = new byte[20];
+        private ByteBuffer buffer;
+        private long written;
+
+        RowWriter(WritableByteChannel channel) {
+            this.channel = channel;
+            this.direct = channel instanceof FileChannel;
+            this.buffer = allocate(BUFFER_SIZE);
+        }
+
+        private ByteBuffer allocate(int capacity) {
+            return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+
+        void putRow(Product product) throws IOException {
+            String name = product.getName();
+            String category = product.getCategory();
+            ensure(160 + 6 * (name.length() + (category == null ? 0 : category.length())));
+
+            putLong(product.getId());
+            buffer.put((byte) ',');
+            putText(name);
+            buffer.put((byte) ',');
+            putLong(product.getQuantity());
+            buffer.put((byte) ',');
+            putDecimal(product.getPrice());
+            buffer.put((byte) ',');
+            if (category != null) {
+                putText(category);
+            }
+            buffer.put((byte) ',');
+            putLong(product.getQuantityThreshold());
+            buffer.put((byte) ',');
+            if (product.isLowStock()) {
+                buffer.put((byte) 'Y').put((byte) 'e').put((byte) 's');
+            } else {
+                buffer.put((byte) 'N').put((byte) 'o');
+            }
+            buffer.put((byte) ',');
+            putDecimal(product.getTotalValue());
+            buffer.put((byte) '\n');
+        }
+
+        void putAscii(String text) throws IOException {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+        }
+
+        void putLong(long value) {
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int position = digits.length;
+            do {
+                digits[--position] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            buffer.put(digits, position, digits.length - position);
+        }
+
+        /**
+         * Writes a value with exactly two decimals as String.format("%.2f") does, rounding the shortest
+         * decimal form of the value half away from zero: 1.005 is written as 1.01 although the double is
+         * slightly below it. The halfway point between two cent values, computed by one correctly rounded
+         * division, is the double nearest that decimal, so the value rounds up exactly when it is not below it.
+         */
+        void putDecimal(double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FAST_DECIMAL) {
+                String text = String.format("%.2f", value);
+                for (int i = 0; i < text.length(); i++) {
+                    buffer.put((byte) text.charAt(i));
+                }
+                return;
+            }
+            double magnitude = Math.abs(value);
+            long cents = (long) Math.floor(magnitude * 100);
+            if (magnitude >= (2 * cents + 1) / 200.0) {
+                cents++;
+            }
+            if (Double.doubleToRawLongBits(value) < 0) {
+                buffer.put((byte) '-');
+            }
+            putLong(cents / 100);
+            long fraction = cents % 100;
+            buffer.put((byte) '.').put((byte) ('0' + fraction / 10)).put((byte) ('0' + fraction % 10));
+        }
+
+        /**
+         * Writes text as UTF-8, quoting it when it contains a comma, quote or line break
+         */
+        void putText(String text) {
+            boolean ascii = true;
+            boolean quote = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                } else if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    quote = true;
+                }
+            }
+            if (quote) {
+                buffer.put((byte) '"');
+            }
+            if (ascii) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '"') {
+                        buffer.put((byte) '"');
+                    }
+                    buffer.put((byte) c);
+                }
+            } else {
+                String escaped = quote ? text.replace("\"", "\"\"") : text;
+                buffer.put(escaped.getBytes(StandardCharsets.UTF_8));
+            }
+            if (quote) {
+                buffer.put((byte) '"');
+            }
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+                if (buffer.capacity() < bytes) {
+                    buffer = allocate(bytes);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        long finish() throws IOException {
+            flush();
+            return written;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package src;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Test suite for the CsvExporter class
+ *
+ * @author Chloe Nuzillat
+ */
+public class CsvExporterTests {
+
+    /**
+     * Runs all CSV exporter tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running CsvExporter Tests...\n");
+
+        testFormatting();
+        testDecimalRounding();
+        testRoundTrip();
+        testBackgroundExport();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests number formatting and quoting against the previous String.format output
+     */
+    private static void testFormatting() {
+        System.out.println("Formatting Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("export");
+            Path csv = dir.resolve("export.csv");
+            Product laptop = new Product("Laptop", 10, 2, 1);
+            laptop.setPrice(999.999);
+            laptop.setCategory("Electronics");
+            Product cable = new Product("Cable, USB-C", 1, 5, 2);
+            cable.setPrice(0.5);
+            Product monitor = new Product("27\" Monitor", 0, 1, 3);
+            monitor.setPrice(189.004);
+            monitor.setCategory("Café");
+
+            CsvExporter.export(List.of(laptop, cable, monitor), csv, false, null);
+            List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+            SimpleTestFramework.assertEquals(CsvExporter.HEADER.trim(), lines.get(0), "Header written");
+            SimpleTestFramework.assertEquals("1,Laptop,10,1000.00,Electronics,2,No,9999.99", lines.get(1),
+                    "Prices rounded to two decimals");
+            SimpleTestFramework.assertEquals("2,\"Cable, USB-C\",1,0.50,,5,Yes,0.50", lines.get(2),
+                    "Name with comma quoted");
+            SimpleTestFramework.assertEquals("3,\"27\"\" Monitor\",0,189.00,Café,1,Yes,0.00", lines.get(3),
+                    "Quotes doubled and UTF-8 kept");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that prices and values are written exactly as String.format("%.2f") writes them
+     */
+    private static void testDecimalRounding() {
+        System.out.println("Decimal Rounding Tests:");
+        System.out.println("-".repeat(30));
+
+        Random random = new Random(42);
+        List<Double> values = new ArrayList<>(List.of(1.005, 0.285, 2.675, 0.005, 0.015, -1.005, -0.001, -0.0,
+                0.0, 0.995, 9.995, 99.995, 1e12 + 0.005, 123456.785));
+        for (int i = 0; i < 200_000; i++) {
+            values.add(random.nextInt(100_000_000) / 1000.0);
+            values.add(random.nextDouble() * Math.pow(10, random.nextInt(12)));
+            values.add(-random.nextInt(1_000_000) / 1000.0);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try {
+            CsvExporter.RowWriter writer = new CsvExporter.RowWriter(Channels.newChannel(bytes));
+            for (double value : values) {
+                writer.ensure(32);
+                writer.putDecimal(value);
+                writer.putAscii("\n");
+                expected.append(String.format("%.2f", value)).append('\n');
+            }
+            writer.finish();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+        String[] written = bytes.toString(StandardCharsets.US_ASCII).split("\n");
+        String[] formatted = expected.toString().split("\n");
+        int mismatches = 0;
+        String first = null;
+        for (int i = 0; i < formatted.length; i++) {
+            if (!formatted[i].equals(written[i])) {
+                mismatches++;
+                if (first == null) {
+                    first = values.get(i) + " written as " + written[i] + " instead of " + formatted[i];
+                }
+            }
+        }
+        SimpleTestFramework.assertEquals(formatted.length, written.length, "One decimal per value");
+        SimpleTestFramework.assertEquals(0, mismatches, "Decimals match String.format"
+                + (first == null ? "" : ", first mismatch: " + first));
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a gzip export holds every product and that the importer reads plain exports back
+     */
+    private static void testRoundTrip() {
+        System.out.println("Round Trip Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("export");
+            List<Product> products = new ArrayList<>(InventoryBenchmark.createInventory(50_000).values());
+
+            Path gzip = dir.resolve("export.csv.gz");
+            long written = CsvExporter.export(products, gzip, true, null);
+            byte[] content;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+                content = in.readAllBytes();
+            }
+            SimpleTestFramework.assertEquals(written, (long) content.length, "Gzip holds every byte written");
+            SimpleTestFramework.assertTrue(Files.size(gzip) < written, "Gzip output is compressed");
+
+            Path csv = dir.resolve("export.csv");
+            CsvExporter.export(products, csv, false, null);
+            InventoryManager manager = new InventoryManager(dir.resolve("inventory.dat").toString(), null);
+            CsvImporter.ImportResult result = new CsvImporter(manager).importFile(csv);
+            SimpleTestFramework.assertEquals(50_000L, result.getImported(), "Importer reads the export");
+            Product original = products.get(1234);
+            Product imported = manager.getAllProducts().stream()
+                    .filter(p -> p.getId() == original.getId())
+                    .findFirst()
+                    .orElse(null);
+            SimpleTestFramework.assertEquals(original.getName(), imported == null ? null : imported.getName(),
+                    "Name survives the round trip");
+            SimpleTestFramework.assertEquals(original.getPrice(), imported == null ? -1.0 : imported.getPrice(),
+                    "Price survives the round trip");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests progress reporting and that cancelling removes the partial file
+     */
+    private static void testBackgroundExport() {
+        System.out.println("Background Export Tests:");
+        System.out.println("-".repeat(30));
+
+        try (CsvExporter exporter = new CsvExporter()) {
+            Path dir = Files.createTempDirectory("export");
+            List<Product> products = new ArrayList<>(InventoryBenchmark.createInventory(100_000).values());
+
+            long[] lastProgress = new long[2];
+            Future<Long> done = exporter.exportAsync(products, dir.resolve("done.csv"), false,
+                    (written, total) -> {
+                        lastProgress[0] = written;
+                        lastProgress[1] = total;
+                    });
+            SimpleTestFramework.assertTrue(done.get() > 0, "Background export completes");
+            SimpleTestFramework.assertEquals(100_000L, lastProgress[0], "Final progress covers every row");
+            SimpleTestFramework.assertEquals(100_000L, lastProgress[1], "Progress reports the total");
+
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Path cancelled = dir.resolve("cancelled.csv");
+            Future<Long> export = exporter.exportAsync(products, cancelled, false, (written, total) -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            export.cancel(true);
+            release.countDown();
+            SimpleTestFramework.assertThrows(() -> {
+                try {
+                    export.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "CancellationException", "Cancelled export reports cancellation");
+            exporter.exportAsync(List.of(), dir.resolve("after.csv"), false, null).get();
+            try (var files = Files.list(dir)) {
+                long leftovers = files.filter(f -> f.getFileName().toString().startsWith("cancelled")).count();
+                SimpleTestFramework.assertEquals(0L, leftovers, "Cancelled export leaves no file behind");
+            }
+        } catch (IOException | InterruptedException | ExecutionException | CancellationException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected exception: " + e);
+        }
+
+        System.out.println();
+    }
+}
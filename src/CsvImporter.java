@@ -0,0 +1,444 @@
+package src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams products from a CSV file into an inventory manager.
+ * <p>
+ * The file is cut into chunks at line boundaries and each chunk is memory-mapped and parsed on a worker
+ * thread straight from the bytes, without splitting lines into strings. Chunks are added to the inventory in
+ * file order, so a later row wins over an earlier row with the same id, and only a bounded number of chunks
+ * is in flight at any time. Rows that cannot be parsed or fail product validation are reported and skipped.
+ * <p>
+ * The first line must be a header naming at least the ID, Name, Quantity and Threshold columns; Price,
+ * Category and Description are optional and other columns, such as those written by the CSV export, are
+ * ignored. Fields may be quoted as in RFC 4180, but quoted fields cannot contain line breaks.
+ *
+ * @author Chloe Nuzillat
+ */
+public class CsvImporter {
+    private static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    private static final int DEFAULT_MAX_ERRORS = 100;
+    private static final int MAX_FIELDS = 64;
+    private static final int ESTIMATED_ROW_BYTES = 40;
+
+    private final InventoryManager manager;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    /**
+     * Creates an importer that uses every available core
+     *
+     * @param manager the inventory to import into
+     */
+    public CsvImporter(InventoryManager manager) {
+        this(manager, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * Creates an importer
+     *
+     * @param manager the inventory to import into
+     * @param parallelism the number of parsing threads
+     * @param chunkSize the approximate number of bytes parsed per task
+     * @param maxErrors the maximum number of error messages kept in the result
+     */
+    public CsvImporter(InventoryManager manager, int parallelism, int chunkSize, int maxErrors) {
+        if (parallelism <= 0 || chunkSize <= 0 || maxErrors < 0) {
+            throw new IllegalArgumentException("Invalid importer settings");
+        }
+        this.manager = manager;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports every row of a CSV file and saves the inventory once at the end
+     *
+     * @param file the CSV file
+     * @return the number of imported and rejected rows with the first error messages
+     * @throws IOException if the file cannot be read or has no usable header
+     */
+    public ImportResult importFile(Path file) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "csv-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = nextLineStart(channel, 0);
+            Columns columns;
+            try {
+                columns = Columns.parse(readHeader(channel, headerEnd));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            manager.ensureCapacity((int) Math.min(Integer.MAX_VALUE, size / ESTIMATED_ROW_BYTES));
+
+            ImportResult result = new ImportResult(maxErrors);
+            ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            long position = headerEnd;
+            long line = 2;
+            while (position < size || !inFlight.isEmpty()) {
+                while (position < size && inFlight.size() < parallelism * 2) {
+                    long end = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize);
+                    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                    inFlight.add(workers.submit(() -> parseChunk(region, columns)));
+                    position = end;
+                }
+                Chunk chunk = inFlight.poll().get();
+                manager.addProducts(chunk.products);
+                result.add(chunk, line);
+                line += chunk.lines;
+            }
+            manager.saveInventory();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds the offset just after the next line feed at or after a position
+     */
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = from;
+        while (channel.read(buffer.clear(), position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                if (buffer.get() == '\n') {
+                    return position + buffer.position();
+                }
+            }
+            position += buffer.limit();
+        }
+        return channel.size();
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, long headerEnd) throws IOException {
+        if (headerEnd > 1 << 16) {
+            throw new IOException("CSV header line is too long");
+        }
+        ByteBuffer header = ByteBuffer.allocate((int) headerEnd);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the header line is buffered
+        }
+        return header.flip();
+    }
+
+    /**
+     * Parses every line of one chunk
+     */
+    private static Chunk parseChunk(ByteBuffer region, Columns columns) {
+        Chunk chunk = new Chunk();
+        Fields fields = new Fields();
+        Map<String, String> categories = new HashMap<>();
+        int limit = region.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && region.get(end) != '\n') {
+                end++;
+            }
+            chunk.lines++;
+            int contentEnd = end > start && region.get(end - 1) == '\r' ? end - 1 : end;
+            if (contentEnd > start) {
+                try {
+                    fields.split(region, start, contentEnd);
+                    chunk.products.add(columns.toProduct(region, fields, categories));
+                } catch (IllegalArgumentException e) {
+                    chunk.addError(chunk.lines, e.getMessage());
+                }
+            }
+            start = end + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * The parsed rows and errors of one chunk
+     */
+    private static final class Chunk {
+        private final List<Product> products = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+        private final List<String> errorMessages = new ArrayList<>();
+        private int lines;
+
+        void addError(int line, String message) {
+            errorLines.add(line);
+            errorMessages.add(message);
+        }
+    }
+
+    /**
+     * Field boundaries of the current line, reused across lines
+     */
+    private static final class Fields {
+        private final int[] starts = new int[MAX_FIELDS];
+        private final int[] ends = new int[MAX_FIELDS];
+        private final boolean[] quoted = new boolean[MAX_FIELDS];
+        private int count;
+
+        void split(ByteBuffer bytes, int start, int end) {
+            count = 0;
+            int position = start;
+            while (true) {
+                if (count == MAX_FIELDS) {
+                    throw new IllegalArgumentException("too many fields");
+                }
+                if (position < end && bytes.get(position) == '"') {
+                    int close = position + 1;
+                    while (true) {
+                        if (close >= end) {
+                            throw new IllegalArgumentException("unterminated quoted field");
+                        }
+                        if (bytes.get(close) == '"') {
+                            if (close + 1 < end && bytes.get(close + 1) == '"') {
+                                close += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        close++;
+                    }
+                    starts[count] = position + 1;
+                    ends[count] = close;
+                    quoted[count++] = true;
+                    position = close + 1;
+                    if (position < end && bytes.get(position) != ',') {
+                        throw new IllegalArgumentException("unexpected text after quoted field");
+                    }
+                } else {
+                    int comma = position;
+                    while (comma < end && bytes.get(comma) != ',') {
+                        comma++;
+                    }
+                    starts[count] = position;
+                    ends[count] = comma;
+                    quoted[count++] = false;
+                    position = comma;
+                }
+                if (position >= end) {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        boolean isEmpty(int field) {
+            return field >= count || starts[field] == ends[field];
+        }
+
+        int parseInt(ByteBuffer bytes, int field, String column) {
+            if (isEmpty(field)) {
+                throw new IllegalArgumentException("missing " + column);
+            }
+            int position = starts[field];
+            int end = ends[field];
+            boolean negative = bytes.get(position) == '-';
+            if (negative && ++position == end) {
+                throw new IllegalArgumentException("invalid " + column);
+            }
+            long value = 0;
+            for (; position < end; position++) {
+                int digit = bytes.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException("invalid " + column);
+                }
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw new IllegalArgumentException(column + " out of range");
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(column + " out of range");
+            }
+            return (int) value;
+        }
+
+        double parseDouble(ByteBuffer bytes, int field, String column) {
+            if (isEmpty(field)) {
+                return 0.0;
+            }
+            int position = starts[field];
+            int end = ends[field];
+            long whole = 0;
+            long fraction = 0;
+            long scale = 1;
+            boolean negative = bytes.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            int digits = 0;
+            for (; position < end && bytes.get(position) != '.'; position++, digits++) {
+                int digit = bytes.get(position) - '0';
+                if (digit < 0 || digit > 9 || digits >= 15) {
+                    return parseDoubleSlow(bytes, field, column);
+                }
+                whole = whole * 10 + digit;
+            }
+            if (position < end) {
+                for (position++; position < end; position++, digits++) {
+                    int digit = bytes.get(position) - '0';
+                    if (digit < 0 || digit > 9 || digits >= 15) {
+                        return parseDoubleSlow(bytes, field, column);
+                    }
+                    fraction = fraction * 10 + digit;
+                    scale *= 10;
+                }
+            }
+            if (digits == 0) {
+                throw new IllegalArgumentException("invalid " + column);
+            }
+            double value = (double) (whole * scale + fraction) / scale;
+            return negative ? -value : value;
+        }
+
+        private double parseDoubleSlow(ByteBuffer bytes, int field, String column) {
+            try {
+                return Double.parseDouble(string(bytes, field));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid " + column);
+            }
+        }
+
+        String string(ByteBuffer bytes, int field) {
+            if (field >= count) {
+                return null;
+            }
+            int length = ends[field] - starts[field];
+            byte[] copy = new byte[length];
+            bytes.get(starts[field], copy);
+            if (quoted[field]) {
+                int write = 0;
+                for (int read = 0; read < length; read++) {
+                    copy[write++] = copy[read];
+                    if (copy[read] == '"') {
+                        read++;
+                    }
+                }
+                length = write;
+            }
+            return new String(copy, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Positions of the known columns in the header
+     */
+    private record Columns(int id, int name, int quantity, int threshold, int price, int category,
+                           int description) {
+
+        static Columns parse(ByteBuffer header) {
+            Fields fields = new Fields();
+            int end = header.limit();
+            while (end > 0 && (header.get(end - 1) == '\n' || header.get(end - 1) == '\r')) {
+                end--;
+            }
+            fields.split(header, 0, end);
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < fields.count; i++) {
+                positions.putIfAbsent(fields.string(header, i).trim().toLowerCase(), i);
+            }
+            for (String required : List.of("id", "name", "quantity", "threshold")) {
+                if (!positions.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV header is missing the " + required + " column");
+                }
+            }
+            return new Columns(positions.get("id"), positions.get("name"), positions.get("quantity"),
+                    positions.get("threshold"), positions.getOrDefault("price", MAX_FIELDS),
+                    positions.getOrDefault("category", MAX_FIELDS), positions.getOrDefault("description", MAX_FIELDS));
+        }
+
+        Product toProduct(ByteBuffer bytes, Fields fields, Map<String, String> categories) {
+            Product product = new Product(fields.string(bytes, name),
+                    fields.parseInt(bytes, quantity, "quantity"),
+                    fields.parseInt(bytes, threshold, "threshold"),
+                    fields.parseInt(bytes, id, "id"));
+            product.setPrice(fields.parseDouble(bytes, price, "price"));
+            if (!fields.isEmpty(category)) {
+                String value = fields.string(bytes, category);
+                product.setCategory(categories.computeIfAbsent(value, key -> key));
+            }
+            if (!fields.isEmpty(description)) {
+                product.setDescription(fields.string(bytes, description));
+            }
+            return product;
+        }
+    }
+
+    /**
+     * The outcome of an import
+     */
+    public static final class ImportResult {
+        private final int maxErrors;
+        private final List<String> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        private ImportResult(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void add(Chunk chunk, long firstLine) {
+            imported += chunk.products.size();
+            rejected += chunk.errorLines.size();
+            for (int i = 0; i < chunk.errorLines.size() && errors.size() < maxErrors; i++) {
+                errors.add("Line " + (firstLine + chunk.errorLines.get(i) - 1) + ": " + chunk.errorMessages.get(i));
+            }
+        }
+
+        /**
+         * Gets the number of rows added to the inventory
+         *
+         * @return the imported row count
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Gets the number of rows skipped because they were invalid
+         *
+         * @return the rejected row count
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Gets the messages for the first rejected rows
+         *
+         * @return the error messages, with line numbers
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test suite for the CsvImporter class
+ *
+ * @author Chloe Nuzillat
+ */
+public class CsvImporterTests {
+
+    /**
+     * Runs all CSV importer tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running CsvImporter Tests...\n");
+
+        testImport();
+        testBadRows();
+        testChunking();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests importing a file in the export format, including quoted fields
+     */
+    private static void testImport() {
+        System.out.println("Import Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("import");
+            Path csv = dir.resolve("catalog.csv");
+            Files.writeString(csv, "ID,Name,Quantity,Price,Category,Threshold,Low Stock,Total Value\r\n"
+                    + "1,Laptop,10,999.99,Electronics,2,No,9999.90\r\n"
+                    + "2,\"Cable, USB-C\",50,4.5,Accessories,5,No,225.00\r\n"
+                    + "3,\"27\"\" Monitor\",7,189,,1,No,1323.00\r\n");
+            InventoryManager manager = new InventoryManager(dir.resolve("inventory.dat").toString(), null);
+
+            CsvImporter.ImportResult result = new CsvImporter(manager).importFile(csv);
+            SimpleTestFramework.assertEquals(3L, result.getImported(), "All rows imported");
+            SimpleTestFramework.assertEquals(0L, result.getRejected(), "No rows rejected");
+            SimpleTestFramework.assertEquals("Cable, USB-C", findProduct(manager, 2).getName(),
+                    "Quoted field keeps its comma");
+            SimpleTestFramework.assertEquals("27\" Monitor", findProduct(manager, 3).getName(),
+                    "Escaped quote is unescaped");
+            SimpleTestFramework.assertEquals(999.99, findProduct(manager, 1).getPrice(), "Price parsed");
+            SimpleTestFramework.assertEquals("Electronics", findProduct(manager, 1).getCategory(), "Category parsed");
+            SimpleTestFramework.assertNull(findProduct(manager, 3).getCategory(), "Empty category left unset");
+            SimpleTestFramework.assertEquals(3, SnapshotCodec.read(dir.resolve("inventory.dat")).size(),
+                    "Import is saved");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that bad rows are reported with their line numbers without stopping the import
+     */
+    private static void testBadRows() {
+        System.out.println("Bad Row Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("import");
+            Path csv = dir.resolve("catalog.csv");
+            Files.writeString(csv, "id,name,quantity,threshold\n"
+                    + "1,Laptop,10,2\n"
+                    + "2,Mouse,many,5\n"
+                    + "3,,5,1\n"
+                    + "\n"
+                    + "4,Keyboard,-1,1\n"
+                    + "5,Webcam,3,1\n");
+            InventoryManager manager = new InventoryManager(dir.resolve("inventory.dat").toString(), null);
+
+            CsvImporter.ImportResult result = new CsvImporter(manager).importFile(csv);
+            List<String> errors = result.getErrors();
+            SimpleTestFramework.assertEquals(2L, result.getImported(), "Valid rows imported");
+            SimpleTestFramework.assertEquals(3L, result.getRejected(), "Invalid rows rejected");
+            SimpleTestFramework.assertEquals("Line 3: invalid quantity", errors.get(0), "Parse error reported");
+            SimpleTestFramework.assertEquals("Line 4: Product name cannot be empty", errors.get(1),
+                    "Validation error reported");
+            SimpleTestFramework.assertEquals("Line 6: Quantity cannot be negative", errors.get(2),
+                    "Line numbers count blank lines");
+
+            Path noHeader = dir.resolve("bad.csv");
+            Files.writeString(noHeader, "1,Laptop,10,2\n");
+            SimpleTestFramework.assertThrows(() -> {
+                try {
+                    new CsvImporter(manager).importFile(noHeader);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage());
+                }
+            }, "IllegalStateException", "Missing header is rejected");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that many small chunks parsed in parallel give the same result as a single pass
+     */
+    private static void testChunking() {
+        System.out.println("Chunking Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("import");
+            Path csv = dir.resolve("catalog.csv");
+            StringBuilder content = new StringBuilder("ID,Name,Quantity,Threshold,Price\n");
+            for (int i = 0; i < 5000; i++) {
+                content.append(i % 4000).append(",Product ").append(i).append(',').append(i % 100)
+                        .append(",5,").append(i % 1000).append(".25\n");
+            }
+            Files.writeString(csv, content);
+            InventoryManager manager = new InventoryManager(dir.resolve("inventory.dat").toString(), null);
+
+            CsvImporter.ImportResult result = new CsvImporter(manager, 4, 1024, 10).importFile(csv);
+            SimpleTestFramework.assertEquals(5000L, result.getImported(), "Every row across chunks imported");
+            SimpleTestFramework.assertEquals(4000, manager.getAllProducts().size(), "Duplicate ids collapse");
+            SimpleTestFramework.assertEquals("Product 4500", findProduct(manager, 500).getName(),
+                    "Later rows win over earlier rows");
+            SimpleTestFramework.assertEquals(500.25, findProduct(manager, 500).getPrice(), "Decimal price parsed");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    private static Product findProduct(InventoryManager manager, int id) {
+        return manager.getAllProducts().stream()
+                .filter(p -> p.getId() == id)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,220 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * A base snapshot plus a sequence of delta segments holding only the products that changed.
+ * <p>
+ * Segments are named after the base file with an increasing sequence number and are applied in order.
+ * Because each segment stores whole products and deletions by id, applying a segment that the base already
+ * contains is harmless, so a crash between writing a compacted base and deleting its segments loses nothing.
+ * Once the segment count or total segment size crosses a threshold, a background thread merges the base and
+ * every existing segment into a new base and removes those segments.
+ *
+ * @author Chloe Nuzillat
+ */
+public class DeltaSnapshots implements AutoCloseable {
+    private static final String SEGMENT_MARKER = ".delta.";
+
+    private final Path baseFile;
+    private final int maxSegments;
+    private final long maxSegmentBytes;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-delta-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Path> segments = new ArrayList<>();
+    private long segmentBytes;
+    private long nextSequence;
+    private Future<?> compaction;
+
+    /**
+     * Opens the delta segments that belong to a base snapshot
+     *
+     * @param baseFile the base snapshot file
+     * @param maxSegments how many segments may accumulate before they are compacted
+     * @param maxSegmentBytes how many segment bytes may accumulate before they are compacted
+     * @throws IOException if the existing segments cannot be listed
+     */
+    public DeltaSnapshots(String baseFile, int maxSegments, long maxSegmentBytes) throws IOException {
+        if (maxSegments <= 0 || maxSegmentBytes <= 0) {
+            throw new IllegalArgumentException("Compaction thresholds must be positive");
+        }
+        this.baseFile = Path.of(baseFile).toAbsolutePath();
+        this.maxSegments = maxSegments;
+        this.maxSegmentBytes = maxSegmentBytes;
+
+        String prefix = this.baseFile.getFileName() + SEGMENT_MARKER;
+        try (Stream<Path> files = Files.list(this.baseFile.getParent())) {
+            files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        for (Path segment : segments) {
+            segmentBytes += Files.size(segment);
+            nextSequence = Math.max(nextSequence, sequenceOf(segment) + 1);
+        }
+    }
+
+    /**
+     * Gets the base snapshot file
+     *
+     * @return the base file
+     */
+    public String getBaseFile() {
+        return baseFile.toString();
+    }
+
+    /**
+     * Loads the base snapshot into memory, or starts empty if there is none
+     *
+     * @return the products keyed by id
+     * @throws IOException if the base exists but cannot be read
+     */
+    HashMap<Integer, Product> readBase() throws IOException {
+        try {
+            return SnapshotCodec.read(baseFile);
+        } catch (NoSuchFileException e) {
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Applies every segment, oldest first, to an inventory loaded from the base
+     *
+     * @param inventory the inventory to update
+     * @throws IOException if a segment cannot be read
+     */
+    public synchronized void applyTo(Map<Integer, Product> inventory) throws IOException {
+        for (Path segment : segments) {
+            SnapshotCodec.applyDelta(segment, inventory);
+        }
+    }
+
+    /**
+     * Writes a new segment and starts a compaction if a threshold has been crossed
+     *
+     * @param changed the products added or changed since the last segment
+     * @param deleted the ids deleted since the last segment
+     * @return the number of bytes written
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized long writeDelta(Collection<Product> changed, Collection<Integer> deleted)
+            throws IOException {
+        Path segment = baseFile.resolveSibling(baseFile.getFileName() + SEGMENT_MARKER
+                + String.format("%012d", nextSequence++));
+        long written = SnapshotCodec.writeDelta(changed, deleted, segment);
+        segments.add(segment);
+        segmentBytes += written;
+
+        if ((segments.size() >= maxSegments || segmentBytes >= maxSegmentBytes)
+                && (compaction == null || compaction.isDone())) {
+            List<Path> merged = List.copyOf(segments);
+            compaction = compactor.submit(() -> merge(merged));
+        }
+        return written;
+    }
+
+    /**
+     * Merges the base and the given segments into a new base, then deletes those segments
+     */
+    private void merge(List<Path> merged) {
+        try {
+            HashMap<Integer, Product> inventory = readBase();
+            for (Path segment : merged) {
+                SnapshotCodec.applyDelta(segment, inventory);
+            }
+            SnapshotCodec.write(inventory.values(), baseFile);
+            synchronized (this) {
+                for (Path segment : merged) {
+                    segmentBytes -= Files.size(segment);
+                    Files.delete(segment);
+                }
+                segments.removeAll(merged);
+            }
+        } catch (IOException e) {
+            System.out.println("Error compacting inventory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Merges every existing segment into the base now and waits for it to finish
+     */
+    public void compact() {
+        awaitCompaction();
+        synchronized (this) {
+            if (segments.isEmpty()) {
+                return;
+            }
+            List<Path> merged = List.copyOf(segments);
+            compaction = compactor.submit(() -> merge(merged));
+        }
+        awaitCompaction();
+    }
+
+    /**
+     * Waits for a running compaction to finish
+     */
+    public void awaitCompaction() {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        if (running != null) {
+            try {
+                running.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.out.println("Error compacting inventory: " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of segments not yet merged into the base
+     *
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Gets the total size of the segments not yet merged into the base
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * Finishes a running compaction and stops the compactor thread
+     */
+    @Override
+    public void close() {
+        awaitCompaction();
+        compactor.shutdown();
+    }
+}
@@ -0,0 +1,120 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test suite for the DeltaSnapshots class
+ *
+ * @author Chloe Nuzillat
+ */
+public class DeltaSnapshotsTests {
+
+    /**
+     * Runs all delta snapshot tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running DeltaSnapshots Tests...\n");
+
+        testDeltaSaves();
+        testCompaction();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that saves write only the changed products and that loading merges every segment
+     */
+    private static void testDeltaSaves() {
+        System.out.println("Delta Save Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("delta");
+            String base = dir.resolve("inventory.dat").toString();
+
+            DeltaSnapshots deltas = new DeltaSnapshots(base, 100, Long.MAX_VALUE);
+            InventoryManager manager = new InventoryManager(deltas);
+            for (int id = 1; id <= 100; id++) {
+                manager.addProduct("Product " + id, 10, 2, id);
+            }
+            manager.saveInventory();
+            long firstSegment = deltas.getSegmentBytes();
+
+            manager.sellProduct(5, 3);
+            manager.getAllProducts().stream()
+                    .filter(p -> p.getId() == 6)
+                    .forEach(p -> p.setPrice(4.5));
+            manager.deleteProduct(7);
+            manager.saveInventory();
+            long secondSegment = deltas.getSegmentBytes() - firstSegment;
+
+            SimpleTestFramework.assertEquals(2, deltas.getSegmentCount(), "Each save writes one segment");
+            SimpleTestFramework.assertTrue(secondSegment * 20 < firstSegment,
+                    "Segment size follows the number of changes");
+            manager.saveInventory();
+            SimpleTestFramework.assertEquals(2, deltas.getSegmentCount(), "Saving without changes writes nothing");
+            deltas.close();
+
+            DeltaSnapshots reopened = new DeltaSnapshots(base, 100, Long.MAX_VALUE);
+            InventoryManager restored = new InventoryManager(reopened);
+            SimpleTestFramework.assertEquals(99, restored.getAllProducts().size(), "Deletes are merged on load");
+            Product sold = findProduct(restored, 5);
+            Product priced = findProduct(restored, 6);
+            SimpleTestFramework.assertEquals(7, sold == null ? -1 : sold.getQuantity(), "Sells are merged on load");
+            SimpleTestFramework.assertEquals(4.5, priced == null ? -1.0 : priced.getPrice(),
+                    "Direct product changes are merged on load");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that segments are merged into the base once the segment threshold is reached
+     */
+    private static void testCompaction() {
+        System.out.println("Compaction Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("delta");
+            String base = dir.resolve("inventory.dat").toString();
+
+            DeltaSnapshots deltas = new DeltaSnapshots(base, 3, Long.MAX_VALUE);
+            InventoryManager manager = new InventoryManager(deltas);
+            manager.addProduct("Laptop", 10, 2, 1);
+            manager.saveInventory();
+            manager.addProduct("Mouse", 50, 5, 2);
+            manager.saveInventory();
+            manager.sellProduct(1, 1);
+            manager.saveInventory();
+            deltas.awaitCompaction();
+
+            SimpleTestFramework.assertEquals(0, deltas.getSegmentCount(), "Threshold triggers compaction");
+            SimpleTestFramework.assertEquals(2, SnapshotCodec.read(Path.of(base)).size(),
+                    "Compacted base holds every product");
+
+            manager.restockProduct(5, 2);
+            manager.checkpoint();
+            SimpleTestFramework.assertEquals(0, deltas.getSegmentCount(), "Checkpoint compacts pending changes");
+            SimpleTestFramework.assertEquals(55, SnapshotCodec.read(Path.of(base)).get(2).getQuantity(),
+                    "Checkpoint writes pending changes into the base");
+            deltas.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    private static Product findProduct(InventoryManager manager, int id) {
+        return manager.getAllProducts().stream()
+                .filter(p -> p.getId() == id)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,81 @@
+package src;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Store that writes only the products changed or deleted since the previous flush, as delta segments on
+ * top of a base snapshot that is compacted in the background
+ *
+ * @author Chloe Nuzillat
+ */
+public class DeltaStore implements InventoryStore {
+    private final DeltaSnapshots deltas;
+    private final Map<Integer, Product> dirty = new HashMap<>();
+    private final Set<Integer> deleted = new HashSet<>();
+
+    /**
+     * Creates a store over a base snapshot and its delta segments
+     *
+     * @param deltas the base snapshot and its delta segments
+     */
+    public DeltaStore(DeltaSnapshots deltas) {
+        this.deltas = deltas;
+    }
+
+    @Override
+    public synchronized Map<Integer, Product> load(Consumer<Product> onLoad) throws IOException {
+        HashMap<Integer, Product> inventory = deltas.readBase();
+        deltas.applyTo(inventory);
+        inventory.values().forEach(onLoad);
+        dirty.clear();
+        deleted.clear();
+        return inventory;
+    }
+
+    @Override
+    public synchronized void put(Product product) {
+        dirty.put(product.getId(), product);
+        deleted.remove(product.getId());
+    }
+
+    @Override
+    public synchronized void changed(Product product) {
+        dirty.put(product.getId(), product);
+    }
+
+    @Override
+    public synchronized void delete(int id) {
+        dirty.remove(id);
+        deleted.add(id);
+    }
+
+    @Override
+    public synchronized void flush(Collection<Product> inventory) throws IOException {
+        if (dirty.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+        deltas.writeDelta(dirty.values(), deleted);
+        dirty.clear();
+        deleted.clear();
+    }
+
+    /**
+     * Writes the pending changes and merges every segment into the base
+     */
+    @Override
+    public synchronized void checkpoint(Collection<Product> inventory) throws IOException {
+        flush(inventory);
+        deltas.compact();
+    }
+
+    @Override
+    public void close() {
+        deltas.close();
+    }
+}
@@ -0,0 +1,445 @@
+package src;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant index over the words of product names, finding the products whose name has a word within a
+ * few edits of each word of a term.
+ * <p>
+ * An edit inserts, deletes or substitutes one character, or swaps two adjacent ones. Two words are within k
+ * edits only if deleting at most k characters from each leaves the same text, so every distinct word is
+ * stored under the hash of each text left by deleting up to {@value #MAX_EDITS} of its characters, in one
+ * sorted array of longs. A lookup hashes the deletions of the query word, finds the words stored under them
+ * by binary search and checks their real distance: a few dozen searches whatever the number of words, where
+ * a BK-tree would still compare against a large share of them. Closer words are looked up first, and a
+ * search stops as soon as it holds enough matches that no farther word could beat. Words first seen after
+ * the array was built are compared one by one until enough of them wait, and are merged into the array on
+ * the next search.
+ *
+ * @author Chloe Nuzillat
+ */
+public class FuzzyIndex implements ProductIndex {
+    static final int MAX_EDITS = 2;
+    private static final int MIN_PENDING = 1024;
+    private static final int ID_BITS = 30;
+
+    private final Map<String, Word> words = new HashMap<>();
+    private final Map<Integer, Product> products = new HashMap<>();
+    private final List<Word> pending = new ArrayList<>();
+    private Word[] byId = new Word[16];
+    private int wordCount;
+    private int emptyWords;
+    private long[] keys = new long[0];
+    private int stamp;
+
+    /**
+     * A distinct word of the indexed names and the ids of the products whose name contains it
+     */
+    private static final class Word {
+        final String text;
+        final PostingList ids = new PostingList();
+        int id;
+        int stamp;
+
+        Word(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    /**
+     * A word some edits away from a word of the search term
+     */
+    private record Match(Word word, int distance) {
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        Product previous = products.put(product.getId(), product);
+        if (previous != null) {
+            if (previous.getName().equals(product.getName())) {
+                return;
+            }
+            unpost(previous);
+        }
+        for (String text : tokens(product.getName())) {
+            Word word = words.get(text);
+            if (word == null) {
+                word = new Word(text, wordCount);
+                words.put(text, word);
+                if (wordCount == byId.length) {
+                    byId = Arrays.copyOf(byId, wordCount * 2);
+                }
+                byId[wordCount++] = word;
+                pending.add(word);
+            } else if (word.ids.isEmpty()) {
+                emptyWords--;
+            }
+            word.ids.add(product.getId());
+        }
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        if (products.remove(product.getId(), product)) {
+            unpost(product);
+        }
+    }
+
+    @Override
+    public void changed(Product product) {
+    }
+
+    /**
+     * Finds the products whose name has, for each word of a term, a word within a few edits of it, ignoring
+     * case. A word of n characters may be at most (n - 1) / 2 edits away, so very short words must match
+     * exactly rather than match almost anything.
+     *
+     * @param term the term to search for
+     * @param maxDistance the most edits allowed per word, from 0 to {@value #MAX_EDITS}
+     * @param limit the largest number of products returned
+     * @param budget how long to look for matches; once spent, the best matches found so far are returned
+     * @return a new list of at most limit products, fewest edits first, empty for a blank term
+     * @throws IllegalArgumentException if maxDistance is out of range
+     */
+    public synchronized List<Product> search(String term, int maxDistance, int limit, Duration budget) {
+        if (maxDistance < 0 || maxDistance > MAX_EDITS) {
+            throw new IllegalArgumentException("Edit distance must be between 0 and " + MAX_EDITS);
+        }
+        long deadline = System.nanoTime() + budget.toNanos();
+        List<Product> results = new ArrayList<>();
+        List<String> texts = tokens(term);
+        if (texts.isEmpty() || limit <= 0) {
+            return results;
+        }
+        if (pending.size() > Math.max(MIN_PENDING, wordCount >> 5)) {
+            flush();
+        }
+
+        int[] allowed = new int[texts.size()];
+        int[] closest = new int[texts.size()];
+        int driving = 0;
+        long drivingSize = Long.MAX_VALUE;
+        List<List<List<Match>>> levels = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            allowed[i] = Math.min(maxDistance, (texts.get(i).length() - 1) / 2);
+            closest[i] = allowed[i];
+            List<List<Match>> found = new ArrayList<>();
+            long size = 0;
+            for (int distance = 0; distance <= Math.min(1, allowed[i]); distance++) {
+                found.add(lookup(texts.get(i), distance));
+                for (Match match : found.get(distance)) {
+                    size += match.word().ids.size();
+                }
+                if (!found.get(distance).isEmpty()) {
+                    closest[i] = Math.min(closest[i], distance);
+                }
+            }
+            if (size < drivingSize) {
+                driving = i;
+                drivingSize = size;
+            }
+            levels.add(found);
+        }
+
+        List<List<Product>> byDistance = new ArrayList<>();
+        for (int distance = 0; distance <= maxDistance * texts.size(); distance++) {
+            byDistance.add(new ArrayList<>());
+        }
+        Set<Integer> seen = new HashSet<>();
+        int checked = 0;
+        search:
+        for (int distance = 0; distance <= allowed[driving]; distance++) {
+            List<List<Match>> found = levels.get(driving);
+            if (distance == found.size()) {
+                found.add(lookup(texts.get(driving), distance));
+            }
+            int bound = distance;
+            for (int i = 0; i < texts.size(); i++) {
+                bound += i == driving ? 0 : closest[i];
+            }
+            for (Match match : found.get(distance)) {
+                for (int id : match.word().ids.toArray()) {
+                    if (countUpTo(byDistance, bound) >= limit) {
+                        break search;
+                    }
+                    if (++checked % 256 == 0 && System.nanoTime() > deadline) {
+                        break search;
+                    }
+                    if (!seen.add(id)) {
+                        continue;
+                    }
+                    Product product = products.get(id);
+                    int total = distance(texts, allowed, tokens(product.getName()));
+                    if (total >= 0) {
+                        byDistance.get(total).add(product);
+                    }
+                }
+            }
+        }
+        for (List<Product> ranked : byDistance) {
+            for (int i = 0; i < ranked.size() && results.size() < limit; i++) {
+                results.add(ranked.get(i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of distinct words indexed, including words no product uses any more until they are
+     * dropped
+     *
+     * @return the word count
+     */
+    public synchronized int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Finds the indexed words exactly some edits away from a word. Words that many edits away share a text
+     * left by deleting at most that many characters from each, so only keys of that many deletions or fewer
+     * are visited, and looking up the closest words first stays cheap even among many similar words.
+     */
+    private List<Match> lookup(String text, int distance) {
+        List<Match> found = new ArrayList<>();
+        stamp++;
+        for (int deleted = 0; deleted <= distance; deleted++) {
+            for (long hash : deletions(text, deleted)) {
+                int index = Arrays.binarySearch(keys, hash << 32);
+                index = index < 0 ? -index - 1 : index;
+                long last = hash << 32 | (long) distance << ID_BITS | (1L << ID_BITS) - 1;
+                for (; index < keys.length && keys[index] <= last; index++) {
+                    Word word = byId[(int) (keys[index] & (1L << ID_BITS) - 1)];
+                    if (word.stamp != stamp) {
+                        word.stamp = stamp;
+                        match(found, text, word, distance);
+                    }
+                }
+            }
+        }
+        for (Word word : pending) {
+            match(found, text, word, distance);
+        }
+        return found;
+    }
+
+    private static void match(List<Match> found, String text, Word word, int distance) {
+        if (!word.ids.isEmpty() && distance(text, word.text, distance) == distance) {
+            found.add(new Match(word, distance));
+        }
+    }
+
+    /**
+     * Adds up, for each word of a term, the fewest edits to any word of a name
+     *
+     * @return the total edits, or -1 if some word of the term has no word of the name close enough
+     */
+    private static int distance(List<String> texts, int[] allowed, List<String> name) {
+        int total = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            int best = allowed[i] + 1;
+            for (int j = 0; j < name.size() && best > 0; j++) {
+                best = Math.min(best, distance(texts.get(i), name.get(j), allowed[i]));
+            }
+            if (best > allowed[i]) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int countUpTo(List<List<Product>> byDistance, int distance) {
+        int count = 0;
+        for (int i = 0; i <= distance; i++) {
+            count += byDistance.get(i).size();
+        }
+        return count;
+    }
+
+    /**
+     * Adds the deletions of the words waiting to the sorted array, merging two sorted arrays rather than
+     * sorting again. Once a quarter of the words are no longer used by any product, the array is rebuilt
+     * from the words still used instead, and the unused words are dropped.
+     */
+    private void flush() {
+        List<Word> added = pending;
+        long[] kept = keys;
+        if (emptyWords > wordCount / 4) {
+            int live = 0;
+            for (int i = 0; i < wordCount; i++) {
+                Word word = byId[i];
+                if (word.ids.isEmpty()) {
+                    words.remove(word.text);
+                } else {
+                    word.id = live;
+                    byId[live++] = word;
+                }
+            }
+            Arrays.fill(byId, live, wordCount, null);
+            wordCount = live;
+            emptyWords = 0;
+            added = Arrays.asList(byId).subList(0, live);
+            kept = new long[0];
+        }
+
+        long[] fresh = new long[0];
+        int count = 0;
+        for (Word word : added) {
+            for (int deleted = 0; deleted <= MAX_EDITS; deleted++) {
+                for (long hash : deletions(word.text, deleted)) {
+                    if (count == fresh.length) {
+                        fresh = Arrays.copyOf(fresh, Math.max(64, count * 2));
+                    }
+                    fresh[count++] = hash << 32 | (long) deleted << ID_BITS | word.id;
+                }
+            }
+        }
+        Arrays.sort(fresh, 0, count);
+
+        long[] merged = new long[kept.length + count];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j == count || (i < kept.length && kept[i] < fresh[j]) ? kept[i++] : fresh[j++];
+        }
+        keys = merged;
+        pending.clear();
+    }
+
+    private void unpost(Product product) {
+        for (String text : tokens(product.getName())) {
+            Word word = words.get(text);
+            word.ids.remove(product.getId());
+            if (word.ids.isEmpty()) {
+                emptyWords++;
+            }
+        }
+    }
+
+    /**
+     * Splits a text into its distinct lower-cased words, runs of letters and digits
+     *
+     * @param text the text
+     * @return the words, in order of first appearance
+     */
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>(4);
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = TrigramIndex.normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Hashes each distinct text left by deleting exactly zero, one or two characters from a word. The hashes
+     * are 32 bits, sign-extended, so they sort and search as the high half of a key.
+     */
+    private static long[] deletions(String text, int deleted) {
+        int length = text.length();
+        if (deleted > length) {
+            return new long[0];
+        }
+        long[] hashes = new long[deleted == 0 ? 1 : deleted == 1 ? length : length * (length - 1) / 2];
+        int count = 0;
+        if (deleted == 0) {
+            hashes[count++] = hash(text, -1, -1);
+        }
+        for (int first = 0; first < length && deleted > 0; first++) {
+            if (deleted == 1) {
+                hashes[count++] = hash(text, first, -1);
+            }
+            for (int second = first + 1; second < length && deleted == 2; second++) {
+                hashes[count++] = hash(text, first, second);
+            }
+        }
+        Arrays.sort(hashes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || hashes[i] != hashes[distinct - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, distinct);
+    }
+
+    /**
+     * Hashes a text as {@link String#hashCode()} does, skipping the characters at up to two positions
+     */
+    private static long hash(String text, int skip, int skipAlso) {
+        int hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (i != skip && i != skipAlso) {
+                hash = 31 * hash + text.charAt(i);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Counts the edits between two words, where swapping two adjacent characters is one edit, giving up
+     * once more than a bound are needed
+     *
+     * @param first the first word
+     * @param second the second word
+     * @param bound the most edits of interest
+     * @return the number of edits, or bound + 1 if more are needed
+     */
+    static int distance(String first, String second, int bound) {
+        int m = first.length();
+        int n = second.length();
+        if (Math.abs(m - n) > bound) {
+            return bound + 1;
+        }
+        int[] before = new int[n + 1];
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char a = first.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                char b = second.charAt(j - 1);
+                int cost = a == b ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a == second.charAt(j - 2) && first.charAt(i - 2) == b) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[n], bound + 1);
+    }
+}
@@ -0,0 +1,177 @@
+package src;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test suite for the FuzzyIndex class and fuzzy product search in InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class FuzzyIndexTests {
+    private static final Duration BUDGET = Duration.ofSeconds(10);
+
+    /**
+     * Runs all fuzzy index tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running FuzzyIndex Tests...\n");
+
+        testDistance();
+        testSearch();
+        testMaintenance();
+        testRandomSearches();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests counting edits, with adjacent swaps counted as one edit and the bound respected
+     */
+    private static void testDistance() {
+        System.out.println("Edit Distance Tests:");
+        System.out.println("-".repeat(30));
+
+        SimpleTestFramework.assertEquals(0, FuzzyIndex.distance("widget", "widget", 2), "Same word");
+        SimpleTestFramework.assertEquals(1, FuzzyIndex.distance("widget", "wdiget", 2), "Swap is one edit");
+        SimpleTestFramework.assertEquals(1, FuzzyIndex.distance("widget", "widgets", 2), "Insertion");
+        SimpleTestFramework.assertEquals(2, FuzzyIndex.distance("widget", "wodgat", 2), "Two substitutions");
+        SimpleTestFramework.assertEquals(3, FuzzyIndex.distance("widget", "gasket", 2), "Bound exceeded");
+        SimpleTestFramework.assertEquals(3, FuzzyIndex.distance("lamp", "lampshade", 2), "Lengths too far apart");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that misspelled terms find products, closest first, and that short words must match exactly
+     */
+    private static void testSearch() {
+        System.out.println("Search Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Wireless Mouse", 10, 2, 1);
+        manager.addProduct("Wired Mouse", 10, 2, 2);
+        manager.addProduct("Mousepad", 10, 2, 3);
+        manager.addProduct("USB-C Cable", 10, 2, 4);
+        manager.addProduct("Steal Desk", 10, 2, 5);
+        manager.addProduct("Steel Desk", 10, 2, 6);
+
+        List<Product> found = manager.fuzzySearchProducts("wirless mosue", 10);
+        SimpleTestFramework.assertEquals(1, found.size(), "Every word must match");
+        SimpleTestFramework.assertEquals(1, found.get(0).getId(), "Misspelled words found");
+        found = manager.fuzzySearchProducts("STEEL DESK", 10);
+        SimpleTestFramework.assertEquals(2, found.size(), "Case ignored");
+        SimpleTestFramework.assertEquals(6, found.get(0).getId(), "Exact match ranked first");
+        SimpleTestFramework.assertEquals(1, manager.fuzzySearchProducts("steel desk", 1).size(), "Limit kept");
+        SimpleTestFramework.assertEquals(1, manager.fuzzySearchProducts("usb cabel", 10).size(),
+                "Punctuation splits words");
+        SimpleTestFramework.assertEquals(0, manager.fuzzySearchProducts("ub cable", 10).size(),
+                "Short word must match exactly");
+        SimpleTestFramework.assertEquals(0, manager.fuzzySearchProducts(" ", 10).size(), "Blank term");
+        SimpleTestFramework.assertEquals(0, manager.fuzzySearchProducts(null, 10).size(), "Null term");
+
+        FuzzyIndex index = manager.getFuzzyIndex();
+        SimpleTestFramework.assertEquals(0, index.search("mosue", 0, 10, BUDGET).size(), "No edits allowed");
+        SimpleTestFramework.assertThrows(() -> index.search("mouse", 3, 10, BUDGET),
+                "IllegalArgumentException", "Too many edits rejected");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that added, replaced and deleted products are found or no longer found, across enough new words
+     * to merge them into the index and to drop unused ones
+     */
+    private static void testMaintenance() {
+        System.out.println("Index Maintenance Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        FuzzyIndex index = manager.getFuzzyIndex();
+        manager.addProduct("Laptop Stand", 10, 2, 2);
+        SimpleTestFramework.assertEquals(2, index.search("labtop", 2, 10, BUDGET).size(), "Added product found");
+
+        manager.addProduct("Monitor Stand", 10, 2, 2);
+        SimpleTestFramework.assertEquals(1, index.search("labtop", 2, 10, BUDGET).size(),
+                "Replaced name no longer found");
+        SimpleTestFramework.assertEquals(1, index.search("moniter", 2, 10, BUDGET).size(),
+                "Replacing name found");
+
+        for (int id = 100; id < 5100; id++) {
+            manager.addProduct("Part Z" + id, 1, 0, id);
+        }
+        SimpleTestFramework.assertEquals(1, index.search("part z4242", 2, 1, BUDGET).size(), "Merged word found");
+        for (int id = 100; id < 5100; id++) {
+            manager.deleteProduct(id);
+        }
+        manager.addProduct("Lamp", 10, 2, 3);
+        for (int id = 6000; id < 7100; id++) {
+            manager.addProduct("Bolt Y" + id, 1, 0, id);
+        }
+        SimpleTestFramework.assertEquals(0, index.search("part z4242", 2, 1, BUDGET).size(),
+                "Deleted product not found");
+        SimpleTestFramework.assertTrue(index.getWordCount() < 2000, "Unused words dropped");
+        SimpleTestFramework.assertEquals(1, index.search("lmap", 2, 10, BUDGET).size(), "Kept word found");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that searches find the same products as comparing the term against every name
+     */
+    private static void testRandomSearches() {
+        System.out.println("Random Search Tests:");
+        System.out.println("-".repeat(30));
+
+        String[] words = {"Red", "Blue", "Steel", "Widget", "Gadget", "Cable", "Lamp", "Desk", "Bracket"};
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(22);
+        FuzzyIndex index = manager.getFuzzyIndex();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(3000);
+            if (random.nextInt(4) == 0) {
+                manager.deleteProduct(id);
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                        + " " + random.nextInt(5000);
+                manager.addProduct(name, 1, 0, id);
+            }
+            if (i % 2000 == 0) {
+                index.search("lamp", 2, 1, BUDGET);
+            }
+        }
+
+        boolean matches = true;
+        for (String term : new String[] {"widgte", "lmap dsek", "brakcet 12", "bleu 4321", "steal", "xyz"}) {
+            List<String> texts = FuzzyIndex.tokens(term);
+            Set<Integer> expected = new HashSet<>();
+            for (Product product : manager.getAllProducts()) {
+                boolean all = true;
+                for (String text : texts) {
+                    int allowed = Math.min(2, (text.length() - 1) / 2);
+                    boolean any = false;
+                    for (String word : FuzzyIndex.tokens(product.getName())) {
+                        any |= FuzzyIndex.distance(text, word, allowed) <= allowed;
+                    }
+                    all &= any;
+                }
+                if (all) {
+                    expected.add(product.getId());
+                }
+            }
+            Set<Integer> actual = new HashSet<>();
+            for (Product product : index.search(term, 2, Integer.MAX_VALUE, BUDGET)) {
+                actual.add(product.getId());
+            }
+            matches &= expected.equals(actual);
+        }
+        SimpleTestFramework.assertTrue(matches, "Searches match comparing every name");
+
+        System.out.println();
+    }
+}
@@ -0,0 +1,1296 @@
+package src;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Micro benchmarks for the inventory storage and query paths.
+ * <p>
+ * Usage: {@code java -cp . src.InventoryBenchmark [benchmark|all] [products]}
+ *
+ * @author Chloe Nuzillat
+ */
+public class InventoryBenchmark {
+    private static final int DEFAULT_PRODUCTS = 500_000;
+    private static final int ROUNDS = 5;
+    private static final long SALES_MILLIS = 1000;
+
+    /**
+     * Runs the selected benchmark, or all of them
+     *
+     * @param args the benchmark name and the number of products
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        String benchmark = args.length > 0 ? args[0] : "all";
+        int products = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PRODUCTS;
+        boolean all = benchmark.equals("all");
+
+        if (all || benchmark.equals("snapshot")) {
+            benchmarkSnapshot(products);
+        }
+        if (all || benchmark.equals("mapped")) {
+            benchmarkMappedLoad(products * 4);
+        }
+        if (all || benchmark.equals("delta")) {
+            benchmarkDeltaSaves(products);
+        }
+        if (all || benchmark.equals("import")) {
+            benchmarkCsvImport(products * 4);
+        }
+        if (all || benchmark.equals("store")) {
+            benchmarkStores(products);
+        }
+        if (all || benchmark.equals("reads")) {
+            benchmarkSnapshotReads(products);
+        }
+        if (all || benchmark.equals("categories")) {
+            benchmarkCategoryIndex(products * 2, 5000);
+        }
+        if (all || benchmark.equals("lowstock")) {
+            benchmarkLowStockIndex(products * 2);
+        }
+        if (all || benchmark.equals("totals")) {
+            benchmarkTotals(products * 2);
+        }
+        if (all || benchmark.equals("search")) {
+            benchmarkSearch(products * 4);
+        }
+        if (all || benchmark.equals("autocomplete")) {
+            benchmarkAutocomplete(products * 2);
+        }
+        if (all || benchmark.equals("fuzzy")) {
+            benchmarkFuzzySearch(products * 2);
+        }
+        if (all || benchmark.equals("query")) {
+            benchmarkQueries(products * 2);
+        }
+        if (all || benchmark.equals("ranges")) {
+            benchmarkRangeIndexes(products * 2);
+        }
+        if (all || benchmark.equals("pages")) {
+            benchmarkPages(products * 6);
+        }
+        if (all || benchmark.equals("shards")) {
+            benchmarkShards(products);
+        }
+        if (all || benchmark.equals("concurrent")) {
+            benchmarkConcurrentSales(products / 5);
+        }
+        if (all || benchmark.equals("contention")) {
+            benchmarkStockContention();
+        }
+        if (all || benchmark.equals("versions")) {
+            benchmarkOptimisticUpdates();
+        }
+        if (all || benchmark.equals("reserve")) {
+            benchmarkReservations(products / 5);
+        }
+        if (all || benchmark.equals("batch")) {
+            benchmarkBatches(products / 25);
+        }
+        if (all || benchmark.equals("pipeline")) {
+            benchmarkPipeline(products / 5);
+        }
+        if (all || benchmark.equals("export")) {
+            benchmarkCsvExport(products * 10);
+        }
+    }
+
+    /**
+     * Compares the binary snapshot codec against Java serialization of the inventory map
+     *
+     * @param count the number of products
+     * @throws Exception if a snapshot cannot be written or read
+     */
+    @SuppressWarnings("unchecked")
+    private static void benchmarkSnapshot(int count) throws Exception {
+        printHeader("Snapshot format (" + count + " products)");
+        HashMap<Integer, Product> inventory = createInventory(count);
+        Path legacy = Files.createTempFile("legacy", ".dat");
+        Path binary = Files.createTempFile("binary", ".dat");
+
+        long legacySave = bestOf(() -> {
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacy.toFile()))) {
+                out.writeObject(inventory);
+            }
+        });
+        long legacyLoad = bestOf(() -> {
+            try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(legacy.toFile()))) {
+                ((HashMap<Integer, Product>) in.readObject()).size();
+            }
+        });
+        long binarySave = bestOf(() -> SnapshotCodec.write(inventory.values(), binary));
+        long binaryLoad = bestOf(() -> SnapshotCodec.read(binary).size());
+
+        printRow("serialization", legacySave, legacyLoad, Files.size(legacy));
+        printRow("binary codec", binarySave, binaryLoad, Files.size(binary));
+        Files.delete(legacy);
+        Files.delete(binary);
+    }
+
+    /**
+     * Compares time to first query between an eager load and a memory-mapped lazy load
+     *
+     * @param count the number of products
+     * @throws Exception if the snapshot cannot be written or read
+     */
+    private static void benchmarkMappedLoad(int count) throws Exception {
+        printHeader("Time to first query (" + count + " products)");
+        Path file = Files.createTempFile("mapped", ".dat");
+        SnapshotCodec.write(createInventory(count).values(), file);
+        int probe = count / 2;
+
+        long eager = bestOf(() -> new InventoryManager(file.toString(), null, false).productExists(probe));
+        long mapped = bestOf(() -> new InventoryManager(file.toString(), null, true).productExists(probe));
+
+        System.out.printf("%-16s %8.1f ms%n", "eager load", eager / 1e6);
+        System.out.printf("%-16s %8.1f ms%n", "mapped load", mapped / 1e6);
+        Files.delete(file);
+    }
+
+    /**
+     * Measures bytes written and time per save for delta segments against a full snapshot
+     *
+     * @param count the number of products
+     * @throws Exception if a snapshot cannot be written
+     */
+    private static void benchmarkDeltaSaves(int count) throws Exception {
+        printHeader("Bytes written per save (" + count + " products)");
+        Path dir = Files.createTempDirectory("delta");
+        String base = dir.resolve("inventory.dat").toString();
+        SnapshotCodec.write(createInventory(count).values(), Path.of(base));
+
+        DeltaSnapshots deltas = new DeltaSnapshots(base, Integer.MAX_VALUE, Long.MAX_VALUE);
+        InventoryManager manager = new InventoryManager(deltas);
+        long full = bestOf(() -> SnapshotCodec.write(manager.getAllProducts(), Path.of(base)));
+        System.out.printf("%-16s %12d bytes %8.2f ms%n", "full snapshot", Files.size(Path.of(base)), full / 1e6);
+
+        for (int changes = 10; changes <= Math.min(count, 100_000); changes *= 10) {
+            int changed = changes;
+            long before = deltas.getSegmentBytes();
+            long time = bestOf(() -> {
+                for (int id = 0; id < changed; id++) {
+                    manager.restockProduct(1, id);
+                }
+                manager.saveInventory();
+            });
+            long bytes = (deltas.getSegmentBytes() - before) / ROUNDS;
+            System.out.printf("%-16s %12d bytes %8.2f ms%n", changes + " changes", bytes, time / 1e6);
+        }
+        deltas.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Measures CSV import throughput into an in-memory inventory
+     *
+     * @param count the number of rows
+     * @throws Exception if the file cannot be written or imported
+     */
+    private static void benchmarkCsvImport(int count) throws Exception {
+        printHeader("CSV import (" + count + " rows)");
+        Path dir = Files.createTempDirectory("import");
+        Path csv = dir.resolve("catalog.csv");
+        try (var writer = Files.newBufferedWriter(csv)) {
+            writer.write("ID,Name,Quantity,Price,Category,Threshold\n");
+            for (int id = 0; id < count; id++) {
+                writer.write(id + ",\"Product " + id + ", large\"," + (id % 500) + "," + (id % 10_000) / 100.0
+                        + ",Category " + (id % 50) + ",20\n");
+            }
+        }
+        Path snapshot = dir.resolve("inventory.dat");
+        long time = bestOf(() -> {
+            Files.deleteIfExists(snapshot);
+            new CsvImporter(new InventoryManager(snapshot.toString(), null)).importFile(csv);
+        });
+        System.out.printf("%-16s %8.1f ms   %6.1f M rows/min   %d bytes%n", "import + save", time / 1e6,
+                count / (time / 6e10) / 1e6, Files.size(csv));
+        Files.delete(csv);
+        Files.delete(snapshot);
+        Files.delete(dir);
+    }
+
+    /**
+     * Compares saving and loading a full inventory through each store, without any manager code changes
+     *
+     * @param count the number of products
+     * @throws Exception if a store cannot be written or read
+     */
+    private static void benchmarkStores(int count) throws Exception {
+        printHeader("Inventory stores (" + count + " products)");
+        List<Product> products = new ArrayList<>(createInventory(count).values());
+        Path dir = Files.createTempDirectory("store");
+        String serialized = dir.resolve("serialized.dat").toString();
+        String snapshot = dir.resolve("snapshot.dat").toString();
+
+        timeStore("memory", products, MemoryStore::new, null);
+        timeStore("serialized", products, () -> new SerializedStore(serialized), serialized);
+        timeStore("snapshot", products, () -> new SnapshotStore(snapshot, false), snapshot);
+        timeStore("mapped snapshot", products, () -> new SnapshotStore(snapshot, true), snapshot);
+        Files.delete(Path.of(serialized));
+        Files.delete(Path.of(snapshot));
+        Files.delete(dir);
+    }
+
+    private static void timeStore(String label, List<Product> products, Supplier<InventoryStore> stores,
+                                  String file) throws Exception {
+        InventoryManager writer = new InventoryManager(stores.get());
+        writer.addProducts(products);
+        long save = bestOf(writer::saveInventory);
+        writer.close();
+        long load = bestOf(() -> new InventoryManager(stores.get()).productExists(products.size() / 2));
+        printRow(label, save, load, file == null ? 0 : Files.size(Path.of(file)));
+    }
+
+    /**
+     * Measures sale throughput from 1 to 32 threads, comparing the striped concurrent manager with a plain
+     * manager behind a single lock. Nine in ten operations are sales and the rest restocks.
+     *
+     * @param count the number of products
+     * @throws Exception if a thread is interrupted
+     */
+    private static void benchmarkConcurrentSales(int count) throws Exception {
+        printHeader("Concurrent sales (" + count + " products, "
+                + Runtime.getRuntime().availableProcessors() + " cores)");
+        System.out.printf("%-8s %16s %16s%n", "threads", "striped ops/s", "one lock ops/s");
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            InventoryManager striped = createSalesManager(count, true);
+            InventoryManager plain = createSalesManager(count, false);
+            long stripedOps = runSales(threads, count, (id, restock) -> {
+                if (restock) {
+                    striped.restockProduct(1, id);
+                } else {
+                    striped.sellProduct(id, 1);
+                }
+            });
+            long lockedOps = runSales(threads, count, (id, restock) -> {
+                synchronized (plain) {
+                    if (restock) {
+                        plain.restockProduct(1, id);
+                    } else {
+                        plain.sellProduct(id, 1);
+                    }
+                }
+            });
+            System.out.printf("%-8d %16.0f %16.0f%n", threads,
+                    stripedOps / (SALES_MILLIS / 1e3), lockedOps / (SALES_MILLIS / 1e3));
+        }
+    }
+
+    /**
+     * Compares a dashboard refresh computed from a copied product list, as getAllProducts returns, with the
+     * same figures computed on the shared snapshot, in time and bytes allocated per refresh. Also times the
+     * first snapshot, the next one after a burst of sales, and a sale once snapshots are being taken.
+     *
+     * @param count the number of products
+     * @throws Exception if a refresh fails
+     */
+    private static void benchmarkSnapshotReads(int count) throws Exception {
+        printHeader("Dashboard refresh (" + count + " products)");
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createInventory(count).values());
+        long start = System.nanoTime();
+        manager.snapshot();
+        System.out.printf("%-16s %8.2f ms%n", "first snapshot", (System.nanoTime() - start) / 1e6);
+        long[] sink = new long[1];
+        Task copied = () -> {
+            List<Product> products = manager.getAllProducts();
+            sink[0] += products.size() + products.stream().filter(Product::isLowStock).count()
+                    + (long) products.stream().mapToDouble(Product::getTotalValue).sum();
+        };
+        Task shared = () -> {
+            InventorySnapshot products = manager.snapshot();
+            sink[0] += products.size() + products.count(Product::isLowStock)
+                    + (long) products.sum(Product::getTotalValue);
+        };
+        for (Task task : new Task[] {copied, shared}) {
+            long time = bestOf(task);
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            task.run();
+            long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+            System.out.printf("%-16s %8.2f ms   %12d bytes per refresh%n",
+                    task == copied ? "copied list" : "snapshot", time / 1e6, allocated);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int sales : new int[] {1, 100, 10_000}) {
+            long rebuild = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < sales; i++) {
+                    manager.restockProduct(1, random.nextInt(count));
+                }
+                start = System.nanoTime();
+                manager.snapshot();
+                rebuild = Math.min(rebuild, System.nanoTime() - start);
+            }
+            System.out.printf("%-16s %8.3f ms after %d restocks%n", "next snapshot", rebuild / 1e6, sales);
+        }
+        int operations = 2_000_000;
+        long sale = bestOf(() -> {
+            for (int i = 0; i < operations; i++) {
+                manager.restockProduct(1, i % count);
+            }
+            manager.snapshot();
+        });
+        System.out.printf("%-16s %8.1f ns per restock, snapshot included%n", "restock", (double) sale / operations);
+    }
+
+    /**
+     * Compares category queries answered by scanning every product with the same queries answered by the
+     * category index, and the cost the index adds to a sale
+     *
+     * @param count the number of products
+     * @param categories the number of distinct categories
+     * @throws Exception if a query fails
+     */
+    private static void benchmarkCategoryIndex(int count, int categories) throws Exception {
+        printHeader("Category index (" + count + " products, " + categories + " categories)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        List<Product> products = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            Product product = new Product("Product " + id, 1_000_000, 0, id);
+            product.setPrice(1.5);
+            product.setCategory("Category " + id % categories);
+            products.add(product);
+        }
+        manager.addProducts(products);
+
+        long scanLookup = bestOf(() -> manager.snapshot().stream()
+                .filter(product -> "Category 42".equals(product.getCategory()))
+                .toList());
+        long scanList = bestOf(() -> manager.snapshot().stream()
+                .map(Product::getCategory)
+                .distinct()
+                .toList());
+        long saleWithout = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        });
+        long buildStart = System.nanoTime();
+        manager.getCategoryIndex();
+        long build = System.nanoTime() - buildStart;
+        long indexLookup = bestOf(() -> manager.getProductsByCategory("Category 42"));
+        long indexList = bestOf(manager::getAllCategories);
+        long saleWith = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        });
+
+        System.out.printf("%-22s %12s %12s%n", "", "scan", "index");
+        System.out.printf("%-22s %12.3f %12.3f ms%n", "products in category", scanLookup / 1e6, indexLookup / 1e6);
+        System.out.printf("%-22s %12.3f %12.3f ms%n", "all categories", scanList / 1e6, indexList / 1e6);
+        System.out.printf("%-22s %12.1f %12.1f ns%n", "sale", saleWithout / 1e6, saleWith / 1e6);
+        System.out.printf("index build %.1f ms%n", build / 1e6);
+    }
+
+    /**
+     * Compares counting and listing low-stock products by scanning every product with the low-stock index,
+     * and the cost the index adds to a sale. Sales skip the low products so their warnings are not timed.
+     *
+     * @param count the number of products, one in a hundred of them low on stock
+     * @throws Exception if a query fails
+     */
+    private static void benchmarkLowStockIndex(int count) throws Exception {
+        printHeader("Low-stock index (" + count + " products, " + count / 100 + " low)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        List<Product> products = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            products.add(new Product("Product " + id, 1_000_000, id % 100 == 0 ? 2_000_000 : 10, id));
+        }
+        manager.addProducts(products);
+
+        long scanCount = bestOf(() -> manager.snapshot().count(Product::isLowStock));
+        long scanList = bestOf(() -> manager.snapshot().stream()
+                .filter(Product::isLowStock)
+                .sorted(Comparator.comparingInt((Product product) ->
+                        product.getQuantity() - product.getQuantityThreshold()))
+                .toList());
+        long saleWithout = bestOf(() -> {
+            for (int i = 1; i <= 1_000_000; i++) {
+                manager.sellProduct(i % 100 == 0 ? 1 : i % count, 1);
+            }
+        });
+        long buildStart = System.nanoTime();
+        LowStockIndex index = manager.getLowStockIndex();
+        long build = System.nanoTime() - buildStart;
+        long indexCount = bestOf(index::getCount);
+        long indexList = bestOf(index::getProducts);
+        long saleWith = bestOf(() -> {
+            for (int i = 1; i <= 1_000_000; i++) {
+                manager.sellProduct(i % 100 == 0 ? 1 : i % count, 1);
+            }
+        });
+
+        System.out.printf("%-22s %12s %12s%n", "", "scan", "index");
+        System.out.printf("%-22s %12.3f %12.3f ms%n", "count low stock", scanCount / 1e6, indexCount / 1e6);
+        System.out.printf("%-22s %12.3f %12.3f ms%n", "list most urgent", scanList / 1e6, indexList / 1e6);
+        System.out.printf("%-22s %12.1f %12.1f ns%n", "sale", saleWithout / 1e6, saleWith / 1e6);
+        System.out.printf("index build %.1f ms%n", build / 1e6);
+    }
+
+    /**
+     * Compares a dashboard refresh computed by scanning every product with one read from the running totals,
+     * and the cost the totals add to a sale and a price change
+     *
+     * @param count the number of products
+     * @throws Exception if a query fails
+     */
+    private static void benchmarkTotals(int count) throws Exception {
+        printHeader("Running totals (" + count + " products)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        List<Product> products = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            Product product = new Product("Product " + id, 1_000_000, 0, id);
+            product.setPrice(1.25);
+            product.setCategory("Category " + id % 5000);
+            products.add(product);
+        }
+        manager.addProducts(products);
+        manager.getCategoryIndex();
+
+        long scanRefresh = bestOf(() -> String.format("%d %.2f %d", manager.snapshot().size(),
+                manager.snapshot().sum(Product::getTotalValue), manager.getAllCategories().size()));
+        long saleWithout = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        });
+        long priceWithout = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.findProduct(i % count).setPrice(1.25 + i % 4);
+            }
+        });
+        long buildStart = System.nanoTime();
+        InventoryTotals totals = manager.getTotals();
+        long build = System.nanoTime() - buildStart;
+        long totalsRefresh = bestOf(() -> String.format("%d %.2f %d", totals.getProductCount(),
+                totals.getTotalValue(), manager.getCategoryIndex().getCategoryCount()));
+        long saleWith = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        });
+        long priceWith = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.findProduct(i % count).setPrice(1.25 + i % 4);
+            }
+        });
+        long verifyStart = System.nanoTime();
+        boolean verified = manager.verifyTotals();
+        long verify = System.nanoTime() - verifyStart;
+
+        System.out.printf("%-22s %12s %12s%n", "", "scan", "totals");
+        System.out.printf("%-22s %12.3f %12.3f ms%n", "dashboard refresh", scanRefresh / 1e6, totalsRefresh / 1e6);
+        System.out.printf("%-22s %12.1f %12.1f ns%n", "sale", saleWithout / 1e6, saleWith / 1e6);
+        System.out.printf("%-22s %12.1f %12.1f ns%n", "price change", priceWithout / 1e6, priceWith / 1e6);
+        System.out.printf("totals build %.1f ms, verification %.1f ms (%s)%n", build / 1e6, verify / 1e6,
+                verified ? "matched" : "drifted");
+    }
+
+    /**
+     * Compares name searches answered by lower-casing and scanning every name with the same searches answered
+     * by the trigram index.
+     * Indexed searches are timed over a hundred runs so the fast ones are not lost in timer noise.
+     *
+     * @param count the number of products
+     * @throws Exception if a search fails
+     */
+    private static void benchmarkSearch(int count) throws Exception {
+        printHeader("Name search (" + count + " products)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createNamedProducts(count));
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long buildStart = System.nanoTime();
+        TrigramIndex index = manager.getSearchIndex();
+        long build = System.nanoTime() - buildStart;
+        System.gc();
+        long heap = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+        System.out.printf("%-22s %10s %12s %12s%n", "term", "matches", "scan ms", "index ms");
+        for (String term : new String[] {"x123456", "acme oak lamp x12", "walnut kettle", "hooli", "wid", "x9"}) {
+            long scan = bestOf(() -> manager.snapshot().stream()
+                    .filter(product -> product.getName().toLowerCase().contains(term.toLowerCase()))
+                    .toList());
+            long indexed = bestOf(() -> {
+                for (int i = 0; i < 100; i++) {
+                    manager.searchProducts(term);
+                }
+            }) / 100;
+            System.out.printf("%-22s %10d %12.3f %12.3f%n", term, manager.searchProducts(term).size(),
+                    scan / 1e6, indexed / 1e6);
+        }
+        System.out.printf("index build %.0f ms, %d trigrams, about %d MB%n", build / 1e6,
+                index.getTrigramCount(), heap >> 20);
+    }
+
+    /**
+     * Measures suggesting the ten most valuable completions of prefixes of growing length, and the cost the
+     * autocomplete index adds to a sale
+     *
+     * @param count the number of products
+     * @throws Exception if a query fails
+     */
+    private static void benchmarkAutocomplete(int count) throws Exception {
+        printHeader("Autocomplete (" + count + " products)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createNamedProducts(count));
+        long saleWithout = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        });
+        long buildStart = System.nanoTime();
+        AutocompleteIndex index = manager.getAutocompleteIndex();
+        index.complete("a", 10);
+        long build = System.nanoTime() - buildStart;
+        long saleWith = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        });
+
+        System.out.printf("%-26s %12s%n", "prefix", "us per query");
+        for (String prefix : new String[] {"a", "acme", "acme st", "acme steel widget x1", "zzz"}) {
+            long time = bestOf(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    index.complete(prefix, 10);
+                }
+            });
+            System.out.printf("%-26s %12.2f%n", prefix, time / 1e7);
+        }
+        System.out.printf("sale %.1f ns -> %.1f ns, index build %.0f ms%n", saleWithout / 1e6, saleWith / 1e6,
+                build / 1e6);
+    }
+
+    /**
+     * Compares fuzzy search through the word index against comparing the term with every word of every name
+     *
+     * @param count the number of products
+     * @throws Exception if a search fails
+     */
+    private static void benchmarkFuzzySearch(int count) throws Exception {
+        printHeader("Fuzzy search (" + count + " products)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createNamedProducts(count));
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long buildStart = System.nanoTime();
+        FuzzyIndex index = manager.getFuzzyIndex();
+        manager.fuzzySearchProducts("acme", 1);
+        long build = System.nanoTime() - buildStart;
+        System.gc();
+        long heap = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+        System.out.printf("%-24s %8s %10s %10s%n", "term", "matches", "scan ms", "index ms");
+        for (String term : new String[] {"widgte", "globx wdiget", "acme oka lapm x12345", "x123465", "nylno",
+                "zzzzzz"}) {
+            List<String> texts = FuzzyIndex.tokens(term);
+            long scan = bestOf(() -> manager.snapshot().stream()
+                    .filter(product -> {
+                        List<String> name = FuzzyIndex.tokens(product.getName());
+                        return texts.stream().allMatch(text -> name.stream().anyMatch(word ->
+                                FuzzyIndex.distance(text, word, 2) <= Math.min(2, (text.length() - 1) / 2)));
+                    })
+                    .limit(20)
+                    .toList());
+            long indexed = bestOf(() -> {
+                for (int i = 0; i < 100; i++) {
+                    manager.fuzzySearchProducts(term, 20);
+                }
+            }) / 100;
+            System.out.printf("%-24s %8d %10.3f %10.3f%n", term, manager.fuzzySearchProducts(term, 20).size(),
+                    scan / 1e6, indexed / 1e6);
+        }
+        System.out.printf("index build %.0f ms, %d words, about %d MB%n", build / 1e6, index.getWordCount(),
+                heap >> 20);
+    }
+
+    /**
+     * Compares planned queries against filtering a copy of every product with a chain of streams
+     *
+     * @param count the number of products
+     * @throws Exception if a query fails
+     */
+    private static void benchmarkQueries(int count) throws Exception {
+        printHeader("Queries (" + count + " products)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createNamedProducts(count));
+        manager.getCategoryIndex();
+        manager.getLowStockIndex();
+        manager.getSearchIndex();
+
+        ProductQuery[] queries = {
+                ProductQuery.all().inCategory("Oak Lamp").priceBetween(100.0, 200.0)
+                        .sortedBy(ProductQuery.Sort.VALUE_DESCENDING).limit(20),
+                ProductQuery.all().nameContains("x12345").inCategory("Oak Lamp"),
+                ProductQuery.all().nameContains("walnut").lowStockOnly().limit(50),
+                ProductQuery.all().priceBetween(990.0, 1000.0).sortedBy(ProductQuery.Sort.PRICE_ASCENDING)
+                        .limit(20)
+        };
+        System.out.printf("%-16s %8s %10s %10s%n", "access", "matches", "streams ms", "query ms");
+        for (ProductQuery query : queries) {
+            Comparator<Product> order = query.getSort().comparator();
+            long streams = bestOf(() -> {
+                Stream<Product> stream = manager.getAllProducts().stream()
+                        .filter(product -> query.matches(product, false, false, false));
+                if (order != null) {
+                    stream = stream.sorted(order);
+                }
+                stream.limit(query.getLimit()).toList();
+            });
+            long planned = bestOf(() -> {
+                for (int i = 0; i < 10; i++) {
+                    manager.query(query);
+                }
+            }) / 10;
+            System.out.printf("%-16s %8d %10.3f %10.3f%n", manager.plan(query).getAccess(),
+                    manager.query(query).size(), streams / 1e6, planned / 1e6);
+        }
+        System.out.println();
+        System.out.println(manager.explain(queries[0]));
+    }
+
+    /**
+     * Compares range and top-N queries answered by streaming every product with the same queries answered by
+     * the range indexes, and the cost keeping the indexes sorted adds to a sale, a restock and a price change
+     *
+     * @param count the number of products
+     * @throws Exception if a query fails
+     */
+    private static void benchmarkRangeIndexes(int count) throws Exception {
+        printHeader("Range indexes (" + count + " products)");
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createNamedProducts(count));
+
+        Task sales = () -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+            }
+        };
+        Task restocks = () -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.restockProduct(1, i % count);
+            }
+        };
+        Task priceChanges = () -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.findProduct(i % count).updatePrice(1.25 + i % 4);
+            }
+        };
+        long[] without = {bestOf(sales), bestOf(restocks), bestOf(priceChanges)};
+        long buildStart = System.nanoTime();
+        manager.getRangeIndex(RangeIndex.Key.QUANTITY).lowest(1);
+        long build = System.nanoTime() - buildStart;
+        long[] quantityOnly = {bestOf(sales), bestOf(restocks), bestOf(priceChanges)};
+        manager.getRangeIndex(RangeIndex.Key.PRICE);
+        manager.getRangeIndex(RangeIndex.Key.LAST_UPDATED);
+        long[] allThree = {bestOf(sales), bestOf(restocks), bestOf(priceChanges)};
+        RangeIndex quantities = manager.getRangeIndex(RangeIndex.Key.QUANTITY);
+        long salesQueried = bestOf(() -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                manager.sellProduct(i % count, 1);
+                if (i % 100 == 0) {
+                    quantities.lowest(20);
+                }
+            }
+        });
+
+        System.out.printf("%-16s %12s %12s %12s%n", "", "no index", "quantity", "all three");
+        String[] writes = {"sale", "restock", "price change"};
+        for (int i = 0; i < writes.length; i++) {
+            System.out.printf("%-16s %12.1f %12.1f %12.1f ns%n", writes[i], without[i] / 1e6,
+                    quantityOnly[i] / 1e6, allThree[i] / 1e6);
+        }
+        System.out.printf("sale with a top-20 quantity query every 100 sales %.1f ns%n", salesQueried / 1e6);
+        System.out.println();
+
+        for (int id = 0; id < count; id++) {
+            manager.findProduct(id).setPrice(ThreadLocalRandom.current().nextInt(100_000) / 100.0);
+        }
+        RangeIndex prices = manager.getRangeIndex(RangeIndex.Key.PRICE);
+        RangeIndex updates = manager.getRangeIndex(RangeIndex.Key.LAST_UPDATED);
+        String[] names = {"price 990-1000", "20 cheapest", "20 most stocked", "20 least recent"};
+        List<Supplier<List<Product>>> scans = List.of(
+                () -> manager.getAllProducts().stream()
+                        .filter(product -> product.getPriceCents() >= 99_000 && product.getPriceCents() <= 100_000)
+                        .toList(),
+                () -> manager.getAllProducts().stream()
+                        .sorted(Comparator.comparingLong(Product::getPriceCents)).limit(20).toList(),
+                () -> manager.getAllProducts().stream()
+                        .sorted(Comparator.comparingInt(Product::getQuantity).reversed()).limit(20).toList(),
+                () -> manager.getAllProducts().stream()
+                        .sorted(Comparator.comparingLong(Product::getLastUpdatedMillis)).limit(20).toList());
+        List<Supplier<List<Product>>> indexed = List.of(
+                () -> manager.getProductsInPriceRange(990.0, 1000.0),
+                () -> prices.lowest(20),
+                () -> quantities.highest(20),
+                () -> updates.lowest(20));
+        System.out.printf("%-16s %8s %10s %10s%n", "query", "matches", "scan ms", "index ms");
+        for (int i = 0; i < names.length; i++) {
+            Supplier<List<Product>> scan = scans.get(i);
+            Supplier<List<Product>> index = indexed.get(i);
+            long scanned = bestOf(scan::get);
+            long looked = bestOf(() -> {
+                for (int run = 0; run < 10; run++) {
+                    index.get();
+                }
+            }) / 10;
+            System.out.printf("%-16s %8d %10.3f %10.3f%n", names[i], index.get().size(), scanned / 1e6,
+                    looked / 1e6);
+        }
+        System.out.printf("quantity index build and first sort %.0f ms%n", build / 1e6);
+    }
+
+    /**
+     * Compares listings built as whole lists with the first page of the same listings read through a cursor,
+     * in time and bytes allocated, and the time to walk every page of the inventory
+     *
+     * @param count the number of products
+     * @throws Exception if a listing fails
+     */
+    private static void benchmarkPages(int count) throws Exception {
+        printHeader("Paged listings (" + count + " products, " + 500 + " per page)");
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProducts(createNamedProducts(count));
+        long buildStart = System.nanoTime();
+        manager.getProductsPage(null, 1);
+        long build = System.nanoTime() - buildStart;
+        manager.getSearchIndex();
+
+        String[] names = {"all products", "name walnut", "category Oak Lamp", "walnut in Oak Lamp"};
+        List<Supplier<List<Product>>> lists = List.of(
+                manager::getAllProducts,
+                () -> manager.searchProducts("walnut"),
+                () -> manager.getProductsByCategory("Oak Lamp"),
+                () -> manager.query(ProductQuery.all().nameContains("walnut").inCategory("Oak Lamp")));
+        List<Supplier<ProductPage>> pages = List.of(
+                () -> manager.getProductsPage(null, 500),
+                () -> manager.searchProductsPage("walnut", null, null, 500),
+                () -> manager.getProductsByCategoryPage("Oak Lamp", null, 500),
+                () -> manager.searchProductsPage("walnut", "Oak Lamp", null, 500));
+        System.out.printf("%-20s %8s %10s %12s %10s %12s%n", "listing", "matches", "list ms", "list bytes",
+                "page ms", "page bytes");
+        for (int i = 0; i < names.length; i++) {
+            Supplier<List<Product>> list = lists.get(i);
+            Supplier<ProductPage> page = pages.get(i);
+            long listTime = bestOf(list::get);
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            int matches = list.get().size();
+            long listBytes = threadBean.getCurrentThreadAllocatedBytes() - before;
+            long pageTime = bestOf(() -> {
+                for (int run = 0; run < 100; run++) {
+                    page.get();
+                }
+            }) / 100;
+            before = threadBean.getCurrentThreadAllocatedBytes();
+            page.get();
+            long pageBytes = threadBean.getCurrentThreadAllocatedBytes() - before;
+            System.out.printf("%-20s %8d %10.3f %12d %10.3f %12d%n", names[i], matches, listTime / 1e6, listBytes,
+                    pageTime / 1e6, pageBytes);
+        }
+
+        long walk = bestOf(() -> {
+            ProductPage page = manager.getProductsPage(null, 500);
+            while (page.hasMore()) {
+                page = manager.getProductsPage(page.getNextCursor(), 500);
+            }
+        });
+        System.out.printf("walking every page %.0f ms, id index build %.0f ms%n", walk / 1e6, build / 1e6);
+    }
+
+    /**
+     * Measures saving, loading and scanning the inventory split over 1 to 8 shards, each with its own
+     * snapshot file
+     *
+     * @param count the number of products
+     * @throws Exception if a snapshot cannot be written or read
+     */
+    private static void benchmarkShards(int count) throws Exception {
+        printHeader("Sharded inventory (" + count + " products, "
+                + Runtime.getRuntime().availableProcessors() + " cores)");
+        List<Product> products = new ArrayList<>(createInventory(count).values());
+        Path dir = Files.createTempDirectory("shards");
+        String dataFile = dir.resolve("inventory.dat").toString();
+        System.out.printf("%-8s %10s %10s %10s%n", "shards", "save ms", "load ms", "scan ms");
+        for (int shardCount = 1; shardCount <= 8; shardCount *= 2) {
+            ShardedInventoryManager manager = new ShardedInventoryManager(dataFile, shardCount);
+            manager.addProducts(products);
+            long save = bestOf(manager::saveInventory);
+            long load = bestOf(manager::loadInventory);
+            long scan = bestOf(() -> {
+                manager.getTotalInventoryValue();
+                manager.searchProducts("99");
+            });
+            manager.close();
+            System.out.printf("%-8d %10.1f %10.1f %10.1f%n", shardCount, save / 1e6, load / 1e6, scan / 1e6);
+            for (int shard = 0; shard < shardCount; shard++) {
+                Files.deleteIfExists(Path.of(dataFile + ".shard" + shard));
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Measures sales and restocks of one hot product from 1 to 32 threads, comparing the compare-and-set
+     * quantity in Product with the same checks behind a synchronized method
+     *
+     * @throws Exception if a thread is interrupted
+     */
+    private static void benchmarkStockContention() throws Exception {
+        printHeader("Hot product contention (" + Runtime.getRuntime().availableProcessors() + " cores)");
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Product warm = new Product("Hot", 1_000_000_000, 0, 1);
+        for (int i = 0; i < 1_000_000; i++) {
+            warm.sell(1);
+            warm.restock(1);
+        }
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            warm.sell(1);
+            warm.restock(1);
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+        System.out.printf("allocation per sale and restock: %.2f bytes%n", allocated / 1e6);
+
+        System.out.printf("%-8s %16s %20s%n", "threads", "CAS ops/s", "synchronized ops/s");
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            Product product = new Product("Hot", 1_000_000_000, 0, 1);
+            SynchronizedStock locked = new SynchronizedStock(1_000_000_000);
+            long casOps = runSales(threads, 1, (id, restock) -> {
+                if (restock) {
+                    product.restock(1);
+                } else {
+                    product.sell(1);
+                }
+            });
+            long lockedOps = runSales(threads, 1, (id, restock) -> {
+                if (restock) {
+                    locked.restock(1);
+                } else {
+                    locked.sell(1);
+                }
+            });
+            System.out.printf("%-8d %16.0f %20.0f%n", threads,
+                    casOps / (SALES_MILLIS / 1e3), lockedOps / (SALES_MILLIS / 1e3));
+        }
+    }
+
+    /**
+     * Measures read-modify-write price updates through the version compare-and-set from 1 to 32 threads, on
+     * one hot product and spread over 64, reporting completed updates and stale-version retries per update
+     *
+     * @throws Exception if a thread is interrupted
+     */
+    private static void benchmarkOptimisticUpdates() throws Exception {
+        printHeader("Optimistic price updates (" + Runtime.getRuntime().availableProcessors() + " cores)");
+        System.out.printf("%-8s %-9s %16s %18s%n", "threads", "products", "updates/s", "retries/update");
+        for (int products : new int[] {1, 64}) {
+            for (int threads = 1; threads <= 32; threads *= 2) {
+                InventoryManager manager = createSalesManager(products, true);
+                LongAdder retries = new LongAdder();
+                long updates = runSales(threads, products, (id, restock) -> {
+                    Product product = manager.findProduct(id);
+                    while (true) {
+                        long version = product.getVersion();
+                        if (manager.compareAndSetPrice(id, version, product.getPrice() + 0.01)) {
+                            return;
+                        }
+                        retries.increment();
+                    }
+                });
+                System.out.printf("%-8d %-9d %16.0f %18.4f%n", threads, products,
+                        updates / (SALES_MILLIS / 1e3), (double) retries.sum() / updates);
+            }
+        }
+    }
+
+    /**
+     * Measures placing, committing and releasing holds with that many holds live at once, and the wheel
+     * ticks that expire them
+     *
+     * @param count the number of live holds
+     * @throws Exception if a thread is interrupted
+     */
+    private static void benchmarkReservations(int count) throws Exception {
+        printHeader("Reservations (" + count + " live holds)");
+        long[] ids = new long[count];
+        long reserve = Long.MAX_VALUE;
+        long finish = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            InventoryManager manager = createSalesManager(1000, false);
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                ids[i] = manager.reserve(i % 1000, 1, Duration.ofMinutes(10 + i % 20));
+            }
+            long reserved = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                if ((i & 1) == 0) {
+                    manager.commit(ids[i]);
+                } else {
+                    manager.release(ids[i]);
+                }
+            }
+            long finished = System.nanoTime();
+            manager.close();
+            reserve = Math.min(reserve, reserved - start);
+            finish = Math.min(finish, finished - reserved);
+        }
+        System.out.printf("reserve %8.1f ns/hold   commit or release %8.1f ns/hold%n",
+                (double) reserve / count, (double) finish / count);
+
+        Product product = new Product("Widget", Integer.MAX_VALUE, 0, 1);
+        ReservationWheel wheel = new ReservationWheel(1024, 3_600_000, hold -> { });
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(new ReservationWheel.Hold(i, product, 1), (i % 4096 + 1) * 3_600_000L);
+        }
+        long start = System.nanoTime();
+        for (int tick = 0; tick < 4096; tick++) {
+            wheel.tick();
+        }
+        long ticks = System.nanoTime() - start;
+        wheel.close();
+        System.out.printf("tick %8.1f us on average (%d holds per slot)%n", ticks / 4096 / 1e3, count / 1024);
+    }
+
+    /**
+     * Compares a burst of sales applied one call and one save at a time with the same burst passed to
+     * applyBatch, in memory and with a journal forced to disk on every commit
+     *
+     * @param count the number of sales in the burst
+     * @throws Exception if the journal cannot be written
+     */
+    private static void benchmarkBatches(int count) throws Exception {
+        printHeader("Batched sales (" + count + " sales)");
+        List<StockMovement> burst = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            burst.add(StockMovement.sell(i % 1000, 1));
+        }
+        Path dir = Files.createTempDirectory("batch");
+        Path journalFile = dir.resolve("inventory.journal");
+        Path snapshot = dir.resolve("inventory.dat");
+
+        for (int round = 0; round < ROUNDS; round++) {
+            InventoryManager warmUp = createBatchManager(false, snapshot, journalFile);
+            for (StockMovement movement : burst) {
+                warmUp.sellProduct(movement.getId(), movement.getQuantity());
+            }
+            warmUp.applyBatch(burst);
+        }
+        for (boolean journaled : new boolean[] {false, true}) {
+            long single = bestOf(() -> {
+                InventoryManager manager = createBatchManager(journaled, snapshot, journalFile);
+                for (StockMovement movement : burst) {
+                    manager.sellProduct(movement.getId(), movement.getQuantity());
+                    manager.saveInventory();
+                }
+                manager.close();
+            });
+            long batched = bestOf(() -> {
+                InventoryManager manager = createBatchManager(journaled, snapshot, journalFile);
+                manager.applyBatch(burst);
+                manager.close();
+            });
+            String label = journaled ? "journal" : "memory";
+            System.out.printf("%-16s one at a time %8.1f ms   batch %8.1f ms   %6.1fx%n", label,
+                    single / 1e6, batched / 1e6, (double) single / batched);
+        }
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshot);
+        Files.delete(dir);
+    }
+
+    /**
+     * Measures sales and restocks submitted to a mutation pipeline from 1 to 8 producer threads, next to the
+     * same mix called directly on a manager in concurrent mode, and the bytes allocated per event on the
+     * producer and writer threads
+     *
+     * @param count the number of products
+     * @throws Exception if a thread is interrupted
+     */
+    private static void benchmarkPipeline(int count) throws Exception {
+        printHeader("Mutation pipeline (" + count + " products, "
+                + Runtime.getRuntime().availableProcessors() + " cores)");
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MutationPipeline warm = new MutationPipeline(createSalesManager(count, false), 8192, false, 3_600_000);
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("inventory-mutation-writer"))
+                .findFirst()
+                .orElseThrow();
+        for (int i = 0; i < 2_000_000; i++) {
+            warm.sell(i % count, 1, null);
+        }
+        long producerBefore = threadBean.getCurrentThreadAllocatedBytes();
+        long writerBefore = threadBean.getThreadAllocatedBytes(writer.threadId());
+        for (int i = 0; i < 1_000_000; i++) {
+            warm.sell(i % count, 1, null);
+        }
+        long producerAllocated = threadBean.getCurrentThreadAllocatedBytes() - producerBefore;
+        long writerAllocated = threadBean.getThreadAllocatedBytes(writer.threadId()) - writerBefore;
+        warm.close();
+        System.out.printf("allocation per event: producer %.2f bytes, writer %.2f bytes%n",
+                producerAllocated / 1e6, writerAllocated / 1e6);
+
+        System.out.printf("%-8s %16s %16s%n", "threads", "pipeline ops/s", "striped ops/s");
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            MutationPipeline pipeline = new MutationPipeline(createSalesManager(count, false), 8192, false, 100);
+            long pipelineOps = runSales(threads, count, (id, restock) -> {
+                if (restock) {
+                    pipeline.restock(id, 1, null);
+                } else {
+                    pipeline.sell(id, 1, null);
+                }
+            });
+            pipeline.close();
+            InventoryManager striped = createSalesManager(count, true);
+            long stripedOps = runSales(threads, count, (id, restock) -> {
+                if (restock) {
+                    striped.restockProduct(1, id);
+                } else {
+                    striped.sellProduct(id, 1);
+                }
+            });
+            System.out.printf("%-8d %16.0f %16.0f%n", threads,
+                    pipelineOps / (SALES_MILLIS / 1e3), stripedOps / (SALES_MILLIS / 1e3));
+        }
+    }
+
+    private static InventoryManager createBatchManager(boolean journaled, Path snapshot, Path journalFile)
+            throws Exception {
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshot);
+        InventoryStore store = journaled
+                ? new JournalStore(snapshot.toString(), new InventoryJournal(journalFile.toString(),
+                        InventoryJournal.FsyncPolicy.GROUP, Integer.MAX_VALUE), false)
+                : new MemoryStore();
+        InventoryManager manager = new InventoryManager(store);
+        List<Product> products = new ArrayList<>();
+        for (int id = 0; id < 1000; id++) {
+            products.add(new Product("Product " + id, 1_000_000, 0, id));
+        }
+        manager.addProducts(products);
+        manager.checkpoint();
+        return manager;
+    }
+
+    private static InventoryManager createSalesManager(int count, boolean concurrent) {
+        InventoryManager manager = new InventoryManager(new MemoryStore(), concurrent);
+        List<Product> products = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            products.add(new Product("Product " + id, 1_000_000_000, 0, id));
+        }
+        manager.addProducts(products);
+        return manager;
+    }
+
+    /**
+     * Runs the sale mix on several threads for a fixed time
+     *
+     * @return the number of operations completed
+     */
+    private static long runSales(int threads, int count, SaleOperation operation) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        long deadline = System.nanoTime() + SALES_MILLIS * 1_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long operations = 0;
+                while ((operations & 0xFF) != 0 || System.nanoTime() < deadline) {
+                    operation.apply(random.nextInt(count), random.nextInt(10) == 0);
+                    operations++;
+                }
+                completed.add(operations);
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return completed.sum();
+    }
+
+    /**
+     * Compares the streaming CSV exporter against the previous String.format export through a FileWriter
+     *
+     * @param count the number of products
+     * @throws Exception if a file cannot be written
+     */
+    private static void benchmarkCsvExport(int count) throws Exception {
+        printHeader("CSV export (" + count + " products)");
+        List<Product> products = new ArrayList<>(createInventory(count).values());
+        Path dir = Files.createTempDirectory("export");
+        Path csv = dir.resolve("export.csv");
+        Path gzip = dir.resolve("export.csv.gz");
+
+        long formatted = bestOf(() -> {
+            try (FileWriter writer = new FileWriter(csv.toFile())) {
+                writer.write(CsvExporter.HEADER);
+                for (Product product : products) {
+                    writer.write(String.format("%d,%s,%d,%.2f,%s,%d,%s,%.2f\n",
+                            product.getId(), product.getName(), product.getQuantity(), product.getPrice(),
+                            product.getCategory() != null ? product.getCategory() : "",
+                            product.getQuantityThreshold(), product.isLowStock() ? "Yes" : "No",
+                            product.getTotalValue()));
+                }
+            }
+        });
+        long formattedBytes = Files.size(csv);
+        long streamed = bestOf(() -> CsvExporter.export(products, csv, false, null));
+        long streamedBytes = Files.size(csv);
+        long compressed = bestOf(() -> CsvExporter.export(products, gzip, true, null));
+
+        System.out.printf("%-16s %8.1f ms   %10d bytes%n", "String.format", formatted / 1e6, formattedBytes);
+        System.out.printf("%-16s %8.1f ms   %10d bytes%n", "streaming", streamed / 1e6, streamedBytes);
+        System.out.printf("%-16s %8.1f ms   %10d bytes%n", "streaming gzip", compressed / 1e6, Files.size(gzip));
+        Files.delete(csv);
+        Files.delete(gzip);
+        Files.delete(dir);
+    }
+
+    /**
+     * Builds an inventory with a realistic mix of categories, prices and descriptions
+     *
+     * @param count the number of products
+     * @return the products keyed by id
+     */
+    static HashMap<Integer, Product> createInventory(int count) {
+        HashMap<Integer, Product> inventory = new HashMap<>((int) (count / 0.75f) + 1);
+        for (int id = 0; id < count; id++) {
+            Product product = new Product("Product " + id, id % 500, 20, id);
+            product.setPrice((id % 10_000) / 100.0);
+            product.setCategory("Category " + (id % 50));
+            if (id % 4 == 0) {
+                product.setDescription("Description of product " + id);
+            }
+            if (id % 2 == 0 && product.getQuantity() > 0) {
+                product.sell(1);
+            }
+            inventory.put(id, product);
+        }
+        return inventory;
+    }
+
+    /**
+     * Builds products named after a brand, a material, a kind of product and a model number, with prices and
+     * stock spread out so their values differ
+     *
+     * @param count the number of products
+     * @return the products, with ids from 0 to count - 1
+     */
+    static List<Product> createNamedProducts(int count) {
+        String[] brands = {"Acme", "Globex", "Initech", "Umbrella", "Hooli", "Vandelay", "Stark", "Wayne"};
+        String[] materials = {"Steel", "Oak", "Carbon", "Copper", "Bamboo", "Glass", "Walnut", "Nylon"};
+        String[] kinds = {"Widget", "Lamp", "Desk", "Cable", "Bracket", "Hinge", "Kettle", "Router", "Drill"};
+        List<Product> products = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int id = 0; id < count; id++) {
+            String name = brands[random.nextInt(brands.length)] + " " + materials[random.nextInt(materials.length)]
+                    + " " + kinds[random.nextInt(kinds.length)] + " X" + random.nextInt(1_000_000);
+            Product product = new Product(name, 1_000 + random.nextInt(1_000_000), 0, id);
+            product.setPrice(random.nextInt(100_000) / 100.0);
+            product.setCategory(materials[random.nextInt(materials.length)] + " "
+                    + kinds[random.nextInt(kinds.length)]);
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Runs a task a few times and keeps the fastest run
+     *
+     * @param task the task to time
+     * @return the fastest run in nanoseconds
+     * @throws Exception if the task fails
+     */
+    static long bestOf(Task task) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void printHeader(String title) {
+        System.out.println("\n" + title);
+        System.out.println("-".repeat(60));
+    }
+
+    private static void printRow(String label, long saveNanos, long loadNanos, long bytes) {
+        System.out.printf("%-16s save %8.1f ms   load %8.1f ms   %10d bytes%n",
+                label, saveNanos / 1e6, loadNanos / 1e6, bytes);
+    }
+
+    /**
+     * A timed unit of work
+     */
+    @FunctionalInterface
+    interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * The previous Product stock checks made thread-safe with a lock, as a baseline
+     */
+    private static final class SynchronizedStock {
+        private int quantity;
+        private long lastUpdated;
+
+        SynchronizedStock(int quantity) {
+            this.quantity = quantity;
+        }
+
+        synchronized void sell(int amount) {
+            if (amount <= 0 || amount > quantity) {
+                throw new IllegalArgumentException("Cannot sell more than available stock");
+            }
+            quantity -= amount;
+            lastUpdated = System.currentTimeMillis();
+        }
+
+        synchronized void restock(int amount) {
+            quantity = Math.addExact(quantity, amount);
+        }
+    }
+
+    /**
+     * One sale or restock of a product
+     */
+    @FunctionalInterface
+    private interface SaleOperation {
+        void apply(int id, boolean restock);
+    }
+}
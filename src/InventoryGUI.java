@@ -1,11 +1,17 @@
 package src;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -16,8 +22,10 @@ import javafx.stage.Stage;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.nio.file.Path;
 
 /**
  * GUI for the inventory manager
@@ -25,8 +33,19 @@ import java.io.IOException;
  * @author Chloe Nuzillat
  */
 public class InventoryGUI extends Application {
+    private static final int SUGGESTIONS = 8;
+    private static final long SEARCH_DELAY_MILLIS = 150;
+    private static final int FUZZY_RESULTS = 200;
+    private static final int PAGE_SIZE = 500;
+
     private InventoryManager manager = new InventoryManager();
+    private final CsvExporter exporter = new CsvExporter();
+    private Future<Long> runningExport;
     private TableView<Product> tableView;
+    private Button loadMoreButton;
+    private String listingText;
+    private String listingCategory;
+    private String nextCursor;
     private VBox dashboard;
     private Label totalProductsLabel;
     private Label totalValueLabel;
@@ -41,6 +60,10 @@ public class InventoryGUI extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Smart Inventory Tracker");
+        Timeline totalsVerification = new Timeline(new KeyFrame(javafx.util.Duration.minutes(1),
+                event -> manager.verifyTotals()));
+        totalsVerification.setCycleCount(Animation.INDEFINITE);
+        totalsVerification.play();
 
         ScrollPane scrollPane = createScrollableMainLayout();
 
@@ -126,22 +149,22 @@ public class InventoryGUI extends Application {
         FlowPane dashboardGrid = new FlowPane(10, 10);
         dashboardGrid.setAlignment(Pos.CENTER_LEFT);
         
-        List<Product> products = manager.getAllProducts();
+        InventoryTotals totals = manager.getTotals();
         
         VBox totalProductsCard = createDashboardCard("Total Products", 
-            String.valueOf(products.size()), "#007bff");
+            String.valueOf(totals.getProductCount()), "#007bff");
         totalProductsLabel = (Label) totalProductsCard.getChildren().get(0);
         
         VBox totalValueCard = createDashboardCard("Total Value", 
-            "$" + String.format("%.2f", manager.getTotalInventoryValue()), "#28a745");
+            "$" + String.format("%.2f", totals.getTotalValue()), "#28a745");
         totalValueLabel = (Label) totalValueCard.getChildren().get(0);
         
         VBox lowStockCard = createDashboardCard("Low Stock Items", 
-            String.valueOf(products.stream().filter(Product::isLowStock).count()), "#ffc107");
+            String.valueOf(manager.getLowStockIndex().getCount()), "#ffc107");
         lowStockLabel = (Label) lowStockCard.getChildren().get(0);
         
         VBox categoriesCard = createDashboardCard("Categories", 
-            String.valueOf(manager.getAllCategories().size()), "#6f42c1");
+            String.valueOf(manager.getCategoryIndex().getCategoryCount()), "#6f42c1");
         categoriesLabel = (Label) categoriesCard.getChildren().get(0);
         
         dashboardGrid.getChildren().addAll(totalProductsCard, totalValueCard, lowStockCard, categoriesCard);
@@ -150,6 +173,88 @@ public class InventoryGUI extends Application {
         return dashboard;
     }
 
+    /**
+     * Shows the most valuable product names and categories starting with the text typed so far below the
+     * search field, or hides the suggestions when there are none
+     *
+     * @param searchField the search field
+     * @param suggestions the drop-down holding the suggestions
+     * @param text the text typed so far
+     */
+    private void showSuggestions(TextField searchField, ContextMenu suggestions, String text) {
+        List<String> completions = manager.getCompletions(text, SUGGESTIONS);
+        if (completions.isEmpty() || !searchField.isFocused()
+                || (completions.size() == 1 && completions.getFirst().equalsIgnoreCase(text))) {
+            suggestions.hide();
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>(completions.size());
+        for (String completion : completions) {
+            MenuItem item = new MenuItem(completion);
+            item.setOnAction(e -> {
+                searchField.setText(completion);
+                searchField.positionCaret(completion.length());
+            });
+            items.add(item);
+        }
+        suggestions.getItems().setAll(items);
+        if (!suggestions.isShowing()) {
+            suggestions.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Shows the first page of the products whose name contains the text typed, in the category selected,
+     * falling back to a typo-tolerant search of every category, closest matches first, when no name contains
+     * the text
+     *
+     * @param text the text typed
+     * @param category the category selected, or null or "All Categories" for every category
+     */
+    private void showListing(String text, String category) {
+        listingText = text;
+        listingCategory = category == null || category.equals("All Categories") ? null : category;
+        ProductPage page = manager.searchProductsPage(listingText, listingCategory, null, PAGE_SIZE);
+        if (page.getProducts().isEmpty() && text != null && !text.trim().isEmpty()) {
+            updateTableItems(manager.fuzzySearchProducts(text, FUZZY_RESULTS), null);
+        } else {
+            updateTableItems(page.getProducts(), page.getNextCursor());
+        }
+    }
+
+    /**
+     * Appends the next page of the listing shown to the table
+     */
+    private void loadNextPage() {
+        if (nextCursor == null) {
+            return;
+        }
+        ProductPage page = manager.searchProductsPage(listingText, listingCategory, nextCursor, PAGE_SIZE);
+        tableView.getItems().addAll(page.getProducts());
+        nextCursor = page.getNextCursor();
+        loadMoreButton.setDisable(nextCursor == null);
+    }
+
+    /**
+     * Finds every product whose name contains the text typed, in the category selected, falling back to a
+     * typo-tolerant search of every category, closest matches first, when no name contains the text
+     *
+     * @param text the text typed
+     * @param category the category selected, or null or "All Categories" for every category
+     * @return the matching products
+     */
+    private List<Product> search(String text, String category) {
+        ProductQuery query = ProductQuery.all().nameContains(text);
+        if (category != null && !category.equals("All Categories")) {
+            query = query.inCategory(category);
+        }
+        List<Product> matches = manager.query(query);
+        if (matches.isEmpty() && query.getName() != null) {
+            matches = manager.fuzzySearchProducts(text, FUZZY_RESULTS);
+        }
+        return matches;
+    }
+
     /**
      * Creates the responsive content area for the main application
      *
@@ -207,8 +312,13 @@ public class InventoryGUI extends Application {
         title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #212529;");
         
         tableView = createTableView();
+        loadMoreButton = new Button("Load More");
+        loadMoreButton.setStyle("-fx-background-color: #6c757d; -fx-text-fill: white; -fx-background-radius: 6px; " +
+                "-fx-padding: 10px 20px; -fx-font-weight: bold;");
+        loadMoreButton.setOnAction(e -> loadNextPage());
+        showListing(null, null);
         
-        rightPanel.getChildren().addAll(title, tableView);
+        rightPanel.getChildren().addAll(title, tableView, loadMoreButton);
         VBox.setVgrow(tableView, Priority.ALWAYS);
         
         return rightPanel;
@@ -293,11 +403,7 @@ public class InventoryGUI extends Application {
                 
                 manager.addProduct(name, qty, threshold, id);
 
-                List<Product> products = manager.getAllProducts();
-                Product product = products.stream()
-                    .filter(p -> p.getId() == id)
-                    .findFirst()
-                    .orElse(null);
+                Product product = manager.findProduct(id);
                 
                 if (product != null) {
                     product.setPrice(price);
@@ -318,7 +424,7 @@ public class InventoryGUI extends Application {
             } catch (NumberFormatException ex) {
                 showAlert("Invalid Input", "Please enter valid numbers.", Alert.AlertType.ERROR);
             }
-            manager.saveInventory();
+            manager.saveInventoryAsync();
         });
         
         section.getChildren().addAll(title, form);
@@ -374,7 +480,7 @@ public class InventoryGUI extends Application {
             } catch (NumberFormatException ex) {
                 showAlert("Invalid Input", "Please enter valid numbers.", Alert.AlertType.ERROR);
             }
-            manager.saveInventory();
+            manager.saveInventoryAsync();
         });
         
         restockButton.setOnAction(e -> {
@@ -390,7 +496,7 @@ public class InventoryGUI extends Application {
             } catch (NumberFormatException ex) {
                 showAlert("Invalid Input", "Please enter valid numbers.", Alert.AlertType.ERROR);
             }
-            manager.saveInventory();
+            manager.saveInventoryAsync();
         });
         
         section.getChildren().addAll(title, form);
@@ -431,25 +537,24 @@ public class InventoryGUI extends Application {
         
         buttonBox.getChildren().addAll(exportButton, refreshButton, deleteButton);
 
+        ContextMenu suggestions = new ContextMenu();
+        PauseTransition searchDelay = new PauseTransition(javafx.util.Duration.millis(SEARCH_DELAY_MILLIS));
+        searchDelay.setOnFinished(e -> showListing(searchField.getText(), categoryFilter.getValue()));
+
         searchField.textProperty().addListener((observable, oldValue,
                                                 newValue) -> {
-            List<Product> filteredProducts = manager.searchProducts(newValue);
-            updateTableItems(filteredProducts);
+            showSuggestions(searchField, suggestions, newValue);
+            searchDelay.playFromStart();
         });
-
-        categoryFilter.setOnAction(e -> {
-            String selectedCategory = categoryFilter.getValue();
-            if (selectedCategory != null && !selectedCategory.equals("All Categories")) {
-                List<Product> filteredProducts = manager.getAllProducts().stream()
-                    .filter(product -> selectedCategory.equals(product.getCategory()))
-                    .collect(java.util.stream.Collectors.toList());
-                updateTableItems(filteredProducts);
-            } else {
-                refreshTable();
+        searchField.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                suggestions.hide();
             }
         });
 
-        exportButton.setOnAction(e -> exportToCSV(getCurrentTableItems()));
+        categoryFilter.setOnAction(e -> showListing(searchField.getText(), categoryFilter.getValue()));
+
+        exportButton.setOnAction(e -> exportToCSV(getCurrentTableItems(), exportButton));
 
         refreshButton.setOnAction(e -> {
             refreshTable();
@@ -523,10 +628,6 @@ public class InventoryGUI extends Application {
 
         tableView.getColumns().addAll(idCol, nameCol, qtyCol, priceCol, categoryCol, valueCol, thresholdCol);
 
-        List<Product> products = manager.getAllProducts();
-        System.out.println("Loading " + products.size() + " products into table");
-        tableView.getItems().addAll(products);
-
         tableView.setRowFactory(tv -> new TableRow<>() {
             @Override
             protected void updateItem(Product product, boolean empty) {
@@ -652,32 +753,40 @@ public class InventoryGUI extends Application {
     }
 
     /**
-     * Exports the current product list to a CSV file
+     * Exports the current product list to a CSV file in the background, or cancels the running export
      *
      * @param products the list of products to export
+     * @param exportButton the button that shows export progress
      */
-    private void exportToCSV(List<Product> products) {
-        try (FileWriter writer = new FileWriter("inventory_export.csv")) {
-            writer.write("ID,Name,Quantity,Price,Category,Threshold,Low Stock,Total Value\n");
-
-            for (Product product : products) {
-                writer.write(String.format("%d,%s,%d,%.2f,%s,%d,%s,%.2f\n",
-                    product.getId(),
-                    product.getName(),
-                    product.getQuantity(),
-                    product.getPrice(),
-                    product.getCategory() != null ? product.getCategory() : "",
-                    product.getQuantityThreshold(),
-                    product.isLowStock() ? "Yes" : "No",
-                    product.getTotalValue()
-                ));
-            }
-            
-            showAlert("Export Successful", "Inventory exported to inventory_export.csv",
-                    Alert.AlertType.INFORMATION);
-        } catch (IOException e) {
-            showAlert("Export Error", "Failed to export: " + e.getMessage(), Alert.AlertType.ERROR);
+    private void exportToCSV(List<Product> products, Button exportButton) {
+        if (runningExport != null && !runningExport.isDone()) {
+            runningExport.cancel(true);
+            return;
         }
+
+        exportButton.setText("Cancel Export");
+        runningExport = exporter.exportAsync(products, Path.of("inventory_export.csv"), false,
+                (written, total) -> Platform.runLater(() ->
+                        exportButton.setText("Cancel Export (" + (total == 0 ? 100 : written * 100 / total) + "%)")));
+        Future<Long> export = runningExport;
+
+        Thread watcher = new Thread(() -> {
+            try {
+                export.get();
+                Platform.runLater(() -> showAlert("Export Successful",
+                        "Inventory exported to inventory_export.csv", Alert.AlertType.INFORMATION));
+            } catch (InterruptedException | CancellationException e) {
+                Platform.runLater(() -> showAlert("Export Cancelled", "The export was cancelled.",
+                        Alert.AlertType.WARNING));
+            } catch (ExecutionException e) {
+                Platform.runLater(() -> showAlert("Export Error", "Failed to export: " + e.getCause().getMessage(),
+                        Alert.AlertType.ERROR));
+            } finally {
+                Platform.runLater(() -> exportButton.setText("Export CSV"));
+            }
+        }, "csv-export-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
     }
 
     /**
@@ -706,46 +815,61 @@ public class InventoryGUI extends Application {
     }
 
     /**
-     * Refreshes the table view with current data
+     * Refreshes the table view with the first page of the listing shown
      */
     private void refreshTable() {
         if (tableView != null) {
-            tableView.getItems().clear();
-            List<Product> products = manager.getAllProducts();
-            tableView.getItems().addAll(products);
+            showListing(listingText, listingCategory);
         }
     }
 
     /**
-     * Updates the table items with the provided product list
+     * Replaces the table items with one page of products
      *
-     * @param products the list of products to display
+     * @param products the products to display
+     * @param cursor the cursor to the next page, or null if there is none
      */
-    private void updateTableItems(List<Product> products) {
+    private void updateTableItems(List<Product> products, String cursor) {
         if (tableView != null) {
-            tableView.getItems().clear();
-            tableView.getItems().addAll(products);
+            tableView.getItems().setAll(products);
+            nextCursor = cursor;
+            loadMoreButton.setDisable(cursor == null);
         }
     }
 
     private List<Product> getCurrentTableItems() {
-        if (tableView != null) {
+        if (tableView == null) {
+            return manager.getAllProducts();
+        }
+        if (nextCursor == null) {
             return new ArrayList<>(tableView.getItems());
         }
-        return manager.getAllProducts();
+        return search(listingText, listingCategory);
     }
 
     private void refreshDashboard() {
         if (totalProductsLabel != null && totalValueLabel != null && 
             lowStockLabel != null && categoriesLabel != null) {
             
-            List<Product> products = manager.getAllProducts();
+            InventoryTotals totals = manager.getTotals();
 
-            totalProductsLabel.setText(String.valueOf(products.size()));
-            totalValueLabel.setText("$" + String.format("%.2f", manager.getTotalInventoryValue()));
-            lowStockLabel.setText(String.valueOf(products.stream().filter(Product::isLowStock).count()));
-            categoriesLabel.setText(String.valueOf(manager.getAllCategories().size()));
+            totalProductsLabel.setText(String.valueOf(totals.getProductCount()));
+            totalValueLabel.setText("$" + String.format("%.2f", totals.getTotalValue()));
+            lowStockLabel.setText(String.valueOf(manager.getLowStockIndex().getCount()));
+            categoriesLabel.setText(String.valueOf(manager.getCategoryIndex().getCategoryCount()));
+        }
+    }
+
+    /**
+     * Waits for background saves to finish before the application exits
+     */
+    @Override
+    public void stop() {
+        exporter.close();
+        if (!manager.awaitPendingSaves(10_000)) {
+            System.out.println("Error saving inventory: background save did not finish");
         }
+        manager.close();
     }
 
     public static void main(String[] args) {
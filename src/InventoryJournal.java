@@ -0,0 +1,387 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of inventory mutations.
+ * <p>
+ * Stock movements (sell, restock, delete) are written as fixed 20 byte records; an add record carries the
+ * product name as an extra payload, followed by the price, last update time, category and description once
+ * any of them is set. An update record carries those fields alone after a product was edited in place.
+ * Every record stores the resulting values rather than only the delta, so replaying a log over a snapshot
+ * that already contains some of its records converges to the same state.
+ * <p>
+ * Record layout: op (1), flags (1), payload length (2), id (4), a (4), b (4), payload, CRC32C (4). The
+ * fields are encoded as price (8), last update epoch millis (8), then category and description, each a
+ * length (2, 0xFFFF for null) and UTF-8 bytes.
+ *
+ * @author Chloe Nuzillat
+ */
+public class InventoryJournal implements Closeable {
+    /**
+     * When appended records are forced to the storage device
+     */
+    public enum FsyncPolicy {
+        /** Every record is written and forced before the mutation returns */
+        ALWAYS,
+        /** Records are written and forced together once a group fills up or on commit */
+        GROUP,
+        /** Records are handed to the OS on commit and never forced explicitly */
+        NEVER
+    }
+
+    static final byte OP_ADD = 1;
+    static final byte OP_SELL = 2;
+    static final byte OP_RESTOCK = 3;
+    static final byte OP_DELETE = 4;
+    static final byte OP_UPDATE = 5;
+    static final byte FLAG_FIELDS = 1;
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = HEADER_SIZE + 4;
+    private static final int MAX_PAYLOAD = 0xFFFF;
+    private static final int FIELDS_SIZE = 20;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int BUFFER_SIZE = 1 << 17;
+
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final int groupSize;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private int pendingRecords;
+
+    /**
+     * Opens (or creates) a journal file
+     *
+     * @param path the journal file
+     * @param policy when appended records are forced to disk
+     * @param groupSize how many records are committed together under {@link FsyncPolicy#GROUP}
+     * @throws IOException if the file cannot be opened
+     */
+    public InventoryJournal(String path, FsyncPolicy policy, int groupSize) throws IOException {
+        if (groupSize <= 0) {
+            throw new IllegalArgumentException("Group size must be positive");
+        }
+        this.channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.policy = policy;
+        this.groupSize = groupSize;
+    }
+
+    /**
+     * Appends an add record for a newly added product, with its price, category and description if any is set
+     *
+     * @param product the product that was added
+     * @return false if the fields did not fit in the record and only the name was written
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized boolean appendAdd(Product product) throws IOException {
+        byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Product name too long for journal");
+        }
+        boolean hasFields = product.getPrice() != 0 || product.getCategory() != null
+                || product.getDescription() != null || product.getLastUpdatedMillis() != Long.MIN_VALUE;
+        byte[] fields = hasFields ? encodeFields(product, 2 + name.length) : null;
+        if (fields == null) {
+            append(OP_ADD, (byte) 0, product.getId(), product.getQuantityThreshold(), product.getQuantity(), name);
+            return !hasFields;
+        }
+        byte[] payload = ByteBuffer.allocate(2 + name.length + fields.length)
+                .putShort((short) name.length).put(name).put(fields).array();
+        append(OP_ADD, FLAG_FIELDS, product.getId(), product.getQuantityThreshold(), product.getQuantity(), payload);
+        return true;
+    }
+
+    /**
+     * Appends an update record with the current price, category, description and last update time of a
+     * product. The fields are read under the journal lock, so when two edits race the record appended last
+     * holds the values of both.
+     *
+     * @param product the product that was edited
+     * @return false if the fields do not fit in one record and nothing was written
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized boolean appendUpdate(Product product) throws IOException {
+        byte[] fields = encodeFields(product, 0);
+        if (fields == null) {
+            return false;
+        }
+        append(OP_UPDATE, (byte) 0, product.getId(), 0, 0, fields);
+        return true;
+    }
+
+    /**
+     * Encodes the price, last update time, category and description of a product
+     *
+     * @param product the product
+     * @param extra the payload bytes the record needs besides the fields
+     * @return the encoded fields, or null if they do not fit in one record
+     */
+    private static byte[] encodeFields(Product product, int extra) {
+        byte[] category = utf8(product.getCategory());
+        byte[] description = utf8(product.getDescription());
+        int length = FIELDS_SIZE + (category == null ? 0 : category.length)
+                + (description == null ? 0 : description.length);
+        if (extra + length > MAX_PAYLOAD) {
+            return null;
+        }
+        ByteBuffer fields = ByteBuffer.allocate(length)
+                .putDouble(product.getPrice())
+                .putLong(product.getLastUpdatedMillis());
+        putString(fields, category);
+        putString(fields, description);
+        return fields.array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer out, byte[] value) {
+        if (value == null) {
+            out.putShort((short) NULL_STRING);
+        } else {
+            out.putShort((short) value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void restoreFields(ByteBuffer in, Product product) {
+        double price = in.getDouble();
+        long lastUpdatedMillis = in.getLong();
+        String category = getString(in);
+        product.restoreFields(price, category, getString(in), lastUpdatedMillis);
+    }
+
+    /**
+     * Appends a sell record
+     *
+     * @param id the id of the product
+     * @param amount the amount sold
+     * @param quantity the quantity left after the sale
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void appendSell(int id, int amount, int quantity) throws IOException {
+        append(OP_SELL, (byte) 0, id, amount, quantity, null);
+    }
+
+    /**
+     * Appends a restock record
+     *
+     * @param id the id of the product
+     * @param amount the amount restocked
+     * @param quantity the quantity after restocking
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void appendRestock(int id, int amount, int quantity) throws IOException {
+        append(OP_RESTOCK, (byte) 0, id, amount, quantity, null);
+    }
+
+    /**
+     * Appends a delete record
+     *
+     * @param id the id of the deleted product
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void appendDelete(int id) throws IOException {
+        append(OP_DELETE, (byte) 0, id, 0, 0, null);
+    }
+
+    private void append(byte op, byte flags, int id, int a, int b, byte[] payload) throws IOException {
+        int payloadLength = payload == null ? 0 : payload.length;
+        if (buffer.remaining() < RECORD_SIZE + payloadLength) {
+            writeBuffer();
+        }
+        int start = buffer.position();
+        buffer.put(op).put(flags).putShort((short) payloadLength).putInt(id).putInt(a).putInt(b);
+        if (payload != null) {
+            buffer.put(payload);
+        }
+        crc.reset();
+        crc.update(buffer.duplicate().position(start).limit(buffer.position()));
+        buffer.putInt((int) crc.getValue());
+        pendingRecords++;
+
+        if (policy == FsyncPolicy.ALWAYS || (policy == FsyncPolicy.GROUP && pendingRecords >= groupSize)) {
+            commit();
+        }
+    }
+
+    /**
+     * Writes all buffered records and forces them to disk unless the policy is {@link FsyncPolicy#NEVER}
+     *
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void commit() throws IOException {
+        writeBuffer();
+        if (policy != FsyncPolicy.NEVER && pendingRecords > 0) {
+            channel.force(false);
+        }
+        pendingRecords = 0;
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Replays every intact record onto the given inventory. A torn or corrupt tail left by a crash is
+     * truncated so new records are appended after the last good one.
+     *
+     * @param inventory the inventory loaded from the last snapshot
+     * @return the number of records replayed
+     * @throws IOException if the journal cannot be read
+     */
+    public int replay(Map<Integer, Product> inventory) throws IOException {
+        return replay(inventory, product -> { });
+    }
+
+    /**
+     * Replays every intact record onto the given inventory, passing each product an add record creates to a
+     * callback. A torn or corrupt tail left by a crash is truncated so new records are appended after the
+     * last good one.
+     *
+     * @param inventory the inventory loaded from the last snapshot
+     * @param onAdd receives each product created by an add record
+     * @return the number of records replayed
+     * @throws IOException if the journal cannot be read
+     */
+    public synchronized int replay(Map<Integer, Product> inventory, Consumer<Product> onAdd) throws IOException {
+        commit();
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        long readPosition = 0;
+        long validEnd = 0;
+        int replayed = 0;
+        boolean corrupt = false;
+
+        int read;
+        while (!corrupt && (read = channel.read(in, readPosition)) > 0) {
+            readPosition += read;
+            in.flip();
+            while (in.remaining() >= RECORD_SIZE) {
+                int start = in.position();
+                int payloadLength = in.getShort(start + 2) & 0xFFFF;
+                int recordLength = RECORD_SIZE + payloadLength;
+                if (in.remaining() < recordLength) {
+                    break;
+                }
+                crc.reset();
+                crc.update(in.duplicate().position(start).limit(start + HEADER_SIZE + payloadLength));
+                if ((int) crc.getValue() != in.getInt(start + HEADER_SIZE + payloadLength)) {
+                    corrupt = true;
+                    break;
+                }
+                apply(in, start, payloadLength, inventory, onAdd);
+                in.position(start + recordLength);
+                validEnd += recordLength;
+                replayed++;
+            }
+            in.compact();
+        }
+
+        if (validEnd < channel.size()) {
+            System.out.println("Truncating damaged journal tail at byte " + validEnd);
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        return replayed;
+    }
+
+    private static void apply(ByteBuffer in, int start, int payloadLength, Map<Integer, Product> inventory,
+                              Consumer<Product> onAdd) {
+        byte op = in.get(start);
+        int id = in.getInt(start + 4);
+        int a = in.getInt(start + 8);
+        int b = in.getInt(start + 12);
+        switch (op) {
+            case OP_ADD -> {
+                ByteBuffer payload = in.slice(start + HEADER_SIZE, payloadLength);
+                boolean hasFields = (in.get(start + 1) & FLAG_FIELDS) != 0;
+                byte[] name = new byte[hasFields ? payload.getShort() & 0xFFFF : payloadLength];
+                payload.get(name);
+                Product product = new Product(new String(name, StandardCharsets.UTF_8), b, a, id);
+                if (hasFields) {
+                    restoreFields(payload, product);
+                }
+                inventory.put(id, product);
+                onAdd.accept(product);
+            }
+            case OP_UPDATE -> {
+                Product product = inventory.get(id);
+                if (product != null) {
+                    restoreFields(in.slice(start + HEADER_SIZE, payloadLength), product);
+                }
+            }
+            case OP_SELL, OP_RESTOCK -> {
+                Product product = inventory.get(id);
+                if (product != null) {
+                    product.restoreQuantity(b);
+                }
+            }
+            case OP_DELETE -> inventory.remove(id);
+            default -> throw new IllegalStateException("Unknown journal record type " + op);
+        }
+    }
+
+    /**
+     * Discards every record, used once a snapshot containing them has been written
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    public synchronized void reset() throws IOException {
+        buffer.clear();
+        pendingRecords = 0;
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    /**
+     * Gets the size of the journal including records not yet written
+     *
+     * @return the size in bytes
+     * @throws IOException if the size cannot be read
+     */
+    public synchronized long size() throws IOException {
+        return channel.size() + buffer.position();
+    }
+
+    /**
+     * Commits outstanding records and closes the journal
+     *
+     * @throws IOException if the records cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package src;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test suite for the InventoryJournal class
+ *
+ * @author Chloe Nuzillat
+ */
+public class InventoryJournalTests {
+
+    /**
+     * Runs all inventory journal tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running InventoryJournal Tests...\n");
+
+        testReplay();
+        testCheckpoint();
+        testFieldEdits();
+        testMappedReplayEdits();
+        testTornTail();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that mutations survive a restart by replaying the journal
+     */
+    private static void testReplay() {
+        System.out.println("Journal Replay Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("journal");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String log = dir.resolve("inventory.log").toString();
+
+            InventoryJournal journal = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager manager = new InventoryManager(snapshot, journal);
+            manager.addProduct("Laptop", 10, 2, 1);
+            manager.addProduct("Mouse", 50, 5, 2);
+            manager.addProduct("Cable", 5, 1, 3);
+            manager.sellProduct(1, 4);
+            manager.restockProduct(25, 2);
+            manager.deleteProduct(3);
+            manager.saveInventory();
+            journal.close();
+
+            SimpleTestFramework.assertEquals((26L + 25L + 25L) + 3L * InventoryJournal.RECORD_SIZE,
+                    Files.size(Path.of(log)), "Stock movements use fixed size records");
+
+            InventoryJournal reopened = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager restored = new InventoryManager(snapshot, reopened);
+            SimpleTestFramework.assertEquals(2, restored.getAllProducts().size(), "Replay restores product count");
+            SimpleTestFramework.assertFalse(restored.productExists(3), "Replay applies deletes");
+            SimpleTestFramework.assertEquals(6, quantityOf(restored, 1), "Replay applies sells");
+            SimpleTestFramework.assertEquals(75, quantityOf(restored, 2), "Replay applies restocks");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a checkpoint writes a snapshot and empties the journal
+     */
+    private static void testCheckpoint() {
+        System.out.println("Journal Checkpoint Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("journal");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String log = dir.resolve("inventory.log").toString();
+
+            InventoryJournal journal = new InventoryJournal(log, InventoryJournal.FsyncPolicy.ALWAYS, 1);
+            InventoryManager manager = new InventoryManager(snapshot, journal);
+            manager.addProduct("Laptop", 10, 2, 1);
+            manager.checkpoint();
+            SimpleTestFramework.assertEquals(0L, journal.size(), "Checkpoint empties the journal");
+
+            manager.sellProduct(1, 3);
+            journal.close();
+
+            InventoryJournal reopened = new InventoryJournal(log, InventoryJournal.FsyncPolicy.ALWAYS, 1);
+            InventoryManager restored = new InventoryManager(snapshot, reopened);
+            SimpleTestFramework.assertEquals(7, quantityOf(restored, 1), "Journal is replayed on top of snapshot");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that prices, categories and descriptions survive a restart without a checkpoint
+     */
+    private static void testFieldEdits() {
+        System.out.println("Journal Field Edit Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("journal");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String log = dir.resolve("inventory.log").toString();
+
+            InventoryJournal journal = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager manager = new InventoryManager(snapshot, journal);
+            manager.addProduct("Laptop", 10, 2, 1);
+            manager.addProduct("Mouse", 50, 5, 2);
+            manager.findProduct(1).setPrice(999.5);
+            manager.findProduct(1).setCategory("Electronics");
+            manager.findProduct(2).updatePrice(19.99);
+            manager.findProduct(2).setDescription("Wireless");
+            Product mouse = manager.findProduct(2);
+            SimpleTestFramework.assertTrue(mouse.compareAndSetCategory(mouse.getVersion(), "Accessories"),
+                    "Compare-and-set edit applied");
+            Product keyboard = new Product("Keyboard", 7, 1, 3);
+            keyboard.setPrice(45.0);
+            keyboard.setCategory("Accessories");
+            manager.addProducts(List.of(keyboard));
+            manager.saveInventory();
+            manager.addProduct("Cable", 5, 1, 4);
+            manager.findProduct(4).setCategory("Accessories");
+            manager.saveInventory();
+            journal.close();
+
+            InventoryJournal reopened = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager restored = new InventoryManager(snapshot, reopened);
+            SimpleTestFramework.assertEquals(999.5, restored.findProduct(1).getPrice(), "Edited price survives");
+            SimpleTestFramework.assertEquals("Electronics", restored.findProduct(1).getCategory(),
+                    "Edited category survives");
+            SimpleTestFramework.assertEquals(19.99, restored.findProduct(2).getPrice(), "Updated price survives");
+            SimpleTestFramework.assertEquals("Accessories", restored.findProduct(2).getCategory(),
+                    "Compare-and-set category survives");
+            SimpleTestFramework.assertEquals("Wireless", restored.findProduct(2).getDescription(),
+                    "Edited description survives");
+            SimpleTestFramework.assertEquals(mouse.getLastUpdated(), restored.findProduct(2).getLastUpdated(),
+                    "Price update time survives");
+            SimpleTestFramework.assertEquals(45.0, restored.findProduct(3).getPrice(), "Batch added price survives");
+            SimpleTestFramework.assertEquals("Accessories", restored.findProduct(4).getCategory(),
+                    "Edit after a checkpoint survives");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that products added by journal replay onto a mapped snapshot journal their later edits
+     */
+    private static void testMappedReplayEdits() {
+        System.out.println("Mapped Journal Replay Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("journal");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String log = dir.resolve("inventory.log").toString();
+
+            InventoryJournal journal = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager manager = new InventoryManager(snapshot, journal, true);
+            manager.addProduct("Laptop", 10, 2, 1);
+            manager.checkpoint();
+            manager.addProduct("Mouse", 50, 5, 2);
+            manager.saveInventory();
+            journal.close();
+
+            InventoryJournal replayed = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager restarted = new InventoryManager(snapshot, replayed, true);
+            restarted.findProduct(2).setPrice(24.5);
+            restarted.findProduct(2).setCategory("Accessories");
+            SimpleTestFramework.assertEquals(1, restarted.getProductsByCategory("Accessories").size(),
+                    "Replayed product edits reach the indexes");
+            restarted.saveInventory();
+            replayed.close();
+
+            InventoryJournal reopened = new InventoryJournal(log, InventoryJournal.FsyncPolicy.GROUP, 4);
+            InventoryManager restored = new InventoryManager(snapshot, reopened, true);
+            SimpleTestFramework.assertEquals(24.5, restored.findProduct(2).getPrice(),
+                    "Edit of a replayed product survives");
+            SimpleTestFramework.assertEquals("Accessories", restored.findProduct(2).getCategory(),
+                    "Category edit of a replayed product survives");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a partially written record at the end of the journal is discarded
+     */
+    private static void testTornTail() {
+        System.out.println("Journal Torn Tail Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("journal");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String log = dir.resolve("inventory.log").toString();
+
+            InventoryJournal journal = new InventoryJournal(log, InventoryJournal.FsyncPolicy.NEVER, 1);
+            InventoryManager manager = new InventoryManager(snapshot, journal);
+            manager.addProduct("Laptop", 10, 2, 1);
+            manager.sellProduct(1, 1);
+            manager.sellProduct(1, 1);
+            journal.close();
+
+            long intact = Files.size(Path.of(log));
+            try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+                file.setLength(intact - 3);
+            }
+
+            InventoryJournal reopened = new InventoryJournal(log, InventoryJournal.FsyncPolicy.NEVER, 1);
+            InventoryManager restored = new InventoryManager(snapshot, reopened);
+            SimpleTestFramework.assertEquals(9, quantityOf(restored, 1), "Torn record is ignored");
+            SimpleTestFramework.assertEquals(intact - InventoryJournal.RECORD_SIZE, reopened.size(),
+                    "Torn record is truncated");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    private static int quantityOf(InventoryManager manager, int id) {
+        return manager.getAllProducts().stream()
+                .filter(p -> p.getId() == id)
+                .findFirst()
+                .map(Product::getQuantity)
+                .orElse(-1);
+    }
+}
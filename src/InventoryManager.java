@@ -1,48 +1,326 @@
 package src;
 
-import java.io.*;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 /**
- * Manages the inventory of products
+ * Manages the inventory of products.
+ * <p>
+ * In concurrent mode products live in a ConcurrentHashMap, still decoded on first access when the snapshot is
+ * memory-mapped, and every change to a product runs under one of a fixed set of striped locks chosen by
+ * product id, so sales and restocks of different products proceed in parallel while two sales of the same
+ * product can never oversell it. Whole-inventory operations take every stripe in order and therefore see a
+ * consistent state. Lookups by id take no lock.
+ * <p>
+ * Whole-inventory reads go through an {@link InventorySnapshot}, a persistent copy of the products and their
+ * values at one point in time. Changes only mark the products they touch; the next snapshot copies those and
+ * shares everything else with the previous one, and reads with no change in between share it without copying
+ * or locking. Totals, category, low-stock, name search, autocomplete and fuzzy search queries use
+ * {@link InventoryTotals}, a {@link CategoryIndex}, a {@link LowStockIndex}, a {@link TrigramIndex}, an
+ * {@link AutocompleteIndex} and a {@link FuzzyIndex}, each built on the first such query and kept up to date
+ * on every change from then on.
+ * Price, quantity and last-update ranges are answered by a {@link RangeIndex} per key, built on request
+ * with {@link #getRangeIndex(RangeIndex.Key)}. {@link #query(ProductQuery)} combines conditions, reading
+ * through whichever index already built visits the fewest products.
+ * Listings of every product, a search or a category can be read one {@link ProductPage} at a time, in order
+ * of id, with a cursor that stays valid while products are added and deleted.
+ * {@link #verifyTotals()} checks the running totals against a full scan and rebuilds them if they drifted.
+ * <p>
+ * Stock can be held for a later sale with {@link #reserve(int, int, Duration)}. Held stock still counts as on
+ * hand but can no longer be sold or reserved, and holds that are neither committed nor released in time are
+ * released by a timer wheel. Holds live in memory only and do not survive a restart.
  *
  * @author Chloe Nuzillat
  */
 public class InventoryManager {
-    private HashMap<Integer, Product> inventory;
+    private static final int STRIPES = 64;
+    private static final int RESERVATION_SLOTS = 1024;
+    private static final long RESERVATION_TICK_MILLIS = 100;
+    private static final Duration FUZZY_SEARCH_BUDGET = Duration.ofMillis(20);
+
+    private Map<Integer, Product> inventory;
+    private final InventoryStore store;
+    private final ProductListener productListener = new ProductListener() {
+        @Override
+        public void productChanged(Product product) {
+            InventoryManager.this.productChanged(product);
+        }
+
+        @Override
+        public void productEdited(Product product) {
+            InventoryManager.this.productEdited(product);
+        }
+    };
+    private final ReentrantLock[] stripes;
+    private final Map<Long, ReservationWheel.Hold> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong nextReservationId = new AtomicLong();
+    private volatile ReservationWheel reservationWheel;
+    private volatile InventorySnapshot snapshot;
+    private volatile boolean snapshotTracking;
+    private final Queue<Product> snapshotPending = new ConcurrentLinkedQueue<>();
+    private volatile ProductIndex[] indexes = new ProductIndex[0];
+    private volatile CategoryIndex categoryIndex;
+    private volatile LowStockIndex lowStockIndex;
+    private volatile InventoryTotals totals;
+    private volatile TrigramIndex searchIndex;
+    private volatile AutocompleteIndex autocompleteIndex;
+    private volatile FuzzyIndex fuzzyIndex;
+    private volatile AtomicReferenceArray<RangeIndex> rangeIndexes = newRangeIndexes();
+    private volatile ScheduledExecutorService totalsVerifier;
+    private long snapshotVersion;
 
     /**
      * Constructs the inventory manager
      */
     public InventoryManager() {
+        this("inventory.dat", null);
+    }
+
+    /**
+     * Constructs an inventory manager backed by the given snapshot file. When a journal is given, every
+     * add, sell, restock and delete is appended to it and the journal is replayed on top of the snapshot
+     * when loading.
+     *
+     * @param dataFile the snapshot file
+     * @param journal the write-ahead journal, or null to rewrite the snapshot on every save
+     */
+    public InventoryManager(String dataFile, InventoryJournal journal) {
+        this(dataFile, journal, false);
+    }
+
+    /**
+     * Constructs an inventory manager that can load its snapshot lazily. In mapped mode the snapshot file
+     * is memory-mapped and only an id to offset index is built, so each product is decoded the first time
+     * it is looked up or scanned. Snapshots still in the legacy serialized format are read eagerly.
+     *
+     * @param dataFile the snapshot file
+     * @param journal the write-ahead journal, or null to rewrite the snapshot on every save
+     * @param mapped true to memory-map the snapshot and decode products on first access
+     */
+    public InventoryManager(String dataFile, InventoryJournal journal, boolean mapped) {
+        this(journal == null ? new SnapshotStore(dataFile, mapped) : new JournalStore(dataFile, journal, mapped));
+    }
+
+    /**
+     * Constructs an inventory manager that saves only the products changed or deleted since the previous
+     * save, as delta segments on top of a base snapshot that is compacted in the background
+     *
+     * @param deltas the base snapshot and its delta segments
+     */
+    public InventoryManager(DeltaSnapshots deltas) {
+        this(new DeltaStore(deltas));
+    }
+
+    /**
+     * Constructs an inventory manager that loads from and saves to the given store
+     *
+     * @param store the persistence backend
+     */
+    public InventoryManager(InventoryStore store) {
+        this(store, false);
+    }
+
+    /**
+     * Constructs an inventory manager that can be shared by many threads. The store must then be thread-safe,
+     * as every store shipped with the manager is.
+     *
+     * @param store the persistence backend
+     * @param concurrent true to allow concurrent use from many threads
+     */
+    public InventoryManager(InventoryStore store, boolean concurrent) {
+        this.store = store;
+        if (concurrent) {
+            stripes = new ReentrantLock[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new ReentrantLock();
+            }
+        } else {
+            stripes = null;
+        }
         inventory = new HashMap<>();
         loadInventory();
     }
 
     /**
-     * Loads existing inventory from inventory.dat
+     * Loads the existing inventory from the store
      */
-    @SuppressWarnings("unchecked")
     public void loadInventory() {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream("inventory.dat"))) {
-            inventory = (HashMap<Integer, Product>) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            System.out.println("No existing inventory found. Starting fresh.");
-            inventory = new HashMap<>();
+        lockAll();
+        try {
+            Map<Integer, Product> loaded;
+            try {
+                loaded = store.load(product -> product.setListener(productListener));
+            } catch (IOException e) {
+                System.out.println("No existing inventory found. Starting fresh.");
+                loaded = new HashMap<>();
+            }
+            if (stripes == null) {
+                inventory = loaded;
+            } else if (loaded instanceof LazyInventoryMap lazy) {
+                inventory = lazy.toConcurrent();
+            } else {
+                inventory = new ConcurrentHashMap<>(loaded);
+            }
+            snapshot = null;
+            snapshotPending.clear();
+            indexes = new ProductIndex[0];
+            categoryIndex = null;
+            lowStockIndex = null;
+            totals = null;
+            searchIndex = null;
+            autocompleteIndex = null;
+            fuzzyIndex = null;
+            rangeIndexes = newRangeIndexes();
+        } finally {
+            unlockAll();
         }
     }
 
     /**
-     * Saves inventory changes to inventory.dat
+     * Saves inventory changes. Depending on the store this commits the pending journal records, writes a
+     * segment with the products changed since the last save or rewrites the whole snapshot.
      */
     public void saveInventory() {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("inventory.dat"))) {
-            out.writeObject(inventory);
+        lockAll();
+        try {
+            store.flush(inventory.values());
+        } catch (IOException e) {
+            System.out.println("Error saving inventory: " + e.getMessage());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Records a change made directly on a product
+     */
+    private void productChanged(Product product) {
+        snapshotChanged(product);
+        store.changed(product);
+        for (ProductIndex index : indexes) {
+            index.changed(product);
+        }
+    }
+
+    /**
+     * Records a change made to the price, category or description of a product
+     */
+    private void productEdited(Product product) {
+        snapshotChanged(product);
+        try {
+            store.edited(product);
+        } catch (IOException e) {
+            System.out.println("Error recording change: " + e.getMessage());
+        }
+        for (ProductIndex index : indexes) {
+            index.changed(product);
+        }
+    }
+
+    /**
+     * Saves inventory changes without blocking on file I/O where the store supports it. A snapshot store is
+     * handed the current {@link #snapshot()}, which only copies the products changed since the previous one,
+     * and encodes and writes it on a background thread, coalescing saves requested while one is in progress.
+     * Other stores save as {@link #saveInventory()} does.
+     */
+    public void saveInventoryAsync() {
+        lockAll();
+        try {
+            if (store instanceof SnapshotStore snapshotStore) {
+                snapshotStore.flushAsync(snapshot());
+            } else {
+                store.flushAsync(inventory.values());
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving inventory: " + e.getMessage());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Waits for background saves to reach the store
+     *
+     * @param timeoutMillis how long to wait at most
+     * @return true if every requested save has been written
+     */
+    public boolean awaitPendingSaves(long timeoutMillis) {
+        try {
+            return store.awaitFlush(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the scheduler used by {@link #saveInventoryAsync()}, for save latency and coalescing statistics
+     *
+     * @return the scheduler, or null if the store is not a snapshot store or no background save was requested
+     */
+    public SnapshotScheduler getSnapshotScheduler() {
+        return store instanceof SnapshotStore snapshotStore ? snapshotStore.getScheduler() : null;
+    }
+
+    /**
+     * Gets the store this manager saves to
+     *
+     * @return the persistence backend
+     */
+    public InventoryStore getStore() {
+        return store;
+    }
+
+    /**
+     * Writes the inventory in the store's most compact form. In journal mode this writes a full snapshot and
+     * discards the journal records it now contains; in delta mode the pending changes are saved and every
+     * segment is merged into the base.
+     */
+    public void checkpoint() {
+        lockAll();
+        try {
+            store.checkpoint(inventory.values());
         } catch (IOException e) {
             System.out.println("Error saving inventory: " + e.getMessage());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Waits for background saves and releases the store
+     */
+    public void close() {
+        ReservationWheel wheel = reservationWheel;
+        if (wheel != null) {
+            wheel.close();
+        }
+        ScheduledExecutorService verifier = totalsVerifier;
+        if (verifier != null) {
+            verifier.shutdownNow();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("Error closing inventory store: " + e.getMessage());
         }
     }
 
@@ -55,7 +333,66 @@ public class InventoryManager {
      * @param id the unique identifier for the product
      */
     public void addProduct(String name, int quantity, int quantityThreshold, int id) {
-        inventory.put(id, new Product(name, quantity, quantityThreshold, id));
+        Product product = new Product(name, quantity, quantityThreshold, id);
+        ReentrantLock lock = lock(id);
+        try {
+            insert(product);
+            store.put(product);
+        } catch (IOException e) {
+            System.out.println("Error recording change: " + e.getMessage());
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Adds many fully built products at once, replacing any with the same id. The store records them as one
+     * batch; in journal mode the next {@link #saveInventory()} writes a full checkpoint instead of one
+     * journal record per product.
+     *
+     * @param products the products to add
+     */
+    public void addProducts(Collection<Product> products) {
+        lockAll();
+        try {
+            ensureCapacity(inventory.size() + products.size());
+            for (Product product : products) {
+                insert(product);
+            }
+            store.putAll(products);
+        } catch (IOException e) {
+            System.out.println("Error recording change: " + e.getMessage());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Grows the inventory map once so that the expected number of products fits without rehashing
+     *
+     * @param expectedSize the number of products expected
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (inventory instanceof HashMap && expectedSize > inventory.size() * 2) {
+            HashMap<Integer, Product> resized = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+            resized.putAll(inventory);
+            inventory = resized;
+        }
+    }
+
+    private void insert(Product product) {
+        int id = product.getId();
+        product.setListener(productListener);
+        Product replaced = inventory.put(id, product);
+        if (replaced != product) {
+            snapshotChanged(product);
+            for (ProductIndex index : indexes) {
+                index.add(product);
+            }
+        }
+        if (replaced != null && replaced != product) {
+            replaced.setListener(null);
+        }
     }
 
     /**
@@ -65,9 +402,18 @@ public class InventoryManager {
      * @param quantity the amount of product to sell
      */
     public void sellProduct(int id, int quantity) {
-        Product product = inventory.get(id);
+        Product product;
+        ReentrantLock lock = lock(id);
+        try {
+            product = inventory.get(id);
+            if (product != null) {
+                product.sell(quantity);
+                recordStockChange(product, -quantity);
+            }
+        } finally {
+            unlock(lock);
+        }
         if (product != null) {
-            product.sell(quantity);
             if (product.isLowStock()) {
                 System.out.println("Low stock product: " + product.getName());
             }
@@ -84,9 +430,93 @@ public class InventoryManager {
      * @param id the id of the product
      */
     public void restockProduct(int quantity, int id) {
+        ReentrantLock lock = lock(id);
+        try {
+            Product product = inventory.get(id);
+            if (product != null) {
+                product.restock(quantity);
+                recordStockChange(product, quantity);
+            }
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Applies a burst of sales, restocks and new products in one pass, then saves once. In concurrent mode
+     * every stripe the batch touches is locked once, in order, for the whole batch. Problems are reported per
+     * movement instead of thrown, and nothing is printed.
+     *
+     * @param movements the movements to apply, in order
+     * @return the outcome of each movement, at the same index
+     */
+    public StockMovement.Result[] applyBatch(List<StockMovement> movements) {
+        StockMovement.Result[] results = new StockMovement.Result[movements.size()];
+        long locked = lockStripes(movements);
+        try {
+            for (int i = 0; i < results.length; i++) {
+                StockMovement movement = movements.get(i);
+                results[i] = apply(movement.getType(), movement.getId(), movement.getQuantity(),
+                        movement.getName(), movement.getThreshold());
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+        saveInventory();
+        return results;
+    }
+
+    /**
+     * Applies one movement without taking locks, saving or printing
+     *
+     * @param type the kind of movement
+     * @param id the id of the product
+     * @param quantity the amount sold, restocked or added
+     * @param name the name of a new product
+     * @param threshold the low stock threshold of a new product
+     * @return the outcome
+     */
+    StockMovement.Result apply(StockMovement.Type type, int id, int quantity, String name, int threshold) {
+        if (type == StockMovement.Type.ADD) {
+            if (name == null || name.trim().isEmpty() || quantity < 0 || threshold < 0 || id < 0) {
+                return StockMovement.Result.INVALID;
+            }
+            Product product = new Product(name, quantity, threshold, id);
+            insert(product);
+            try {
+                store.put(product);
+            } catch (IOException e) {
+                System.out.println("Error recording change: " + e.getMessage());
+            }
+            return StockMovement.Result.APPLIED;
+        }
+
+        if (quantity <= 0) {
+            return StockMovement.Result.INVALID;
+        }
         Product product = inventory.get(id);
-        if (product != null) {
-            product.restock(quantity);
+        if (product == null) {
+            return StockMovement.Result.NOT_FOUND;
+        }
+        if (type == StockMovement.Type.SELL) {
+            if (!product.trySell(quantity)) {
+                return StockMovement.Result.INSUFFICIENT_STOCK;
+            }
+            recordStockChange(product, -quantity);
+        } else {
+            if (!product.tryRestock(quantity)) {
+                return StockMovement.Result.INVALID;
+            }
+            recordStockChange(product, quantity);
+        }
+        return StockMovement.Result.APPLIED;
+    }
+
+    private void recordStockChange(Product product, int change) {
+        try {
+            store.stockChanged(product, change);
+        } catch (IOException e) {
+            System.out.println("Error recording change: " + e.getMessage());
         }
     }
 
@@ -94,7 +524,7 @@ public class InventoryManager {
      * Prints out the entire inventory to the user
      */
     public void showInventory() {
-        for (Product product : inventory.values()) {
+        for (Product product : snapshot()) {
             System.out.println(product);
         }
     }
@@ -103,15 +533,15 @@ public class InventoryManager {
      * Shows all products that are low on stock
      */
     public void showLowStockItems() {
-        for (Product product : inventory.values()) {
-            if (product.isLowStock()) {
-                System.out.println("Low stock: " + product.getName() + " - Quantity: " + product.getQuantity());
-            }
+        for (Product product : getLowStockIndex().getProducts()) {
+            System.out.println("Low stock: " + product.getName() + " - Quantity: " + product.getQuantity());
         }
     }
 
     /**
-     * Gets all products in the inventory
+     * Gets all products in the inventory, as a new list of the live products the caller may change. Readers
+     * that only look at the products should use {@link #snapshot()}, which does not copy and whose values
+     * stay as they were when it was taken.
      *
      * @return a list of all products
      */
@@ -120,15 +550,246 @@ public class InventoryManager {
     }
 
     /**
-     * Searches for products by name
+     * Gets one page of all products in ascending order of id, read from the id index without building the
+     * whole list. The index is built on the first page requested and maintained afterwards.
      *
-     * @param searchTerm the term to search for
+     * @param cursor the cursor from the previous page, or null for the first page
+     * @param pageSize the largest number of products on the page
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid or the page size is not positive
+     */
+    public ProductPage getProductsPage(String cursor, int pageSize) {
+        RangeIndex ids = getRangeIndex(RangeIndex.Key.ID);
+        return ProductPage.read(cursor, pageSize,
+                (afterId, limit) -> ids.range(afterId + 1, Integer.MAX_VALUE, limit), null);
+    }
+
+    /**
+     * Gets the current snapshot of the products. Taking a snapshot is free unless a product changed since the
+     * previous one. Otherwise the next one is built from it under every stripe, copying only the products
+     * changed since, so writers wait for the changes rather than for the whole inventory. The first snapshot
+     * copies every product.
+     *
+     * @return an immutable snapshot of the products and their values at one point in time
+     */
+    public InventorySnapshot snapshot() {
+        InventorySnapshot current = snapshot;
+        if (current != null && snapshotPending.isEmpty()) {
+            return current;
+        }
+        lockAll();
+        try {
+            snapshotTracking = true;
+            current = snapshot;
+            ProductTrie.Editor editor;
+            if (current == null) {
+                snapshotPending.forEach(Product::clearSnapshotPending);
+                snapshotPending.clear();
+                editor = ProductTrie.EMPTY.edit();
+                for (Product product : inventory.values()) {
+                    editor.put(product.copy());
+                }
+            } else if (!snapshotPending.isEmpty()) {
+                editor = current.getProducts().edit();
+                for (Product changed; (changed = snapshotPending.poll()) != null; ) {
+                    changed.clearSnapshotPending();
+                    Product product = inventory.get(changed.getId());
+                    if (product == null) {
+                        editor.remove(changed.getId());
+                    } else {
+                        editor.put(product.copy());
+                    }
+                }
+            } else {
+                return current;
+            }
+            current = new InventorySnapshot(editor.build(), ++snapshotVersion);
+            snapshot = current;
+            return current;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Queues a product added, changed or deleted since the last snapshot, once until that snapshot is built
+     */
+    private void snapshotChanged(Product product) {
+        if (snapshotTracking && product.markSnapshotPending()) {
+            snapshotPending.add(product);
+        }
+    }
+
+    /**
+     * Searches for products by name, ignoring case, through the trigram search index
+     *
+     * @param searchTerm the term to search for, or null or blank for every product
      * @return a list of products matching the search term
      */
     public List<Product> searchProducts(String searchTerm) {
-        return inventory.values().stream()
-                .filter(product -> product.getName().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(Collectors.toList());
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return getAllProducts();
+        }
+        return getSearchIndex().search(searchTerm);
+    }
+
+    /**
+     * Gets one page of the products whose name contains a term, ignoring case, optionally within a category,
+     * in ascending order of id. The page is read from the category when it holds fewer products than the
+     * term's shortest posting list and from the trigram index otherwise; terms shorter than three characters
+     * check the names of the category, or of every product, a batch at a time.
+     *
+     * @param searchTerm the term to search for, or null or blank for every product
+     * @param category the category, or null for any category
+     * @param cursor the cursor from the previous page, or null for the first page
+     * @param pageSize the largest number of products on the page
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid or the page size is not positive
+     */
+    public ProductPage searchProductsPage(String searchTerm, String category, String cursor, int pageSize) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return category == null ? getProductsPage(cursor, pageSize)
+                    : getProductsByCategoryPage(category, cursor, pageSize);
+        }
+        String term = TrigramIndex.normalize(searchTerm);
+        Predicate<Product> named = product -> TrigramIndex.contains(product.getName(), term);
+        if (category != null) {
+            CategoryIndex categories = getCategoryIndex();
+            if (term.length() < 3 || categories.getProductCount(category) <= getSearchIndex().estimate(term)) {
+                return ProductPage.read(cursor, pageSize,
+                        (afterId, limit) -> categories.getProducts(category, afterId, limit), named);
+            }
+        }
+        if (term.length() >= 3) {
+            TrigramIndex index = getSearchIndex();
+            return ProductPage.read(cursor, pageSize, (afterId, limit) -> index.search(term, afterId, limit),
+                    category == null ? null : product -> category.equals(product.getCategory()));
+        }
+        RangeIndex ids = getRangeIndex(RangeIndex.Key.ID);
+        return ProductPage.read(cursor, pageSize,
+                (afterId, limit) -> ids.range(afterId + 1, Integer.MAX_VALUE, limit), named);
+    }
+
+    /**
+     * Runs a query, visiting the products through the most selective index already built and checking the
+     * other conditions in the same pass
+     *
+     * @param query the query
+     * @return a new list of the matching products, in the query's order and at most its limit
+     */
+    public List<Product> query(ProductQuery query) {
+        return plan(query).execute();
+    }
+
+    /**
+     * Describes how a query would be run: the index or scan chosen, the number of products each way in
+     * would visit, the conditions checked per product and how results are ordered
+     *
+     * @param query the query
+     * @return the plan, one line per step
+     */
+    public String explain(ProductQuery query) {
+        return plan(query).explain();
+    }
+
+    /**
+     * Plans a query against the live products and the indexes built so far
+     */
+    QueryPlan plan(ProductQuery query) {
+        AtomicReferenceArray<RangeIndex> ranges = rangeIndexes;
+        return QueryPlan.choose(query, inventory.values(), searchIndex, categoryIndex, lowStockIndex,
+                ranges.get(RangeIndex.Key.PRICE.ordinal()), ranges.get(RangeIndex.Key.QUANTITY.ordinal()));
+    }
+
+    /**
+     * Searches for products by name allowing typos: every word of the term must be at most two edits, or one
+     * for words of three or four characters, from a word of the name. Gives up after
+     * 20 ms and returns the best matches found by then.
+     *
+     * @param searchTerm the term to search for
+     * @param limit the largest number of products returned
+     * @return the matching products, closest first, empty for a null or blank term
+     */
+    public List<Product> fuzzySearchProducts(String searchTerm, int limit) {
+        return getFuzzyIndex().search(searchTerm, FuzzyIndex.MAX_EDITS, limit, FUZZY_SEARCH_BUDGET);
+    }
+
+    /**
+     * Gets the word index used for fuzzy search. The index is built from the inventory on first use, under
+     * every stripe, and maintained as products are added, replaced and deleted afterwards.
+     *
+     * @return the fuzzy search index
+     */
+    public FuzzyIndex getFuzzyIndex() {
+        FuzzyIndex index = fuzzyIndex;
+        if (index != null) {
+            return index;
+        }
+        lockAll();
+        try {
+            if (fuzzyIndex == null) {
+                fuzzyIndex = register(new FuzzyIndex());
+            }
+            return fuzzyIndex;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Suggests completions for a search prefix: the product names and categories starting with it, ignoring
+     * case, with the highest stock value
+     *
+     * @param prefix the text typed so far
+     * @param limit the largest number of suggestions
+     * @return the suggestions, most valuable first
+     */
+    public List<String> getCompletions(String prefix, int limit) {
+        return getAutocompleteIndex().complete(prefix, limit);
+    }
+
+    /**
+     * Gets the prefix index used to suggest completions. The index is built from the inventory on first use,
+     * under every stripe, and maintained on each change afterwards.
+     *
+     * @return the autocomplete index
+     */
+    public AutocompleteIndex getAutocompleteIndex() {
+        AutocompleteIndex index = autocompleteIndex;
+        if (index != null) {
+            return index;
+        }
+        lockAll();
+        try {
+            if (autocompleteIndex == null) {
+                autocompleteIndex = register(new AutocompleteIndex());
+            }
+            return autocompleteIndex;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Gets the trigram index used to search products by name. The index is built from the inventory on
+     * first use, under every stripe, and maintained as products are added, replaced and deleted afterwards.
+     *
+     * @return the search index
+     */
+    public TrigramIndex getSearchIndex() {
+        TrigramIndex index = searchIndex;
+        if (index != null) {
+            return index;
+        }
+        lockAll();
+        try {
+            if (searchIndex == null) {
+                searchIndex = register(new TrigramIndex());
+            }
+            return searchIndex;
+        } finally {
+            unlockAll();
+        }
     }
 
     /**
@@ -138,9 +799,66 @@ public class InventoryManager {
      * @return a list of products in the specified category
      */
     public List<Product> getProductsByCategory(String category) {
-        return inventory.values().stream()
-                .filter(product -> category.equals(product.getCategory()))
-                .collect(Collectors.toList());
+        return getCategoryIndex().getProducts(category);
+    }
+
+    /**
+     * Gets one page of the products in a category, in ascending order of id, read from the category index
+     * without building the whole list
+     *
+     * @param category the category
+     * @param cursor the cursor from the previous page, or null for the first page
+     * @param pageSize the largest number of products on the page
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid or the page size is not positive
+     */
+    public ProductPage getProductsByCategoryPage(String category, String cursor, int pageSize) {
+        CategoryIndex index = getCategoryIndex();
+        return ProductPage.read(cursor, pageSize,
+                (afterId, limit) -> index.getProducts(category, afterId, limit), null);
+    }
+
+    /**
+     * Gets the products priced within a range, cheapest first, through the price index. The index is keyed
+     * by whole cents, so the products in the cents the bounds round to are checked against the exact bounds.
+     *
+     * @param min the lowest price, inclusive
+     * @param max the highest price, inclusive
+     * @return a new list of the products
+     */
+    public List<Product> getProductsInPriceRange(double min, double max) {
+        List<Product> products = new ArrayList<>();
+        getRangeIndex(RangeIndex.Key.PRICE).visit(Math.round(min * 100), Math.round(max * 100), product -> {
+            double price = product.getPrice();
+            if (price >= min && price <= max) {
+                products.add(product);
+            }
+            return true;
+        });
+        return products;
+    }
+
+    /**
+     * Gets the products with a quantity on hand within a range, fewest first, through the quantity index
+     *
+     * @param min the lowest quantity, inclusive
+     * @param max the highest quantity, inclusive
+     * @return a new list of the products
+     */
+    public List<Product> getProductsInQuantityRange(int min, int max) {
+        return getRangeIndex(RangeIndex.Key.QUANTITY).range(min, max, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the products not sold or repriced since a time, including products never updated, least recently
+     * updated first, through the last-updated index
+     *
+     * @param time the time
+     * @return a new list of the products
+     */
+    public List<Product> getProductsNotUpdatedSince(LocalDateTime time) {
+        long millis = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return getRangeIndex(RangeIndex.Key.LAST_UPDATED).range(Long.MIN_VALUE, millis - 1, Integer.MAX_VALUE);
     }
 
     /**
@@ -150,10 +868,186 @@ public class InventoryManager {
      * @return true if the product was deleted, false if not found
      */
     public boolean deleteProduct(int id) {
-        Product removed = inventory.remove(id);
+        Product removed;
+        ReentrantLock lock = lock(id);
+        try {
+            removed = inventory.remove(id);
+            if (removed != null) {
+                snapshotChanged(removed);
+                for (ProductIndex index : indexes) {
+                    index.remove(removed);
+                }
+                removed.setListener(null);
+                try {
+                    store.delete(id);
+                } catch (IOException e) {
+                    System.out.println("Error recording change: " + e.getMessage());
+                }
+            }
+        } finally {
+            unlock(lock);
+        }
         return removed != null;
     }
 
+    /**
+     * Updates the price of a product unless it changed since the caller read its version. Takes no lock;
+     * a caller that loses the race reads the product again and retries.
+     *
+     * @param id the id of the product
+     * @param expectedVersion the version read from {@link Product#getVersion()} before computing the price
+     * @param newPrice the new price (must be non-negative)
+     * @return false if the product is not found or its version is stale
+     * @throws IllegalArgumentException if the price is negative
+     */
+    public boolean compareAndSetPrice(int id, long expectedVersion, double newPrice) {
+        Product product = inventory.get(id);
+        return product != null && product.compareAndSetPrice(expectedVersion, newPrice);
+    }
+
+    /**
+     * Updates the category of a product unless it changed since the caller read its version
+     *
+     * @param id the id of the product
+     * @param expectedVersion the version read from {@link Product#getVersion()} before computing the category
+     * @param category the new category
+     * @return false if the product is not found or its version is stale
+     */
+    public boolean compareAndSetCategory(int id, long expectedVersion, String category) {
+        Product product = inventory.get(id);
+        return product != null && product.compareAndSetCategory(expectedVersion, category);
+    }
+
+    /**
+     * Updates the description of a product unless it changed since the caller read its version
+     *
+     * @param id the id of the product
+     * @param expectedVersion the version read from {@link Product#getVersion()} before computing the description
+     * @param description the new description
+     * @return false if the product is not found or its version is stale
+     */
+    public boolean compareAndSetDescription(int id, long expectedVersion, String description) {
+        Product product = inventory.get(id);
+        return product != null && product.compareAndSetDescription(expectedVersion, description);
+    }
+
+    /**
+     * Holds available stock of a product for a later sale
+     *
+     * @param id the id of the product
+     * @param quantity the amount to hold
+     * @param ttl how long the hold lasts unless committed or released first
+     * @return the id of the reservation
+     * @throws IllegalArgumentException if the amount or time is not positive, the product is not found or
+     *         the amount exceeds available stock
+     */
+    public long reserve(int id, int quantity, Duration ttl) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Reserve amount must be positive");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Reservation time must be positive");
+        }
+        Product product = inventory.get(id);
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        if (!product.tryReserve(quantity)) {
+            throw new IllegalArgumentException("Cannot reserve more than available stock");
+        }
+        long reservationId = nextReservationId.incrementAndGet();
+        ReservationWheel.Hold hold = new ReservationWheel.Hold(reservationId, product, quantity);
+        reservations.put(reservationId, hold);
+        reservationWheel().schedule(hold, ttl.toMillis());
+        return reservationId;
+    }
+
+    /**
+     * Sells the stock held by a reservation
+     *
+     * @param reservationId the id returned by {@link #reserve(int, int, Duration)}
+     * @return false if the reservation expired, was already committed or released, or its product was
+     *         deleted
+     */
+    public boolean commit(long reservationId) {
+        ReservationWheel.Hold hold = reservations.remove(reservationId);
+        if (hold == null) {
+            return false;
+        }
+        reservationWheel.cancel(hold);
+        Product product = hold.product;
+        int id = product.getId();
+        ReentrantLock lock = lock(id);
+        try {
+            if (inventory.get(id) != product) {
+                return false;
+            }
+            product.commitReserved(hold.quantity);
+            recordStockChange(product, -hold.quantity);
+        } finally {
+            unlock(lock);
+        }
+        if (product.isLowStock()) {
+            System.out.println("Low stock product: " + product.getName());
+        }
+        return true;
+    }
+
+    /**
+     * Returns the stock held by a reservation to the available stock
+     *
+     * @param reservationId the id returned by {@link #reserve(int, int, Duration)}
+     * @return false if the reservation expired or was already committed or released
+     */
+    public boolean release(long reservationId) {
+        ReservationWheel.Hold hold = reservations.remove(reservationId);
+        if (hold == null) {
+            return false;
+        }
+        reservationWheel.cancel(hold);
+        hold.product.releaseReserved(hold.quantity);
+        return true;
+    }
+
+    /**
+     * Gets the number of reservations neither committed, released nor expired
+     *
+     * @return the number of open reservations
+     */
+    public int getOpenReservations() {
+        return reservations.size();
+    }
+
+    private void expire(ReservationWheel.Hold hold) {
+        if (reservations.remove(hold.reservationId, hold)) {
+            hold.product.releaseReserved(hold.quantity);
+        }
+    }
+
+    private ReservationWheel reservationWheel() {
+        ReservationWheel wheel = reservationWheel;
+        if (wheel == null) {
+            synchronized (reservations) {
+                wheel = reservationWheel;
+                if (wheel == null) {
+                    wheel = new ReservationWheel(RESERVATION_SLOTS, RESERVATION_TICK_MILLIS, this::expire);
+                    reservationWheel = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+
+    /**
+     * Looks up a product by id without copying the inventory
+     *
+     * @param id the id of the product
+     * @return the product, or null if not found
+     */
+    Product findProduct(int id) {
+        return inventory.get(id);
+    }
+
     /**
      * Checks if a product exists in the inventory
      *
@@ -170,21 +1064,287 @@ public class InventoryManager {
      * @return a list of all categories
      */
     public List<String> getAllCategories() {
-        return inventory.values().stream()
-                .map(Product::getCategory)
-                .filter(category -> category != null && !category.trim().isEmpty())
-                .distinct()
-                .collect(Collectors.toList());
+        return getCategoryIndex().getCategories();
+    }
+
+    /**
+     * Gets the category index, with product counts and stock and value totals per category. The index is
+     * built from the inventory on first use, under every stripe, and maintained on each change afterwards.
+     *
+     * @return the category index
+     */
+    public CategoryIndex getCategoryIndex() {
+        CategoryIndex index = categoryIndex;
+        if (index != null) {
+            return index;
+        }
+        lockAll();
+        try {
+            if (categoryIndex == null) {
+                categoryIndex = register(new CategoryIndex());
+            }
+            return categoryIndex;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Gets the index sorting the products by a key, for range and top-N queries. Each index is built from the
+     * inventory on first use, under every stripe, and maintained on each change afterwards.
+     *
+     * @param key what the products are sorted by
+     * @return the range index
+     */
+    public RangeIndex getRangeIndex(RangeIndex.Key key) {
+        AtomicReferenceArray<RangeIndex> ranges = rangeIndexes;
+        RangeIndex index = ranges.get(key.ordinal());
+        if (index != null) {
+            return index;
+        }
+        lockAll();
+        try {
+            ranges = rangeIndexes;
+            index = ranges.get(key.ordinal());
+            if (index == null) {
+                index = register(new RangeIndex(key));
+                ranges.set(key.ordinal(), index);
+            }
+            return index;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private static AtomicReferenceArray<RangeIndex> newRangeIndexes() {
+        return new AtomicReferenceArray<>(RangeIndex.Key.values().length);
     }
 
     /**
-     * Calculates the total value of all products in the inventory
+     * Gets the low-stock index, with the count and the products furthest below their threshold. The index
+     * is built from the inventory on first use, under every stripe, and maintained on each change afterwards.
+     *
+     * @return the low-stock index
+     */
+    public LowStockIndex getLowStockIndex() {
+        LowStockIndex index = lowStockIndex;
+        if (index != null) {
+            return index;
+        }
+        lockAll();
+        try {
+            if (lowStockIndex == null) {
+                lowStockIndex = register(new LowStockIndex());
+            }
+            return lowStockIndex;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Gets the running totals of the inventory: the product count, the stock on hand and the stock value. The
+     * totals are built from the inventory on first use, under every stripe, and maintained on each change
+     * afterwards.
+     *
+     * @return the inventory totals
+     */
+    public InventoryTotals getTotals() {
+        InventoryTotals current = totals;
+        if (current != null) {
+            return current;
+        }
+        lockAll();
+        try {
+            if (totals == null) {
+                totals = register(new InventoryTotals());
+            }
+            return totals;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Checks the running totals, and the category totals if they are maintained, against a full scan of the
+     * inventory under every stripe. Totals that drifted are reported and rebuilt. Product fields set directly
+     * rather than through the manager can change during the scan, so a mismatch is only reported when a
+     * second scan confirms it.
+     *
+     * @return true if every maintained total matched
+     */
+    public boolean verifyTotals() {
+        lockAll();
+        try {
+            boolean matched = true;
+            InventoryTotals currentTotals = totals;
+            if (currentTotals != null && !currentTotals.verify(inventory.values())
+                    && !currentTotals.verify(inventory.values())) {
+                System.out.println("Error verifying totals: inventory totals drifted, rebuilding");
+                totals = replace(currentTotals, new InventoryTotals());
+                matched = false;
+            }
+            CategoryIndex currentCategories = categoryIndex;
+            if (currentCategories != null && !currentCategories.verify(inventory.values())
+                    && !currentCategories.verify(inventory.values())) {
+                System.out.println("Error verifying totals: category totals drifted, rebuilding");
+                categoryIndex = replace(currentCategories, new CategoryIndex());
+                matched = false;
+            }
+            return matched;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Verifies the totals periodically on a background thread, replacing any earlier schedule. Only a
+     * concurrent manager can be verified this way, since the check runs while other threads use it; a manager
+     * confined to one thread must call {@link #verifyTotals()} from that thread instead.
+     *
+     * @param period the time between two checks
+     * @throws IllegalStateException if the manager is not in concurrent mode
+     */
+    public void scheduleTotalsVerification(Duration period) {
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Verification period must be positive");
+        }
+        if (stripes == null) {
+            throw new IllegalStateException("Background verification needs a concurrent manager");
+        }
+        ScheduledExecutorService verifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-totals-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        verifier.scheduleWithFixedDelay(() -> {
+            try {
+                verifyTotals();
+            } catch (RuntimeException | Error e) {
+                System.out.println("Error verifying totals: " + e);
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+        ScheduledExecutorService previous = totalsVerifier;
+        totalsVerifier = verifier;
+        if (previous != null) {
+            previous.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts maintaining a new index and fills it with the current products. The caller holds every stripe.
+     * The index is published before it is filled, so a concurrent change to a product it has not reached yet
+     * is picked up when that product is added.
+     */
+    private <T extends ProductIndex> T register(T index) {
+        ProductIndex[] current = indexes;
+        ProductIndex[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = index;
+        indexes = grown;
+        for (Product product : inventory.values()) {
+            index.add(product);
+        }
+        return index;
+    }
+
+    /**
+     * Swaps a maintained index for a fresh one filled from the current products. The caller holds every
+     * stripe.
+     */
+    private <T extends ProductIndex> T replace(T old, T index) {
+        ProductIndex[] replaced = indexes.clone();
+        for (int i = 0; i < replaced.length; i++) {
+            if (replaced[i] == old) {
+                replaced[i] = index;
+            }
+        }
+        indexes = replaced;
+        for (Product product : inventory.values()) {
+            index.add(product);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the total value of all products in the inventory from the running totals, exact to the cent
      *
      * @return the total inventory value
      */
     public double getTotalInventoryValue() {
-        return inventory.values().stream()
-                .mapToDouble(Product::getTotalValue)
-                .sum();
+        return getTotals().getTotalValue();
+    }
+
+    /**
+     * Takes the stripe lock guarding a product in concurrent mode
+     *
+     * @param id the id of the product
+     * @return the lock to release, or null when not in concurrent mode
+     */
+    private ReentrantLock lock(int id) {
+        if (stripes == null) {
+            return null;
+        }
+        ReentrantLock lock = stripes[stripeOf(id)];
+        lock.lock();
+        return lock;
+    }
+
+    private static int stripeOf(int id) {
+        return (id ^ (id >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Takes, in order, the stripe locks of every product a batch touches in concurrent mode
+     *
+     * @param movements the batch
+     * @return a bit per stripe that was locked
+     */
+    private long lockStripes(List<StockMovement> movements) {
+        if (stripes == null) {
+            return 0;
+        }
+        long mask = 0;
+        for (StockMovement movement : movements) {
+            mask |= 1L << stripeOf(movement.getId());
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            if ((mask & (1L << i)) != 0) {
+                stripes[i].lock();
+            }
+        }
+        return mask;
+    }
+
+    private void unlockStripes(long mask) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if ((mask & (1L << i)) != 0) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private static void unlock(ReentrantLock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes every stripe lock in order in concurrent mode, so no product changes until {@link #unlockAll()}
+     */
+    private void lockAll() {
+        if (stripes != null) {
+            for (ReentrantLock lock : stripes) {
+                lock.lock();
+            }
+        }
+    }
+
+    private void unlockAll() {
+        if (stripes != null) {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package src;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Test suite for the InventoryManager class
@@ -17,6 +19,8 @@ public class InventoryManagerTests {
         
         testProductManagement();
         testInventoryOperations();
+        testSnapshots();
+        testRandomSnapshots();
         testSearchAndFilter();
         testCategoryManagement();
         testInventoryValue();
@@ -200,6 +204,88 @@ public class InventoryManagerTests {
         System.out.println();
     }
     
+    /**
+     * Tests that snapshots are shared until a product changes and keep the values they were taken with
+     */
+    private static void testSnapshots() {
+        System.out.println("Snapshot Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Product 1", 10, 2, 1);
+        manager.addProduct("Product 2", 1, 5, 2);
+
+        InventorySnapshot first = manager.snapshot();
+        SimpleTestFramework.assertTrue(first == manager.snapshot(), "Snapshot shared until a change");
+        manager.sellProduct(1, 4);
+        manager.findProduct(2).setPrice(9.5);
+        SimpleTestFramework.assertEquals(11.0, first.sum(Product::getQuantity), "Snapshot keeps its stock");
+        SimpleTestFramework.assertEquals(0.0, first.find(2).getPrice(), "Snapshot keeps its prices");
+        SimpleTestFramework.assertEquals(1, first.count(Product::isLowStock), "Snapshot counts low stock");
+        InventorySnapshot changed = manager.snapshot();
+        SimpleTestFramework.assertEquals(7.0, changed.sum(Product::getQuantity), "Next snapshot sees the sale");
+        SimpleTestFramework.assertEquals(9.5, changed.find(2).getPrice(), "Next snapshot sees the price");
+        manager.sellProduct(1, 1);
+        SimpleTestFramework.assertTrue(changed.find(2) == manager.snapshot().find(2),
+                "Unchanged products shared between snapshots");
+
+        manager.addProduct("Product 3", 3, 1, 3);
+        InventorySnapshot second = manager.snapshot();
+        SimpleTestFramework.assertTrue(second.getVersion() > first.getVersion(), "Add publishes a new version");
+        SimpleTestFramework.assertEquals(2, first.size(), "Old snapshot keeps its products");
+        SimpleTestFramework.assertEquals(3, second.size(), "New snapshot has the added product");
+
+        manager.deleteProduct(2);
+        SimpleTestFramework.assertEquals(2, manager.snapshot().size(), "Delete publishes a new snapshot");
+        SimpleTestFramework.assertThrows(() -> manager.snapshot().asList().clear(),
+                "UnsupportedOperationException", "Snapshot list cannot be changed");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that snapshots taken between random changes hold every product with its values, in order of id
+     */
+    private static void testRandomSnapshots() {
+        System.out.println("Random Snapshot Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(16);
+        boolean matches = true;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 200; i++) {
+                int id = random.nextBoolean() ? random.nextInt(500) : random.nextInt(Integer.MAX_VALUE);
+                Product product = manager.findProduct(id);
+                switch (random.nextInt(4)) {
+                    case 0 -> manager.addProduct("Item " + id, random.nextInt(100), 5, id);
+                    case 1 -> manager.deleteProduct(id);
+                    case 2 -> manager.restockProduct(1 + random.nextInt(10), id);
+                    default -> {
+                        if (product != null) {
+                            product.setPrice(random.nextInt(10_000) / 100.0);
+                        }
+                    }
+                }
+            }
+            InventorySnapshot snapshot = manager.snapshot();
+            List<Product> expected = manager.getAllProducts().stream()
+                    .sorted(Comparator.comparingInt(Product::getId)).toList();
+            List<Product> actual = snapshot.stream().toList();
+            matches &= actual.size() == expected.size() && snapshot.size() == expected.size();
+            for (int i = 0; matches && i < expected.size(); i++) {
+                Product live = expected.get(i);
+                Product copy = actual.get(i);
+                matches = copy.getId() == live.getId() && copy.getQuantity() == live.getQuantity()
+                        && copy.getPrice() == live.getPrice() && snapshot.find(live.getId()) == copy
+                        && snapshot.get(i) == copy;
+            }
+        }
+        SimpleTestFramework.assertTrue(matches, "Snapshots match the inventory after random changes");
+
+        System.out.println();
+    }
+
     /**
      * Tests data retrieval functionality
      */
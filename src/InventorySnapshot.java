@@ -0,0 +1,149 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable view of the products an inventory held at one point in time, with the values they had then.
+ * <p>
+ * The products in a snapshot are copies taken when it was built, held in a {@link ProductTrie} keyed by id,
+ * so later sales, restocks and edits never show through; callers must not change them either. The manager
+ * keeps the current snapshot until a product changes and builds the next one from it, copying only the
+ * products changed since and sharing the rest, so any number of readers share a snapshot without copying or
+ * locking. {@link #forEach(Consumer)}, {@link #count(Predicate)} and {@link #sum(ToDoubleFunction)} walk the
+ * products in ascending order of id without allocating.
+ *
+ * @author Chloe Nuzillat
+ */
+public final class InventorySnapshot implements Iterable<Product> {
+    private final ProductTrie products;
+    private final long version;
+    private volatile List<Product> list;
+
+    /**
+     * Creates a snapshot of the product copies in a trie
+     *
+     * @param products the product copies, not changed afterwards
+     * @param version the version of the inventory the products belong to
+     */
+    InventorySnapshot(ProductTrie products, long version) {
+        this.products = products;
+        this.version = version;
+    }
+
+    /**
+     * Gets the trie holding the products, to derive the next snapshot from
+     *
+     * @return the trie
+     */
+    ProductTrie getProducts() {
+        return products;
+    }
+
+    /**
+     * Gets the version of the snapshot, which grows with every snapshot the inventory builds
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of products
+     *
+     * @return the size of the snapshot
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Gets a product by id
+     *
+     * @param id the id of the product
+     * @return the product as it was when the snapshot was taken, or null if the inventory had no such product
+     */
+    public Product find(int id) {
+        return products.get(id);
+    }
+
+    /**
+     * Gets a product by position in ascending order of id
+     *
+     * @param index the position, from 0 to size() - 1
+     * @return the product
+     */
+    public Product get(int index) {
+        return asList().get(index);
+    }
+
+    /**
+     * Gets the products as an unmodifiable list in ascending order of id. The list is built on the first call
+     * and shared by later ones.
+     *
+     * @return the products
+     */
+    public List<Product> asList() {
+        List<Product> current = list;
+        if (current == null) {
+            current = Collections.unmodifiableList(Arrays.asList(products.toArray()));
+            list = current;
+        }
+        return current;
+    }
+
+    /**
+     * Streams the products
+     *
+     * @return a stream over the snapshot
+     */
+    public Stream<Product> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(products.iterator(), products.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Passes every product to an action, without creating an iterator
+     *
+     * @param action the action
+     */
+    @Override
+    public void forEach(Consumer<? super Product> action) {
+        products.forEach(action);
+    }
+
+    /**
+     * Counts the products matching a condition
+     *
+     * @param condition the condition
+     * @return the number of matching products
+     */
+    public int count(Predicate<? super Product> condition) {
+        return products.count(condition);
+    }
+
+    /**
+     * Sums a value over every product
+     *
+     * @param value the value of one product
+     * @return the total
+     */
+    public double sum(ToDoubleFunction<? super Product> value) {
+        return products.sum(value);
+    }
+
+    @Override
+    public Iterator<Product> iterator() {
+        return products.iterator();
+    }
+}
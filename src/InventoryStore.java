@@ -0,0 +1,127 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Persistence backend for an InventoryManager.
+ * <p>
+ * The manager keeps every product in memory and reports each change to its store. Stores that write whole
+ * snapshots only act on {@link #flush(Collection)}, while stores that write changes as they happen record
+ * them in {@link #put(Product)}, {@link #delete(int)} and the other change methods, which do nothing by
+ * default. A concurrent manager calls the change methods from many threads at once, so stores must be
+ * thread-safe.
+ *
+ * @author Chloe Nuzillat
+ */
+public interface InventoryStore extends Closeable {
+
+    /**
+     * Loads the stored inventory
+     *
+     * @param onLoad receives each product when it is loaded, which may be on first access
+     * @return the products keyed by id
+     * @throws IOException if there is no stored inventory or it cannot be read
+     */
+    Map<Integer, Product> load(Consumer<Product> onLoad) throws IOException;
+
+    /**
+     * Records a product that was added or replaced
+     *
+     * @param product the product
+     * @throws IOException if the change cannot be written
+     */
+    default void put(Product product) throws IOException {
+    }
+
+    /**
+     * Records many added or replaced products at once
+     *
+     * @param products the products
+     * @throws IOException if the changes cannot be written
+     */
+    default void putAll(Collection<Product> products) throws IOException {
+        for (Product product : products) {
+            put(product);
+        }
+    }
+
+    /**
+     * Records a sale or restock of a product
+     *
+     * @param product the product, already holding its new quantity
+     * @param change the quantity added, negative for a sale
+     * @throws IOException if the change cannot be written
+     */
+    default void stockChanged(Product product, int change) throws IOException {
+    }
+
+    /**
+     * Records a product modified in place, through its setters or a stock change
+     *
+     * @param product the product
+     */
+    default void changed(Product product) {
+    }
+
+    /**
+     * Records a change to the price, category or description of a product, made through its setters
+     *
+     * @param product the product
+     * @throws IOException if the change cannot be written
+     */
+    default void edited(Product product) throws IOException {
+        changed(product);
+    }
+
+    /**
+     * Records a deleted product
+     *
+     * @param id the id of the deleted product
+     * @throws IOException if the change cannot be written
+     */
+    default void delete(int id) throws IOException {
+    }
+
+    /**
+     * Makes every recorded change durable
+     *
+     * @param inventory every product currently in the inventory
+     * @throws IOException if the inventory cannot be written
+     */
+    void flush(Collection<Product> inventory) throws IOException;
+
+    /**
+     * Starts making every recorded change durable without waiting for file I/O where the store supports it
+     *
+     * @param inventory every product currently in the inventory, which the store may copy before returning
+     * @throws IOException if the inventory cannot be written
+     */
+    default void flushAsync(Collection<Product> inventory) throws IOException {
+        flush(inventory);
+    }
+
+    /**
+     * Waits for flushes started by {@link #flushAsync(Collection)} to finish
+     *
+     * @param timeoutMillis how long to wait at most
+     * @return true if every flush has finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    default boolean awaitFlush(long timeoutMillis) throws InterruptedException {
+        return true;
+    }
+
+    /**
+     * Writes the whole inventory in the store's most compact form, discarding logs or segments it replaces
+     *
+     * @param inventory every product currently in the inventory
+     * @throws IOException if the inventory cannot be written
+     */
+    default void checkpoint(Collection<Product> inventory) throws IOException {
+        flush(inventory);
+    }
+}
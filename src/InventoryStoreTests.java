@@ -0,0 +1,104 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test suite for the InventoryStore implementations
+ *
+ * @author Chloe Nuzillat
+ */
+public class InventoryStoreTests {
+
+    /**
+     * Runs all inventory store tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running InventoryStore Tests...\n");
+
+        testMemoryStore();
+        testFileStores();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that the in-memory store keeps nothing between managers
+     */
+    private static void testMemoryStore() {
+        System.out.println("Memory Store Tests:");
+        System.out.println("-".repeat(30));
+
+        MemoryStore store = new MemoryStore();
+        InventoryManager manager = new InventoryManager(store);
+        manager.addProduct("Laptop", 10, 2, 1);
+        manager.sellProduct(1, 3);
+        manager.saveInventory();
+
+        SimpleTestFramework.assertEquals(7, manager.getAllProducts().getFirst().getQuantity(),
+                "Manager works without a file");
+        SimpleTestFramework.assertTrue(store == manager.getStore(), "Manager uses the given store");
+        SimpleTestFramework.assertTrue(new InventoryManager(new MemoryStore()).getAllProducts().isEmpty(),
+                "Nothing is persisted");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that the serialized and snapshot stores restore everything a manager saved
+     */
+    private static void testFileStores() {
+        System.out.println("File Store Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("store");
+            String serialized = dir.resolve("serialized.dat").toString();
+            String snapshot = dir.resolve("snapshot.dat").toString();
+
+            fill(new InventoryManager(new SerializedStore(serialized)));
+            fill(new InventoryManager(new SnapshotStore(snapshot, false)));
+
+            checkRestored(new InventoryManager(new SerializedStore(serialized)), "Serialized store");
+            checkRestored(new InventoryManager(new SnapshotStore(snapshot, false)), "Snapshot store");
+            checkRestored(new InventoryManager(new SnapshotStore(snapshot, true)), "Mapped snapshot store");
+            SimpleTestFramework.assertEquals(2, SnapshotCodec.read(Path.of(serialized)).size(),
+                    "Serialized store writes the legacy format");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    private static void fill(InventoryManager manager) {
+        manager.addProduct("Laptop", 10, 2, 1);
+        manager.addProduct("Mouse", 50, 5, 2);
+        manager.addProduct("Cable", 5, 1, 3);
+        manager.sellProduct(1, 4);
+        manager.getAllProducts().stream()
+                .filter(p -> p.getId() == 2)
+                .forEach(p -> p.setCategory("Accessories"));
+        manager.deleteProduct(3);
+        manager.saveInventory();
+        manager.close();
+    }
+
+    private static void checkRestored(InventoryManager manager, String store) {
+        SimpleTestFramework.assertEquals(2, manager.getAllProducts().size(), store + " restores every product");
+        SimpleTestFramework.assertFalse(manager.productExists(3), store + " keeps deletes");
+        Product laptop = manager.getAllProducts().stream()
+                .filter(p -> p.getId() == 1)
+                .findFirst()
+                .orElse(null);
+        SimpleTestFramework.assertEquals(6, laptop == null ? -1 : laptop.getQuantity(), store + " keeps sales");
+        Product mouse = manager.getAllProducts().stream()
+                .filter(p -> p.getId() == 2)
+                .findFirst()
+                .orElse(null);
+        SimpleTestFramework.assertEquals("Accessories", mouse == null ? null : mouse.getCategory(),
+                store + " keeps categories");
+        manager.close();
+    }
+}
@@ -0,0 +1,145 @@
+package src;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals over the whole inventory: the number of products, the stock on hand and the stock value.
+ * <p>
+ * Values are kept exactly, in whole cents, from prices rounded to the nearest cent. Like the
+ * {@link CategoryIndex}, the totals remember what each product was last counted as, so a sale, restock or
+ * price change only adds the difference and every read is constant time. {@link #verify(Iterable)}
+ * recomputes the totals from the products to detect drift.
+ *
+ * @author Chloe Nuzillat
+ */
+public class InventoryTotals implements ProductIndex {
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder quantity = new LongAdder();
+    private final LongAdder valueCents = new LongAdder();
+
+    /**
+     * What one product was last counted as
+     */
+    private static final class Entry {
+        final Product product;
+        boolean counted;
+        int quantity;
+        long valueCents;
+
+        Entry(Product product) {
+            this.product = product;
+        }
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        Entry previous = entries.get(product.getId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        Entry entry = new Entry(product);
+        entries.put(product.getId(), entry);
+        synchronized (entry) {
+            entry.counted = true;
+            entry.quantity = product.getQuantity();
+            entry.valueCents = product.getTotalValueCents();
+            quantity.add(entry.quantity);
+            valueCents.add(entry.valueCents);
+        }
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null && entry.product == product) {
+            entries.remove(product.getId());
+            unlink(entry);
+        }
+    }
+
+    @Override
+    public void changed(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry == null || entry.product != product) {
+            return;
+        }
+        synchronized (entry) {
+            if (!entry.counted) {
+                return;
+            }
+            int newQuantity = product.getQuantity();
+            long newValueCents = product.getTotalValueCents();
+            quantity.add(newQuantity - entry.quantity);
+            valueCents.add(newValueCents - entry.valueCents);
+            entry.quantity = newQuantity;
+            entry.valueCents = newValueCents;
+        }
+    }
+
+    /**
+     * Gets the number of products
+     *
+     * @return the product count
+     */
+    public int getProductCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the stock on hand of all products
+     *
+     * @return the total quantity
+     */
+    public long getTotalQuantity() {
+        return quantity.sum();
+    }
+
+    /**
+     * Gets the value of all products in whole cents
+     *
+     * @return the total value in cents
+     */
+    public long getTotalValueCents() {
+        return valueCents.sum();
+    }
+
+    /**
+     * Gets the value of all products
+     *
+     * @return the total value
+     */
+    public double getTotalValue() {
+        return getTotalValueCents() / 100.0;
+    }
+
+    /**
+     * Recomputes the totals from the products and compares them with the running ones. The caller must keep
+     * the products from changing meanwhile.
+     *
+     * @param products every product the totals should cover
+     * @return true if the running totals match
+     */
+    boolean verify(Iterable<Product> products) {
+        int count = 0;
+        long expectedQuantity = 0;
+        long expectedValueCents = 0;
+        for (Product product : products) {
+            count++;
+            expectedQuantity += product.getQuantity();
+            expectedValueCents += product.getTotalValueCents();
+        }
+        return count == getProductCount()
+                && expectedQuantity == getTotalQuantity()
+                && expectedValueCents == getTotalValueCents();
+    }
+
+    private void unlink(Entry entry) {
+        synchronized (entry) {
+            quantity.add(-entry.quantity);
+            valueCents.add(-entry.valueCents);
+            entry.counted = false;
+        }
+    }
+}
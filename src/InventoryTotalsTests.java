@@ -0,0 +1,176 @@
+package src;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Test suite for the InventoryTotals class and the running totals kept by InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class InventoryTotalsTests {
+
+    /**
+     * Runs all inventory totals tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running InventoryTotals Tests...\n");
+
+        testMaintenance();
+        testRandomChanges();
+        testDriftDetection();
+        testConcurrentSales();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that the totals follow sales, restocks, price changes, replacements and deletes exactly
+     */
+    private static void testMaintenance() {
+        System.out.println("Totals Maintenance Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        manager.addProduct("Mouse", 3, 2, 2);
+        InventoryTotals totals = manager.getTotals();
+        manager.findProduct(1).setPrice(0.1);
+        manager.findProduct(2).updatePrice(0.2);
+        SimpleTestFramework.assertEquals(2, totals.getProductCount(), "Products counted");
+        SimpleTestFramework.assertEquals(160L, totals.getTotalValueCents(), "Price changes counted in cents");
+        SimpleTestFramework.assertEquals(1.6, manager.getTotalInventoryValue(), "Value exact to the cent");
+
+        manager.sellProduct(1, 4);
+        manager.restockProduct(7, 2);
+        SimpleTestFramework.assertEquals(16L, totals.getTotalQuantity(), "Sales and restocks counted");
+        SimpleTestFramework.assertEquals(260L, totals.getTotalValueCents(), "Stock changes revalued");
+
+        manager.addProduct("Mouse", 1, 0, 2);
+        SimpleTestFramework.assertEquals(7L, totals.getTotalQuantity(), "Replaced product recounted");
+        manager.deleteProduct(1);
+        SimpleTestFramework.assertEquals(1, totals.getProductCount(), "Deleted product uncounted");
+        SimpleTestFramework.assertEquals(0L, totals.getTotalValueCents(), "Deleted product value removed");
+        SimpleTestFramework.assertTrue(manager.verifyTotals(), "Totals verified");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that the totals and category totals match a full scan after many random changes
+     */
+    private static void testRandomChanges() {
+        System.out.println("Random Change Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(19);
+        for (int id = 0; id < 500; id++) {
+            manager.addProduct("Product " + id, 1000, 0, id);
+        }
+        InventoryTotals totals = manager.getTotals();
+        manager.getCategoryIndex();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(600);
+            Product product = manager.findProduct(id);
+            switch (random.nextInt(5)) {
+                case 0 -> manager.addProduct("Product " + id, random.nextInt(1000), 0, id);
+                case 1 -> manager.deleteProduct(id);
+                case 2 -> {
+                    if (product != null) {
+                        product.setCategory("Category " + random.nextInt(20));
+                    }
+                }
+                case 3 -> {
+                    if (product != null) {
+                        product.setPrice(random.nextInt(10_000) / 100.0);
+                    }
+                }
+                default -> {
+                    if (product != null && product.getQuantity() > 0) {
+                        manager.sellProduct(id, 1);
+                    }
+                }
+            }
+        }
+
+        long valueCents = manager.snapshot().stream().mapToLong(Product::getTotalValueCents).sum();
+        SimpleTestFramework.assertEquals(valueCents, totals.getTotalValueCents(), "Value matches a full scan");
+        SimpleTestFramework.assertEquals(manager.snapshot().size(), totals.getProductCount(),
+                "Count matches a full scan");
+        SimpleTestFramework.assertTrue(manager.verifyTotals(), "Totals and category totals verified");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that totals counting a product the inventory does not hold are detected and repaired
+     */
+    private static void testDriftDetection() {
+        System.out.println("Drift Detection Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        manager.findProduct(1).setCategory("Electronics");
+        manager.findProduct(1).setPrice(5.0);
+        InventoryTotals totals = manager.getTotals();
+
+        Product stray = new Product("Laptop", 4, 2, 2);
+        stray.setCategory("Electronics");
+        stray.setPrice(5.0);
+        totals.add(stray);
+        manager.getCategoryIndex().add(stray);
+        SimpleTestFramework.assertEquals(70.0, manager.getTotalInventoryValue(), "Stray product counted");
+        SimpleTestFramework.assertFalse(manager.verifyTotals(), "Drift detected");
+        SimpleTestFramework.assertEquals(50.0, manager.getTotalInventoryValue(), "Totals rebuilt");
+        SimpleTestFramework.assertEquals(50.0, manager.getCategoryIndex().getTotalValue("Electronics"),
+                "Category totals rebuilt");
+        SimpleTestFramework.assertTrue(totals != manager.getTotals(), "Drifted totals replaced");
+
+        manager.sellProduct(1, 2);
+        SimpleTestFramework.assertEquals(40.0, manager.getTotalInventoryValue(), "Rebuilt totals maintained");
+        SimpleTestFramework.assertTrue(manager.verifyTotals(), "Rebuilt totals verified");
+        SimpleTestFramework.assertThrows(() -> manager.scheduleTotalsVerification(Duration.ofMinutes(1)),
+                "IllegalStateException", "Single-threaded manager refuses background verification");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that concurrent sales keep the totals exact
+     */
+    private static void testConcurrentSales() {
+        System.out.println("Concurrent Sale Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        for (int id = 0; id < 16; id++) {
+            manager.addProduct("Product " + id, 10_000, 0, id);
+            manager.findProduct(id).setPrice(0.01);
+        }
+        InventoryTotals totals = manager.getTotals();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    manager.sellProduct(i % 16, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        SimpleTestFramework.assertEquals(16L * 10_000 - 4 * 5000, totals.getTotalValueCents(),
+                "Every concurrent sale counted");
+        SimpleTestFramework.assertTrue(manager.verifyTotals(), "Totals verified after concurrent sales");
+
+        System.out.println();
+    }
+}
@@ -0,0 +1,120 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Store that appends every add, edit, sell, restock and delete to a write-ahead journal and only rewrites the
+ * snapshot on a checkpoint. Loading replays the journal on top of the last snapshot.
+ * <p>
+ * Batch puts, and edits whose category and description are too long for one journal record, mark a
+ * checkpoint as pending and the next flush writes a full snapshot instead of committing the journal.
+ *
+ * @author Chloe Nuzillat
+ */
+public class JournalStore implements InventoryStore {
+    private final SnapshotStore snapshot;
+    private final InventoryJournal journal;
+    private final boolean mapped;
+    private boolean checkpointPending;
+
+    /**
+     * Creates a store from a snapshot file and its journal
+     *
+     * @param file the snapshot file
+     * @param journal the write-ahead journal
+     * @param mapped true to memory-map the snapshot and decode products on first access
+     */
+    public JournalStore(String file, InventoryJournal journal, boolean mapped) {
+        this.snapshot = new SnapshotStore(file, mapped);
+        this.journal = journal;
+        this.mapped = mapped;
+    }
+
+    @Override
+    public Map<Integer, Product> load(Consumer<Product> onLoad) throws IOException {
+        Map<Integer, Product> inventory;
+        try {
+            inventory = snapshot.load(mapped ? onLoad : product -> { });
+        } catch (NoSuchFileException e) {
+            inventory = new HashMap<>();
+        }
+        boolean lazy = inventory instanceof LazyInventoryMap;
+        try {
+            journal.replay(inventory, lazy ? onLoad : product -> { });
+        } catch (IOException e) {
+            System.out.println("Error replaying inventory changes: " + e.getMessage());
+        }
+        if (!lazy) {
+            inventory.values().forEach(onLoad);
+        }
+        return inventory;
+    }
+
+    @Override
+    public void put(Product product) throws IOException {
+        if (!journal.appendAdd(product)) {
+            markCheckpointPending();
+        }
+    }
+
+    @Override
+    public void putAll(Collection<Product> products) {
+        if (!products.isEmpty()) {
+            markCheckpointPending();
+        }
+    }
+
+    @Override
+    public void edited(Product product) throws IOException {
+        if (!journal.appendUpdate(product)) {
+            markCheckpointPending();
+        }
+    }
+
+    private synchronized void markCheckpointPending() {
+        checkpointPending = true;
+    }
+
+    @Override
+    public void stockChanged(Product product, int change) throws IOException {
+        if (change < 0) {
+            journal.appendSell(product.getId(), -change, product.getQuantity());
+        } else {
+            journal.appendRestock(product.getId(), change, product.getQuantity());
+        }
+    }
+
+    @Override
+    public void delete(int id) throws IOException {
+        journal.appendDelete(id);
+    }
+
+    @Override
+    public synchronized void flush(Collection<Product> inventory) throws IOException {
+        if (checkpointPending) {
+            checkpoint(inventory);
+        } else {
+            journal.commit();
+        }
+    }
+
+    /**
+     * Writes a full snapshot and discards the journal records it now contains
+     */
+    @Override
+    public synchronized void checkpoint(Collection<Product> inventory) throws IOException {
+        snapshot.flush(inventory);
+        journal.reset();
+        checkpointPending = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
@@ -0,0 +1,155 @@
+package src;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Inventory map that decodes products from a mapped snapshot on first access.
+ * <p>
+ * Point lookups decode a single record; anything that walks the whole map decodes all remaining records
+ * once, after which the map behaves like its backing map. Products already decoded are read from the backing
+ * map without locking, while decoding and every change made before the last record is decoded hold the
+ * map's lock, so a map backed by a ConcurrentHashMap can be shared by many threads.
+ *
+ * @author Chloe Nuzillat
+ */
+class LazyInventoryMap extends AbstractMap<Integer, Product> {
+    private final Map<Integer, Product> materialized;
+    private final Consumer<Product> onDecode;
+    private volatile MappedSnapshot snapshot;
+
+    /**
+     * Creates a map over a mapped snapshot
+     *
+     * @param snapshot the snapshot to decode from
+     * @param onDecode receives each product as it is decoded
+     */
+    LazyInventoryMap(MappedSnapshot snapshot, Consumer<Product> onDecode) {
+        this(snapshot, onDecode, new HashMap<>());
+    }
+
+    private LazyInventoryMap(MappedSnapshot snapshot, Consumer<Product> onDecode,
+                             Map<Integer, Product> materialized) {
+        this.snapshot = snapshot;
+        this.onDecode = onDecode;
+        this.materialized = materialized;
+    }
+
+    /**
+     * Moves the products decoded so far and the records still undecoded to a map backed by a
+     * ConcurrentHashMap. This map must not be used afterwards.
+     *
+     * @return a map that can be shared by many threads
+     */
+    synchronized LazyInventoryMap toConcurrent() {
+        LazyInventoryMap concurrent = new LazyInventoryMap(snapshot, onDecode,
+                new ConcurrentHashMap<>(materialized));
+        snapshot = null;
+        return concurrent;
+    }
+
+    @Override
+    public Product get(Object key) {
+        Product product = materialized.get(key);
+        if (product == null && snapshot != null && key instanceof Integer id) {
+            synchronized (this) {
+                product = decode(id);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Gets a product, decoding it if it has not been yet. The caller holds the map's lock.
+     */
+    private Product decode(Integer id) {
+        Product product = materialized.get(id);
+        if (product == null && snapshot != null) {
+            product = snapshot.decode(id);
+            if (product != null) {
+                snapshot.forget(id);
+                onDecode.accept(product);
+                materialized.put(id, product);
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (materialized.containsKey(key)) {
+            return true;
+        }
+        if (snapshot == null || !(key instanceof Integer id)) {
+            return false;
+        }
+        synchronized (this) {
+            return materialized.containsKey(id) || (snapshot != null && snapshot.contains(id));
+        }
+    }
+
+    @Override
+    public Product put(Integer key, Product value) {
+        if (snapshot == null) {
+            return materialized.put(key, value);
+        }
+        synchronized (this) {
+            Product previous = decode(key);
+            materialized.put(key, value);
+            return previous;
+        }
+    }
+
+    @Override
+    public Product remove(Object key) {
+        if (snapshot == null) {
+            return materialized.remove(key);
+        }
+        synchronized (this) {
+            Product previous = key instanceof Integer id ? decode(id) : null;
+            materialized.remove(key);
+            return previous;
+        }
+    }
+
+    @Override
+    public int size() {
+        if (snapshot == null) {
+            return materialized.size();
+        }
+        synchronized (this) {
+            return materialized.size() + (snapshot == null ? 0 : snapshot.remaining());
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        materialized.clear();
+        snapshot = null;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Product>> entrySet() {
+        if (snapshot != null) {
+            materializeAll();
+        }
+        return materialized.entrySet();
+    }
+
+    /**
+     * Decodes every remaining record and releases the mapping
+     */
+    private synchronized void materializeAll() {
+        if (snapshot != null) {
+            snapshot.drain(product -> {
+                onDecode.accept(product);
+                materialized.put(product.getId(), product);
+            });
+            snapshot = null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Index of the products that are low on stock, ordered by how far below their threshold they are.
+ * <p>
+ * Only low-stock products have an entry. A change to a product that is neither low nor was low costs one
+ * lookup; crossing the threshold either way, or moving further below it, adds, removes or repositions one
+ * entry in the ordered set. Counting low-stock products is constant time and listing them costs the number
+ * listed.
+ *
+ * @author Chloe Nuzillat
+ */
+public class LowStockIndex implements ProductIndex {
+    private static final Comparator<Entry> MOST_URGENT_FIRST = Comparator
+            .comparingLong((Entry entry) -> entry.deficit).reversed()
+            .thenComparingInt(entry -> entry.product.getId());
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final TreeSet<Entry> byDeficit = new TreeSet<>(MOST_URGENT_FIRST);
+    private volatile int count;
+
+    /**
+     * A low-stock product and how far below its threshold it was last seen
+     */
+    private static final class Entry {
+        final Product product;
+        long deficit;
+
+        Entry(Product product, long deficit) {
+            this.product = product;
+            this.deficit = deficit;
+        }
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        Entry previous = entries.get(product.getId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        update(product, null);
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null && entry.product == product) {
+            unlink(entry);
+        }
+    }
+
+    @Override
+    public void changed(Product product) {
+        if (!product.isLowStock() && !entries.containsKey(product.getId())) {
+            return;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(product.getId());
+            if (entry == null || entry.product == product) {
+                update(product, entry);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of low-stock products
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets every low-stock product, furthest below its threshold first
+     *
+     * @return a new list of the products
+     */
+    public synchronized List<Product> getProducts() {
+        return getMostUrgent(count);
+    }
+
+    /**
+     * Passes the low-stock products to a visitor, furthest below their threshold first, until it asks to stop.
+     * No list of the products is built.
+     *
+     * @param visitor receives each product and returns false to stop
+     */
+    synchronized void visit(Predicate<? super Product> visitor) {
+        for (Entry entry : byDeficit) {
+            if (!visitor.test(entry.product)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the low-stock products furthest below their threshold
+     *
+     * @param limit the largest number of products to return
+     * @return a new list of at most limit products, furthest below first
+     */
+    public synchronized List<Product> getMostUrgent(int limit) {
+        List<Product> products = new ArrayList<>(Math.min(limit, count));
+        for (Entry entry : byDeficit) {
+            if (products.size() == limit) {
+                break;
+            }
+            products.add(entry.product);
+        }
+        return products;
+    }
+
+    private void update(Product product, Entry entry) {
+        if (!product.isLowStock()) {
+            if (entry != null) {
+                unlink(entry);
+            }
+            return;
+        }
+        long deficit = (long) product.getQuantityThreshold() - product.getQuantity();
+        if (entry == null) {
+            entry = new Entry(product, deficit);
+            entries.put(product.getId(), entry);
+            byDeficit.add(entry);
+            count++;
+        } else if (entry.deficit != deficit) {
+            byDeficit.remove(entry);
+            entry.deficit = deficit;
+            byDeficit.add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        entries.remove(entry.product.getId());
+        byDeficit.remove(entry);
+        count--;
+    }
+}
@@ -0,0 +1,142 @@
+package src;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test suite for the LowStockIndex class and its use by InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class LowStockIndexTests {
+
+    /**
+     * Runs all low-stock index tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running LowStockIndex Tests...\n");
+
+        testThresholdCrossing();
+        testRandomChanges();
+        testConcurrentSales();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that sales and restocks crossing the threshold add and remove products, most urgent first
+     */
+    private static void testThresholdCrossing() {
+        System.out.println("Threshold Crossing Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 5, 1);
+        manager.addProduct("Mouse", 2, 4, 2);
+        manager.addProduct("Cable", 50, 10, 3);
+        LowStockIndex index = manager.getLowStockIndex();
+        SimpleTestFramework.assertEquals(1, index.getCount(), "Low product indexed on build");
+
+        manager.sellProduct(1, 5);
+        SimpleTestFramework.assertEquals(2, index.getCount(), "Sale down to the threshold counted");
+        manager.sellProduct(1, 5);
+        SimpleTestFramework.assertEquals(List.of(manager.findProduct(1), manager.findProduct(2)),
+                index.getProducts(), "Furthest below threshold first");
+        SimpleTestFramework.assertEquals(List.of(manager.findProduct(1)), index.getMostUrgent(1),
+                "Most urgent product");
+
+        manager.restockProduct(20, 1);
+        SimpleTestFramework.assertEquals(1, index.getCount(), "Restock above the threshold removes");
+        manager.deleteProduct(2);
+        SimpleTestFramework.assertEquals(0, index.getCount(), "Deleted product removed");
+        manager.addProduct("Cable", 1, 10, 3);
+        SimpleTestFramework.assertEquals(1, index.getCount(), "Replacing product indexed");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that the index matches a full scan after many random changes
+     */
+    private static void testRandomChanges() {
+        System.out.println("Random Change Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(18);
+        for (int id = 0; id < 500; id++) {
+            manager.addProduct("Product " + id, random.nextInt(40), random.nextInt(20), id);
+        }
+        LowStockIndex index = manager.getLowStockIndex();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(600);
+            Product product = manager.findProduct(id);
+            switch (random.nextInt(4)) {
+                case 0 -> manager.addProduct("Product " + id, random.nextInt(40), random.nextInt(20), id);
+                case 1 -> manager.deleteProduct(id);
+                case 2 -> manager.restockProduct(1 + random.nextInt(5), id);
+                default -> {
+                    if (product != null && product.getQuantity() > 0) {
+                        manager.sellProduct(id, 1);
+                    }
+                }
+            }
+        }
+
+        List<Product> scanned = manager.getAllProducts().stream().filter(Product::isLowStock).toList();
+        SimpleTestFramework.assertEquals(scanned.size(), index.getCount(), "Count matches a full scan");
+        List<Product> listed = index.getProducts();
+        boolean ordered = true;
+        for (int i = 1; i < listed.size(); i++) {
+            Product previous = listed.get(i - 1);
+            Product current = listed.get(i);
+            ordered &= previous.getQuantityThreshold() - previous.getQuantity()
+                    >= current.getQuantityThreshold() - current.getQuantity();
+        }
+        SimpleTestFramework.assertTrue(listed.containsAll(scanned) && ordered, "Listing matches, in order");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that concurrent sales across the threshold leave the index consistent
+     */
+    private static void testConcurrentSales() {
+        System.out.println("Concurrent Sale Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        for (int id = 0; id < 64; id++) {
+            manager.addProduct("Product " + id, 600, 500, id);
+        }
+        LowStockIndex index = manager.getLowStockIndex();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 8000; i++) {
+                    int id = i % 64;
+                    if (thread % 2 == 0) {
+                        manager.sellProduct(id, 1);
+                    } else if (id < 32) {
+                        manager.restockProduct(1, id);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long expected = manager.getAllProducts().stream().filter(Product::isLowStock).count();
+        SimpleTestFramework.assertEquals((int) expected, index.getCount(), "Index agrees after concurrent sales");
+        SimpleTestFramework.assertEquals(32, index.getCount(), "Only unrestocked products are low");
+
+        System.out.println();
+    }
+}
@@ -0,0 +1,150 @@
+package src;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A binary snapshot mapped into memory with only an id to record offset index built up front.
+ * <p>
+ * Opening walks the record length prefixes once to fill an open addressing table of primitive ints, so no
+ * product, boxed key or string is created until a record is decoded. The checksum is not verified because
+ * that would read every byte of the file before the first query.
+ *
+ * @author Chloe Nuzillat
+ */
+final class MappedSnapshot {
+    private static final int EMPTY = 0;
+    private static final int FORGOTTEN = -1;
+
+    private final MappedByteBuffer buffer;
+    private final String[] dictionary;
+    private final int[] keys;
+    private final int[] offsets;
+    private final int mask;
+    private int remaining;
+
+    private MappedSnapshot(MappedByteBuffer buffer, int count) throws IOException {
+        if (buffer.limit() < SnapshotCodec.HEADER_SIZE + 4 || buffer.getInt(0) != SnapshotCodec.MAGIC
+                || buffer.getShort(4) != SnapshotCodec.VERSION || SnapshotCodec.isDelta(buffer)) {
+            throw new IOException("Not a binary inventory snapshot");
+        }
+        this.buffer = buffer;
+        this.dictionary = SnapshotCodec.readDictionary(buffer);
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.offsets = new int[capacity];
+        this.mask = capacity - 1;
+
+        int offset = SnapshotCodec.recordsStart(buffer);
+        int end = buffer.limit() - 4;
+        for (int i = 0; i < count; i++) {
+            if (offset + 8 > end) {
+                throw new IOException("Snapshot truncated after " + i + " of " + count + " records");
+            }
+            int slot = slotFor(buffer.getInt(offset + 4));
+            if (offsets[slot] == EMPTY) {
+                remaining++;
+            }
+            keys[slot] = buffer.getInt(offset + 4);
+            offsets[slot] = offset;
+            offset += 4 + buffer.getInt(offset);
+        }
+    }
+
+    /**
+     * Maps a binary snapshot file and indexes its records
+     *
+     * @param path the snapshot file
+     * @return the mapped snapshot
+     * @throws IOException if the file cannot be mapped or is not a binary snapshot
+     */
+    static MappedSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + channel.size() + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = buffer.limit() >= SnapshotCodec.HEADER_SIZE ? buffer.getInt(8) : 0;
+            return new MappedSnapshot(buffer, count);
+        }
+    }
+
+    /**
+     * Finds the slot holding an id, or the empty slot where it would go
+     */
+    private int slotFor(int id) {
+        int slot = mix(id) & mask;
+        while (offsets[slot] != EMPTY && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Checks whether an id still has an undecoded record
+     *
+     * @param id the product id
+     * @return true if the record has not been decoded or forgotten
+     */
+    boolean contains(int id) {
+        return offsets[slotFor(id)] > EMPTY;
+    }
+
+    /**
+     * Decodes the record for an id
+     *
+     * @param id the product id
+     * @return the product, or null if there is no undecoded record for it
+     */
+    Product decode(int id) {
+        int offset = offsets[slotFor(id)];
+        return offset > EMPTY ? SnapshotCodec.decodeProduct(buffer, offset, dictionary) : null;
+    }
+
+    /**
+     * Marks the record for an id as no longer needed, once it has been decoded, replaced or deleted
+     *
+     * @param id the product id
+     */
+    void forget(int id) {
+        int slot = slotFor(id);
+        if (offsets[slot] > EMPTY) {
+            offsets[slot] = FORGOTTEN;
+            remaining--;
+        }
+    }
+
+    /**
+     * Decodes and forgets every remaining record
+     *
+     * @param action receives each decoded product
+     */
+    void drain(Consumer<Product> action) {
+        for (int slot = 0; slot < offsets.length; slot++) {
+            if (offsets[slot] > EMPTY) {
+                Product product = SnapshotCodec.decodeProduct(buffer, offsets[slot], dictionary);
+                offsets[slot] = FORGOTTEN;
+                remaining--;
+                action.accept(product);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of records not yet decoded or forgotten
+     *
+     * @return the remaining record count
+     */
+    int remaining() {
+        return remaining;
+    }
+}
@@ -0,0 +1,27 @@
+package src;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Store that keeps nothing, for tests and benchmarks that should not touch the disk
+ *
+ * @author Chloe Nuzillat
+ */
+public class MemoryStore implements InventoryStore {
+
+    @Override
+    public Map<Integer, Product> load(Consumer<Product> onLoad) {
+        return new HashMap<>();
+    }
+
+    @Override
+    public void flush(Collection<Product> inventory) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,280 @@
+package src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies every inventory mutation on one writer thread, fed through a pre-allocated ring buffer.
+ * <p>
+ * Producers claim a sequence number, fill the matching slot and publish it; the writer applies published
+ * events in order, without locks, and drains everything available as one batch. After each batch the
+ * manager is saved once, which with a journal store means one commit per batch, and only then are the
+ * producers' callbacks told the outcome. Events carry primitives and references supplied by the caller, so
+ * submitting a sale with a reused callback allocates nothing.
+ * <p>
+ * Readers never touch the manager. The writer periodically publishes the manager's {@link InventorySnapshot},
+ * which is derived from the previous one by copying only the products changed since and shares the rest, so
+ * publishing costs nothing per unchanged product and lookups by id box nothing.
+ * <p>
+ * The manager must not be used directly while the pipeline is open.
+ *
+ * @author Chloe Nuzillat
+ */
+public class MutationPipeline implements AutoCloseable {
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final StockMovement.Type[] TYPES = StockMovement.Type.values();
+
+    /**
+     * Receives the outcome of a submitted mutation, on the writer thread
+     */
+    @FunctionalInterface
+    public interface Callback {
+        /**
+         * Called once the mutation has been applied and saved
+         *
+         * @param result the outcome
+         */
+        void completed(StockMovement.Result result);
+    }
+
+    private final InventoryManager manager;
+    private final boolean saveEachBatch;
+    private final long publishIntervalNanos;
+    private final int mask;
+    private final long[] published;
+    private final byte[] types;
+    private final int[] ids;
+    private final int[] quantities;
+    private final int[] thresholds;
+    private final String[] names;
+    private final Callback[] callbacks;
+    private final StockMovement.Result[] results;
+    private final AtomicLong claimed = new AtomicLong();
+    private final Thread writer;
+    private volatile long consumed;
+    private volatile InventorySnapshot view;
+    private boolean changed;
+
+    /**
+     * Starts a pipeline and its writer thread in front of a manager
+     *
+     * @param manager the manager the writer applies mutations to
+     * @param capacity the number of ring buffer slots, a power of two
+     * @param saveEachBatch true to save the manager after every batch, as suits journal and delta stores
+     * @param publishIntervalMillis how often changes are published to the read view
+     */
+    public MutationPipeline(InventoryManager manager, int capacity, boolean saveEachBatch,
+                            long publishIntervalMillis) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        if (publishIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Publish interval must be positive");
+        }
+        this.manager = manager;
+        this.saveEachBatch = saveEachBatch;
+        this.publishIntervalNanos = publishIntervalMillis * 1_000_000L;
+        this.mask = capacity - 1;
+        this.published = new long[capacity];
+        this.types = new byte[capacity];
+        this.ids = new int[capacity];
+        this.quantities = new int[capacity];
+        this.thresholds = new int[capacity];
+        this.names = new String[capacity];
+        this.callbacks = new Callback[capacity];
+        this.results = new StockMovement.Result[capacity];
+        for (int i = 0; i < capacity; i++) {
+            published[i] = -1;
+        }
+        view = manager.snapshot();
+
+        writer = new Thread(this::runWriter, "inventory-mutation-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Submits a sale
+     *
+     * @param id the id of the product
+     * @param quantity the amount to sell
+     * @param callback receives the outcome, may be null
+     */
+    public void sell(int id, int quantity, Callback callback) {
+        submit(StockMovement.Type.SELL, id, quantity, null, 0, callback);
+    }
+
+    /**
+     * Submits a restock
+     *
+     * @param id the id of the product
+     * @param quantity the amount to restock
+     * @param callback receives the outcome, may be null
+     */
+    public void restock(int id, int quantity, Callback callback) {
+        submit(StockMovement.Type.RESTOCK, id, quantity, null, 0, callback);
+    }
+
+    /**
+     * Submits a new product, replacing any product with the same id
+     *
+     * @param name the name of the product
+     * @param quantity the amount of product in stock
+     * @param threshold the threshold that determines if a product is low stock
+     * @param id the unique identifier for the product
+     * @param callback receives the outcome, may be null
+     */
+    public void add(String name, int quantity, int threshold, int id, Callback callback) {
+        submit(StockMovement.Type.ADD, id, quantity, name, threshold, callback);
+    }
+
+    /**
+     * Submits a sale and returns its outcome as a future
+     *
+     * @param id the id of the product
+     * @param quantity the amount to sell
+     * @return a future completed once the sale has been applied and saved
+     */
+    public CompletableFuture<StockMovement.Result> sellAsync(int id, int quantity) {
+        CompletableFuture<StockMovement.Result> future = new CompletableFuture<>();
+        sell(id, quantity, future::complete);
+        return future;
+    }
+
+    /**
+     * Submits a restock and returns its outcome as a future
+     *
+     * @param id the id of the product
+     * @param quantity the amount to restock
+     * @return a future completed once the restock has been applied and saved
+     */
+    public CompletableFuture<StockMovement.Result> restockAsync(int id, int quantity) {
+        CompletableFuture<StockMovement.Result> future = new CompletableFuture<>();
+        restock(id, quantity, future::complete);
+        return future;
+    }
+
+    /**
+     * Gets the most recently published view of the inventory. The products in it are copies that the writer
+     * never changes; callers must not change them either.
+     *
+     * @return the snapshot of the inventory, with products looked up by {@link InventorySnapshot#find(int)}
+     */
+    public InventorySnapshot getView() {
+        return view;
+    }
+
+    private void submit(StockMovement.Type type, int id, int quantity, String name, int threshold,
+                        Callback callback) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                throw new IllegalStateException("Mutation pipeline is closed");
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        while (sequence - consumed > mask) {
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+        int index = (int) (sequence & mask);
+        types[index] = (byte) type.ordinal();
+        ids[index] = id;
+        quantities[index] = quantity;
+        thresholds[index] = threshold;
+        names[index] = name;
+        callbacks[index] = callback;
+        PUBLISHED.setRelease(published, index, sequence);
+    }
+
+    private void runWriter() {
+        long next = 0;
+        long lastPublish = System.nanoTime();
+        while (true) {
+            long batchStart = next;
+            while (next - batchStart <= mask) {
+                int index = (int) (next & mask);
+                if ((long) PUBLISHED.getAcquire(published, index) != next) {
+                    break;
+                }
+                results[index] = manager.apply(TYPES[types[index]], ids[index], quantities[index], names[index],
+                        thresholds[index]);
+                next++;
+            }
+
+            if (next > batchStart) {
+                changed = true;
+                if (saveEachBatch) {
+                    manager.saveInventory();
+                }
+                for (long sequence = batchStart; sequence < next; sequence++) {
+                    int index = (int) (sequence & mask);
+                    Callback callback = callbacks[index];
+                    callbacks[index] = null;
+                    names[index] = null;
+                    if (callback != null) {
+                        try {
+                            callback.completed(results[index]);
+                        } catch (RuntimeException e) {
+                            System.out.println("Error in mutation callback: " + e.getMessage());
+                        }
+                    }
+                }
+                consumed = next;
+            }
+
+            long now = System.nanoTime();
+            if (changed && now - lastPublish >= publishIntervalNanos) {
+                publishView();
+                lastPublish = now;
+            }
+            if (next == batchStart) {
+                long claimedSequence = claimed.get();
+                if (claimedSequence < 0 && (claimedSequence & ~CLOSED) == next) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        publishView();
+        if (!saveEachBatch) {
+            manager.saveInventory();
+        }
+    }
+
+    /**
+     * Publishes a new view with fresh copies of every product changed since the previous one
+     */
+    private void publishView() {
+        if (changed) {
+            view = manager.snapshot();
+            changed = false;
+        }
+    }
+
+    /**
+     * Stops accepting mutations, waits for the writer to apply and save the ones already submitted and
+     * publishes a final view
+     */
+    @Override
+    public void close() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence | CLOSED));
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test suite for the MutationPipeline class
+ *
+ * @author Chloe Nuzillat
+ */
+public class MutationPipelineTests {
+
+    /**
+     * Runs all mutation pipeline tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running MutationPipeline Tests...\n");
+
+        testOutcomes();
+        testManyProducers();
+        testJournaledBatches();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that producers receive each outcome and that readers see published copies
+     */
+    private static void testOutcomes() {
+        System.out.println("Outcome Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 5, 1, 1);
+        MutationPipeline pipeline = new MutationPipeline(manager, 16, false, 1);
+        InventorySnapshot initial = pipeline.getView();
+        try {
+            CompletableFuture<StockMovement.Result> sale = pipeline.sellAsync(1, 3);
+            CompletableFuture<StockMovement.Result> oversell = pipeline.sellAsync(1, 3);
+            CompletableFuture<StockMovement.Result> missing = pipeline.restockAsync(7, 1);
+            SimpleTestFramework.assertEquals(StockMovement.Result.APPLIED, sale.get(), "Sale applied");
+            SimpleTestFramework.assertEquals(StockMovement.Result.INSUFFICIENT_STOCK, oversell.get(),
+                    "Oversell reported to the producer");
+            SimpleTestFramework.assertEquals(StockMovement.Result.NOT_FOUND, missing.get(),
+                    "Unknown product reported to the producer");
+        } catch (InterruptedException | ExecutionException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected exception: " + e);
+        }
+        pipeline.add("Mouse", 4, 1, 2, null);
+        pipeline.close();
+
+        SimpleTestFramework.assertEquals(2, pipeline.getView().find(1).getQuantity(), "Final view published");
+        SimpleTestFramework.assertNotNull(pipeline.getView().find(2), "Added product published");
+        SimpleTestFramework.assertTrue(pipeline.getView().find(1) != manager.findProduct(1),
+                "View holds copies of the products");
+        SimpleTestFramework.assertEquals(5, initial.find(1).getQuantity(), "Earlier views keep their values");
+        SimpleTestFramework.assertNull(initial.find(2), "Earlier views miss later additions");
+        SimpleTestFramework.assertThrows(() -> pipeline.sell(1, 1, null), "IllegalStateException",
+                "Closed pipeline refuses mutations");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that sales from many producers through a small ring are all applied exactly once
+     */
+    private static void testManyProducers() {
+        System.out.println("Producer Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Limited", 10_000, 0, 1);
+        MutationPipeline pipeline = new MutationPipeline(manager, 64, false, 10);
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        MutationPipeline.Callback callback = result -> {
+            if (result == StockMovement.Result.APPLIED) {
+                applied.incrementAndGet();
+            } else {
+                refused.incrementAndGet();
+            }
+        };
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 3000; i++) {
+                    pipeline.sell(1, 1, callback);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            try {
+                producer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        pipeline.close();
+
+        SimpleTestFramework.assertEquals(10_000, applied.get(), "Exactly the available stock is sold");
+        SimpleTestFramework.assertEquals(2000, refused.get(), "Remaining sales are refused");
+        SimpleTestFramework.assertEquals(0, pipeline.getView().find(1).getQuantity(), "View shows the final stock");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a journal store commits per batch and that completed sales survive a restart
+     */
+    private static void testJournaledBatches() {
+        System.out.println("Journaled Batch Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("pipeline");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String journalFile = dir.resolve("inventory.journal").toString();
+            InventoryJournal journal = new InventoryJournal(journalFile, InventoryJournal.FsyncPolicy.GROUP,
+                    Integer.MAX_VALUE);
+            InventoryManager manager = new InventoryManager(snapshot, journal);
+            manager.addProduct("Laptop", 100, 1, 1);
+            manager.saveInventory();
+
+            MutationPipeline pipeline = new MutationPipeline(manager, 128, true, 100);
+            CompletableFuture<StockMovement.Result> last = null;
+            for (int i = 0; i < 40; i++) {
+                last = pipeline.sellAsync(1, 1);
+            }
+            SimpleTestFramework.assertEquals(StockMovement.Result.APPLIED, last.get(), "Last sale applied");
+
+            InventoryJournal reader = new InventoryJournal(journalFile, InventoryJournal.FsyncPolicy.NEVER, 1);
+            InventoryManager restored = new InventoryManager(snapshot, reader);
+            SimpleTestFramework.assertEquals(60, restored.findProduct(1).getQuantity(),
+                    "Completed sales are already committed");
+            reader.close();
+            pipeline.close();
+            journal.close();
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected exception: " + e);
+        }
+
+        System.out.println();
+    }
+}
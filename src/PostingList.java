@@ -0,0 +1,345 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * A set of product ids kept sorted and compressed, as used for the posting lists of an inverted index.
+ * <p>
+ * Ids are stored as the differences between consecutive ids, each written in as few bytes as it needs, in
+ * blocks of {@value #BLOCK} ids. The first id of every block is kept uncompressed so a membership test only
+ * decodes one block. An id greater than every id in the list is encoded straight onto its end, so lists
+ * built in ascending order are never re-encoded. Other ids added or removed are kept in two small sorted
+ * arrays and merged in once they grow past an eighth of the list, or {@value #MAX_PENDING} ids for long
+ * lists. Not thread-safe.
+ *
+ * @author Chloe Nuzillat
+ */
+final class PostingList {
+    private static final int BLOCK = 128;
+    private static final int MIN_PENDING = 32;
+    private static final int MAX_PENDING = 65_536;
+    private static final int[] NO_IDS = new int[0];
+
+    private byte[] packed = new byte[0];
+    private int packedLength;
+    private int packedCount;
+    private int packedLast;
+    private int[] blockFirst = NO_IDS;
+    private int[] blockOffset = NO_IDS;
+    private int[] added = NO_IDS;
+    private int addedCount;
+    private int[] removed = NO_IDS;
+    private int removedCount;
+
+    /**
+     * Adds an id, unless it is already present
+     *
+     * @param id the id
+     */
+    void add(int id) {
+        int index = Arrays.binarySearch(removed, 0, removedCount, id);
+        if (index >= 0) {
+            removedCount = delete(removed, removedCount, index);
+            return;
+        }
+        if ((packedCount == 0 || id > packedLast) && (addedCount == 0 || id > added[addedCount - 1])) {
+            append(id);
+            return;
+        }
+        index = Arrays.binarySearch(added, 0, addedCount, id);
+        if (index >= 0 || packedContains(id)) {
+            return;
+        }
+        added = insert(added, addedCount, -index - 1, id);
+        addedCount++;
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes an id, if present
+     *
+     * @param id the id
+     */
+    void remove(int id) {
+        int index = Arrays.binarySearch(added, 0, addedCount, id);
+        if (index >= 0) {
+            addedCount = delete(added, addedCount, index);
+            return;
+        }
+        index = Arrays.binarySearch(removed, 0, removedCount, id);
+        if (index >= 0 || !packedContains(id)) {
+            return;
+        }
+        removed = insert(removed, removedCount, -index - 1, id);
+        removedCount++;
+        compactIfNeeded();
+    }
+
+    /**
+     * Checks if an id is present, decoding at most one block
+     *
+     * @param id the id
+     * @return true if the id is in the list
+     */
+    boolean contains(int id) {
+        if (Arrays.binarySearch(added, 0, addedCount, id) >= 0) {
+            return true;
+        }
+        return packedContains(id) && Arrays.binarySearch(removed, 0, removedCount, id) < 0;
+    }
+
+    /**
+     * Gets the number of ids
+     *
+     * @return the size of the list
+     */
+    int size() {
+        return packedCount + addedCount - removedCount;
+    }
+
+    /**
+     * Checks if the list holds no ids
+     *
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Decodes the whole list
+     *
+     * @return a new array of the ids in ascending order
+     */
+    int[] toArray() {
+        int[] ids = new int[size()];
+        int count = 0;
+        int nextAdded = 0;
+        int nextRemoved = 0;
+        int blocks = (packedCount + BLOCK - 1) / BLOCK;
+        for (int block = 0; block < blocks; block++) {
+            int offset = blockOffset[block];
+            int id = blockFirst[block];
+            int end = Math.min(BLOCK, packedCount - block * BLOCK);
+            for (int i = 0; i < end; i++) {
+                if (i > 0) {
+                    int delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = packed[offset++];
+                        delta |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    id += delta;
+                }
+                while (nextAdded < addedCount && added[nextAdded] < id) {
+                    ids[count++] = added[nextAdded++];
+                }
+                if (nextRemoved < removedCount && removed[nextRemoved] == id) {
+                    nextRemoved++;
+                } else {
+                    ids[count++] = id;
+                }
+            }
+        }
+        while (nextAdded < addedCount) {
+            ids[count++] = added[nextAdded++];
+        }
+        return ids;
+    }
+
+    /**
+     * Decodes the ids after a given id, in ascending order, starting from the block that holds it
+     *
+     * @param afterId the id to start after
+     * @param ids the array to fill
+     * @return the number of ids written, fewer than ids.length only at the end of the list
+     */
+    int copyAfter(long afterId, int[] ids) {
+        if (afterId >= Integer.MAX_VALUE) {
+            return 0;
+        }
+        int from = (int) Math.max(afterId + 1, Integer.MIN_VALUE);
+        int nextAdded = Arrays.binarySearch(added, 0, addedCount, from);
+        nextAdded = nextAdded >= 0 ? nextAdded : -nextAdded - 1;
+        int nextRemoved = Arrays.binarySearch(removed, 0, removedCount, from);
+        nextRemoved = nextRemoved >= 0 ? nextRemoved : -nextRemoved - 1;
+        int blocks = (packedCount + BLOCK - 1) / BLOCK;
+        int block = Arrays.binarySearch(blockFirst, 0, blocks, from);
+        block = block >= 0 ? block : Math.max(0, -block - 2);
+        int count = 0;
+        for (; block < blocks; block++) {
+            int offset = blockOffset[block];
+            int id = blockFirst[block];
+            int end = Math.min(BLOCK, packedCount - block * BLOCK);
+            for (int i = 0; i < end; i++) {
+                if (i > 0) {
+                    int delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = packed[offset++];
+                        delta |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    id += delta;
+                }
+                if (id < from) {
+                    continue;
+                }
+                while (nextAdded < addedCount && added[nextAdded] < id && count < ids.length) {
+                    ids[count++] = added[nextAdded++];
+                }
+                if (count == ids.length) {
+                    return count;
+                }
+                if (nextRemoved < removedCount && removed[nextRemoved] == id) {
+                    nextRemoved++;
+                } else {
+                    ids[count++] = id;
+                }
+            }
+        }
+        while (nextAdded < addedCount && count < ids.length) {
+            ids[count++] = added[nextAdded++];
+        }
+        return count;
+    }
+
+    /**
+     * Keeps only the candidates present in this list, decoding each block it reaches once
+     *
+     * @param candidates ids in ascending order, overwritten with the ids kept
+     * @param count the number of candidates
+     * @return the number of ids kept
+     */
+    int retainAll(int[] candidates, int count) {
+        int blocks = (packedCount + BLOCK - 1) / BLOCK;
+        int block = -1;
+        int offset = 0;
+        int position = 0;
+        int current = 0;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int id = candidates[i];
+            boolean found = Arrays.binarySearch(added, 0, addedCount, id) >= 0;
+            if (!found && blocks > 0 && id >= blockFirst[0] && id <= packedLast) {
+                int target = block;
+                while (target + 1 < blocks && blockFirst[target + 1] <= id) {
+                    target++;
+                }
+                if (target != block || current > id) {
+                    block = target;
+                    offset = blockOffset[block];
+                    position = 0;
+                    current = blockFirst[block];
+                }
+                int end = Math.min(BLOCK, packedCount - block * BLOCK);
+                while (current < id && position + 1 < end) {
+                    int delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = packed[offset++];
+                        delta |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    current += delta;
+                    position++;
+                }
+                found = current == id && Arrays.binarySearch(removed, 0, removedCount, id) < 0;
+            }
+            if (found) {
+                candidates[kept++] = id;
+            }
+        }
+        return kept;
+    }
+
+    private boolean packedContains(int id) {
+        if (packedCount == 0 || id > packedLast) {
+            return false;
+        }
+        int block = Arrays.binarySearch(blockFirst, 0, (packedCount + BLOCK - 1) / BLOCK, id);
+        if (block >= 0) {
+            return true;
+        }
+        block = -block - 2;
+        if (block < 0) {
+            return false;
+        }
+        int offset = blockOffset[block];
+        int current = blockFirst[block];
+        int end = Math.min(BLOCK, packedCount - block * BLOCK);
+        for (int i = 1; i < end && current < id; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = packed[offset++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+        }
+        return current == id;
+    }
+
+    private void compactIfNeeded() {
+        if (addedCount + removedCount > Math.max(MIN_PENDING, Math.min(MAX_PENDING, packedCount >> 3))) {
+            int[] ids = toArray();
+            packed = new byte[ids.length + 16];
+            packedLength = 0;
+            packedCount = 0;
+            blockFirst = NO_IDS;
+            blockOffset = NO_IDS;
+            addedCount = 0;
+            removedCount = 0;
+            added = NO_IDS;
+            removed = NO_IDS;
+            for (int id : ids) {
+                append(id);
+            }
+        }
+    }
+
+    /**
+     * Encodes an id greater than every encoded id at the end of the list
+     */
+    private void append(int id) {
+        if (packedCount % BLOCK == 0) {
+            int block = packedCount / BLOCK;
+            if (block == blockFirst.length) {
+                blockFirst = Arrays.copyOf(blockFirst, Math.max(4, block * 2));
+                blockOffset = Arrays.copyOf(blockOffset, blockFirst.length);
+            }
+            blockFirst[block] = id;
+            blockOffset[block] = packedLength;
+        } else {
+            if (packedLength + 5 > packed.length) {
+                packed = Arrays.copyOf(packed, Math.max(16, packed.length * 2));
+            }
+            int delta = id - packedLast;
+            while ((delta & ~0x7F) != 0) {
+                packed[packedLength++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            packed[packedLength++] = (byte) delta;
+        }
+        packedCount++;
+        packedLast = id;
+    }
+
+    private static int[] insert(int[] ids, int count, int index, int id) {
+        int[] target = count < ids.length ? ids : Arrays.copyOf(ids, Math.max(4, count * 2));
+        System.arraycopy(ids, index, target, index + 1, count - index);
+        target[index] = id;
+        return target;
+    }
+
+    private static int delete(int[] ids, int count, int index) {
+        System.arraycopy(ids, index + 1, ids, index, count - index - 1);
+        return count - 1;
+    }
+}
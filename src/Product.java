@@ -1,17 +1,52 @@
 package src;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
- * Class representation of a product
+ * Class representation of a product.
+ * <p>
+ * The quantity on hand and the quantity held by reservations are packed into one word and updated with
+ * compare-and-set loops, so concurrent sales, restocks and reservations of the same product never lose an
+ * update or oversell without taking a lock. Sales and reservations only draw on the available quantity,
+ * which is the quantity on hand less the reserved quantity. Reservations are not saved. Sales record their
+ * time as epoch milliseconds and only build a LocalDateTime when it is asked for, so they allocate nothing.
+ * <p>
+ * Price, category and description carry a version stamp that every change to them raises. A caller that
+ * reads a product, computes a new value and writes it back passes the version it read to one of the
+ * compare-and-set methods, which refuse the write if anyone changed those fields in between. The stamp is
+ * odd while a write is in progress. The single-field getters do not check it, so two of them called in a row
+ * may straddle a write; {@link #copy()} reads the version, the fields and the version again, and retries
+ * until both versions match, so a copy's fields always belong together. Stock changes have their own atomic
+ * operations and leave the version alone. The version is not saved and only orders changes within one run.
  *
  * @author Chloe Nuzillat
  */
 public class Product implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final long NEVER_UPDATED = Long.MIN_VALUE;
+    private static final VarHandle STOCK;
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STOCK = lookup.findVarHandle(Product.class, "stock", long.class);
+            VERSION = lookup.findVarHandle(Product.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final String name;
     private int quantity;
     private final int quantityThreshold;
@@ -20,6 +55,11 @@ public class Product implements Serializable {
     private String category;
     private LocalDateTime lastUpdated;
     private String description;
+    private transient volatile long stock;
+    private transient volatile long lastUpdatedMillis = NEVER_UPDATED;
+    private transient volatile long version;
+    private transient ProductListener listener;
+    private transient volatile boolean snapshotPending;
 
     /**
      * Product constructor
@@ -44,11 +84,44 @@ public class Product implements Serializable {
         }
         
         this.name = name.trim();
-        this.quantity = quantity;
+        this.stock = pack(quantity, 0);
         this.quantityThreshold = threshold;
         this.id = id;
     }
 
+    /**
+     * Copies every field of another product, without its listener. The price, category, description and
+     * last updated timestamp are read again until no write overlapped the read.
+     *
+     * @param source the product to copy
+     */
+    private Product(Product source) {
+        this.name = source.name;
+        this.stock = source.stock;
+        this.quantityThreshold = source.quantityThreshold;
+        this.id = source.id;
+        long read;
+        do {
+            read = source.getVersion();
+            this.price = source.price;
+            this.category = source.category;
+            this.description = source.description;
+            this.lastUpdatedMillis = source.lastUpdatedMillis;
+            VarHandle.acquireFence();
+        } while (source.version != read);
+        this.version = read;
+    }
+
+    /**
+     * Creates a detached copy of this product that is not tied to any inventory, with a price, category and
+     * description that were all current at once
+     *
+     * @return the copy
+     */
+    Product copy() {
+        return new Product(this);
+    }
+
     /**
      * Gets the name of the product
      *
@@ -64,7 +137,26 @@ public class Product implements Serializable {
      * @return the quantity
      */
     public int getQuantity() {
-        return quantity;
+        return onHand(stock);
+    }
+
+    /**
+     * Gets the quantity held by open reservations
+     *
+     * @return the reserved quantity
+     */
+    public int getReservedQuantity() {
+        return reserved(stock);
+    }
+
+    /**
+     * Gets the quantity that can still be sold or reserved
+     *
+     * @return the quantity on hand less the reserved quantity
+     */
+    public int getAvailableQuantity() {
+        long current = stock;
+        return onHand(current) - reserved(current);
     }
 
     /**
@@ -95,20 +187,130 @@ public class Product implements Serializable {
         if (amount <= 0) {
             throw new IllegalArgumentException("Sell amount must be positive");
         }
-        if (amount > quantity) {
+        if (!trySell(amount)) {
             throw new IllegalArgumentException("Cannot sell more than available stock");
         }
-        quantity -= amount;
-        lastUpdated = LocalDateTime.now();
+    }
+
+    /**
+     * Sells a positive amount if enough stock is available, without throwing
+     *
+     * @param amount the amount to sell, which must be positive
+     * @return false if the amount exceeds available stock
+     */
+    boolean trySell(int amount) {
+        long current;
+        do {
+            current = stock;
+            if (amount > onHand(current) - reserved(current)) {
+                return false;
+            }
+        } while (!STOCK.weakCompareAndSet(this, current, pack(onHand(current) - amount, reserved(current))));
+        lastUpdatedMillis = System.currentTimeMillis();
+        changed();
+        return true;
     }
 
     /**
      * Restocks a certain amount of a product (adds to the quantity)
      *
      * @param amount the amount to restock
+     * @throws IllegalArgumentException if the new quantity would not fit in an int
      */
     public void restock(int amount) {
-        quantity = quantity + amount;
+        if (!tryRestock(amount)) {
+            throw new IllegalArgumentException("Restock would overflow the quantity");
+        }
+    }
+
+    /**
+     * Restocks an amount unless the new quantity would not fit in an int, without throwing
+     *
+     * @param amount the amount to restock
+     * @return false if the quantity would overflow
+     */
+    boolean tryRestock(int amount) {
+        long current;
+        int updated;
+        do {
+            current = stock;
+            int onHand = onHand(current);
+            updated = onHand + amount;
+            if (((onHand ^ updated) & (amount ^ updated)) < 0) {
+                return false;
+            }
+        } while (!STOCK.weakCompareAndSet(this, current, pack(updated, reserved(current))));
+        changed();
+        return true;
+    }
+
+    /**
+     * Holds a positive amount of available stock for a later sale, without throwing
+     *
+     * @param amount the amount to hold, which must be positive
+     * @return false if the amount exceeds available stock
+     */
+    boolean tryReserve(int amount) {
+        long current;
+        do {
+            current = stock;
+            if (amount > onHand(current) - reserved(current)) {
+                return false;
+            }
+        } while (!STOCK.weakCompareAndSet(this, current, pack(onHand(current), reserved(current) + amount)));
+        return true;
+    }
+
+    /**
+     * Sells an amount previously held by {@link #tryReserve(int)}
+     *
+     * @param amount the amount held
+     */
+    void commitReserved(int amount) {
+        long current;
+        do {
+            current = stock;
+        } while (!STOCK.weakCompareAndSet(this, current,
+                pack(onHand(current) - amount, reserved(current) - amount)));
+        lastUpdatedMillis = System.currentTimeMillis();
+        changed();
+    }
+
+    /**
+     * Returns an amount previously held by {@link #tryReserve(int)} to the available stock
+     *
+     * @param amount the amount held
+     */
+    void releaseReserved(int amount) {
+        long current;
+        do {
+            current = stock;
+        } while (!STOCK.weakCompareAndSet(this, current, pack(onHand(current), reserved(current) - amount)));
+    }
+
+    /**
+     * Restores the quantity recorded by the inventory journal without validation
+     *
+     * @param quantity the recorded quantity
+     */
+    void restoreQuantity(int quantity) {
+        long current;
+        do {
+            current = stock;
+        } while (!STOCK.weakCompareAndSet(this, current, pack(quantity, reserved(current))));
+        changed();
+    }
+
+    private static long pack(int onHand, int reserved) {
+        return ((long) onHand << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int onHand(long stock) {
+        return (int) (stock >> 32);
+    }
+
+    private static int reserved(long stock) {
+        return (int) stock;
     }
 
     /**
@@ -117,7 +319,7 @@ public class Product implements Serializable {
      * @return if an item is low stock
      */
     public boolean isLowStock() {
-        return quantity <= quantityThreshold;
+        return getQuantity() <= quantityThreshold;
     }
 
     /**
@@ -127,7 +329,7 @@ public class Product implements Serializable {
      */
     @Override
     public String toString() {
-        return name + ": " + quantity + " (Low threshold: " + quantityThreshold + ") - " + id;
+        return name + ": " + getQuantity() + " (Low threshold: " + quantityThreshold + ") - " + id;
     }
 
     /**
@@ -145,7 +347,9 @@ public class Product implements Serializable {
      * @param price the new price
      */
     public void setPrice(double price) {
+        long current = beginWrite();
         this.price = price;
+        endWrite(current);
     }
 
     /**
@@ -163,7 +367,9 @@ public class Product implements Serializable {
      * @param category the new category
      */
     public void setCategory(String category) {
+        long current = beginWrite();
         this.category = category;
+        endWrite(current);
     }
 
     /**
@@ -172,7 +378,56 @@ public class Product implements Serializable {
      * @return the last updated timestamp
      */
     public LocalDateTime getLastUpdated() {
-        return lastUpdated;
+        long millis = lastUpdatedMillis;
+        return millis == NEVER_UPDATED ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Gets the last updated timestamp without building a LocalDateTime
+     *
+     * @return the epoch milliseconds of the last update, or Long.MIN_VALUE if never updated
+     */
+    long getLastUpdatedMillis() {
+        return lastUpdatedMillis;
+    }
+
+    /**
+     * Restores the last updated timestamp read from a snapshot
+     *
+     * @param lastUpdated the recorded timestamp, or null if never updated
+     */
+    void restoreLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdatedMillis = lastUpdated == null ? NEVER_UPDATED
+                : lastUpdated.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Restores the last updated timestamp read from a snapshot without building a LocalDateTime
+     *
+     * @param lastUpdatedMillis the recorded epoch milliseconds of the last update, or Long.MIN_VALUE if never
+     *                          updated
+     */
+    void restoreLastUpdated(long lastUpdatedMillis) {
+        this.lastUpdatedMillis = lastUpdatedMillis;
+    }
+
+    /**
+     * Restores the price, category, description and last updated timestamp recorded by the inventory journal
+     * without validation or notifying the listener
+     *
+     * @param price the recorded price
+     * @param category the recorded category
+     * @param description the recorded description
+     * @param lastUpdatedMillis the recorded epoch milliseconds of the last update, or Long.MIN_VALUE
+     */
+    void restoreFields(double price, String category, String description, long lastUpdatedMillis) {
+        long current = beginWrite();
+        this.price = price;
+        this.category = category;
+        this.description = description;
+        this.lastUpdatedMillis = lastUpdatedMillis;
+        VERSION.setRelease(this, current + 2);
     }
 
     /**
@@ -190,7 +445,9 @@ public class Product implements Serializable {
      * @param description the new description
      */
     public void setDescription(String description) {
+        long current = beginWrite();
         this.description = description;
+        endWrite(current);
     }
 
     /**
@@ -200,8 +457,155 @@ public class Product implements Serializable {
      */
     public void updatePrice(double newPrice) {
         if (newPrice >= 0) {
+            long current = beginWrite();
             this.price = newPrice;
-            this.lastUpdated = LocalDateTime.now();
+            this.lastUpdatedMillis = System.currentTimeMillis();
+            endWrite(current);
+        }
+    }
+
+    /**
+     * Gets the version stamp of the price, category and description. Waits out a write in progress, so the
+     * fields read after this call are at least as new as the returned version.
+     *
+     * @return the current version
+     */
+    public long getVersion() {
+        long current;
+        for (int spins = 0; ((current = version) & 1) != 0; spins++) {
+            waitForWriter(spins);
+        }
+        return current;
+    }
+
+    /**
+     * Updates the price and the last updated timestamp if the version is still the expected one
+     *
+     * @param expectedVersion the version read before computing the new price
+     * @param newPrice the new price (must be non-negative)
+     * @return false if another change happened since the expected version
+     * @throws IllegalArgumentException if the price is negative
+     */
+    public boolean compareAndSetPrice(long expectedVersion, double newPrice) {
+        if (newPrice < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        if (!tryBeginWrite(expectedVersion)) {
+            return false;
+        }
+        this.price = newPrice;
+        this.lastUpdatedMillis = System.currentTimeMillis();
+        endWrite(expectedVersion);
+        return true;
+    }
+
+    /**
+     * Updates the category if the version is still the expected one
+     *
+     * @param expectedVersion the version read before computing the new category
+     * @param category the new category
+     * @return false if another change happened since the expected version
+     */
+    public boolean compareAndSetCategory(long expectedVersion, String category) {
+        if (!tryBeginWrite(expectedVersion)) {
+            return false;
+        }
+        this.category = category;
+        endWrite(expectedVersion);
+        return true;
+    }
+
+    /**
+     * Updates the description if the version is still the expected one
+     *
+     * @param expectedVersion the version read before computing the new description
+     * @param description the new description
+     * @return false if another change happened since the expected version
+     */
+    public boolean compareAndSetDescription(long expectedVersion, String description) {
+        if (!tryBeginWrite(expectedVersion)) {
+            return false;
+        }
+        this.description = description;
+        endWrite(expectedVersion);
+        return true;
+    }
+
+    /**
+     * Marks a write in progress, waiting for any other write to finish first
+     *
+     * @return the version before the write
+     */
+    private long beginWrite() {
+        for (int spins = 0; ; spins++) {
+            long current = version;
+            if ((current & 1) == 0 && VERSION.compareAndSet(this, current, current + 1)) {
+                return current;
+            }
+            waitForWriter(spins);
+        }
+    }
+
+    /**
+     * Spins briefly, then yields so that a writer descheduled mid-write can finish
+     */
+    private static void waitForWriter(int spins) {
+        if (spins < 64) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    private boolean tryBeginWrite(long expectedVersion) {
+        return (expectedVersion & 1) == 0 && VERSION.compareAndSet(this, expectedVersion, expectedVersion + 1);
+    }
+
+    /**
+     * Publishes a finished write under the next even version and notifies the listener
+     *
+     * @param previous the version returned when the write began
+     */
+    private void endWrite(long previous) {
+        VERSION.setRelease(this, previous + 2);
+        ProductListener current = listener;
+        if (current != null) {
+            current.productEdited(this);
+        }
+    }
+
+    /**
+     * Sets the listener told about changes to this product
+     *
+     * @param listener the listener, or null to stop notifications
+     */
+    void setListener(ProductListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Marks the product as changed since its inventory's last snapshot
+     *
+     * @return true if it was not marked already
+     */
+    boolean markSnapshotPending() {
+        if (snapshotPending) {
+            return false;
+        }
+        snapshotPending = true;
+        return true;
+    }
+
+    /**
+     * Clears the mark set by {@link #markSnapshotPending()}, before the product is copied into a snapshot
+     */
+    void clearSnapshotPending() {
+        snapshotPending = false;
+    }
+
+    private void changed() {
+        if (listener != null) {
+            listener.productChanged(this);
         }
     }
 
@@ -211,6 +615,41 @@ public class Product implements Serializable {
      * @return the total value
      */
     public double getTotalValue() {
-        return price * quantity;
+        return price * getQuantity();
+    }
+
+    /**
+     * Gets the price in whole cents, rounded to the nearest cent
+     *
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return Math.round(price * 100);
+    }
+
+    /**
+     * Calculates the total value of the product in whole cents, from the price rounded to the nearest cent
+     *
+     * @return the total value in cents
+     */
+    public long getTotalValueCents() {
+        return getPriceCents() * getQuantity();
+    }
+
+    /**
+     * Writes the quantity and timestamp in the serialized form older inventory files use
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        quantity = getQuantity();
+        lastUpdated = getLastUpdated();
+        out.defaultWriteObject();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        stock = pack(quantity, 0);
+        restoreLastUpdated(lastUpdated);
     }
 }
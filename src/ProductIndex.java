@@ -0,0 +1,30 @@
+package src;
+
+/**
+ * A secondary index over the products of an inventory, kept up to date by the InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+interface ProductIndex {
+
+    /**
+     * Adds a product, replacing any product indexed with the same id
+     *
+     * @param product the product
+     */
+    void add(Product product);
+
+    /**
+     * Removes a product
+     *
+     * @param product the product
+     */
+    void remove(Product product);
+
+    /**
+     * Brings the index up to date after a product changed
+     *
+     * @param product the product that changed
+     */
+    void changed(Product product);
+}
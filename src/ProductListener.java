@@ -0,0 +1,25 @@
+package src;
+
+/**
+ * Receives changes made to a product after it was added to an inventory
+ *
+ * @author Chloe Nuzillat
+ */
+interface ProductListener {
+
+    /**
+     * Called after any field of the product changed
+     *
+     * @param product the product that changed
+     */
+    void productChanged(Product product);
+
+    /**
+     * Called instead of {@link #productChanged(Product)} after the price, category or description changed
+     *
+     * @param product the product that changed
+     */
+    default void productEdited(Product product) {
+        productChanged(product);
+    }
+}
@@ -0,0 +1,143 @@
+package src;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * One page of a product listing, in ascending order of id, and the cursor to the next page.
+ * <p>
+ * A cursor marks the last id returned rather than a position, so products added or deleted between two
+ * requests never shift the pages: a product present throughout the listing appears exactly once, and a
+ * product added meanwhile appears only if its id is past the cursor. Cursors are opaque strings to be
+ * passed back unchanged.
+ *
+ * @author Chloe Nuzillat
+ */
+public final class ProductPage {
+    private static final byte CURSOR_VERSION = 1;
+    private static final int MIN_BATCH = 256;
+
+    private final List<Product> products;
+    private final String nextCursor;
+
+    /**
+     * Products in ascending order of id, read from some structure a batch at a time
+     */
+    interface Source {
+        /**
+         * Gets the products with an id greater than a given one, lowest id first
+         *
+         * @param afterId the id to start after
+         * @param limit the largest number of products to return
+         * @return at most limit products, fewer only at the end of the listing
+         */
+        List<Product> after(long afterId, int limit);
+    }
+
+    private ProductPage(List<Product> products, String nextCursor) {
+        this.products = Collections.unmodifiableList(products);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the products of the page
+     *
+     * @return an unmodifiable list of the products, lowest id first
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Gets the cursor to the next page
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks if another page follows
+     *
+     * @return true if there are more products after this page
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Reads one page from a source, keeping only the products that pass a filter. Batches are read until the
+     * page is full or the source runs out, so at most one page plus one batch is held at a time.
+     *
+     * @param cursor the cursor from the previous page, or null for the first page
+     * @param pageSize the largest number of products on the page
+     * @param source the products in ascending order of id
+     * @param filter the condition products must meet, or null to keep every product
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid or the page size is not positive
+     */
+    static ProductPage read(String cursor, int pageSize, Source source, Predicate<Product> filter) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        long afterId = decode(cursor);
+        int batch = filter == null ? pageSize + 1 : Math.max(MIN_BATCH, pageSize + 1);
+        List<Product> products = new ArrayList<>(Math.min(pageSize + 1, MIN_BATCH));
+        while (products.size() <= pageSize) {
+            List<Product> next = source.after(afterId, batch);
+            for (int i = 0; i < next.size() && products.size() <= pageSize; i++) {
+                if (filter == null || filter.test(next.get(i))) {
+                    products.add(next.get(i));
+                }
+            }
+            if (next.size() < batch) {
+                break;
+            }
+            afterId = next.get(next.size() - 1).getId();
+        }
+        if (products.size() <= pageSize) {
+            return new ProductPage(products, null);
+        }
+        products.remove(pageSize);
+        return new ProductPage(products, encode(products.get(pageSize - 1).getId()));
+    }
+
+    /**
+     * Encodes the last id of a page as a cursor
+     */
+    private static String encode(int lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(5).put(CURSOR_VERSION).putInt(lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a cursor into the last id of the previous page
+     *
+     * @throws IllegalArgumentException if the cursor was not made by {@link #encode(int)}
+     */
+    private static long decode(String cursor) {
+        if (cursor == null) {
+            return Long.MIN_VALUE;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (bytes.length != 5 || bytes[0] != CURSOR_VERSION) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return ByteBuffer.wrap(bytes, 1, 4).getInt();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductPage{" + products.size() + " products" + (hasMore() ? ", more" : "") + "}";
+    }
+}
@@ -0,0 +1,199 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test suite for the ProductPage class and paged listings in InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class ProductPageTests {
+
+    /**
+     * Runs all product page tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running ProductPage Tests...\n");
+
+        testPaging();
+        testConcurrentChanges();
+        testSearchAndCategoryPages();
+        testRandomPages();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests walking every product page by page, and rejected arguments
+     */
+    private static void testPaging() {
+        System.out.println("Paging Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        for (int id = 10; id > 0; id--) {
+            manager.addProduct("Item " + id, id, 0, id);
+        }
+
+        ProductPage first = manager.getProductsPage(null, 4);
+        SimpleTestFramework.assertEquals(4, first.getProducts().size(), "First page full");
+        SimpleTestFramework.assertEquals(1, first.getProducts().get(0).getId(), "Lowest id first");
+        SimpleTestFramework.assertTrue(first.hasMore(), "More pages follow");
+        ProductPage second = manager.getProductsPage(first.getNextCursor(), 4);
+        SimpleTestFramework.assertEquals(5, second.getProducts().get(0).getId(), "Second page continues");
+        ProductPage last = manager.getProductsPage(second.getNextCursor(), 4);
+        SimpleTestFramework.assertEquals(2, last.getProducts().size(), "Last page partial");
+        SimpleTestFramework.assertTrue(last.getNextCursor() == null, "No cursor after the last page");
+
+        ProductPage exact = manager.getProductsPage(manager.getProductsPage(null, 5).getNextCursor(), 5);
+        SimpleTestFramework.assertEquals(5, exact.getProducts().size(), "Exact last page full");
+        SimpleTestFramework.assertTrue(!exact.hasMore(), "No empty page after an exact fit");
+        SimpleTestFramework.assertEquals(0, new InventoryManager(new MemoryStore()).getProductsPage(null, 5)
+                .getProducts().size(), "Empty inventory");
+
+        SimpleTestFramework.assertThrows(() -> manager.getProductsPage("not a cursor", 5),
+                "IllegalArgumentException", "Invalid cursor rejected");
+        SimpleTestFramework.assertThrows(() -> manager.getProductsPage(null, 0),
+                "IllegalArgumentException", "Zero page size rejected");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that products added and deleted between pages neither repeat nor skip the others
+     */
+    private static void testConcurrentChanges() {
+        System.out.println("Concurrent Change Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        for (int id = 0; id < 100; id += 2) {
+            manager.addProduct("Item " + id, 10, 0, id);
+        }
+
+        ProductPage page = manager.getProductsPage(null, 10);
+        List<Integer> seen = new ArrayList<>();
+        page.getProducts().forEach(product -> seen.add(product.getId()));
+        manager.addProduct("Behind", 10, 0, 1);
+        manager.addProduct("Ahead", 10, 0, 51);
+        manager.deleteProduct(60);
+        while (page.hasMore()) {
+            page = manager.getProductsPage(page.getNextCursor(), 10);
+            page.getProducts().forEach(product -> seen.add(product.getId()));
+        }
+
+        SimpleTestFramework.assertEquals(seen.size(), new HashSet<>(seen).size(), "No product repeated");
+        SimpleTestFramework.assertTrue(seen.contains(98) && seen.contains(58) && seen.contains(62),
+                "No product skipped");
+        SimpleTestFramework.assertTrue(seen.contains(51), "Product added ahead of the cursor shown");
+        SimpleTestFramework.assertTrue(!seen.contains(1), "Product added behind the cursor not shown");
+        SimpleTestFramework.assertTrue(!seen.contains(60), "Deleted product not shown");
+        SimpleTestFramework.assertEquals(50, seen.size(), "Every product visited once");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests pages of a name search, with and without a category, and of a category
+     */
+    private static void testSearchAndCategoryPages() {
+        System.out.println("Search and Category Page Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        for (int id = 0; id < 30; id++) {
+            manager.addProduct((id % 3 == 0 ? "Steel Lamp " : "Oak Desk ") + id, 10, 0, id);
+            manager.findProduct(id).setCategory(id % 2 == 0 ? "Even" : "Odd");
+        }
+
+        ProductPage lamps = manager.searchProductsPage("LAMP", null, null, 4);
+        SimpleTestFramework.assertEquals(List.of(0, 3, 6, 9), ids(lamps), "Search page in id order");
+        SimpleTestFramework.assertEquals(List.of(12, 15, 18, 21),
+                ids(manager.searchProductsPage("LAMP", null, lamps.getNextCursor(), 4)), "Search continues");
+        SimpleTestFramework.assertEquals(List.of(0, 6, 12, 18, 24),
+                ids(manager.searchProductsPage("lamp", "Even", null, 10)), "Search within a category");
+        SimpleTestFramework.assertEquals(List.of(0, 3),
+                ids(manager.searchProductsPage("l ", null, null, 2)), "Short term checks the names");
+        SimpleTestFramework.assertEquals(List.of(3, 9, 15),
+                ids(manager.searchProductsPage("l ", "Odd", null, 3)), "Short term within a category");
+        SimpleTestFramework.assertEquals(0, manager.searchProductsPage("chair", null, null, 5).getProducts().size(),
+                "No match");
+        SimpleTestFramework.assertEquals(30, manager.searchProductsPage(" ", null, null, 50).getProducts().size(),
+                "Blank term lists every product");
+
+        ProductPage odd = manager.getProductsByCategoryPage("Odd", null, 10);
+        SimpleTestFramework.assertEquals(1, odd.getProducts().get(0).getId(), "Category page in id order");
+        SimpleTestFramework.assertEquals(5, manager.getProductsByCategoryPage("Odd", odd.getNextCursor(), 10)
+                .getProducts().size(), "Category continues");
+        SimpleTestFramework.assertEquals(0, manager.getProductsByCategoryPage("None", null, 10).getProducts()
+                .size(), "Unknown category");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that walking random listings page by page returns the same products as filtering every product
+     */
+    private static void testRandomPages() {
+        System.out.println("Random Page Tests:");
+        System.out.println("-".repeat(30));
+
+        String[] words = {"Red", "Blue", "Steel", "Widget", "Lamp", "Desk"};
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(25);
+        for (int i = 0; i < 6000; i++) {
+            int id = random.nextInt(3000);
+            if (random.nextInt(4) == 0) {
+                manager.deleteProduct(id);
+            } else {
+                manager.addProduct(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                        10, 0, id);
+                manager.findProduct(id).setCategory(words[random.nextInt(3)]);
+            }
+        }
+
+        boolean matches = true;
+        for (int i = 0; i < 40; i++) {
+            String term = random.nextBoolean() ? words[random.nextInt(words.length)].substring(1) : "e";
+            String category = random.nextBoolean() ? words[random.nextInt(3)] : null;
+            int pageSize = 1 + random.nextInt(100);
+            List<Integer> expected = manager.getAllProducts().stream()
+                    .filter(product -> product.getName().toLowerCase().contains(term))
+                    .filter(product -> category == null || category.equals(product.getCategory()))
+                    .sorted(Comparator.comparingInt(Product::getId))
+                    .map(Product::getId)
+                    .toList();
+            List<Integer> actual = new ArrayList<>();
+            ProductPage page = manager.searchProductsPage(term, category, null, pageSize);
+            actual.addAll(ids(page));
+            while (page.hasMore()) {
+                page = manager.searchProductsPage(term, category, page.getNextCursor(), pageSize);
+                matches &= page.getProducts().size() > 0;
+                actual.addAll(ids(page));
+            }
+            matches &= expected.equals(actual);
+        }
+        SimpleTestFramework.assertTrue(matches, "Pages match filtering every product");
+
+        Set<Integer> listed = new HashSet<>();
+        for (ProductPage page = manager.getProductsPage(null, 97); ; page = manager.getProductsPage(
+                page.getNextCursor(), 97)) {
+            listed.addAll(ids(page));
+            if (!page.hasMore()) {
+                break;
+            }
+        }
+        SimpleTestFramework.assertEquals(manager.getAllProducts().size(), listed.size(), "Every product listed");
+
+        System.out.println();
+    }
+
+    private static List<Integer> ids(ProductPage page) {
+        return page.getProducts().stream().map(Product::getId).toList();
+    }
+}
@@ -0,0 +1,311 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A query over the products combining a name term, a category, quantity and price ranges, a low-stock flag,
+ * a sort order and a limit, run with {@link InventoryManager#query(ProductQuery)}.
+ * <p>
+ * Queries are immutable: each method returns a new query with one more condition, so a query can be built
+ * up from {@link #all()} and shared or reused. Prices are compared in whole cents, as they are totalled.
+ *
+ * @author Chloe Nuzillat
+ */
+public final class ProductQuery {
+
+    /**
+     * The order of the results. Products that compare equal are ordered by id.
+     */
+    public enum Sort {
+        NONE(null),
+        NAME(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER)),
+        PRICE_ASCENDING(Comparator.comparingLong(Product::getPriceCents)),
+        PRICE_DESCENDING(Comparator.comparingLong(Product::getPriceCents).reversed()),
+        QUANTITY_ASCENDING(Comparator.comparingInt(Product::getQuantity)),
+        QUANTITY_DESCENDING(Comparator.comparingInt(Product::getQuantity).reversed()),
+        VALUE_DESCENDING(Comparator.comparingLong(Product::getTotalValueCents).reversed());
+
+        private final Comparator<Product> order;
+
+        Sort(Comparator<Product> order) {
+            this.order = order == null ? null : order.thenComparingInt(Product::getId);
+        }
+
+        /**
+         * Gets the comparator putting products in this order
+         *
+         * @return the comparator, or null for no particular order
+         */
+        Comparator<Product> comparator() {
+            return order;
+        }
+    }
+
+    private static final ProductQuery ALL = new ProductQuery(null, null, Integer.MIN_VALUE, Integer.MAX_VALUE,
+            Long.MIN_VALUE, Long.MAX_VALUE, false, Sort.NONE, Integer.MAX_VALUE);
+
+    private final String name;
+    private final String category;
+    private final int minQuantity;
+    private final int maxQuantity;
+    private final long minPriceCents;
+    private final long maxPriceCents;
+    private final boolean lowStockOnly;
+    private final Sort sort;
+    private final int limit;
+
+    private ProductQuery(String name, String category, int minQuantity, int maxQuantity, long minPriceCents,
+                         long maxPriceCents, boolean lowStockOnly, Sort sort, int limit) {
+        this.name = name;
+        this.category = category;
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+        this.minPriceCents = minPriceCents;
+        this.maxPriceCents = maxPriceCents;
+        this.lowStockOnly = lowStockOnly;
+        this.sort = sort;
+        this.limit = limit;
+    }
+
+    /**
+     * Creates a query matching every product, in no particular order
+     *
+     * @return the query
+     */
+    public static ProductQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Keeps the products whose name contains a term, ignoring case
+     *
+     * @param term the term, or null or blank for any name
+     * @return the narrowed query
+     */
+    public ProductQuery nameContains(String term) {
+        String normalized = term == null || term.trim().isEmpty() ? null : TrigramIndex.normalize(term);
+        return new ProductQuery(normalized, category, minQuantity, maxQuantity, minPriceCents, maxPriceCents,
+                lowStockOnly, sort, limit);
+    }
+
+    /**
+     * Keeps the products in a category
+     *
+     * @param category the category, or null for any category
+     * @return the narrowed query
+     */
+    public ProductQuery inCategory(String category) {
+        return new ProductQuery(name, category, minQuantity, maxQuantity, minPriceCents, maxPriceCents,
+                lowStockOnly, sort, limit);
+    }
+
+    /**
+     * Keeps the products with a quantity on hand in a range
+     *
+     * @param min the lowest quantity, inclusive
+     * @param max the highest quantity, inclusive
+     * @return the narrowed query
+     * @throws IllegalArgumentException if min is greater than max
+     */
+    public ProductQuery quantityBetween(int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Minimum quantity cannot exceed maximum quantity");
+        }
+        return new ProductQuery(name, category, min, max, minPriceCents, maxPriceCents, lowStockOnly, sort,
+                limit);
+    }
+
+    /**
+     * Keeps the products with a price in a range
+     *
+     * @param min the lowest price, inclusive
+     * @param max the highest price, inclusive
+     * @return the narrowed query
+     * @throws IllegalArgumentException if min is greater than max
+     */
+    public ProductQuery priceBetween(double min, double max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Minimum price cannot exceed maximum price");
+        }
+        return new ProductQuery(name, category, minQuantity, maxQuantity, Math.round(min * 100),
+                Math.round(max * 100), lowStockOnly, sort, limit);
+    }
+
+    /**
+     * Keeps the products that are low on stock
+     *
+     * @return the narrowed query
+     */
+    public ProductQuery lowStockOnly() {
+        return new ProductQuery(name, category, minQuantity, maxQuantity, minPriceCents, maxPriceCents, true,
+                sort, limit);
+    }
+
+    /**
+     * Orders the results
+     *
+     * @param sort the order
+     * @return the ordered query
+     */
+    public ProductQuery sortedBy(Sort sort) {
+        return new ProductQuery(name, category, minQuantity, maxQuantity, minPriceCents, maxPriceCents,
+                lowStockOnly, sort == null ? Sort.NONE : sort, limit);
+    }
+
+    /**
+     * Returns at most a number of products, the first ones in the sort order
+     *
+     * @param limit the largest number of products
+     * @return the limited query
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public ProductQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        return new ProductQuery(name, category, minQuantity, maxQuantity, minPriceCents, maxPriceCents,
+                lowStockOnly, sort, limit);
+    }
+
+    /**
+     * Gets the lower-cased name term
+     *
+     * @return the term, or null for any name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the category
+     *
+     * @return the category, or null for any category
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Gets the lowest quantity kept
+     *
+     * @return the lowest quantity, Integer.MIN_VALUE if unbounded
+     */
+    public int getMinQuantity() {
+        return minQuantity;
+    }
+
+    /**
+     * Gets the highest quantity kept
+     *
+     * @return the highest quantity, Integer.MAX_VALUE if unbounded
+     */
+    public int getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    /**
+     * Gets the lowest price kept, in whole cents
+     *
+     * @return the lowest price, Long.MIN_VALUE if unbounded
+     */
+    public long getMinPriceCents() {
+        return minPriceCents;
+    }
+
+    /**
+     * Gets the highest price kept, in whole cents
+     *
+     * @return the highest price, Long.MAX_VALUE if unbounded
+     */
+    public long getMaxPriceCents() {
+        return maxPriceCents;
+    }
+
+    /**
+     * Checks if only low-stock products are kept
+     *
+     * @return true if only low-stock products are kept
+     */
+    public boolean isLowStockOnly() {
+        return lowStockOnly;
+    }
+
+    /**
+     * Gets the order of the results
+     *
+     * @return the sort order
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Gets the largest number of results
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Checks a product against every condition but the ones an index already guarantees
+     *
+     * @param product the product
+     * @param skipName true if the name condition is already met
+     * @param skipCategory true if the category condition is already met
+     * @param skipLowStock true if the low-stock condition is already met
+     * @return true if the product matches
+     */
+    boolean matches(Product product, boolean skipName, boolean skipCategory, boolean skipLowStock) {
+        int quantity = product.getQuantity();
+        long priceCents = product.getPriceCents();
+        return quantity >= minQuantity && quantity <= maxQuantity
+                && priceCents >= minPriceCents && priceCents <= maxPriceCents
+                && (skipLowStock || !lowStockOnly || product.isLowStock())
+                && (skipCategory || category == null || category.equals(product.getCategory()))
+                && (skipName || name == null || TrigramIndex.contains(product.getName(), name));
+    }
+
+    /**
+     * Describes the conditions checked one product at a time, leaving out the ones an index guarantees
+     *
+     * @param skipName true if the name condition is already met
+     * @param skipCategory true if the category condition is already met
+     * @param skipLowStock true if the low-stock condition is already met
+     * @return the conditions, or "none"
+     */
+    String describeFilters(boolean skipName, boolean skipCategory, boolean skipLowStock) {
+        List<String> filters = new ArrayList<>();
+        if (name != null && !skipName) {
+            filters.add("name contains \"" + name + "\"");
+        }
+        if (category != null && !skipCategory) {
+            filters.add("category = \"" + category + "\"");
+        }
+        if (minQuantity != Integer.MIN_VALUE || maxQuantity != Integer.MAX_VALUE) {
+            filters.add("quantity " + bound(minQuantity, Integer.MIN_VALUE) + ".."
+                    + bound(maxQuantity, Integer.MAX_VALUE));
+        }
+        if (minPriceCents != Long.MIN_VALUE || maxPriceCents != Long.MAX_VALUE) {
+            filters.add("price cents " + bound(minPriceCents, Long.MIN_VALUE) + ".."
+                    + bound(maxPriceCents, Long.MAX_VALUE));
+        }
+        if (lowStockOnly && !skipLowStock) {
+            filters.add("low stock");
+        }
+        return filters.isEmpty() ? "none" : String.join(", ", filters);
+    }
+
+    private static String bound(long value, long unbounded) {
+        return value == unbounded ? "*" : String.valueOf(value);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductQuery{" + describeFilters(false, false, false) + ", sort=" + sort
+                + (limit == Integer.MAX_VALUE ? "" : ", limit=" + limit) + "}";
+    }
+}
@@ -0,0 +1,204 @@
+package src;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test suite for the ProductQuery and QueryPlan classes and querying in InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class ProductQueryTests {
+
+    /**
+     * Runs all product query tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running ProductQuery Tests...\n");
+
+        testConditions();
+        testSortAndLimit();
+        testPlanning();
+        testRandomQueries();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests each condition on its own and combined, and rejected arguments
+     */
+    private static void testConditions() {
+        System.out.println("Condition Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = createManager();
+        SimpleTestFramework.assertEquals(5, manager.query(ProductQuery.all()).size(), "All products");
+        SimpleTestFramework.assertEquals(2, manager.query(ProductQuery.all().nameContains("MOUSE")).size(),
+                "Name ignoring case");
+        SimpleTestFramework.assertEquals(3, manager.query(ProductQuery.all().inCategory("Peripherals")).size(),
+                "Category");
+        SimpleTestFramework.assertEquals(2, manager.query(ProductQuery.all().quantityBetween(0, 5)).size(),
+                "Quantity range");
+        SimpleTestFramework.assertEquals(2, manager.query(ProductQuery.all().priceBetween(20.0, 50.0)).size(),
+                "Price range");
+        SimpleTestFramework.assertEquals(2, manager.query(ProductQuery.all().lowStockOnly()).size(),
+                "Low stock");
+        List<Product> combined = manager.query(ProductQuery.all().inCategory("Peripherals").lowStockOnly()
+                .priceBetween(20.0, 50.0));
+        SimpleTestFramework.assertEquals(1, combined.size(), "Conditions combined");
+        SimpleTestFramework.assertEquals(2, combined.get(0).getId(), "Combined match");
+        SimpleTestFramework.assertEquals(5, manager.query(ProductQuery.all().nameContains(" ")).size(),
+                "Blank name ignored");
+
+        SimpleTestFramework.assertThrows(() -> ProductQuery.all().quantityBetween(5, 1),
+                "IllegalArgumentException", "Inverted quantity range rejected");
+        SimpleTestFramework.assertThrows(() -> ProductQuery.all().priceBetween(5.0, 1.0),
+                "IllegalArgumentException", "Inverted price range rejected");
+        SimpleTestFramework.assertThrows(() -> ProductQuery.all().limit(-1),
+                "IllegalArgumentException", "Negative limit rejected");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests ordering with and without a limit
+     */
+    private static void testSortAndLimit() {
+        System.out.println("Sort and Limit Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = createManager();
+        List<Product> byPrice = manager.query(ProductQuery.all().sortedBy(ProductQuery.Sort.PRICE_DESCENDING));
+        SimpleTestFramework.assertEquals(4, byPrice.get(0).getId(), "Most expensive first");
+        SimpleTestFramework.assertEquals(5, byPrice.size(), "Every product sorted");
+        List<Product> cheapest = manager.query(ProductQuery.all().sortedBy(ProductQuery.Sort.PRICE_ASCENDING)
+                .limit(2));
+        SimpleTestFramework.assertEquals(2, cheapest.size(), "Limit kept");
+        SimpleTestFramework.assertEquals(5, cheapest.get(0).getId(), "Cheapest first");
+        SimpleTestFramework.assertEquals(3, cheapest.get(1).getId(), "Second cheapest");
+        List<Product> byName = manager.query(ProductQuery.all().sortedBy(ProductQuery.Sort.NAME).limit(1));
+        SimpleTestFramework.assertEquals("Cable", byName.get(0).getName(), "Sorted by name");
+        SimpleTestFramework.assertEquals(3, manager.query(ProductQuery.all().limit(3)).size(), "Unsorted limit");
+        SimpleTestFramework.assertEquals(0, manager.query(ProductQuery.all().limit(0)).size(), "Zero limit");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that the most selective index already built is chosen and shown by explain
+     */
+    private static void testPlanning() {
+        System.out.println("Planning Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        for (int id = 0; id < 1000; id++) {
+            manager.addProduct((id % 100 == 0 ? "Lamp " : "Desk ") + id, id % 50, 10, id);
+            manager.findProduct(id).setCategory(id % 2 == 0 ? "Even" : "Odd");
+        }
+        ProductQuery query = ProductQuery.all().nameContains("lamp").inCategory("Even").lowStockOnly();
+        SimpleTestFramework.assertEquals(QueryPlan.Access.SCAN, manager.plan(query).getAccess(),
+                "Scan before any index is built");
+
+        manager.getCategoryIndex();
+        SimpleTestFramework.assertEquals(QueryPlan.Access.CATEGORY_INDEX, manager.plan(query).getAccess(),
+                "Category index chosen");
+        manager.getLowStockIndex();
+        SimpleTestFramework.assertEquals(QueryPlan.Access.LOW_STOCK_INDEX, manager.plan(query).getAccess(),
+                "Smaller low-stock index chosen");
+        manager.getSearchIndex();
+        SimpleTestFramework.assertEquals(QueryPlan.Access.NAME_INDEX, manager.plan(query).getAccess(),
+                "Smallest name index chosen");
+        SimpleTestFramework.assertEquals(QueryPlan.Access.LOW_STOCK_INDEX,
+                manager.plan(ProductQuery.all().nameContains("de").lowStockOnly()).getAccess(),
+                "Short term not estimated from the name index");
+        SimpleTestFramework.assertEquals(10, manager.query(query).size(), "Same results through the index");
+
+        String explain = manager.explain(query.sortedBy(ProductQuery.Sort.QUANTITY_ASCENDING).limit(3));
+        SimpleTestFramework.assertTrue(explain.contains("access: name index, about 10 products"),
+                "Explain shows the index chosen");
+        SimpleTestFramework.assertTrue(explain.contains("scan 1000") && explain.contains("category index 500")
+                && explain.contains("low-stock index 220"), "Explain shows the estimates");
+        SimpleTestFramework.assertTrue(explain.contains("filter: category = \"Even\", low stock"),
+                "Explain shows the remaining conditions");
+        SimpleTestFramework.assertTrue(explain.contains("keep best 3 in a heap"), "Explain shows the order");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that random queries return the same products as filtering and sorting every product
+     */
+    private static void testRandomQueries() {
+        System.out.println("Random Query Tests:");
+        System.out.println("-".repeat(30));
+
+        String[] words = {"Red", "Blue", "Steel", "Widget", "Lamp", "Desk"};
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(23);
+        for (int id = 0; id < 3000; id++) {
+            manager.addProduct(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    random.nextInt(100), random.nextInt(20), id);
+            manager.findProduct(id).setPrice(random.nextInt(10_000) / 100.0);
+            manager.findProduct(id).setCategory(words[random.nextInt(3)]);
+        }
+        manager.getCategoryIndex();
+        manager.getLowStockIndex();
+        manager.getSearchIndex();
+
+        boolean matches = true;
+        ProductQuery.Sort[] sorts = ProductQuery.Sort.values();
+        for (int i = 0; i < 200; i++) {
+            ProductQuery query = ProductQuery.all();
+            String name = random.nextBoolean() ? words[random.nextInt(words.length)].substring(1) : null;
+            String category = random.nextBoolean() ? words[random.nextInt(3)] : null;
+            int minQuantity = random.nextInt(50);
+            int maxQuantity = minQuantity + random.nextInt(60);
+            double minPrice = random.nextInt(5000) / 100.0;
+            boolean lowStock = random.nextInt(3) == 0;
+            ProductQuery.Sort sort = sorts[1 + random.nextInt(sorts.length - 1)];
+            int limit = 1 + random.nextInt(30);
+            query = query.nameContains(name).inCategory(category).quantityBetween(minQuantity, maxQuantity)
+                    .priceBetween(minPrice, 100.0).sortedBy(sort).limit(limit);
+            if (lowStock) {
+                query = query.lowStockOnly();
+            }
+
+            Comparator<Product> order = sort.comparator();
+            List<Integer> expected = manager.getAllProducts().stream()
+                    .filter(product -> name == null || product.getName().toLowerCase().contains(name.toLowerCase()))
+                    .filter(product -> category == null || category.equals(product.getCategory()))
+                    .filter(product -> product.getQuantity() >= minQuantity && product.getQuantity() <= maxQuantity)
+                    .filter(product -> product.getPriceCents() >= Math.round(minPrice * 100))
+                    .filter(product -> !lowStock || product.isLowStock())
+                    .sorted(order)
+                    .limit(limit)
+                    .map(Product::getId)
+                    .toList();
+            List<Integer> actual = manager.query(query).stream().map(Product::getId).toList();
+            matches &= expected.equals(actual);
+        }
+        SimpleTestFramework.assertTrue(matches, "Queries match filtering every product");
+
+        System.out.println();
+    }
+
+    /**
+     * Creates a manager with five products: two low on stock, three peripherals and prices from 5 to 900
+     */
+    private static InventoryManager createManager() {
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Wireless Mouse", 20, 5, 1);
+        manager.addProduct("Wired Mouse", 3, 5, 2);
+        manager.addProduct("Keyboard", 40, 5, 3);
+        manager.addProduct("Laptop", 8, 2, 4);
+        manager.addProduct("Cable", 1, 5, 5);
+        double[] prices = {45.0, 25.0, 15.0, 900.0, 5.0};
+        for (int id = 1; id <= 5; id++) {
+            manager.findProduct(id).setPrice(prices[id - 1]);
+            manager.findProduct(id).setCategory(id <= 3 ? "Peripherals" : "Computers");
+        }
+        return manager;
+    }
+}
@@ -1,5 +1,7 @@
 package src;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class ProductTests {
     
     public static void runAllTests() {
@@ -9,9 +11,11 @@ public class ProductTests {
         testGetters();
         testSellMethod();
         testRestockMethod();
+        testConcurrentStock();
         testLowStock();
         testPriceAndValue();
         testCategoryAndDescription();
+        testVersion();
         testToString();
         
         SimpleTestFramework.printSummary();
@@ -120,10 +124,54 @@ public class ProductTests {
 
         product.restock(-10);
         SimpleTestFramework.assertEquals(140, product.getQuantity(), "Restock negative amount");
+
+        SimpleTestFramework.assertThrows(() -> {
+            product.restock(Integer.MAX_VALUE);
+        }, "IllegalArgumentException", "Restock past the maximum quantity");
+        SimpleTestFramework.assertEquals(140, product.getQuantity(), "Overflowing restock leaves quantity unchanged");
         
         System.out.println();
     }
     
+    private static void testConcurrentStock() {
+        System.out.println("Concurrent Stock Tests:");
+        System.out.println("-".repeat(30));
+
+        Product product = new Product("Test Product", 10_000, 10, 1);
+        AtomicInteger refused = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    try {
+                        product.sell(1);
+                    } catch (IllegalArgumentException e) {
+                        refused.incrementAndGet();
+                    }
+                    if (thread % 2 == 0 && i % 4 == 0) {
+                        product.restock(1);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int sold = 16_000 - refused.get();
+        SimpleTestFramework.assertTrue(product.getQuantity() >= 0, "Concurrent sales never oversell");
+        SimpleTestFramework.assertEquals(12_000, sold + product.getQuantity(), "No sale or restock is lost");
+        SimpleTestFramework.assertNotNull(product.getLastUpdated(), "Sale sets lastUpdated");
+
+        System.out.println();
+    }
+
     private static void testLowStock() {
         System.out.println("Low Stock Tests:");
         System.out.println("-".repeat(30));
@@ -192,6 +240,35 @@ public class ProductTests {
         System.out.println();
     }
     
+    private static void testVersion() {
+        System.out.println("Version Tests:");
+        System.out.println("-".repeat(30));
+
+        Product product = new Product("Test Product", 100, 10, 1);
+        long initial = product.getVersion();
+        product.setPrice(5.0);
+        long priced = product.getVersion();
+        SimpleTestFramework.assertTrue(priced > initial, "Setter raises the version");
+
+        product.sell(10);
+        SimpleTestFramework.assertEquals(priced, product.getVersion(), "Stock changes keep the version");
+
+        SimpleTestFramework.assertTrue(product.compareAndSetPrice(priced, 6.0), "Current version accepted");
+        SimpleTestFramework.assertEquals(6.0, product.getPrice(), "Compare-and-set price applied");
+        SimpleTestFramework.assertNotNull(product.getLastUpdated(), "Compare-and-set price sets lastUpdated");
+
+        SimpleTestFramework.assertFalse(product.compareAndSetCategory(priced, "Stale"), "Stale version refused");
+        SimpleTestFramework.assertNull(product.getCategory(), "Refused write leaves the field");
+        SimpleTestFramework.assertTrue(product.compareAndSetDescription(product.getVersion(), "Fresh"),
+                "Re-read version accepted");
+        SimpleTestFramework.assertThrows(() -> product.compareAndSetPrice(product.getVersion(), -1),
+                "IllegalArgumentException", "Negative price refused");
+        SimpleTestFramework.assertEquals(product.getVersion(), product.copy().getVersion(),
+                "Copy keeps the version");
+
+        System.out.println();
+    }
+
     private static void testToString() {
         System.out.println("ToString Tests:");
         System.out.println("-".repeat(30));
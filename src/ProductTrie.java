@@ -0,0 +1,351 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Persistent map from product id to product, a radix trie over the bits of the id.
+ * <p>
+ * Each node covers five bits of the id and packs its children into an array indexed through a 32-bit bitmap,
+ * so a lookup visits one node per five bits of the largest id and boxes nothing. A trie never changes once
+ * built. An {@link Editor} derives a new trie from an old one by copying only the nodes on the paths to the
+ * ids it changes, each at most once however many of its ids change, and both tries share every other node.
+ * Products are visited in ascending order of id.
+ *
+ * @author Chloe Nuzillat
+ */
+final class ProductTrie implements Iterable<Product> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS;
+
+    /**
+     * The trie holding no products
+     */
+    static final ProductTrie EMPTY = new ProductTrie(null, 0, 0);
+
+    private final Node root;
+    private final int shift;
+    private final int size;
+
+    /**
+     * A node of the trie: children for the ids sharing every bit above its level, products at level zero
+     */
+    private static final class Node {
+        final Object owner;
+        int bitmap;
+        Object[] children;
+
+        Node(Object owner, int bitmap, Object[] children) {
+            this.owner = owner;
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    private ProductTrie(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of products
+     *
+     * @return the size of the trie
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets a product by id
+     *
+     * @param id the id of the product
+     * @return the product, or null if the trie has none with that id
+     */
+    Product get(int id) {
+        return find(root, shift, id);
+    }
+
+    private static Product find(Node root, int shift, int id) {
+        if (root == null || id < 0 || (id >>> shift) >>> BITS != 0) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; ; level -= BITS) {
+            int bit = 1 << ((id >>> level) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (level == 0) {
+                return (Product) child;
+            }
+            node = (Node) child;
+        }
+    }
+
+    /**
+     * Passes every product to an action, lowest id first, without allocating
+     *
+     * @param action the action
+     */
+    @Override
+    public void forEach(Consumer<? super Product> action) {
+        if (root != null) {
+            forEach(root, shift, action);
+        }
+    }
+
+    private static void forEach(Node node, int level, Consumer<? super Product> action) {
+        int count = Integer.bitCount(node.bitmap);
+        for (int i = 0; i < count; i++) {
+            if (level == 0) {
+                action.accept((Product) node.children[i]);
+            } else {
+                forEach((Node) node.children[i], level - BITS, action);
+            }
+        }
+    }
+
+    /**
+     * Counts the products matching a condition
+     *
+     * @param condition the condition
+     * @return the number of matching products
+     */
+    int count(Predicate<? super Product> condition) {
+        return root == null ? 0 : count(root, shift, condition);
+    }
+
+    private static int count(Node node, int level, Predicate<? super Product> condition) {
+        int count = 0;
+        int children = Integer.bitCount(node.bitmap);
+        for (int i = 0; i < children; i++) {
+            if (level > 0) {
+                count += count((Node) node.children[i], level - BITS, condition);
+            } else if (condition.test((Product) node.children[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums a value over every product
+     *
+     * @param value the value of one product
+     * @return the total
+     */
+    double sum(ToDoubleFunction<? super Product> value) {
+        return root == null ? 0 : sum(root, shift, value);
+    }
+
+    private static double sum(Node node, int level, ToDoubleFunction<? super Product> value) {
+        double total = 0;
+        int children = Integer.bitCount(node.bitmap);
+        for (int i = 0; i < children; i++) {
+            total += level == 0 ? value.applyAsDouble((Product) node.children[i])
+                    : sum((Node) node.children[i], level - BITS, value);
+        }
+        return total;
+    }
+
+    /**
+     * Copies the products into a new array, lowest id first
+     *
+     * @return the products
+     */
+    Product[] toArray() {
+        Product[] products = new Product[size];
+        int[] next = new int[1];
+        forEach(product -> products[next[0]++] = product);
+        return products;
+    }
+
+    @Override
+    public Iterator<Product> iterator() {
+        return new Iterator<>() {
+            private final Node[] nodes = new Node[MAX_DEPTH];
+            private final int[] positions = new int[MAX_DEPTH];
+            private int depth = root == null ? -1 : 0;
+
+            {
+                if (root != null) {
+                    nodes[0] = root;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (depth >= 0) {
+                    Node node = nodes[depth];
+                    if (positions[depth] == Integer.bitCount(node.bitmap)) {
+                        depth--;
+                    } else if (shift - depth * BITS == 0) {
+                        return true;
+                    } else {
+                        nodes[depth + 1] = (Node) node.children[positions[depth]++];
+                        positions[++depth] = 0;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Product next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (Product) nodes[depth].children[positions[depth]++];
+            }
+        };
+    }
+
+    /**
+     * Starts deriving a new trie from this one
+     *
+     * @return an editor holding this trie's products
+     */
+    Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * Builds a new trie from an old one by putting and removing products. Nodes the editor copied are changed
+     * in place by later edits; {@link #build()} hands them over to the new trie, after which the editor copies
+     * again.
+     */
+    static final class Editor {
+        private Object owner = new Object();
+        private Node root;
+        private int shift;
+        private int size;
+
+        private Editor(ProductTrie from) {
+            this.root = from.root;
+            this.shift = from.shift;
+            this.size = from.size;
+        }
+
+        /**
+         * Puts a product, replacing any product with the same id
+         *
+         * @param product the product
+         */
+        void put(Product product) {
+            int id = product.getId();
+            if (root == null) {
+                shift = 0;
+                while ((id >>> shift) >>> BITS != 0) {
+                    shift += BITS;
+                }
+                root = path(shift, id, product);
+                size = 1;
+                return;
+            }
+            while ((id >>> shift) >>> BITS != 0) {
+                root = new Node(owner, 1, new Object[] {root, null});
+                shift += BITS;
+            }
+            root = put(root, shift, id, product);
+        }
+
+        private Node put(Node node, int level, int id, Product product) {
+            int bit = 1 << ((id >>> level) & MASK);
+            int position = Integer.bitCount(node.bitmap & (bit - 1));
+            Node editable = editable(node);
+            if ((node.bitmap & bit) == 0) {
+                insert(editable, bit, position, level == 0 ? product : path(level - BITS, id, product));
+                size++;
+            } else if (level == 0) {
+                editable.children[position] = product;
+            } else {
+                editable.children[position] = put((Node) node.children[position], level - BITS, id, product);
+            }
+            return editable;
+        }
+
+        /**
+         * Builds the chain of single-child nodes from a level down to one product
+         */
+        private Node path(int level, int id, Product product) {
+            Object child = product;
+            for (int current = 0; current <= level; current += BITS) {
+                child = new Node(owner, 1 << ((id >>> current) & MASK), new Object[] {child, null});
+            }
+            return (Node) child;
+        }
+
+        /**
+         * Removes the product with an id, if there is one
+         *
+         * @param id the id of the product
+         */
+        void remove(int id) {
+            if (find(root, shift, id) == null) {
+                return;
+            }
+            root = remove(root, shift, id);
+            size--;
+            if (root == null) {
+                shift = 0;
+            }
+        }
+
+        private Node remove(Node node, int level, int id) {
+            int bit = 1 << ((id >>> level) & MASK);
+            int position = Integer.bitCount(node.bitmap & (bit - 1));
+            Node editable = editable(node);
+            Node child = level == 0 ? null : remove((Node) node.children[position], level - BITS, id);
+            if (child != null) {
+                editable.children[position] = child;
+                return editable;
+            }
+            int count = Integer.bitCount(editable.bitmap);
+            System.arraycopy(editable.children, position + 1, editable.children, position, count - position - 1);
+            editable.children[count - 1] = null;
+            editable.bitmap &= ~bit;
+            return editable.bitmap == 0 ? null : editable;
+        }
+
+        private Node editable(Node node) {
+            return node.owner == owner ? node
+                    : new Node(owner, node.bitmap, Arrays.copyOf(node.children, node.children.length));
+        }
+
+        private static void insert(Node node, int bit, int position, Object child) {
+            int count = Integer.bitCount(node.bitmap);
+            if (count == node.children.length) {
+                node.children = Arrays.copyOf(node.children, Math.min(1 << BITS, count * 2));
+            }
+            System.arraycopy(node.children, position, node.children, position + 1, count - position);
+            node.children[position] = child;
+            node.bitmap |= bit;
+        }
+
+        /**
+         * Gets the number of products the new trie will hold
+         *
+         * @return the size
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Builds the new trie. The editor stays usable and leaves the trie it built untouched.
+         *
+         * @return the trie holding every product put and not removed since
+         */
+        ProductTrie build() {
+            owner = new Object();
+            return new ProductTrie(root, shift, size);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * How a {@link ProductQuery} is run: which products are visited, and what is checked on each.
+ * <p>
+ * The planner estimates how many products each way in would visit: a scan of the products visits them all,
+ * while the category and low-stock indexes know their exact sizes, the name index knows the length of the
+ * shortest posting list of the term, and the price and quantity indexes count the products in the range,
+ * stopping once they exceed the best estimate so far. Only indexes already built are considered, so a query
+ * never pays for building one. The smallest wins, and every other condition, the sort and the limit are
+ * applied in one pass as the index or scan hands over its products: a product is checked and either dropped,
+ * appended or offered to a heap of the best limit products, with no list built per condition or taken from
+ * the index. Unsorted queries stop the walk at the limit.
+ *
+ * @author Chloe Nuzillat
+ */
+final class QueryPlan {
+
+    /**
+     * Where the products visited come from
+     */
+    enum Access {
+        SCAN("scan"),
+        NAME_INDEX("name index"),
+        CATEGORY_INDEX("category index"),
+        LOW_STOCK_INDEX("low-stock index"),
+        PRICE_INDEX("price index"),
+        QUANTITY_INDEX("quantity index");
+
+        private final String label;
+
+        Access(String label) {
+            this.label = label;
+        }
+    }
+
+    private final ProductQuery query;
+    private final Collection<Product> products;
+    private final TrigramIndex searchIndex;
+    private final CategoryIndex categoryIndex;
+    private final LowStockIndex lowStockIndex;
+    private final RangeIndex priceIndex;
+    private final RangeIndex quantityIndex;
+    private final Access access;
+    private final long estimate;
+    private final List<String> considered = new ArrayList<>();
+
+    private QueryPlan(ProductQuery query, Collection<Product> products, TrigramIndex searchIndex,
+                      CategoryIndex categoryIndex, LowStockIndex lowStockIndex, RangeIndex priceIndex,
+                      RangeIndex quantityIndex) {
+        this.query = query;
+        this.products = products;
+        this.searchIndex = searchIndex;
+        this.categoryIndex = categoryIndex;
+        this.lowStockIndex = lowStockIndex;
+        this.priceIndex = priceIndex;
+        this.quantityIndex = quantityIndex;
+
+        Access chosen = Access.SCAN;
+        long best = consider(Access.SCAN, products.size());
+        if (query.isLowStockOnly() && lowStockIndex != null) {
+            long rows = consider(Access.LOW_STOCK_INDEX, lowStockIndex.getCount());
+            if (rows < best) {
+                chosen = Access.LOW_STOCK_INDEX;
+                best = rows;
+            }
+        }
+        if (query.getCategory() != null && categoryIndex != null) {
+            long rows = consider(Access.CATEGORY_INDEX, categoryIndex.getProductCount(query.getCategory()));
+            if (rows < best) {
+                chosen = Access.CATEGORY_INDEX;
+                best = rows;
+            }
+        }
+        if (query.getName() != null && searchIndex != null) {
+            long rows = consider(Access.NAME_INDEX, searchIndex.estimate(query.getName()));
+            if (rows < best) {
+                chosen = Access.NAME_INDEX;
+                best = rows;
+            }
+        }
+        if (priceIndex != null
+                && (query.getMinPriceCents() != Long.MIN_VALUE || query.getMaxPriceCents() != Long.MAX_VALUE)) {
+            long rows = consider(Access.PRICE_INDEX,
+                    priceIndex.count(query.getMinPriceCents(), query.getMaxPriceCents(), best));
+            if (rows < best) {
+                chosen = Access.PRICE_INDEX;
+                best = rows;
+            }
+        }
+        if (quantityIndex != null
+                && (query.getMinQuantity() != Integer.MIN_VALUE || query.getMaxQuantity() != Integer.MAX_VALUE)) {
+            long rows = consider(Access.QUANTITY_INDEX,
+                    quantityIndex.count(query.getMinQuantity(), query.getMaxQuantity(), best));
+            if (rows < best) {
+                chosen = Access.QUANTITY_INDEX;
+                best = rows;
+            }
+        }
+        this.access = chosen;
+        this.estimate = best;
+    }
+
+    /**
+     * Plans a query over the given products and indexes
+     *
+     * @param query the query
+     * @param products every product in the inventory
+     * @param searchIndex the name index, or null if not built
+     * @param categoryIndex the category index, or null if not built
+     * @param lowStockIndex the low-stock index, or null if not built
+     * @param priceIndex the price index, or null if not built
+     * @param quantityIndex the quantity index, or null if not built
+     * @return the plan
+     */
+    static QueryPlan choose(ProductQuery query, Collection<Product> products, TrigramIndex searchIndex,
+                            CategoryIndex categoryIndex, LowStockIndex lowStockIndex, RangeIndex priceIndex,
+                            RangeIndex quantityIndex) {
+        return new QueryPlan(query, products, searchIndex, categoryIndex, lowStockIndex, priceIndex,
+                quantityIndex);
+    }
+
+    /**
+     * Gets where the products visited come from
+     *
+     * @return the access path
+     */
+    Access getAccess() {
+        return access;
+    }
+
+    /**
+     * Runs the query
+     *
+     * @return a new list of the matching products, in the query's order and at most its limit
+     */
+    List<Product> execute() {
+        Results results = new Results();
+        if (query.getLimit() == 0) {
+            return results.matches;
+        }
+        switch (access) {
+            case NAME_INDEX -> searchIndex.visit(query.getName(), results);
+            case CATEGORY_INDEX -> visit(categoryIndex.products(query.getCategory()), results);
+            case LOW_STOCK_INDEX -> lowStockIndex.visit(results);
+            case PRICE_INDEX -> priceIndex.visit(query.getMinPriceCents(), query.getMaxPriceCents(), results);
+            case QUANTITY_INDEX -> quantityIndex.visit(query.getMinQuantity(), query.getMaxQuantity(), results);
+            case SCAN -> visit(products, results);
+        }
+        return results.finish();
+    }
+
+    private static void visit(Iterable<Product> products, Predicate<Product> visitor) {
+        for (Product product : products) {
+            if (!visitor.test(product)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks each product handed over by the access path and keeps the matches: all of them, the first limit
+     * when unsorted, or the best limit in a heap when sorted
+     */
+    private final class Results implements Predicate<Product> {
+        private final int limit = query.getLimit();
+        private final Comparator<Product> order = query.getSort().comparator();
+        private final boolean skipName = access == Access.NAME_INDEX;
+        private final boolean skipCategory = access == Access.CATEGORY_INDEX;
+        private final boolean skipLowStock = access == Access.LOW_STOCK_INDEX;
+        private final PriorityQueue<Product> best = order != null && limit < Integer.MAX_VALUE
+                ? new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed()) : null;
+        private final List<Product> matches = new ArrayList<>();
+
+        /**
+         * Offers a product
+         *
+         * @return false once an unsorted query has reached its limit
+         */
+        @Override
+        public boolean test(Product product) {
+            if (!query.matches(product, skipName, skipCategory, skipLowStock)) {
+                return true;
+            }
+            if (best == null) {
+                matches.add(product);
+                return order != null || matches.size() < limit;
+            }
+            if (best.size() < limit) {
+                best.add(product);
+            } else if (order.compare(product, best.peek()) < 0) {
+                best.poll();
+                best.add(product);
+            }
+            return true;
+        }
+
+        List<Product> finish() {
+            if (best != null) {
+                matches.addAll(best);
+            }
+            if (order != null) {
+                matches.sort(order);
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Describes the plan: the query, the way in chosen and the estimates it was chosen from, the conditions
+     * checked per product and how the results are ordered
+     *
+     * @return the description, one line per step
+     */
+    String explain() {
+        boolean skipName = access == Access.NAME_INDEX;
+        boolean skipCategory = access == Access.CATEGORY_INDEX;
+        boolean skipLowStock = access == Access.LOW_STOCK_INDEX;
+        String order = query.getSort() == ProductQuery.Sort.NONE
+                ? (query.getLimit() == Integer.MAX_VALUE ? "none" : "none, stop after " + query.getLimit())
+                : query.getSort() + (query.getLimit() == Integer.MAX_VALUE ? ", sort all"
+                        : ", keep best " + query.getLimit() + " in a heap");
+        return "query: " + query + "\n"
+                + "access: " + access.label + ", about " + estimate + " products\n"
+                + "considered: " + String.join(", ", considered) + "\n"
+                + "filter: " + query.describeFilters(skipName, skipCategory, skipLowStock) + "\n"
+                + "order: " + order;
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    private long consider(Access candidate, long rows) {
+        considered.add(candidate.label + " " + rows);
+        return rows;
+    }
+}
@@ -0,0 +1,458 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Index of the products sorted by one key, their price, quantity on hand, last update time or id, answering
+ * range and top-N queries in O(log n + k) for k products returned.
+ * <p>
+ * Products are kept in order of key, ties broken by id, in a list of blocks of up to 256 products. Each block
+ * holds its keys and ids in plain arrays and the first key and id of every block sit in a directory array,
+ * so finding a position costs two binary searches over contiguous memory rather than a walk down a tree of
+ * nodes. A full block splits in two and an empty one is dropped.
+ * <p>
+ * A change that leaves the key alone, such as a sale for the price index, costs one lookup. A change to the
+ * key only marks the product as moved; the next query moves the marked products to their new position, so a
+ * burst of sales between two queries costs the writers almost nothing. Once too many products have moved,
+ * the next query sorts every product again instead.
+ *
+ * @author Chloe Nuzillat
+ */
+public class RangeIndex implements ProductIndex {
+    private static final int BLOCK_SIZE = 256;
+    private static final int MIN_PENDING = 1024;
+
+    /**
+     * What the products are sorted by
+     */
+    public enum Key {
+        PRICE(Product::getPriceCents),
+        QUANTITY(Product::getQuantity),
+        LAST_UPDATED(Product::getLastUpdatedMillis),
+        ID(Product::getId);
+
+        private final ToLongFunction<Product> extractor;
+
+        Key(ToLongFunction<Product> extractor) {
+            this.extractor = extractor;
+        }
+
+        /**
+         * Gets the key of a product: its price in whole cents, its quantity on hand, the epoch milliseconds
+         * of its last sale or price update, {@link Long#MIN_VALUE} if it never had one, or its id
+         *
+         * @param product the product
+         * @return the key
+         */
+        public long of(Product product) {
+            return extractor.applyAsLong(product);
+        }
+    }
+
+    private static final Comparator<Entry> BY_KEY = Comparator
+            .comparingLong((Entry entry) -> entry.key)
+            .thenComparingInt(entry -> entry.id);
+
+    private final Key key;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private Block[] blocks = {new Block()};
+    private long[] firstKeys = new long[1];
+    private int[] firstIds = new int[1];
+    private int blockCount = 1;
+    private Entry[] moved = new Entry[16];
+    private int movedCount;
+    private boolean stale;
+
+    /**
+     * A product and the key it was last sorted by
+     */
+    private static final class Entry {
+        final Product product;
+        final int id;
+        volatile long key;
+        volatile boolean moved;
+        boolean placed;
+
+        Entry(Product product, int id, long key) {
+            this.product = product;
+            this.id = id;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Up to BLOCK_SIZE consecutive products in key order
+     */
+    private static final class Block {
+        final long[] keys = new long[BLOCK_SIZE];
+        final int[] ids = new int[BLOCK_SIZE];
+        final Product[] products = new Product[BLOCK_SIZE];
+        int size;
+    }
+
+    /**
+     * Constructs an empty index
+     *
+     * @param key what the products are sorted by
+     */
+    public RangeIndex(Key key) {
+        this.key = key;
+    }
+
+    @Override
+    public synchronized void add(Product product) {
+        Entry entry = new Entry(product, product.getId(), key.of(product));
+        Entry previous = entries.put(product.getId(), entry);
+        if (previous != null) {
+            move(previous);
+        }
+        move(entry);
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null && entry.product == product) {
+            entries.remove(product.getId());
+            move(entry);
+        }
+    }
+
+    @Override
+    public void changed(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry == null || entry.product != product || entry.moved || entry.key == key.of(product)) {
+            return;
+        }
+        synchronized (this) {
+            move(entry);
+        }
+    }
+
+    /**
+     * Gets what the products are sorted by
+     *
+     * @return the key
+     */
+    public Key getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the products with a key in a range, lowest key first
+     *
+     * @param min the lowest key, inclusive
+     * @param max the highest key, inclusive
+     * @param limit the largest number of products to return
+     * @return a new list of at most limit products
+     */
+    public synchronized List<Product> range(long min, long max, int limit) {
+        List<Product> products = new ArrayList<>();
+        if (limit > 0) {
+            visit(min, max, product -> {
+                products.add(product);
+                return products.size() < limit;
+            });
+        }
+        return products;
+    }
+
+    /**
+     * Passes the products with a key in a range to a visitor, lowest key first, until it asks to stop. No list
+     * of the products is built.
+     *
+     * @param min the lowest key, inclusive
+     * @param max the highest key, inclusive
+     * @param visitor receives each product and returns false to stop
+     */
+    synchronized void visit(long min, long max, Predicate<? super Product> visitor) {
+        refresh();
+        if (min > max) {
+            return;
+        }
+        int b = locate(min, Integer.MIN_VALUE);
+        for (int i = position(blocks[b], min, Integer.MIN_VALUE); b < blockCount; b++, i = 0) {
+            Block block = blocks[b];
+            for (; i < block.size; i++) {
+                if (block.keys[i] > max || !visitor.test(block.products[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the products with a key in a range, giving up once more than a limit are counted
+     *
+     * @param min the lowest key, inclusive
+     * @param max the highest key, inclusive
+     * @param limit the count above which counting stops
+     * @return the count, or a number above limit if there are more than limit
+     */
+    public synchronized long count(long min, long max, long limit) {
+        refresh();
+        if (min > max) {
+            return 0;
+        }
+        long count = 0;
+        int b = locate(min, Integer.MIN_VALUE);
+        for (int i = position(blocks[b], min, Integer.MIN_VALUE); b < blockCount && count <= limit; b++, i = 0) {
+            Block block = blocks[b];
+            if (block.size > 0 && block.keys[block.size - 1] <= max) {
+                count += block.size - i;
+                continue;
+            }
+            while (i < block.size && block.keys[i] <= max) {
+                count++;
+                i++;
+            }
+            break;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the products with the lowest keys
+     *
+     * @param limit the largest number of products to return
+     * @return a new list of at most limit products, lowest key first
+     */
+    public synchronized List<Product> lowest(int limit) {
+        refresh();
+        List<Product> products = new ArrayList<>();
+        for (int b = 0; b < blockCount && products.size() < limit; b++) {
+            Block block = blocks[b];
+            for (int i = 0; i < block.size && products.size() < limit; i++) {
+                products.add(block.products[i]);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Gets the products with the highest keys
+     *
+     * @param limit the largest number of products to return
+     * @return a new list of at most limit products, highest key first
+     */
+    public synchronized List<Product> highest(int limit) {
+        refresh();
+        List<Product> products = new ArrayList<>();
+        for (int b = blockCount - 1; b >= 0 && products.size() < limit; b--) {
+            Block block = blocks[b];
+            for (int i = block.size - 1; i >= 0 && products.size() < limit; i--) {
+                products.add(block.products[i]);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Gets the number of products indexed
+     *
+     * @return the product count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Marks an entry as moved, unless it already is or every entry will be sorted again anyway. The caller
+     * holds the index lock.
+     */
+    private void move(Entry entry) {
+        if (entry.moved) {
+            return;
+        }
+        entry.moved = true;
+        if (stale) {
+            return;
+        }
+        if (movedCount == moved.length) {
+            moved = Arrays.copyOf(moved, movedCount * 2);
+        }
+        moved[movedCount++] = entry;
+        if (movedCount > Math.max(MIN_PENDING, entries.size() >> 3)) {
+            stale = true;
+            Arrays.fill(moved, 0, movedCount, null);
+            movedCount = 0;
+        }
+    }
+
+    /**
+     * Moves the marked entries to their current key, or sorts every entry again if too many moved. The caller
+     * holds the index lock.
+     */
+    private void refresh() {
+        if (stale) {
+            rebuild();
+            return;
+        }
+        for (int i = 0; i < movedCount; i++) {
+            Entry entry = moved[i];
+            moved[i] = null;
+            entry.moved = false;
+            if (entry.placed) {
+                delete(entry);
+                entry.placed = false;
+            }
+            if (entries.get(entry.id) == entry) {
+                entry.key = key.of(entry.product);
+                insert(entry);
+                entry.placed = true;
+            }
+        }
+        movedCount = 0;
+    }
+
+    /**
+     * Sorts every entry at its current key into half-full blocks
+     */
+    private void rebuild() {
+        Entry[] all = entries.values().toArray(new Entry[0]);
+        for (Entry entry : all) {
+            entry.moved = false;
+            entry.key = key.of(entry.product);
+            entry.placed = true;
+        }
+        Arrays.sort(all, BY_KEY);
+
+        int fill = BLOCK_SIZE / 2;
+        blockCount = Math.max(1, (all.length + fill - 1) / fill);
+        blocks = new Block[blockCount];
+        firstKeys = new long[blockCount];
+        firstIds = new int[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            Block block = new Block();
+            for (int i = b * fill; i < Math.min(all.length, (b + 1) * fill); i++) {
+                block.keys[block.size] = all[i].key;
+                block.ids[block.size] = all[i].id;
+                block.products[block.size++] = all[i].product;
+            }
+            blocks[b] = block;
+            firstKeys[b] = block.keys[0];
+            firstIds[b] = block.ids[0];
+        }
+        stale = false;
+    }
+
+    private void insert(Entry entry) {
+        long entryKey = entry.key;
+        int b = locate(entryKey, entry.id);
+        Block block = blocks[b];
+        int i = position(block, entryKey, entry.id);
+        System.arraycopy(block.keys, i, block.keys, i + 1, block.size - i);
+        System.arraycopy(block.ids, i, block.ids, i + 1, block.size - i);
+        System.arraycopy(block.products, i, block.products, i + 1, block.size - i);
+        block.keys[i] = entryKey;
+        block.ids[i] = entry.id;
+        block.products[i] = entry.product;
+        block.size++;
+        if (i == 0) {
+            firstKeys[b] = entryKey;
+            firstIds[b] = entry.id;
+        }
+        if (block.size == BLOCK_SIZE) {
+            split(b);
+        }
+    }
+
+    private void delete(Entry entry) {
+        long entryKey = entry.key;
+        int b = locate(entryKey, entry.id);
+        Block block = blocks[b];
+        int i = position(block, entryKey, entry.id);
+        if (i == block.size || block.ids[i] != entry.id || block.keys[i] != entryKey) {
+            return;
+        }
+        System.arraycopy(block.keys, i + 1, block.keys, i, block.size - i - 1);
+        System.arraycopy(block.ids, i + 1, block.ids, i, block.size - i - 1);
+        System.arraycopy(block.products, i + 1, block.products, i, block.size - i - 1);
+        block.products[--block.size] = null;
+        if (block.size == 0 && blockCount > 1) {
+            System.arraycopy(blocks, b + 1, blocks, b, blockCount - b - 1);
+            System.arraycopy(firstKeys, b + 1, firstKeys, b, blockCount - b - 1);
+            System.arraycopy(firstIds, b + 1, firstIds, b, blockCount - b - 1);
+            blocks[--blockCount] = null;
+        } else if (i == 0 && block.size > 0) {
+            firstKeys[b] = block.keys[0];
+            firstIds[b] = block.ids[0];
+        }
+    }
+
+    /**
+     * Moves the upper half of a full block into a new block after it
+     */
+    private void split(int b) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            firstKeys = Arrays.copyOf(firstKeys, blockCount * 2);
+            firstIds = Arrays.copyOf(firstIds, blockCount * 2);
+        }
+        Block block = blocks[b];
+        Block upper = new Block();
+        int half = BLOCK_SIZE / 2;
+        upper.size = block.size - half;
+        System.arraycopy(block.keys, half, upper.keys, 0, upper.size);
+        System.arraycopy(block.ids, half, upper.ids, 0, upper.size);
+        System.arraycopy(block.products, half, upper.products, 0, upper.size);
+        Arrays.fill(block.products, half, block.size, null);
+        block.size = half;
+
+        System.arraycopy(blocks, b + 1, blocks, b + 2, blockCount - b - 1);
+        System.arraycopy(firstKeys, b + 1, firstKeys, b + 2, blockCount - b - 1);
+        System.arraycopy(firstIds, b + 1, firstIds, b + 2, blockCount - b - 1);
+        blocks[b + 1] = upper;
+        firstKeys[b + 1] = upper.keys[0];
+        firstIds[b + 1] = upper.ids[0];
+        blockCount++;
+    }
+
+    /**
+     * Finds the last block starting at or before a key and id, or the first block if none does
+     */
+    private int locate(long entryKey, int id) {
+        int low = 1;
+        int high = blockCount - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(firstKeys[mid], firstIds[mid], entryKey, id) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first position in a block at or after a key and id
+     */
+    private static int position(Block block, long entryKey, int id) {
+        int low = 0;
+        int high = block.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(block.keys[mid], block.ids[mid], entryKey, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long key, int id, long otherKey, int otherId) {
+        int byKey = Long.compare(key, otherKey);
+        return byKey != 0 ? byKey : Integer.compare(id, otherId);
+    }
+}
@@ -0,0 +1,189 @@
+package src;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test suite for the RangeIndex class and range queries in InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class RangeIndexTests {
+
+    /**
+     * Runs all range index tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running RangeIndex Tests...\n");
+
+        testRanges();
+        testMaintenance();
+        testPlanning();
+        testRandomRanges();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests range, top-N and count queries on each key
+     */
+    private static void testRanges() {
+        System.out.println("Range Query Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Cable", 3, 5, 1);
+        manager.addProduct("Mouse", 12, 5, 2);
+        manager.addProduct("Laptop", 4, 2, 3);
+        manager.addProduct("Desk", 40, 2, 4);
+        double[] prices = {5.0, 25.0, 900.0, 50.0};
+        for (int id = 1; id <= 4; id++) {
+            manager.findProduct(id).setPrice(prices[id - 1]);
+        }
+
+        List<Product> cheap = manager.getProductsInPriceRange(10.0, 50.0);
+        SimpleTestFramework.assertEquals(2, cheap.size(), "Price range inclusive");
+        SimpleTestFramework.assertEquals(2, cheap.get(0).getId(), "Cheapest first");
+
+        manager.addProduct("Sticker", 9, 2, 5);
+        manager.addProduct("Pen", 9, 2, 6);
+        manager.findProduct(5).setPrice(9.994);
+        manager.findProduct(6).setPrice(9.99);
+        SimpleTestFramework.assertEquals(List.of(manager.findProduct(1), manager.findProduct(6)),
+                manager.getProductsInPriceRange(0, 9.99), "Sub-cent price above the upper bound left out");
+        SimpleTestFramework.assertEquals(List.of(manager.findProduct(5)),
+                manager.getProductsInPriceRange(9.991, 9.995), "Sub-cent bounds kept exactly");
+        manager.deleteProduct(5);
+        manager.deleteProduct(6);
+        SimpleTestFramework.assertEquals(2, manager.getProductsInQuantityRange(0, 4).size(), "Under 5 units");
+        SimpleTestFramework.assertEquals(0, manager.getProductsInQuantityRange(5, 1).size(), "Empty range");
+
+        RangeIndex quantities = manager.getRangeIndex(RangeIndex.Key.QUANTITY);
+        SimpleTestFramework.assertEquals(4, quantities.highest(1).get(0).getId(), "Highest quantity");
+        SimpleTestFramework.assertEquals(List.of(manager.findProduct(1), manager.findProduct(3)),
+                quantities.lowest(2), "Lowest quantities in order");
+        SimpleTestFramework.assertEquals(3L, quantities.count(0, 20, 10), "Count in range");
+        SimpleTestFramework.assertTrue(quantities.count(0, 20, 1) > 1, "Count stops past the limit");
+        SimpleTestFramework.assertEquals(1, quantities.range(0, 100, 1).size(), "Range limit kept");
+
+        manager.sellProduct(2, 1);
+        List<Product> stale = manager.getProductsNotUpdatedSince(LocalDateTime.now().plusDays(1));
+        SimpleTestFramework.assertEquals(4, stale.size(), "Every product updated before tomorrow");
+        SimpleTestFramework.assertEquals(2, stale.get(3).getId(), "Most recently sold last");
+        SimpleTestFramework.assertEquals(3, manager.getProductsNotUpdatedSince(LocalDateTime.now().minusDays(90))
+                .size(), "Products never updated count as untouched");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that sales, restocks, price updates, replaced and deleted products move or leave the index
+     */
+    private static void testMaintenance() {
+        System.out.println("Index Maintenance Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Cable", 10, 5, 1);
+        manager.addProduct("Mouse", 20, 5, 2);
+        RangeIndex quantities = manager.getRangeIndex(RangeIndex.Key.QUANTITY);
+        RangeIndex prices = manager.getRangeIndex(RangeIndex.Key.PRICE);
+
+        manager.sellProduct(2, 15);
+        SimpleTestFramework.assertEquals(2, quantities.lowest(1).get(0).getId(), "Sale moves the product");
+        manager.restockProduct(30, 2);
+        SimpleTestFramework.assertEquals(2, quantities.highest(1).get(0).getId(), "Restock moves the product");
+        manager.findProduct(1).updatePrice(99.0);
+        SimpleTestFramework.assertEquals(1, prices.range(9900, 9900, 10).size(), "Price update moves the product");
+
+        manager.addProduct("Monitor", 1, 5, 1);
+        SimpleTestFramework.assertEquals(0, prices.range(9900, 9900, 10).size(), "Replaced product dropped");
+        SimpleTestFramework.assertEquals("Monitor", quantities.lowest(1).get(0).getName(), "Replacement indexed");
+        manager.deleteProduct(1);
+        SimpleTestFramework.assertEquals(1, quantities.size(), "Deleted product dropped");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that queries read through a range index once it is the most selective one built
+     */
+    private static void testPlanning() {
+        System.out.println("Planning Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        for (int id = 0; id < 1000; id++) {
+            manager.addProduct("Item " + id, id, 0, id);
+            manager.findProduct(id).setPrice(id / 10.0);
+        }
+        ProductQuery query = ProductQuery.all().priceBetween(10.0, 12.0).quantityBetween(0, 500);
+        SimpleTestFramework.assertEquals(QueryPlan.Access.SCAN, manager.plan(query).getAccess(),
+                "Scan before any range index is built");
+        manager.getRangeIndex(RangeIndex.Key.QUANTITY);
+        SimpleTestFramework.assertEquals(QueryPlan.Access.QUANTITY_INDEX, manager.plan(query).getAccess(),
+                "Quantity index chosen");
+        manager.getRangeIndex(RangeIndex.Key.PRICE);
+        SimpleTestFramework.assertEquals(QueryPlan.Access.PRICE_INDEX, manager.plan(query).getAccess(),
+                "Narrower price index chosen");
+        SimpleTestFramework.assertEquals(21, manager.query(query).size(), "Same results through the index");
+        SimpleTestFramework.assertTrue(manager.explain(query).contains("price index 21"),
+                "Explain shows the range count");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that ranges match filtering every product after many random changes
+     */
+    private static void testRandomRanges() {
+        System.out.println("Random Range Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(24);
+        RangeIndex quantities = manager.getRangeIndex(RangeIndex.Key.QUANTITY);
+        RangeIndex prices = manager.getRangeIndex(RangeIndex.Key.PRICE);
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(2000);
+            Product product = manager.findProduct(id);
+            switch (random.nextInt(5)) {
+                case 0 -> manager.addProduct("Part " + id, random.nextInt(100), 5, id);
+                case 1 -> manager.deleteProduct(id);
+                case 2 -> {
+                    if (product != null) {
+                        product.setPrice(random.nextInt(10_000) / 100.0);
+                    }
+                }
+                case 3 -> manager.restockProduct(1 + random.nextInt(10), id);
+                default -> {
+                    if (product != null && product.getQuantity() > 0) {
+                        manager.sellProduct(id, 1);
+                    }
+                }
+            }
+        }
+
+        boolean matches = true;
+        for (int i = 0; i < 50; i++) {
+            long min = random.nextInt(100);
+            long max = min + random.nextInt(50);
+            matches &= quantities.range(min, max, Integer.MAX_VALUE).equals(manager.getAllProducts().stream()
+                    .filter(product -> product.getQuantity() >= min && product.getQuantity() <= max)
+                    .sorted(Comparator.comparingInt(Product::getQuantity).thenComparingInt(Product::getId))
+                    .toList());
+            long minCents = min * 100;
+            long maxCents = max * 100;
+            matches &= prices.range(minCents, maxCents, Integer.MAX_VALUE).equals(manager.getAllProducts().stream()
+                    .filter(product -> product.getPriceCents() >= minCents && product.getPriceCents() <= maxCents)
+                    .sorted(Comparator.comparingLong(Product::getPriceCents).thenComparingInt(Product::getId))
+                    .toList());
+        }
+        SimpleTestFramework.assertTrue(matches, "Ranges match filtering every product");
+        SimpleTestFramework.assertEquals(manager.getAllProducts().size(), quantities.size(), "Every product indexed");
+
+        System.out.println();
+    }
+}
@@ -0,0 +1,131 @@
+package src;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test suite for stock reservations and the ReservationWheel class
+ *
+ * @author Chloe Nuzillat
+ */
+public class ReservationTests {
+
+    /**
+     * Runs all reservation tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running Reservation Tests...\n");
+
+        testHolds();
+        testExpiry();
+        testWheel();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that held stock cannot be sold and is sold or returned exactly once
+     */
+    private static void testHolds() {
+        System.out.println("Hold Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        Product laptop = manager.findProduct(1);
+
+        long first = manager.reserve(1, 6, Duration.ofMinutes(5));
+        SimpleTestFramework.assertEquals(10, laptop.getQuantity(), "Held stock is still on hand");
+        SimpleTestFramework.assertEquals(4, laptop.getAvailableQuantity(), "Held stock is not available");
+        SimpleTestFramework.assertThrows(() -> laptop.sell(5), "IllegalArgumentException",
+                "Sale cannot take held stock");
+        SimpleTestFramework.assertThrows(() -> manager.reserve(1, 5, Duration.ofMinutes(5)),
+                "IllegalArgumentException", "Hold cannot take held stock");
+        SimpleTestFramework.assertThrows(() -> manager.reserve(2, 1, Duration.ofMinutes(5)),
+                "IllegalArgumentException", "Unknown product refused");
+        SimpleTestFramework.assertThrows(() -> manager.reserve(1, 1, Duration.ZERO),
+                "IllegalArgumentException", "Zero time refused");
+
+        SimpleTestFramework.assertTrue(manager.commit(first), "Commit sells held stock");
+        SimpleTestFramework.assertEquals(4, laptop.getQuantity(), "Commit reduces stock on hand");
+        SimpleTestFramework.assertEquals(0, laptop.getReservedQuantity(), "Commit clears the hold");
+        SimpleTestFramework.assertFalse(manager.commit(first), "Second commit refused");
+
+        long second = manager.reserve(1, 3, Duration.ofMinutes(5));
+        SimpleTestFramework.assertTrue(manager.release(second), "Release returns held stock");
+        SimpleTestFramework.assertFalse(manager.commit(second), "Released hold cannot be committed");
+        SimpleTestFramework.assertEquals(4, laptop.getAvailableQuantity(), "Released stock available again");
+
+        long orphaned = manager.reserve(1, 1, Duration.ofMinutes(5));
+        manager.deleteProduct(1);
+        SimpleTestFramework.assertFalse(manager.commit(orphaned), "Hold on a deleted product not committed");
+        SimpleTestFramework.assertEquals(0, manager.getOpenReservations(), "No holds left open");
+        manager.close();
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that holds left alone are released once their time is up
+     */
+    private static void testExpiry() {
+        System.out.println("Expiry Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        manager.addProduct("Laptop", 10, 2, 1);
+        long held = manager.reserve(1, 4, Duration.ofMillis(150));
+        manager.reserve(1, 4, Duration.ofMinutes(5));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.getOpenReservations() > 1 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        SimpleTestFramework.assertEquals(1, manager.getOpenReservations(), "Expired hold removed");
+        SimpleTestFramework.assertEquals(6, manager.findProduct(1).getAvailableQuantity(),
+                "Expired stock available again");
+        SimpleTestFramework.assertFalse(manager.commit(held), "Expired hold cannot be committed");
+        manager.close();
+
+        System.out.println();
+    }
+
+    /**
+     * Tests scheduling, cancelling and expiring many holds directly on a wheel
+     */
+    private static void testWheel() {
+        System.out.println("Timer Wheel Tests:");
+        System.out.println("-".repeat(30));
+
+        AtomicInteger expired = new AtomicInteger();
+        ReservationWheel wheel = new ReservationWheel(64, 1_000_000, hold -> expired.incrementAndGet());
+        Product product = new Product("Widget", 1, 0, 1);
+        ReservationWheel.Hold[] holds = new ReservationWheel.Hold[100_000];
+        for (int i = 0; i < holds.length; i++) {
+            holds[i] = new ReservationWheel.Hold(i, product, 1);
+            wheel.schedule(holds[i], (i % 200 + 1) * 1_000_000L);
+        }
+        for (int i = 0; i < holds.length; i += 2) {
+            wheel.cancel(holds[i]);
+        }
+        SimpleTestFramework.assertEquals(50_000, wheel.size(), "Cancelled holds removed");
+        SimpleTestFramework.assertFalse(wheel.cancel(holds[0]), "Second cancel refused");
+
+        for (int tick = 0; tick < 100; tick++) {
+            wheel.tick();
+        }
+        SimpleTestFramework.assertEquals(25_000, expired.get(), "Holds due in the first 100 ticks expired");
+        for (int tick = 0; tick < 100; tick++) {
+            wheel.tick();
+        }
+        SimpleTestFramework.assertEquals(50_000, expired.get(), "Holds due after a revolution expired");
+        SimpleTestFramework.assertEquals(0, wheel.size(), "Wheel empty");
+        wheel.close();
+
+        System.out.println();
+    }
+}
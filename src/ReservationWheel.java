@@ -0,0 +1,168 @@
+package src;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Expires stock reservations on a hashed timer wheel.
+ * <p>
+ * Each slot of the wheel covers one tick and holds a doubly linked list of the reservations due in it, so
+ * scheduling and cancelling a reservation are constant time. A background thread advances one slot per tick
+ * and only visits the reservations in that slot; reservations due more than one revolution ahead wait there
+ * with a count of remaining revolutions.
+ *
+ * @author Chloe Nuzillat
+ */
+public final class ReservationWheel implements AutoCloseable {
+    private final Hold[] slots;
+    private final int mask;
+    private final long tickMillis;
+    private final Consumer<Hold> onExpire;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-reservation-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long currentTick;
+    private int size;
+
+    /**
+     * A reservation scheduled on the wheel
+     */
+    static final class Hold {
+        final long reservationId;
+        final Product product;
+        final int quantity;
+        private long rounds;
+        private int slot = -1;
+        private Hold previous;
+        private Hold next;
+
+        Hold(long reservationId, Product product, int quantity) {
+            this.reservationId = reservationId;
+            this.product = product;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Creates a wheel and starts its ticking thread
+     *
+     * @param slotCount the number of slots, a power of two
+     * @param tickMillis the time each slot covers
+     * @param onExpire called on the ticking thread for each reservation whose time is up
+     */
+    public ReservationWheel(int slotCount, long tickMillis, Consumer<Hold> onExpire) {
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two");
+        }
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.slots = new Hold[slotCount];
+        this.mask = slotCount - 1;
+        this.tickMillis = tickMillis;
+        this.onExpire = onExpire;
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a reservation to expire after a delay, rounded up to whole ticks
+     *
+     * @param hold the reservation, not already scheduled
+     * @param delayMillis the time until it expires
+     */
+    synchronized void schedule(Hold hold, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        long due = currentTick + ticks;
+        hold.rounds = (ticks - 1) / slots.length;
+        hold.slot = (int) (due & mask);
+        hold.previous = null;
+        hold.next = slots[hold.slot];
+        if (hold.next != null) {
+            hold.next.previous = hold;
+        }
+        slots[hold.slot] = hold;
+        size++;
+    }
+
+    /**
+     * Removes a reservation from the wheel
+     *
+     * @param hold the reservation
+     * @return false if it was not scheduled, because it already expired or was cancelled
+     */
+    synchronized boolean cancel(Hold hold) {
+        if (hold.slot < 0) {
+            return false;
+        }
+        unlink(hold);
+        return true;
+    }
+
+    /**
+     * Gets the number of scheduled reservations
+     *
+     * @return the number of reservations on the wheel
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Advances the wheel by one slot and expires the reservations due in it
+     */
+    void tick() {
+        Hold expired = null;
+        synchronized (this) {
+            currentTick++;
+            Hold hold = slots[(int) (currentTick & mask)];
+            while (hold != null) {
+                Hold next = hold.next;
+                if (hold.rounds == 0) {
+                    unlink(hold);
+                    hold.next = expired;
+                    expired = hold;
+                } else {
+                    hold.rounds--;
+                }
+                hold = next;
+            }
+        }
+        while (expired != null) {
+            Hold next = expired.next;
+            expired.next = null;
+            try {
+                onExpire.accept(expired);
+            } catch (RuntimeException e) {
+                System.out.println("Error expiring reservation: " + e.getMessage());
+            }
+            expired = next;
+        }
+    }
+
+    private void unlink(Hold hold) {
+        if (hold.previous == null) {
+            slots[hold.slot] = hold.next;
+        } else {
+            hold.previous.next = hold.next;
+        }
+        if (hold.next != null) {
+            hold.next.previous = hold.previous;
+        }
+        hold.previous = null;
+        hold.next = null;
+        hold.slot = -1;
+        size--;
+    }
+
+    /**
+     * Stops the ticking thread; reservations still on the wheel never expire
+     */
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Store that writes the inventory map with Java serialization, the original inventory.dat format
+ *
+ * @author Chloe Nuzillat
+ */
+public class SerializedStore implements InventoryStore {
+    private final Path file;
+
+    /**
+     * Creates a store for a serialized inventory file
+     *
+     * @param file the inventory file
+     */
+    public SerializedStore(String file) {
+        this.file = Path.of(file);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Product> load(Consumer<Product> onLoad) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            HashMap<Integer, Product> inventory = (HashMap<Integer, Product>) in.readObject();
+            inventory.values().forEach(onLoad);
+            return inventory;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable inventory file: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void flush(Collection<Product> inventory) throws IOException {
+        HashMap<Integer, Product> map = new HashMap<>((int) (inventory.size() / 0.75f) + 1);
+        for (Product product : inventory) {
+            map.put(product.getId(), product);
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeObject(map);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,454 @@
+package src;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Manages the inventory as several independent shards partitioned by product id.
+ * <p>
+ * Each shard is an InventoryManager with its own map, its own store and its own lock. Operations on one
+ * product lock and touch only the shard that owns its id, so operations on products in different shards
+ * never wait for each other. Loading, saving and whole-inventory queries run on every shard at once, on a
+ * pool of worker threads, and merge the per-shard results.
+ *
+ * @author Chloe Nuzillat
+ */
+public class ShardedInventoryManager implements AutoCloseable {
+    private final InventoryManager[] shards;
+    private final ReentrantLock[] locks;
+    private final ExecutorService workers;
+
+    /**
+     * Constructs a sharded manager with one snapshot file per shard, named after the data file
+     *
+     * @param dataFile the base name of the snapshot files
+     * @param shardCount the number of shards
+     */
+    public ShardedInventoryManager(String dataFile, int shardCount) {
+        this(shardCount, shard -> new SnapshotStore(dataFile + ".shard" + shard, false));
+    }
+
+    /**
+     * Constructs a sharded manager and loads every shard in parallel
+     *
+     * @param shardCount the number of shards
+     * @param stores creates the store of each shard from its index
+     */
+    public ShardedInventoryManager(int shardCount, IntFunction<InventoryStore> stores) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        int threads = Math.min(shardCount, Runtime.getRuntime().availableProcessors());
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shards = new InventoryManager[shardCount];
+        this.locks = new ReentrantLock[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        List<InventoryManager> loaded = fanOut(shard -> new InventoryManager(stores.apply(shard)));
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = loaded.get(i);
+        }
+    }
+
+    /**
+     * Gets the number of shards
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Reloads every shard from its store, in parallel
+     */
+    public void loadInventory() {
+        forEachShard(InventoryManager::loadInventory);
+    }
+
+    /**
+     * Saves every shard to its store, in parallel
+     */
+    public void saveInventory() {
+        forEachShard(InventoryManager::saveInventory);
+    }
+
+    /**
+     * Stops the worker threads and releases every shard's store
+     */
+    @Override
+    public void close() {
+        forEachShard(InventoryManager::close);
+        workers.shutdown();
+    }
+
+    /**
+     * Adds a product to the shard that owns its id
+     *
+     * @param name the name of the product
+     * @param quantity the amount of product in stock
+     * @param quantityThreshold the threshold that determines if a product is low stock
+     * @param id the unique identifier for the product
+     */
+    public void addProduct(String name, int quantity, int quantityThreshold, int id) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            shards[shard].addProduct(name, quantity, quantityThreshold, id);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Adds many fully built products at once, splitting them by shard and adding each part in parallel
+     *
+     * @param products the products to add
+     */
+    public void addProducts(Collection<Product> products) {
+        List<List<Product>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>(products.size() / shards.length + 1));
+        }
+        for (Product product : products) {
+            parts.get(shardOf(product.getId())).add(product);
+        }
+        fanOut(shard -> {
+            shards[shard].addProducts(parts.get(shard));
+            return null;
+        });
+    }
+
+    /**
+     * Removes a certain amount of product from the inventory
+     *
+     * @param id the id of the product
+     * @param quantity the amount of product to sell
+     */
+    public void sellProduct(int id, int quantity) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            shards[shard].sellProduct(id, quantity);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Adds a certain amount of product to the inventory
+     *
+     * @param quantity the amount of product to restock
+     * @param id the id of the product
+     */
+    public void restockProduct(int quantity, int id) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            shards[shard].restockProduct(quantity, id);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Deletes a product from the inventory
+     *
+     * @param id the id of the product to delete
+     * @return true if the product was deleted, false if not found
+     */
+    public boolean deleteProduct(int id) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            return shards[shard].deleteProduct(id);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Checks if a product exists in the inventory
+     *
+     * @param id the id of the product
+     * @return true if the product exists
+     */
+    public boolean productExists(int id) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            return shards[shard].productExists(id);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Looks up a product by id without copying the inventory
+     *
+     * @param id the id of the product
+     * @return the product, or null if not found
+     */
+    Product findProduct(int id) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            return shards[shard].findProduct(id);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Updates the price of a product unless it changed since the caller read its version
+     *
+     * @param id the id of the product
+     * @param expectedVersion the version read from {@link Product#getVersion()} before computing the price
+     * @param newPrice the new price (must be non-negative)
+     * @return false if the product is not found or its version is stale
+     */
+    public boolean compareAndSetPrice(int id, long expectedVersion, double newPrice) {
+        Product product = findProduct(id);
+        return product != null && product.compareAndSetPrice(expectedVersion, newPrice);
+    }
+
+    /**
+     * Updates the category of a product unless it changed since the caller read its version
+     *
+     * @param id the id of the product
+     * @param expectedVersion the version read from {@link Product#getVersion()} before computing the category
+     * @param category the new category
+     * @return false if the product is not found or its version is stale
+     */
+    public boolean compareAndSetCategory(int id, long expectedVersion, String category) {
+        Product product = findProduct(id);
+        return product != null && product.compareAndSetCategory(expectedVersion, category);
+    }
+
+    /**
+     * Updates the description of a product unless it changed since the caller read its version
+     *
+     * @param id the id of the product
+     * @param expectedVersion the version read from {@link Product#getVersion()} before computing the description
+     * @param description the new description
+     * @return false if the product is not found or its version is stale
+     */
+    public boolean compareAndSetDescription(int id, long expectedVersion, String description) {
+        Product product = findProduct(id);
+        return product != null && product.compareAndSetDescription(expectedVersion, description);
+    }
+
+    /**
+     * Holds available stock of a product for a later sale
+     *
+     * @param id the id of the product
+     * @param quantity the amount to hold
+     * @param ttl how long the hold lasts unless committed or released first
+     * @return the id of the reservation, which also identifies the shard
+     */
+    public long reserve(int id, int quantity, Duration ttl) {
+        int shard = shardOf(id);
+        locks[shard].lock();
+        try {
+            return shards[shard].reserve(id, quantity, ttl) * shards.length + shard;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Sells the stock held by a reservation
+     *
+     * @param reservationId the id returned by {@link #reserve(int, int, Duration)}
+     * @return false if the reservation expired, was already committed or released, or its product was
+     *         deleted
+     */
+    public boolean commit(long reservationId) {
+        int shard = (int) Math.floorMod(reservationId, (long) shards.length);
+        locks[shard].lock();
+        try {
+            return shards[shard].commit(reservationId / shards.length);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Returns the stock held by a reservation to the available stock
+     *
+     * @param reservationId the id returned by {@link #reserve(int, int, Duration)}
+     * @return false if the reservation expired or was already committed or released
+     */
+    public boolean release(long reservationId) {
+        int shard = (int) Math.floorMod(reservationId, (long) shards.length);
+        locks[shard].lock();
+        try {
+            return shards[shard].release(reservationId / shards.length);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Gets every product in the inventory, gathered from all shards in parallel
+     *
+     * @return a list of all products
+     */
+    public List<Product> getAllProducts() {
+        return merge(fanOut(shard -> shards[shard].getAllProducts()));
+    }
+
+    /**
+     * Searches every shard in parallel for products whose name contains the search term
+     *
+     * @param searchTerm the term to search for
+     * @return the matching products
+     */
+    public List<Product> searchProducts(String searchTerm) {
+        return merge(fanOut(shard -> shards[shard].searchProducts(searchTerm)));
+    }
+
+    /**
+     * Gets the products of a category from every shard in parallel
+     *
+     * @param category the category
+     * @return the products in the category
+     */
+    public List<Product> getProductsByCategory(String category) {
+        return merge(fanOut(shard -> shards[shard].getProductsByCategory(category)));
+    }
+
+    /**
+     * Gets the distinct categories across all shards
+     *
+     * @return the categories
+     */
+    public List<String> getAllCategories() {
+        Set<String> categories = new LinkedHashSet<>();
+        for (List<String> part : fanOut(shard -> shards[shard].getAllCategories())) {
+            categories.addAll(part);
+        }
+        return new ArrayList<>(categories);
+    }
+
+    /**
+     * Sums the running value totals of every shard in parallel, in cents
+     *
+     * @return the total inventory value
+     */
+    public double getTotalInventoryValue() {
+        long totalCents = 0;
+        for (long valueCents : fanOut(shard -> shards[shard].getTotals().getTotalValueCents())) {
+            totalCents += valueCents;
+        }
+        return totalCents / 100.0;
+    }
+
+    /**
+     * Verifies the running totals of every shard in parallel
+     *
+     * @return true if the totals of every shard matched
+     * @see InventoryManager#verifyTotals()
+     */
+    public boolean verifyTotals() {
+        boolean matched = true;
+        for (boolean shardMatched : fanOut(shard -> shards[shard].verifyTotals())) {
+            matched &= shardMatched;
+        }
+        return matched;
+    }
+
+    /**
+     * Prints out the low stock items of every shard, found in parallel
+     */
+    public void showLowStockItems() {
+        for (List<Product> part : fanOut(shard -> shards[shard].getLowStockIndex().getProducts())) {
+            for (Product product : part) {
+                System.out.println("Low stock: " + product.getName() + " - Quantity: " + product.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * Gets the shard that owns a product id
+     *
+     * @param id the id of the product
+     * @return the shard index
+     */
+    int shardOf(int id) {
+        int hash = id * 0x9E3779B9;
+        return (int) (((hash ^ (hash >>> 16)) & 0xFFFFFFFFL) % shards.length);
+    }
+
+    private void forEachShard(Consumer<InventoryManager> action) {
+        fanOut(shard -> {
+            action.accept(shards[shard]);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a task for every shard under that shard's lock, the first on the calling thread and the others on
+     * the workers, and collects the results in shard order
+     */
+    private <T> List<T> fanOut(IntFunction<T> task) {
+        List<Future<T>> futures = new ArrayList<>(shards.length);
+        for (int shard = 1; shard < shards.length; shard++) {
+            int index = shard;
+            futures.add(workers.submit(() -> runLocked(index, task)));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        results.add(runLocked(0, task));
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private <T> T runLocked(int shard, IntFunction<T> task) {
+        locks[shard].lock();
+        try {
+            return task.apply(shard);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    private static <T> List<T> merge(List<List<T>> parts) {
+        int size = 0;
+        for (List<T> part : parts) {
+            size += part.size();
+        }
+        List<T> merged = new ArrayList<>(size);
+        for (List<T> part : parts) {
+            merged.addAll(part);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,139 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test suite for the ShardedInventoryManager class
+ *
+ * @author Chloe Nuzillat
+ */
+public class ShardedInventoryTests {
+
+    /**
+     * Runs all sharded inventory tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running Sharded Inventory Tests...\n");
+
+        testRouting();
+        testAggregates();
+        testPersistence();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that point operations reach the shard that owns the id
+     */
+    private static void testRouting() {
+        System.out.println("Routing Tests:");
+        System.out.println("-".repeat(30));
+
+        ShardedInventoryManager manager = new ShardedInventoryManager(4, shard -> new MemoryStore());
+        int[] perShard = new int[4];
+        for (int id = 0; id < 4000; id++) {
+            perShard[manager.shardOf(id)]++;
+        }
+        boolean balanced = true;
+        for (int count : perShard) {
+            balanced &= count > 800 && count < 1200;
+        }
+        SimpleTestFramework.assertTrue(balanced, "Sequential ids spread over the shards");
+
+        manager.addProduct("Laptop", 10, 2, 7);
+        manager.sellProduct(7, 3);
+        manager.restockProduct(5, 7);
+        SimpleTestFramework.assertEquals(12, manager.findProduct(7).getQuantity(), "Sale and restock routed");
+        SimpleTestFramework.assertTrue(manager.productExists(7), "Product found by id");
+
+        long reservation = manager.reserve(7, 4, Duration.ofMinutes(5));
+        SimpleTestFramework.assertEquals(8, manager.findProduct(7).getAvailableQuantity(), "Hold routed");
+        SimpleTestFramework.assertTrue(manager.commit(reservation), "Commit finds the owning shard");
+        SimpleTestFramework.assertEquals(8, manager.findProduct(7).getQuantity(), "Committed hold sold");
+
+        long version = manager.findProduct(7).getVersion();
+        SimpleTestFramework.assertTrue(manager.compareAndSetCategory(7, version, "Computers"), "Category routed");
+        SimpleTestFramework.assertFalse(manager.compareAndSetDescription(7, version, "Stale"),
+                "Stale description refused");
+        SimpleTestFramework.assertTrue(manager.compareAndSetDescription(7, manager.findProduct(7).getVersion(),
+                "Work laptop"), "Description routed");
+        SimpleTestFramework.assertEquals("Computers", manager.findProduct(7).getCategory(), "Category updated");
+        SimpleTestFramework.assertEquals("Work laptop", manager.findProduct(7).getDescription(),
+                "Description updated");
+        SimpleTestFramework.assertFalse(manager.compareAndSetCategory(8, 0, "Missing"), "Unknown product refused");
+
+        SimpleTestFramework.assertTrue(manager.deleteProduct(7), "Delete routed");
+        SimpleTestFramework.assertFalse(manager.productExists(7), "Deleted product gone");
+        manager.close();
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that whole-inventory queries merge every shard's results
+     */
+    private static void testAggregates() {
+        System.out.println("Aggregate Tests:");
+        System.out.println("-".repeat(30));
+
+        ShardedInventoryManager manager = new ShardedInventoryManager(8, shard -> new MemoryStore());
+        List<Product> products = new ArrayList<>();
+        for (int id = 0; id < 1000; id++) {
+            Product product = new Product((id % 10 == 0 ? "Widget " : "Gadget ") + id, id % 7, 3, id);
+            product.setPrice(2.0);
+            product.setCategory("Category " + id % 5);
+            products.add(product);
+        }
+        manager.addProducts(products);
+
+        SimpleTestFramework.assertEquals(1000, manager.getAllProducts().size(), "All products gathered");
+        SimpleTestFramework.assertEquals(100, manager.searchProducts("widget").size(), "Search merged");
+        SimpleTestFramework.assertEquals(200, manager.getProductsByCategory("Category 3").size(),
+                "Category merged");
+        SimpleTestFramework.assertEquals(5, manager.getAllCategories().size(), "Categories distinct");
+        double expected = products.stream().mapToDouble(Product::getTotalValue).sum();
+        SimpleTestFramework.assertEquals(expected, manager.getTotalInventoryValue(), "Values summed");
+        manager.close();
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that each shard saves to its own file and the inventory survives a restart
+     */
+    private static void testPersistence() {
+        System.out.println("Shard Persistence Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("shards");
+            String dataFile = dir.resolve("inventory.dat").toString();
+            ShardedInventoryManager manager = new ShardedInventoryManager(dataFile, 4);
+            for (int id = 0; id < 100; id++) {
+                manager.addProduct("Product " + id, id, 1, id);
+            }
+            manager.saveInventory();
+            manager.close();
+
+            boolean everyShardSaved = true;
+            for (int shard = 0; shard < 4; shard++) {
+                everyShardSaved &= Files.exists(dir.resolve("inventory.dat.shard" + shard));
+            }
+            SimpleTestFramework.assertTrue(everyShardSaved, "One file per shard");
+
+            ShardedInventoryManager restored = new ShardedInventoryManager(dataFile, 4);
+            SimpleTestFramework.assertEquals(100, restored.getAllProducts().size(), "Every shard reloaded");
+            SimpleTestFramework.assertEquals(42, restored.findProduct(42).getQuantity(), "Stock restored");
+            restored.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+}
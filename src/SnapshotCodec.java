@@ -0,0 +1,457 @@
+package src;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot format for the inventory.
+ * <p>
+ * Layout: magic "SITS" (4), version (2), flags (2), product count (4), category count (4), the category
+ * dictionary as length-prefixed UTF-8 strings, one record per product and a CRC32C (4) of everything before
+ * it. Each record starts with its own length so readers can skip records without decoding them:
+ * length (4), id (4), quantity (4), threshold (4), price (8), category index (4), last updated epoch millis
+ * (8, Long.MIN_VALUE if never updated), name, description. Strings carry an unsigned 16 bit length, with
+ * 0xFFFF meaning null.
+ * <p>
+ * A delta segment uses the same layout with the delta flag set and, after the records, the count and ids of
+ * deleted products, so it can be applied on top of a base snapshot.
+ * <p>
+ * Files written by the old Java serialization format are still read so existing inventory.dat files migrate
+ * on their next save.
+ *
+ * @author Chloe Nuzillat
+ */
+public final class SnapshotCodec {
+    static final int MAGIC = 0x53495453;
+    static final short VERSION = 1;
+    static final short FLAG_DELTA = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_FIXED_SIZE = 36;
+    static final int NO_CATEGORY = -1;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final short JAVA_SERIALIZATION_MAGIC = (short) 0xACED;
+    private static final int BUFFER_SIZE = 1 << 18;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Writes a snapshot of the given products to a file, replacing its contents atomically
+     *
+     * @param products the products to write
+     * @param path the snapshot file
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(Collection<Product> products, Path path) throws IOException {
+        return replace(path, channel -> write(products, channel));
+    }
+
+    /**
+     * Writes to a temporary file next to the target, forces it to disk and renames it over the target, so a
+     * crash part way through leaves the previous snapshot intact
+     */
+    private static long replace(Path path, ChannelWriter writer) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        long written;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            written = writer.writeTo(channel);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return written;
+    }
+
+    /**
+     * Writes a snapshot of the given products to a channel
+     *
+     * @param products the products to write
+     * @param channel the destination
+     * @return the number of bytes written
+     * @throws IOException if the channel cannot be written
+     */
+    public static long write(Collection<Product> products, WritableByteChannel channel) throws IOException {
+        return write(products, null, channel);
+    }
+
+    /**
+     * Writes a delta segment holding changed products and the ids of deleted ones, replacing the file
+     * atomically
+     *
+     * @param changed the products added or changed since the previous segment
+     * @param deleted the ids of products deleted since the previous segment
+     * @param path the segment file
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long writeDelta(Collection<Product> changed, Collection<Integer> deleted, Path path)
+            throws IOException {
+        return replace(path, channel -> write(changed, deleted, channel));
+    }
+
+    private static long write(Collection<Product> products, Collection<Integer> deleted,
+                              WritableByteChannel channel) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] categories = new int[products.size()];
+        int index = 0;
+        for (Product product : products) {
+            String category = product.getCategory();
+            Integer entry = category == null ? Integer.valueOf(NO_CATEGORY) : dictionary.get(category);
+            if (entry == null) {
+                entry = dictionary.size();
+                dictionary.put(category, entry);
+            }
+            categories[index++] = entry;
+        }
+
+        Writer writer = new Writer(channel);
+        writer.ensure(HEADER_SIZE);
+        writer.buffer.putInt(MAGIC).putShort(VERSION).putShort(deleted == null ? 0 : FLAG_DELTA)
+                .putInt(products.size()).putInt(dictionary.size());
+        for (String category : dictionary.keySet()) {
+            writer.putString(encode(category));
+        }
+        index = 0;
+        for (Product product : products) {
+            writer.putProduct(product, categories[index++]);
+        }
+        if (deleted != null) {
+            writer.ensure(4);
+            writer.buffer.putInt(deleted.size());
+            for (int id : deleted) {
+                writer.ensure(4);
+                writer.buffer.putInt(id);
+            }
+        }
+        return writer.finish();
+    }
+
+    /**
+     * Reads a snapshot file in either the binary or the legacy serialized format
+     *
+     * @param path the snapshot file
+     * @return the products keyed by id
+     * @throws IOException if the file is missing, damaged or not a snapshot
+     */
+    public static HashMap<Integer, Product> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to read into memory: " + size + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the whole file is buffered
+            }
+            buffer.flip();
+            if (isLegacy(buffer)) {
+                return readLegacy(Channels.newInputStream(channel.position(0)));
+            }
+            return decode(buffer);
+        }
+    }
+
+    /**
+     * Rewrites a legacy serialized snapshot in the binary format
+     *
+     * @param path the snapshot file
+     * @return true if the file was migrated, false if it was already binary
+     * @throws IOException if the file cannot be read or written
+     */
+    public static boolean migrate(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(2);
+            channel.read(head);
+            if (!isLegacy(head.flip())) {
+                return false;
+            }
+        }
+        write(read(path).values(), path);
+        return true;
+    }
+
+    /**
+     * Decodes a complete binary snapshot after checking its header and checksum
+     *
+     * @param buffer the snapshot bytes, from position to limit
+     * @return the products keyed by id
+     * @throws IOException if the snapshot is damaged
+     */
+    public static HashMap<Integer, Product> decode(ByteBuffer buffer) throws IOException {
+        int count = checkHeader(buffer);
+        if (isDelta(buffer)) {
+            throw new IOException("Expected a base snapshot but found a delta segment");
+        }
+        String[] dictionary = readDictionary(buffer);
+        HashMap<Integer, Product> inventory = new HashMap<>((int) (count / 0.75f) + 1);
+        int offset = recordsStart(buffer);
+        for (int i = 0; i < count; i++) {
+            Product product = decodeProduct(buffer, offset, dictionary);
+            inventory.put(product.getId(), product);
+            offset += 4 + buffer.getInt(offset);
+        }
+        return inventory;
+    }
+
+    /**
+     * Applies a delta segment file to an inventory
+     *
+     * @param path the segment file
+     * @param inventory the inventory to update
+     * @throws IOException if the segment is missing or damaged
+     */
+    public static void applyDelta(Path path, Map<Integer, Product> inventory) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int count = checkHeader(buffer);
+        if (!isDelta(buffer)) {
+            throw new IOException("Expected a delta segment but found a base snapshot");
+        }
+        String[] dictionary = readDictionary(buffer);
+        int offset = recordsStart(buffer);
+        for (int i = 0; i < count; i++) {
+            Product product = decodeProduct(buffer, offset, dictionary);
+            inventory.put(product.getId(), product);
+            offset += 4 + buffer.getInt(offset);
+        }
+        int deleted = buffer.getInt(offset);
+        for (int i = 0; i < deleted; i++) {
+            inventory.remove(buffer.getInt(offset + 4 + i * 4));
+        }
+    }
+
+    /**
+     * Checks whether a snapshot is a delta segment
+     *
+     * @param buffer the snapshot bytes, from position to limit
+     * @return true if the delta flag is set
+     */
+    static boolean isDelta(ByteBuffer buffer) {
+        return (buffer.getShort(buffer.position() + 6) & FLAG_DELTA) != 0;
+    }
+
+    /**
+     * Validates the magic, version and checksum of a binary snapshot
+     *
+     * @param buffer the snapshot bytes, from position to limit
+     * @return the number of products in the snapshot
+     * @throws IOException if the snapshot is damaged or of an unknown version
+     */
+    static int checkHeader(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE + 4 || buffer.getInt(start) != MAGIC) {
+            throw new IOException("Not an inventory snapshot");
+        }
+        short version = buffer.getShort(start + 4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(buffer.limit() - 4));
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        return buffer.getInt(start + 8);
+    }
+
+    /**
+     * Reads the category dictionary that follows the header
+     *
+     * @param buffer the snapshot bytes, from position to limit
+     * @return the categories indexed by their dictionary code
+     */
+    static String[] readDictionary(ByteBuffer buffer) {
+        int offset = buffer.position() + HEADER_SIZE - 4;
+        String[] dictionary = new String[buffer.getInt(offset)];
+        offset += 4;
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = getString(buffer, offset);
+            offset += 2 + stringLength(buffer, offset);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Finds the offset of the first product record
+     *
+     * @param buffer the snapshot bytes, from position to limit
+     * @return the absolute offset of the first record
+     */
+    static int recordsStart(ByteBuffer buffer) {
+        int offset = buffer.position() + HEADER_SIZE - 4;
+        int categories = buffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < categories; i++) {
+            offset += 2 + stringLength(buffer, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes the product record starting at an absolute offset
+     *
+     * @param buffer the snapshot bytes
+     * @param offset the offset of the record length prefix
+     * @param dictionary the category dictionary of the snapshot
+     * @return the decoded product
+     */
+    static Product decodeProduct(ByteBuffer buffer, int offset, String[] dictionary) {
+        int id = buffer.getInt(offset + 4);
+        int quantity = buffer.getInt(offset + 8);
+        int threshold = buffer.getInt(offset + 12);
+        double price = buffer.getDouble(offset + 16);
+        int category = buffer.getInt(offset + 24);
+        long lastUpdated = buffer.getLong(offset + 28);
+        int nameOffset = offset + 4 + RECORD_FIXED_SIZE - 4;
+        int descriptionOffset = nameOffset + 2 + stringLength(buffer, nameOffset);
+
+        Product product = new Product(getString(buffer, nameOffset), quantity, threshold, id);
+        product.setPrice(price);
+        product.setCategory(category == NO_CATEGORY ? null : dictionary[category]);
+        product.setDescription(getString(buffer, descriptionOffset));
+        product.restoreLastUpdated(lastUpdated);
+        return product;
+    }
+
+    private static boolean isLegacy(ByteBuffer buffer) {
+        return buffer.remaining() >= 2 && buffer.getShort(buffer.position()) == JAVA_SERIALIZATION_MAGIC;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HashMap<Integer, Product> readLegacy(InputStream input) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(input)) {
+            return (HashMap<Integer, Product>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable legacy snapshot", e);
+        }
+    }
+
+    private static int stringLength(ByteBuffer buffer, int offset) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        return length == NULL_STRING ? 0 : length;
+    }
+
+    private static String getString(ByteBuffer buffer, int offset) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset + 2, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("String too long for snapshot: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes content to an open file channel
+     */
+    @FunctionalInterface
+    private interface ChannelWriter {
+        long writeTo(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Buffers encoded bytes and keeps a running checksum of everything written
+     */
+    private static final class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private long written;
+
+        Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void putString(byte[] bytes) throws IOException {
+            ensure(2 + (bytes == null ? 0 : bytes.length));
+            if (bytes == null) {
+                buffer.putShort((short) NULL_STRING);
+            } else {
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+        }
+
+        /**
+         * Writes one record. The category is passed as the dictionary index read when the dictionary was
+         * built, since the product's category may have been changed since.
+         */
+        void putProduct(Product product, int category) throws IOException {
+            byte[] name = encode(product.getName());
+            byte[] description = encode(product.getDescription());
+            int length = RECORD_FIXED_SIZE + name.length + (description == null ? 0 : description.length);
+
+            ensure(4 + length);
+            buffer.putInt(length)
+                    .putInt(product.getId())
+                    .putInt(product.getQuantity())
+                    .putInt(product.getQuantityThreshold())
+                    .putDouble(product.getPrice())
+                    .putInt(category)
+                    .putLong(product.getLastUpdatedMillis());
+            putString(name);
+            putString(description);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        long finish() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+            return written;
+        }
+    }
+}
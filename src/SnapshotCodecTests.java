@@ -0,0 +1,292 @@
+package src;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Test suite for the SnapshotCodec class
+ *
+ * @author Chloe Nuzillat
+ */
+public class SnapshotCodecTests {
+
+    /**
+     * Runs all snapshot codec tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running SnapshotCodec Tests...\n");
+
+        testRoundTrip();
+        testLegacyMigration();
+        testCorruption();
+        testMappedLoading();
+        testBackgroundSave();
+        testConcurrentCategoryEdits();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that every product field survives a write and read
+     */
+    private static void testRoundTrip() {
+        System.out.println("Round Trip Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path file = Files.createTempFile("snapshot", ".dat");
+            HashMap<Integer, Product> inventory = new HashMap<>();
+            Product laptop = new Product("Laptop", 10, 2, 1);
+            laptop.setPrice(999.99);
+            laptop.setCategory("Electronics");
+            laptop.setDescription("15 inch, 16 GB");
+            laptop.sell(1);
+            Product cafe = new Product("Café au lait", 5, 1, 2);
+            cafe.setCategory("Electronics");
+            Product bare = new Product("Bare", 0, 0, 3);
+            inventory.put(1, laptop);
+            inventory.put(2, cafe);
+            inventory.put(3, bare);
+
+            long written = SnapshotCodec.write(inventory.values(), file);
+            SimpleTestFramework.assertEquals(written, Files.size(file), "Reported size matches file size");
+
+            HashMap<Integer, Product> restored = SnapshotCodec.read(file);
+            Product restoredLaptop = restored.get(1);
+            SimpleTestFramework.assertEquals(3, restored.size(), "All products restored");
+            SimpleTestFramework.assertEquals("Laptop", restoredLaptop.getName(), "Name restored");
+            SimpleTestFramework.assertEquals(9, restoredLaptop.getQuantity(), "Quantity restored");
+            SimpleTestFramework.assertEquals(2, restoredLaptop.getQuantityThreshold(), "Threshold restored");
+            SimpleTestFramework.assertEquals(999.99, restoredLaptop.getPrice(), "Price restored");
+            SimpleTestFramework.assertEquals("Electronics", restoredLaptop.getCategory(), "Category restored");
+            SimpleTestFramework.assertEquals("15 inch, 16 GB", restoredLaptop.getDescription(),
+                    "Description restored");
+            SimpleTestFramework.assertEquals(laptop.getLastUpdated().withNano(
+                    laptop.getLastUpdated().getNano() / 1_000_000 * 1_000_000),
+                    restoredLaptop.getLastUpdated(), "Timestamp restored to the millisecond");
+            SimpleTestFramework.assertEquals("Café au lait", restored.get(2).getName(), "UTF-8 name restored");
+            SimpleTestFramework.assertNull(restored.get(3).getCategory(), "Missing category restored as null");
+            SimpleTestFramework.assertNull(restored.get(3).getLastUpdated(), "Missing timestamp restored as null");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that snapshots written with Java serialization are still read and can be migrated
+     */
+    private static void testLegacyMigration() {
+        System.out.println("Legacy Migration Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path file = Files.createTempFile("legacy", ".dat");
+            HashMap<Integer, Product> inventory = new HashMap<>();
+            Product mouse = new Product("Mouse", 50, 5, 7);
+            mouse.setCategory("Accessories");
+            inventory.put(7, mouse);
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file.toFile()))) {
+                out.writeObject(inventory);
+            }
+
+            SimpleTestFramework.assertEquals("Mouse", SnapshotCodec.read(file).get(7).getName(),
+                    "Legacy snapshot is readable");
+            SimpleTestFramework.assertTrue(SnapshotCodec.migrate(file), "Legacy snapshot is migrated");
+            SimpleTestFramework.assertFalse(SnapshotCodec.migrate(file), "Binary snapshot is left alone");
+            SimpleTestFramework.assertEquals("Accessories", SnapshotCodec.read(file).get(7).getCategory(),
+                    "Migrated snapshot keeps its data");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a damaged snapshot is rejected rather than partially loaded
+     */
+    private static void testCorruption() {
+        System.out.println("Corruption Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path file = Files.createTempFile("corrupt", ".dat");
+            HashMap<Integer, Product> inventory = new HashMap<>();
+            inventory.put(1, new Product("Keyboard", 15, 3, 1));
+            SnapshotCodec.write(inventory.values(), file);
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.seek(SnapshotCodec.HEADER_SIZE + 8);
+                raf.write(0x7F);
+            }
+
+            SimpleTestFramework.assertThrows(() -> {
+                try {
+                    SnapshotCodec.read(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "UncheckedIOException", "Checksum mismatch is detected");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a mapped snapshot decodes products on demand and behaves like an eager load
+     */
+    private static void testMappedLoading() {
+        System.out.println("Mapped Loading Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path file = Files.createTempFile("mapped", ".dat");
+            InventoryManager writer = new InventoryManager(file.toString(), null);
+            writer.addProduct("Laptop", 10, 2, 1);
+            writer.addProduct("Mouse", 50, 5, 2);
+            writer.addProduct("Keyboard", 15, 3, 3);
+            writer.getAllProducts().forEach(p -> p.setCategory("Electronics"));
+            writer.saveInventory();
+
+            MappedSnapshot snapshot = MappedSnapshot.open(file);
+            SimpleTestFramework.assertEquals(3, snapshot.remaining(), "Index covers every record");
+            SimpleTestFramework.assertTrue(snapshot.contains(2), "Index finds a record");
+            SimpleTestFramework.assertFalse(snapshot.contains(4), "Index rejects a missing id");
+            SimpleTestFramework.assertEquals("Mouse", snapshot.decode(2).getName(), "Record decoded by id");
+
+            InventoryManager manager = new InventoryManager(file.toString(), null, true);
+            SimpleTestFramework.assertTrue(manager.productExists(3), "Mapped product exists");
+            manager.sellProduct(1, 4);
+            SimpleTestFramework.assertTrue(manager.deleteProduct(2), "Mapped product can be deleted");
+            SimpleTestFramework.assertFalse(manager.productExists(2), "Deleted mapped product is gone");
+            manager.addProduct("Monitor", 7, 1, 4);
+            SimpleTestFramework.assertEquals(3, manager.getAllProducts().size(), "Scan sees decoded and new products");
+            SimpleTestFramework.assertEquals(1, manager.getAllCategories().size(), "Scan decodes categories");
+            manager.saveInventory();
+
+            HashMap<Integer, Product> reloaded = SnapshotCodec.read(file);
+            SimpleTestFramework.assertEquals(6, reloaded.get(1).getQuantity(), "Mapped changes are saved");
+            SimpleTestFramework.assertEquals("Keyboard", reloaded.get(3).getName(), "Untouched products are saved");
+
+            AtomicInteger decoded = new AtomicInteger();
+            SnapshotStore counting = new SnapshotStore(file.toString(), true) {
+                @Override
+                public Map<Integer, Product> load(Consumer<Product> onLoad) throws IOException {
+                    return super.load(product -> {
+                        decoded.incrementAndGet();
+                        onLoad.accept(product);
+                    });
+                }
+            };
+            InventoryManager concurrent = new InventoryManager(counting, true);
+            SimpleTestFramework.assertEquals(0, decoded.get(), "Concurrent mode decodes nothing on open");
+            SimpleTestFramework.assertTrue(concurrent.productExists(4), "Existence check needs no decode");
+            SimpleTestFramework.assertEquals(6, concurrent.findProduct(1).getQuantity(), "Lookup decodes the record");
+            SimpleTestFramework.assertEquals(1, decoded.get(), "Only the looked up record is decoded");
+            SimpleTestFramework.assertEquals(3, concurrent.getAllProducts().size(), "Scan decodes the rest");
+            SimpleTestFramework.assertEquals(3, decoded.get(), "Every record is decoded once");
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that background saves are coalesced and leave only the newest snapshot behind
+     */
+    private static void testBackgroundSave() {
+        System.out.println("Background Save Tests:");
+        System.out.println("-".repeat(30));
+
+        try {
+            Path dir = Files.createTempDirectory("background");
+            Path file = dir.resolve("inventory.dat");
+            InventoryManager manager = new InventoryManager(file.toString(), null);
+            for (int i = 1; i <= 20; i++) {
+                manager.addProduct("Product " + i, i, 1, i);
+                manager.saveInventoryAsync();
+            }
+            SimpleTestFramework.assertTrue(manager.awaitPendingSaves(10_000), "Background saves finish");
+
+            SnapshotScheduler scheduler = manager.getSnapshotScheduler();
+            SimpleTestFramework.assertEquals(20L, scheduler.getCompletedSaves() + scheduler.getCoalescedSaves(),
+                    "Every save is either written or coalesced");
+            SimpleTestFramework.assertEquals(20, SnapshotCodec.read(file).size(), "Newest snapshot is written");
+            try (var files = Files.list(dir)) {
+                SimpleTestFramework.assertEquals(1L, files.count(), "No temporary files are left behind");
+            }
+
+            for (int i = 1; i <= 20; i++) {
+                manager.restockProduct(i, 1);
+                manager.saveInventoryAsync();
+            }
+            manager.addProduct("Product 21", 21, 1, 21);
+            manager.saveInventory();
+            SimpleTestFramework.assertTrue(manager.awaitPendingSaves(10_000), "Superseded saves finish");
+            SimpleTestFramework.assertEquals(21, SnapshotCodec.read(file).size(),
+                    "Background saves never overwrite a later synchronous save");
+            scheduler.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that categories changed while a snapshot is encoded never leave a record without a dictionary entry
+     */
+    private static void testConcurrentCategoryEdits() {
+        System.out.println("Concurrent Category Edit Tests:");
+        System.out.println("-".repeat(30));
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            products.add(new Product("Product " + i, i, 1, i));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread editor = new Thread(() -> {
+            for (int round = 0; running.get(); round++) {
+                for (Product product : products) {
+                    product.setCategory("Category " + (round % 50));
+                }
+            }
+        });
+        editor.start();
+        try {
+            for (int i = 0; i < 50; i++) {
+                SnapshotCodec.write(products, Channels.newChannel(new ByteArrayOutputStream()));
+            }
+            SimpleTestFramework.assertTrue(true, "Snapshots encoded while categories change");
+        } catch (IOException | RuntimeException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected exception: " + e);
+        } finally {
+            running.set(false);
+            try {
+                editor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        System.out.println();
+    }
+}
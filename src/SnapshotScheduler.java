@@ -0,0 +1,145 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes inventory snapshots on a background thread.
+ * <p>
+ * The caller only hands over an {@link InventorySnapshot}, which holds copies of the products as they were
+ * when it was taken and costs nothing more to keep. A single writer thread encodes it and replaces the
+ * snapshot file atomically, so neither encoding nor file I/O runs on the caller's thread. If several saves
+ * are requested while a write is in progress only the newest one is written.
+ *
+ * @author Chloe Nuzillat
+ */
+public class SnapshotScheduler implements AutoCloseable {
+    private final Path file;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<PendingSnapshot> pending = new AtomicReference<>();
+    private volatile long lastSaveLatencyNanos;
+    private volatile long completedSaves;
+    private final AtomicLong coalescedSaves = new AtomicLong();
+
+    /**
+     * Creates a scheduler for a snapshot file
+     *
+     * @param file the snapshot file to replace on every save
+     */
+    public SnapshotScheduler(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Schedules a snapshot of the inventory to be encoded and written
+     *
+     * @param snapshot the products to write, as they were at one point in time
+     */
+    public void schedule(InventorySnapshot snapshot) {
+        PendingSnapshot replaced = pending.getAndSet(new PendingSnapshot(snapshot, System.nanoTime()));
+        if (replaced == null) {
+            writer.execute(this::writePending);
+        } else {
+            coalescedSaves.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops the snapshot waiting to be written, if any, and waits for the one being written to finish, so a
+     * newer snapshot can be written directly without being overwritten
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void supersede() throws InterruptedException {
+        if (pending.getAndSet(null) != null) {
+            coalescedSaves.incrementAndGet();
+        }
+        if (!writer.isShutdown()) {
+            awaitIdle(Long.MAX_VALUE);
+        }
+    }
+
+    private void writePending() {
+        PendingSnapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            SnapshotCodec.write(snapshot.snapshot().asList(), file);
+            lastSaveLatencyNanos = System.nanoTime() - snapshot.requestedAt();
+            completedSaves++;
+        } catch (IOException e) {
+            System.out.println("Error saving inventory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until every scheduled snapshot has been written
+     *
+     * @param timeoutMillis how long to wait at most
+     * @return true if nothing is left to write
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        try {
+            writer.submit(() -> { }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the time from the last completed save request until its file was in place
+     *
+     * @return the latency in milliseconds
+     */
+    public double getLastSaveLatencyMillis() {
+        return lastSaveLatencyNanos / 1e6;
+    }
+
+    /**
+     * Gets the number of snapshots written
+     *
+     * @return the completed save count
+     */
+    public long getCompletedSaves() {
+        return completedSaves;
+    }
+
+    /**
+     * Gets the number of save requests that were replaced by a newer one before being written
+     *
+     * @return the coalesced save count
+     */
+    public long getCoalescedSaves() {
+        return coalescedSaves.get();
+    }
+
+    /**
+     * Writes any pending snapshot and stops the writer thread
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingSnapshot(InventorySnapshot snapshot, long requestedAt) {
+    }
+}
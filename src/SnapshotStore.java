@@ -0,0 +1,108 @@
+package src;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Store that rewrites a binary snapshot on every flush, optionally loading it lazily from a memory map.
+ * <p>
+ * In mapped mode only an id to offset index is built when loading, and each product is decoded the first
+ * time it is looked up or scanned. The checksum is then not verified, since that would read the whole file
+ * before the first lookup; record lengths are still checked against the file size. A flush walks every
+ * product, which decodes the remaining records and drops the mapping before the new snapshot is renamed over
+ * the file; the operating system releases it once the buffer is collected, which some platforms need before
+ * a mapped file can be replaced, so mapped mode suits read-mostly use. Snapshots still in the legacy
+ * serialized format are read eagerly.
+ * Asynchronous flushes take an {@link InventorySnapshot} and encode and write it on a background thread. A
+ * synchronous flush drops any snapshot still waiting to be written and waits for the one being written, so
+ * an older background save never lands over a newer synchronous one.
+ *
+ * @author Chloe Nuzillat
+ */
+public class SnapshotStore implements InventoryStore {
+    private final Path file;
+    private final boolean mapped;
+    private volatile SnapshotScheduler scheduler;
+
+    /**
+     * Creates a store for a snapshot file
+     *
+     * @param file the snapshot file
+     * @param mapped true to memory-map the snapshot and decode products on first access
+     */
+    public SnapshotStore(String file, boolean mapped) {
+        this.file = Path.of(file);
+        this.mapped = mapped;
+    }
+
+    @Override
+    public Map<Integer, Product> load(Consumer<Product> onLoad) throws IOException {
+        if (mapped) {
+            try {
+                return new LazyInventoryMap(MappedSnapshot.open(file), onLoad);
+            } catch (IOException e) {
+                if (!Files.exists(file)) {
+                    throw e;
+                }
+            }
+        }
+        HashMap<Integer, Product> inventory = SnapshotCodec.read(file);
+        inventory.values().forEach(onLoad);
+        return inventory;
+    }
+
+    @Override
+    public synchronized void flush(Collection<Product> inventory) throws IOException {
+        if (scheduler != null) {
+            try {
+                scheduler.supersede();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a background save");
+            }
+        }
+        SnapshotCodec.write(inventory, file);
+    }
+
+    /**
+     * Starts writing a snapshot of the inventory on a background thread and returns at once
+     *
+     * @param snapshot the products to write, as they were at one point in time
+     */
+    public synchronized void flushAsync(InventorySnapshot snapshot) {
+        if (scheduler == null) {
+            scheduler = new SnapshotScheduler(file);
+        }
+        scheduler.schedule(snapshot);
+    }
+
+    @Override
+    public boolean awaitFlush(long timeoutMillis) throws InterruptedException {
+        return scheduler == null || scheduler.awaitIdle(timeoutMillis);
+    }
+
+    /**
+     * Gets the scheduler used by asynchronous flushes, for save latency and coalescing statistics
+     *
+     * @return the scheduler, or null if no asynchronous flush has been requested
+     */
+    public SnapshotScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Finishes pending background saves and stops the writer thread
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+}
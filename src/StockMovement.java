@@ -0,0 +1,117 @@
+package src;
+
+/**
+ * A single sale, restock or new product in a batch passed to {@link InventoryManager#applyBatch(java.util.List)}
+ *
+ * @author Chloe Nuzillat
+ */
+public final class StockMovement {
+
+    /**
+     * The kind of movement
+     */
+    public enum Type {
+        SELL, RESTOCK, ADD
+    }
+
+    /**
+     * The outcome of applying one movement
+     */
+    public enum Result {
+        APPLIED, NOT_FOUND, INSUFFICIENT_STOCK, INVALID
+    }
+
+    private final Type type;
+    private final int id;
+    private final int quantity;
+    private final String name;
+    private final int threshold;
+
+    private StockMovement(Type type, int id, int quantity, String name, int threshold) {
+        this.type = type;
+        this.id = id;
+        this.quantity = quantity;
+        this.name = name;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a sale
+     *
+     * @param id the id of the product
+     * @param quantity the amount sold
+     * @return the movement
+     */
+    public static StockMovement sell(int id, int quantity) {
+        return new StockMovement(Type.SELL, id, quantity, null, 0);
+    }
+
+    /**
+     * Creates a restock
+     *
+     * @param id the id of the product
+     * @param quantity the amount restocked
+     * @return the movement
+     */
+    public static StockMovement restock(int id, int quantity) {
+        return new StockMovement(Type.RESTOCK, id, quantity, null, 0);
+    }
+
+    /**
+     * Creates a new product, replacing any product with the same id
+     *
+     * @param name the name of the product
+     * @param quantity the amount of product in stock
+     * @param threshold the threshold that determines if a product is low stock
+     * @param id the unique identifier for the product
+     * @return the movement
+     */
+    public static StockMovement add(String name, int quantity, int threshold, int id) {
+        return new StockMovement(Type.ADD, id, quantity, name, threshold);
+    }
+
+    /**
+     * Gets the kind of movement
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the id of the product
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the amount sold, restocked or added
+     *
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the name of a new product
+     *
+     * @return the name, or null for sales and restocks
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the low stock threshold of a new product
+     *
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+}
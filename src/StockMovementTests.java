@@ -0,0 +1,162 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Test suite for batches of stock movements applied through InventoryManager.applyBatch
+ *
+ * @author Chloe Nuzillat
+ */
+public class StockMovementTests {
+
+    /**
+     * Runs all stock movement tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running StockMovement Tests...\n");
+
+        testResults();
+        testSingleFlush();
+        testConcurrentBatches();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests that each movement reports its own outcome without stopping the batch
+     */
+    private static void testResults() {
+        System.out.println("Batch Result Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+
+        StockMovement.Result[] results = manager.applyBatch(List.of(
+                StockMovement.sell(1, 4),
+                StockMovement.add("Mouse", 5, 1, 2),
+                StockMovement.sell(2, 6),
+                StockMovement.restock(2, 3),
+                StockMovement.sell(2, 6),
+                StockMovement.sell(9, 1),
+                StockMovement.sell(1, 0),
+                StockMovement.add(" ", 1, 1, 3),
+                StockMovement.restock(1, Integer.MAX_VALUE)));
+
+        SimpleTestFramework.assertEquals(StockMovement.Result.APPLIED, results[0], "Sale applied");
+        SimpleTestFramework.assertEquals(StockMovement.Result.APPLIED, results[1], "New product added");
+        SimpleTestFramework.assertEquals(StockMovement.Result.INSUFFICIENT_STOCK, results[2],
+                "Oversell refused");
+        SimpleTestFramework.assertEquals(StockMovement.Result.APPLIED, results[4],
+                "Later movements see earlier ones");
+        SimpleTestFramework.assertEquals(StockMovement.Result.NOT_FOUND, results[5], "Unknown product reported");
+        SimpleTestFramework.assertEquals(StockMovement.Result.INVALID, results[6], "Zero amount refused");
+        SimpleTestFramework.assertEquals(StockMovement.Result.INVALID, results[7], "Blank name refused");
+        SimpleTestFramework.assertEquals(StockMovement.Result.INVALID, results[8], "Overflowing restock refused");
+        SimpleTestFramework.assertEquals(6, findProduct(manager, 1).getQuantity(), "Refused restock left stock");
+        SimpleTestFramework.assertEquals(2, findProduct(manager, 2).getQuantity(), "Stock follows the batch");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that a batch is saved with exactly one flush and survives a restart in journal mode
+     */
+    private static void testSingleFlush() {
+        System.out.println("Batch Flush Tests:");
+        System.out.println("-".repeat(30));
+
+        CountingStore counting = new CountingStore();
+        InventoryManager manager = new InventoryManager(counting);
+        List<StockMovement> movements = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            movements.add(StockMovement.add("Product " + id, 10, 1, id));
+            movements.add(StockMovement.sell(id, 3));
+        }
+        manager.applyBatch(movements);
+        SimpleTestFramework.assertEquals(1, counting.flushes, "One flush per batch");
+
+        try {
+            Path dir = Files.createTempDirectory("batch");
+            String snapshot = dir.resolve("inventory.dat").toString();
+            String journalFile = dir.resolve("inventory.journal").toString();
+            InventoryJournal journal = new InventoryJournal(journalFile, InventoryJournal.FsyncPolicy.ALWAYS, 1);
+            new InventoryManager(snapshot, journal).applyBatch(movements);
+            journal.close();
+
+            InventoryJournal reopened = new InventoryJournal(journalFile, InventoryJournal.FsyncPolicy.ALWAYS, 1);
+            InventoryManager restored = new InventoryManager(snapshot, reopened);
+            SimpleTestFramework.assertEquals(100, restored.getAllProducts().size(), "Journaled batch restored");
+            SimpleTestFramework.assertEquals(7, findProduct(restored, 42).getQuantity(),
+                    "Journaled sales restored");
+            reopened.close();
+        } catch (IOException e) {
+            SimpleTestFramework.assertTrue(false, "Unexpected IOException: " + e.getMessage());
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that batches from several threads on a concurrent manager lose no movement
+     */
+    private static void testConcurrentBatches() {
+        System.out.println("Concurrent Batch Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore(), true);
+        for (int id = 0; id < 200; id++) {
+            manager.addProduct("Product " + id, 1000, 0, id);
+        }
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int round = 0; round < 50; round++) {
+                    List<StockMovement> batch = new ArrayList<>();
+                    for (int id = 0; id < 200; id++) {
+                        batch.add(StockMovement.sell(id, 2));
+                        batch.add(StockMovement.restock(id, 1));
+                    }
+                    manager.applyBatch(batch);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        SimpleTestFramework.assertEquals(200 * (1000 - 4 * 50), manager.getAllProducts().stream()
+                .mapToInt(Product::getQuantity).sum(), "Every batched movement counted");
+
+        System.out.println();
+    }
+
+    private static Product findProduct(InventoryManager manager, int id) {
+        return manager.getAllProducts().stream()
+                .filter(p -> p.getId() == id)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Store that counts flushes
+     */
+    private static final class CountingStore extends MemoryStore {
+        private int flushes;
+
+        @Override
+        public void flush(Collection<Product> inventory) {
+            flushes++;
+        }
+    }
+}
@@ -24,6 +24,122 @@ public class TestRunner {
         SimpleTestFramework.reset();
 
         InventoryManagerTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        InventoryJournalTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        SnapshotCodecTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        DeltaSnapshotsTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        CsvImporterTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        CsvExporterTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        InventoryStoreTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        ConcurrentInventoryTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        StockMovementTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        MutationPipelineTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        ReservationTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        ShardedInventoryTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        CategoryIndexTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        LowStockIndexTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        InventoryTotalsTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        TrigramIndexTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+
+        SimpleTestFramework.reset();
+
+        AutocompleteIndexTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+        SimpleTestFramework.reset();
+
+        FuzzyIndexTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+        SimpleTestFramework.reset();
+
+        ProductQueryTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+        SimpleTestFramework.reset();
+
+        RangeIndexTests.runAllTests();
+
+        System.out.println("\n" + "=".repeat(50) + "\n");
+        SimpleTestFramework.reset();
+
+        ProductPageTests.runAllTests();
         
         System.out.println("\n" + "=".repeat(50));
         System.out.println("ALL TESTS COMPLETED!");
@@ -0,0 +1,325 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index from every three-character sequence of a lower-cased product name to the ids of the products
+ * whose name contains it, for substring search.
+ * <p>
+ * A term of three or more characters can only occur in names that contain each of its trigrams, so a search
+ * intersects the {@link PostingList}s of those trigrams, starting from the shortest, and then checks the few
+ * names left. A much longer list is probed one candidate at a time rather than decoded. Shorter terms have
+ * no trigram and are matched against every indexed name instead, comparing characters case-insensitively in
+ * place rather than lower-casing each name. Product names never change, so only adding, replacing and
+ * deleting products update the index.
+ *
+ * @author Chloe Nuzillat
+ */
+public class TrigramIndex implements ProductIndex {
+    private static final int PAGE_BATCH = 256;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Integer, Product> products = new HashMap<>();
+
+    @Override
+    public synchronized void add(Product product) {
+        Product previous = products.put(product.getId(), product);
+        if (previous != null) {
+            if (previous.getName().equals(product.getName())) {
+                return;
+            }
+            unpost(previous);
+        }
+        for (long trigram : trigrams(product.getName())) {
+            postings.computeIfAbsent(trigram, key -> new PostingList()).add(product.getId());
+        }
+    }
+
+    @Override
+    public synchronized void remove(Product product) {
+        if (products.remove(product.getId(), product)) {
+            unpost(product);
+        }
+    }
+
+    @Override
+    public void changed(Product product) {
+    }
+
+    /**
+     * Finds the products whose name contains a term, ignoring case
+     *
+     * @param term the term to search for
+     * @return a new list of the matching products
+     */
+    public synchronized List<Product> search(String term) {
+        String normalized = normalize(term);
+        List<Product> matches = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            matches.addAll(products.values());
+            return matches;
+        }
+        if (normalized.length() < 3) {
+            for (Product product : products.values()) {
+                if (contains(product.getName(), normalized)) {
+                    matches.add(product);
+                }
+            }
+            return matches;
+        }
+
+        long[] trigrams = trigrams(normalized);
+        PostingList[] lists = new PostingList[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return matches;
+            }
+        }
+        Arrays.sort(lists, (first, second) -> Integer.compare(first.size(), second.size()));
+        int[] candidates = lists[0].toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            if (lists[i].size() > count * 8L) {
+                count = lists[i].retainAll(candidates, count);
+            } else {
+                count = intersect(candidates, count, lists[i].toArray());
+            }
+        }
+        boolean exact = normalized.length() == 3;
+        for (int i = 0; i < count; i++) {
+            Product product = products.get(candidates[i]);
+            if (exact || contains(product.getName(), normalized)) {
+                matches.add(product);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the products whose name contains a term, ignoring case, in ascending order of id and starting
+     * after an id. Only the shortest posting list of the term is walked, a batch at a time, from the block
+     * holding that id, so the cost follows the page rather than every match.
+     *
+     * @param term the term to search for, at least three characters long
+     * @param afterId the id to start after
+     * @param limit the largest number of products to return
+     * @return a new list of at most limit matching products, lowest id first
+     * @throws IllegalArgumentException if the term is shorter than three characters
+     */
+    synchronized List<Product> search(String term, long afterId, int limit) {
+        String normalized = normalize(term);
+        if (normalized.length() < 3) {
+            throw new IllegalArgumentException("Term must have at least three characters");
+        }
+        List<Product> matches = new ArrayList<>();
+        PostingList shortest = shortest(normalized);
+        if (shortest == null) {
+            return matches;
+        }
+        boolean exact = normalized.length() == 3;
+        int[] batch = new int[Math.max(PAGE_BATCH, Math.min(limit, shortest.size()))];
+        while (matches.size() < limit) {
+            int count = shortest.copyAfter(afterId, batch);
+            for (int i = 0; i < count && matches.size() < limit; i++) {
+                Product product = products.get(batch[i]);
+                if (exact || contains(product.getName(), normalized)) {
+                    matches.add(product);
+                }
+            }
+            if (count < batch.length) {
+                break;
+            }
+            afterId = batch[count - 1];
+        }
+        return matches;
+    }
+
+    /**
+     * Passes the products whose name contains a term, ignoring case, to a visitor until it asks to stop. Terms
+     * of three or more characters walk only the shortest posting list of their trigrams, in ascending order of
+     * id; shorter terms check every indexed name. No list of matches is built.
+     *
+     * @param term the term to search for
+     * @param visitor receives each match and returns false to stop
+     */
+    synchronized void visit(String term, Predicate<? super Product> visitor) {
+        String normalized = normalize(term);
+        if (normalized.length() < 3) {
+            for (Product product : products.values()) {
+                if (contains(product.getName(), normalized) && !visitor.test(product)) {
+                    return;
+                }
+            }
+            return;
+        }
+        PostingList shortest = shortest(normalized);
+        if (shortest == null) {
+            return;
+        }
+        boolean exact = normalized.length() == 3;
+        int[] batch = new int[PAGE_BATCH];
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            int count = shortest.copyAfter(afterId, batch);
+            for (int i = 0; i < count; i++) {
+                Product product = products.get(batch[i]);
+                if ((exact || contains(product.getName(), normalized)) && !visitor.test(product)) {
+                    return;
+                }
+            }
+            if (count < batch.length) {
+                return;
+            }
+            afterId = batch[count - 1];
+        }
+    }
+
+    /**
+     * Finds the shortest posting list among the trigrams of a normalized term of three or more characters
+     *
+     * @return the list, or null if one of the trigrams occurs in no name
+     */
+    private PostingList shortest(String normalized) {
+        PostingList shortest = null;
+        for (long trigram : trigrams(normalized)) {
+            PostingList list = postings.get(trigram);
+            if (list == null) {
+                return null;
+            }
+            if (shortest == null || list.size() < shortest.size()) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Estimates how many products a search for a term visits: the length of the shortest posting list of its
+     * trigrams, or every product for terms too short to have one
+     *
+     * @param term the term
+     * @return the estimated number of products
+     */
+    public synchronized int estimate(String term) {
+        long[] trigrams = trigrams(normalize(term));
+        int estimate = products.size();
+        for (long trigram : trigrams) {
+            PostingList list = postings.get(trigram);
+            estimate = Math.min(estimate, list == null ? 0 : list.size());
+        }
+        return estimate;
+    }
+
+    /**
+     * Gets the number of distinct trigrams indexed
+     *
+     * @return the trigram count
+     */
+    public synchronized int getTrigramCount() {
+        return postings.size();
+    }
+
+    /**
+     * Keeps the candidates that are also in a decoded list, walking both in ascending order
+     */
+    private static int intersect(int[] candidates, int count, int[] ids) {
+        int kept = 0;
+        int next = 0;
+        for (int i = 0; i < count && next < ids.length; i++) {
+            while (next < ids.length && ids[next] < candidates[i]) {
+                next++;
+            }
+            if (next < ids.length && ids[next] == candidates[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    private void unpost(Product product) {
+        for (long trigram : trigrams(product.getName())) {
+            PostingList list = postings.get(trigram);
+            list.remove(product.getId());
+            if (list.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Lower-cases a text one character at a time, as names are compared, so the text keeps its length
+     *
+     * @param text the text
+     * @return the lower-cased text
+     */
+    static String normalize(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Checks if a name contains a lower-cased term, ignoring case, without copying the name. Occurrences of
+     * the first character are found with {@link String#indexOf(int, int)}, which is much faster than
+     * comparing the name one character at a time.
+     *
+     * @param name the name
+     * @param term the term, lower-cased by {@link #normalize(String)} and not empty
+     * @return true if the name contains the term
+     */
+    static boolean contains(String name, String term) {
+        int last = name.length() - term.length();
+        char first = term.charAt(0);
+        char upper = Character.toUpperCase(first);
+        int lowerAt = name.indexOf(first);
+        int upperAt = upper == first ? -1 : name.indexOf(upper);
+        while (lowerAt >= 0 || upperAt >= 0) {
+            int start = lowerAt < 0 ? upperAt : upperAt < 0 ? lowerAt : Math.min(lowerAt, upperAt);
+            if (start > last) {
+                return false;
+            }
+            if (name.regionMatches(true, start + 1, term, 1, term.length() - 1)) {
+                return true;
+            }
+            if (start == lowerAt) {
+                lowerAt = name.indexOf(first, start + 1);
+            } else {
+                upperAt = name.indexOf(upper, start + 1);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs each distinct trigram of a text, lower-cased, into a long, three 16-bit characters at a time. The
+     * packed value is multiplied by an odd constant, which keeps trigrams distinct but spreads their hash codes.
+     */
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            long packed = (long) Character.toLowerCase(text.charAt(i)) << 32
+                    | (long) Character.toLowerCase(text.charAt(i + 1)) << 16
+                    | Character.toLowerCase(text.charAt(i + 2));
+            trigrams[i] = packed * 0x9E3779B97F4A7C15L;
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[distinct - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+}
@@ -0,0 +1,160 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Test suite for the TrigramIndex and PostingList classes and product search in InventoryManager
+ *
+ * @author Chloe Nuzillat
+ */
+public class TrigramIndexTests {
+
+    /**
+     * Runs all trigram index tests
+     */
+    public static void runAllTests() {
+        System.out.println("Running TrigramIndex Tests...\n");
+
+        testSearch();
+        testMaintenance();
+        testRandomSearches();
+        testPostingList();
+
+        SimpleTestFramework.printSummary();
+    }
+
+    /**
+     * Tests substring, case-insensitive, short and blank searches
+     */
+    private static void testSearch() {
+        System.out.println("Search Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Wireless Mouse", 10, 2, 1);
+        manager.addProduct("Wired Mouse", 10, 2, 2);
+        manager.addProduct("Mousepad", 10, 2, 3);
+        manager.addProduct("USB Cable", 10, 2, 4);
+
+        SimpleTestFramework.assertEquals(3, manager.searchProducts("mouse").size(), "Substring matched");
+        SimpleTestFramework.assertEquals(2, manager.searchProducts("WIRE").size(), "Case ignored");
+        SimpleTestFramework.assertEquals(1, manager.searchProducts("less m").size(), "Spaces matched");
+        SimpleTestFramework.assertEquals(0, manager.searchProducts("mousse").size(), "Missing trigram");
+        SimpleTestFramework.assertEquals(0, manager.searchProducts("wired mousepad").size(),
+                "Every trigram present but not the term");
+        SimpleTestFramework.assertEquals(1, manager.searchProducts("pa").size(), "Short term scanned");
+        SimpleTestFramework.assertEquals(4, manager.searchProducts(" ").size(), "Blank term matches all");
+        SimpleTestFramework.assertEquals(4, manager.searchProducts(null).size(), "Null term matches all");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that added, replaced and deleted products are found or no longer found
+     */
+    private static void testMaintenance() {
+        System.out.println("Index Maintenance Tests:");
+        System.out.println("-".repeat(30));
+
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        manager.addProduct("Laptop", 10, 2, 1);
+        TrigramIndex index = manager.getSearchIndex();
+        manager.addProduct("Laptop Stand", 10, 2, 2);
+        SimpleTestFramework.assertEquals(2, index.search("laptop").size(), "Added product found");
+
+        manager.addProduct("Monitor Stand", 10, 2, 2);
+        SimpleTestFramework.assertEquals(1, index.search("laptop").size(), "Replaced name no longer found");
+        SimpleTestFramework.assertEquals(1, index.search("monitor").size(), "Replacing name found");
+
+        manager.deleteProduct(1);
+        SimpleTestFramework.assertEquals(0, index.search("laptop").size(), "Deleted product not found");
+        SimpleTestFramework.assertEquals(0, index.search("lap").size(), "Deleted trigrams dropped");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests that searches match a full scan after many random adds and deletes
+     */
+    private static void testRandomSearches() {
+        System.out.println("Random Search Tests:");
+        System.out.println("-".repeat(30));
+
+        String[] words = {"Red", "Blue", "Steel", "Widget", "Gadget", "Cable", "Lamp", "Desk"};
+        InventoryManager manager = new InventoryManager(new MemoryStore());
+        Random random = new Random(20);
+        manager.getSearchIndex();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(3000);
+            if (random.nextInt(4) == 0) {
+                manager.deleteProduct(id);
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                        + " " + random.nextInt(500);
+                manager.addProduct(name, 1, 0, id);
+            }
+        }
+
+        boolean matches = true;
+        for (String term : new String[] {"widget", "LAMP", "d g", "steel desk 4", "12", "e", "blue red 9"}) {
+            String lower = term.toLowerCase(Locale.ROOT);
+            long scanned = manager.getAllProducts().stream()
+                    .filter(product -> product.getName().toLowerCase(Locale.ROOT).contains(lower))
+                    .count();
+            matches &= scanned == manager.searchProducts(term).size();
+        }
+        SimpleTestFramework.assertTrue(matches, "Searches match a full scan");
+
+        System.out.println();
+    }
+
+    /**
+     * Tests posting lists against a sorted set through adds and removes that force compaction
+     */
+    private static void testPostingList() {
+        System.out.println("Posting List Tests:");
+        System.out.println("-".repeat(30));
+
+        PostingList list = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(21);
+        for (int i = 0; i < 200_000; i++) {
+            int id = random.nextInt(100_000) - 50_000;
+            if (random.nextInt(3) == 0) {
+                list.remove(id);
+                expected.remove(id);
+            } else {
+                list.add(id);
+                expected.add(id);
+            }
+        }
+        List<Integer> decoded = new ArrayList<>();
+        for (int id : list.toArray()) {
+            decoded.add(id);
+        }
+        SimpleTestFramework.assertEquals(expected.size(), list.size(), "Size tracked");
+        SimpleTestFramework.assertEquals(new ArrayList<>(expected), decoded, "Decodes in ascending order");
+
+        boolean contains = true;
+        for (int id = -50_000; id < 50_000; id += 7) {
+            contains &= list.contains(id) == expected.contains(id);
+        }
+        SimpleTestFramework.assertTrue(contains, "Membership matches");
+
+        PostingList wide = new PostingList();
+        wide.add(Integer.MAX_VALUE);
+        wide.add(Integer.MIN_VALUE);
+        for (int id = 0; id < 100; id++) {
+            wide.add(id * 1000);
+        }
+        int[] candidates = {Integer.MIN_VALUE, 5, 99_000, Integer.MAX_VALUE};
+        SimpleTestFramework.assertEquals(3, wide.retainAll(candidates, candidates.length),
+                "Extreme ids kept");
+
+        System.out.println();
+    }
+}